@@ -44,6 +44,7 @@ import org.apache.ivy.core.module.id.ModuleRevisionId;
 import org.apache.ivy.core.publish.PublishEngine;
 import org.apache.ivy.core.publish.PublishOptions;
 import org.apache.ivy.core.report.ResolveReport;
+import org.apache.ivy.core.report.WarmUpReport;
 import org.apache.ivy.core.repository.RepositoryManagementEngine;
 import org.apache.ivy.core.resolve.ResolveData;
 import org.apache.ivy.core.resolve.ResolveEngine;
@@ -520,6 +521,26 @@ public class Ivy {
         }
     }
 
+    public ResolveReport[] resolve(Collection/*<ModuleDescriptor>*/ mds, ResolveOptions options,
+            int threadCount) throws ParseException, IOException {
+        pushContext();
+        try {
+            return resolveEngine.resolve(mds, options, threadCount);
+        } finally {
+            popContext();
+        }
+    }
+
+    public WarmUpReport warmUp(Collection/*<Object>*/ modules, ResolveOptions options,
+            int threadCount) throws ParseException, IOException {
+        pushContext();
+        try {
+            return resolveEngine.warmUp(modules, options, threadCount);
+        } finally {
+            popContext();
+        }
+    }
+
     // ///////////////////////////////////////////////////////////////////////
     // INSTALL
     // ///////////////////////////////////////////////////////////////////////
@@ -44,6 +44,7 @@ import org.apache.ivy.core.module.id.ModuleRevisionId;
 import org.apache.ivy.core.publish.PublishOptions;
 import org.apache.ivy.core.report.ArtifactDownloadReport;
 import org.apache.ivy.core.report.ResolveReport;
+import org.apache.ivy.core.report.WarmUpReport;
 import org.apache.ivy.core.resolve.ResolveOptions;
 import org.apache.ivy.core.retrieve.RetrieveOptions;
 import org.apache.ivy.core.settings.IvySettings;
@@ -104,6 +105,13 @@ public final class Main {
             .addOption(new OptionBuilder("notransitive")
                 .description("do not resolve dependencies transitively").create())
                 
+            .addCategory("warm up options")
+            .addOption(new OptionBuilder("warmup").arg("modules").countArgs(false)
+                .description("put in the cache the dependency closures of the given ivy files "
+                    + "and modules (organisation#module;revision) instead of resolving").create())
+            .addOption(new OptionBuilder("threads").arg("count")
+                .description("use given number of threads to warm up the cache").create())
+
             .addCategory("retrieve options")
             .addOption(new OptionBuilder("retrieve").arg("retrievepattern")
                 .description("use given pattern as retrieve pattern").create())
@@ -229,6 +237,24 @@ public final class Main {
                 confs = new String[] {"*"};
             }
 
+            if (line.hasOption("warmup")) {
+                ResolveOptions warmUpOptions = new ResolveOptions().setConfs(confs)
+                    .setValidate(validate)
+                    .setResolveMode(line.getOptionValue("mode"))
+                    .setArtifactFilter(
+                        FilterHelper.getArtifactTypeFilter(line.getOptionValues("types")))
+                    .setTransitive(!line.hasOption("notransitive"))
+                    .setRefresh(line.hasOption("refresh"));
+                WarmUpReport report = ivy.warmUp(getWarmUpModules(settings, line), warmUpOptions,
+                    Integer.parseInt(line.getOptionValue("threads", "4")));
+                if (report.hasError()) {
+                    System.exit(1);
+                }
+                ivy.getLoggerEngine().popLogger();
+                ivy.popContext();
+                return;
+            }
+
             File ivyfile;
             if (line.hasOption("dependency")) {
                 String[] dep = line.getOptionValues("dependency");
@@ -369,6 +395,27 @@ public final class Main {
         return fileList;
     }
 
+    /**
+     * Returns the modules given to the <code>warmup</code> option: the URLs of the given ivy
+     * files, and the ids of the given modules.
+     */
+    private static List/*<Object>*/ getWarmUpModules(IvySettings settings, CommandLine line)
+            throws MalformedURLException, ParseException {
+        String[] values = line.getOptionValues("warmup");
+        List modules = new ArrayList();
+        for (int i = 0; i < values.length; i++) {
+            File ivyfile = new File(settings.substitute(values[i]));
+            if (ivyfile.isFile()) {
+                modules.add(ivyfile.toURI().toURL());
+            } else if (values[i].indexOf('#') != -1) {
+                modules.add(ModuleRevisionId.parse(values[i]));
+            } else {
+                error("ivy file not found: " + ivyfile);
+            }
+        }
+        return modules;
+    }
+
     private static IvySettings initSettings(CommandLine line, Ivy ivy) 
             throws java.text.ParseException, IOException, ParseException {
         IvySettings settings = ivy.getSettings();
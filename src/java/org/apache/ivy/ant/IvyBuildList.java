@@ -30,8 +30,14 @@ import java.util.ListIterator;
 import java.util.Map;
 import java.util.Set;
 import java.util.StringTokenizer;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 import org.apache.ivy.Ivy;
+import org.apache.ivy.core.IvyContext;
 import org.apache.ivy.core.module.descriptor.DependencyDescriptor;
 import org.apache.ivy.core.module.descriptor.ModuleDescriptor;
 import org.apache.ivy.core.module.id.ModuleId;
@@ -87,6 +93,10 @@ public class IvyBuildList extends IvyTask {
     private boolean onlydirectdep = false;
 
     private String restartFrom = "*";
+
+    private int threadCount = 1;
+
+    private boolean waves = false;
         
     public void addFileset(FileSet buildFiles) {
         buildFileSets.add(buildFiles);
@@ -159,7 +169,7 @@ public class IvyBuildList extends IvyTask {
         }
 
         Ivy ivy = getIvyInstance();
-        IvySettings settings = ivy.getSettings();
+        final IvySettings settings = ivy.getSettings();
 
         ivyFilePath = getProperty(ivyFilePath, settings, "ivy.buildlist.ivyfilepath");
 
@@ -193,6 +203,7 @@ public class IvyBuildList extends IvyTask {
             restartFromModuleNames.add(st.nextToken());
         }
         
+        List buildFilesWithDescriptor = new ArrayList();
         for (ListIterator iter = buildFileSets.listIterator(); iter.hasNext();) {
             FileSet fs = (FileSet) iter.next();
             DirectoryScanner ds = fs.getDirectoryScanner(getProject());
@@ -203,26 +214,53 @@ public class IvyBuildList extends IvyTask {
                 if (!ivyFile.exists()) {
                     onMissingDescriptor(buildFile, ivyFile, noDescriptor);
                 } else {
-                    try {
-                        ModuleDescriptor md = ModuleDescriptorParserRegistry.getInstance()
-                                .parseDescriptor(
-                                    settings, ivyFile.toURI().toURL(), doValidate(settings));
-                        buildFiles.put(md, buildFile);
-                        mds.add(md);
-                        Message.debug("Add " + md.getModuleRevisionId().getModuleId());
-                    } catch (Exception ex) {
-                        if (haltOnError) {
-                            throw new BuildException("impossible to parse ivy file for "
-                                    + buildFile + ": ivyfile=" + ivyFile + " exception=" + ex, ex);
-                        } else {
-                            Message.warn("impossible to parse ivy file for " + buildFile
-                                    + ": ivyfile=" + ivyFile + " exception=" + ex.getMessage());
-                            Message.info("\t=> adding it at the beginning of the path");
-                            independent.add(buildFile);
-                        }
+                    buildFilesWithDescriptor.add(buildFile);
+                }
+            }
+        }
+
+        final boolean validate = doValidate(settings);
+        ExecutorService executor = null;
+        Future[] parsed = null;
+        if (threadCount > 1 && buildFilesWithDescriptor.size() > 1) {
+            executor = Executors.newFixedThreadPool(threadCount);
+            parsed = new Future[buildFilesWithDescriptor.size()];
+            for (int i = 0; i < parsed.length; i++) {
+                final File ivyFile = getIvyFileFor((File) buildFilesWithDescriptor.get(i));
+                parsed[i] = executor.submit(IvyContext.propagate(new Callable() {
+                    public Object call() throws Exception {
+                        return parseDescriptor(settings, ivyFile, validate);
+                    }
+                }));
+            }
+        }
+        try {
+            for (int i = 0; i < buildFilesWithDescriptor.size(); i++) {
+                File buildFile = (File) buildFilesWithDescriptor.get(i);
+                File ivyFile = getIvyFileFor(buildFile);
+                try {
+                    ModuleDescriptor md = parsed == null 
+                            ? parseDescriptor(settings, ivyFile, validate)
+                            : (ModuleDescriptor) getParsedDescriptor(parsed[i]);
+                    buildFiles.put(md, buildFile);
+                    mds.add(md);
+                    Message.debug("Add " + md.getModuleRevisionId().getModuleId());
+                } catch (Exception ex) {
+                    if (haltOnError) {
+                        throw new BuildException("impossible to parse ivy file for "
+                                + buildFile + ": ivyfile=" + ivyFile + " exception=" + ex, ex);
+                    } else {
+                        Message.warn("impossible to parse ivy file for " + buildFile
+                                + ": ivyfile=" + ivyFile + " exception=" + ex.getMessage());
+                        Message.info("\t=> adding it at the beginning of the path");
+                        independent.add(buildFile);
                     }
                 }
             }
+        } finally {
+            if (executor != null) {
+                executor.shutdownNow();
+            }
         }
 
         List leafModuleDescriptors = 
@@ -294,6 +332,151 @@ public class IvyBuildList extends IvyTask {
 
         getProject().addReference(getReference(), path);
         getProject().setProperty("ivy.sorted.modules", order.toString());
+
+        if (waves) {
+            List headFiles = new ArrayList(independent);
+            List tailFiles = new ArrayList();
+            if (OnMissingDescriptor.TAIL.equals(onMissingDescriptor)) {
+                tailFiles.addAll(noDescriptor);
+            } else {
+                headFiles.addAll(0, noDescriptor);
+            }
+            addWaves(sortedModules, buildFiles, headFiles, tailFiles);
+        }
+    }
+
+    /**
+     * Sets a path and a property for each wave of the given sorted modules. The build files whose
+     * dependencies are unknown get a wave of their own, at the head or at the tail.
+     */
+    private void addWaves(List sortedModules, Map buildFiles, List headFiles, List tailFiles) {
+        List wavesFiles = new ArrayList();
+        List wavesModules = new ArrayList();
+        if (!headFiles.isEmpty()) {
+            wavesFiles.add(headFiles);
+            wavesModules.add(Collections.EMPTY_LIST);
+        }
+        for (Iterator iter = groupInWaves(sortedModules).iterator(); iter.hasNext();) {
+            List wave = (List) iter.next();
+            List files = new ArrayList(wave.size());
+            for (Iterator it = wave.iterator(); it.hasNext();) {
+                files.add(buildFiles.get(it.next()));
+            }
+            wavesFiles.add(files);
+            wavesModules.add(wave);
+        }
+        if (!tailFiles.isEmpty()) {
+            wavesFiles.add(tailFiles);
+            wavesModules.add(Collections.EMPTY_LIST);
+        }
+
+        for (int i = 0; i < wavesFiles.size(); i++) {
+            Path path = new Path(getProject());
+            for (Iterator iter = ((List) wavesFiles.get(i)).iterator(); iter.hasNext();) {
+                addBuildFile(path, (File) iter.next());
+            }
+            StringBuffer order = new StringBuffer();
+            for (Iterator iter = ((List) wavesModules.get(i)).iterator(); iter.hasNext();) {
+                ModuleDescriptor md = (ModuleDescriptor) iter.next();
+                order.append(md.getModuleRevisionId().getModuleId());
+                if (iter.hasNext()) {
+                    order.append(", ");
+                }
+            }
+            getProject().addReference(getReference() + ".wave." + (i + 1), path);
+            getProject().setProperty("ivy.sorted.wave." + (i + 1), order.toString());
+        }
+        getProject().setProperty("ivy.sorted.waves", String.valueOf(wavesFiles.size()));
+    }
+
+    /**
+     * Groups the given sorted modules in waves, i.e. in the levels of their dependency graph.
+     * Each module goes in the wave following the last wave of the modules it has to be built
+     * after, so that all the modules of a wave can be built at the same time once the previous
+     * waves are built. A module only has to be built after the modules which precede it in the
+     * sorted list, so the modules of a circular dependency end up in different waves.
+     * 
+     * @param sortedModules
+     *            the modules, in build order
+     * @return the list of waves, each wave being the list of its modules in build order
+     */
+    private List groupInWaves(List sortedModules) {
+        Map moduleIdMap = new HashMap();
+        for (Iterator iter = sortedModules.iterator(); iter.hasNext();) {
+            ModuleDescriptor md = (ModuleDescriptor) iter.next();
+            moduleIdMap.put(md.getModuleRevisionId().getModuleId(), md);
+        }
+
+        // the modules each module has to be built after
+        Map prerequisites = new HashMap();
+        for (Iterator iter = sortedModules.iterator(); iter.hasNext();) {
+            ModuleDescriptor md = (ModuleDescriptor) iter.next();
+            DependencyDescriptor[] deps = md.getDependencies();
+            for (int i = 0; i < deps.length; i++) {
+                ModuleDescriptor dep = (ModuleDescriptor) moduleIdMap.get(
+                    deps[i].getDependencyId());
+                if (dep != null && dep != md) {
+                    if (isReverse()) {
+                        addPrerequisite(prerequisites, dep, md);
+                    } else {
+                        addPrerequisite(prerequisites, md, dep);
+                    }
+                }
+            }
+        }
+
+        List waves = new ArrayList();
+        Map waveIndexes = new HashMap();
+        for (Iterator iter = sortedModules.iterator(); iter.hasNext();) {
+            ModuleDescriptor md = (ModuleDescriptor) iter.next();
+            int wave = 0;
+            List mdPrerequisites = (List) prerequisites.get(md);
+            if (mdPrerequisites != null) {
+                for (Iterator it = mdPrerequisites.iterator(); it.hasNext();) {
+                    Integer prerequisiteWave = (Integer) waveIndexes.get(it.next());
+                    if (prerequisiteWave != null) {
+                        wave = Math.max(wave, prerequisiteWave.intValue() + 1);
+                    }
+                }
+            }
+            waveIndexes.put(md, new Integer(wave));
+            if (wave == waves.size()) {
+                waves.add(new ArrayList());
+            }
+            ((List) waves.get(wave)).add(md);
+        }
+        return waves;
+    }
+
+    private void addPrerequisite(Map prerequisites, ModuleDescriptor md,
+            ModuleDescriptor prerequisite) {
+        List mdPrerequisites = (List) prerequisites.get(md);
+        if (mdPrerequisites == null) {
+            mdPrerequisites = new ArrayList();
+            prerequisites.put(md, mdPrerequisites);
+        }
+        mdPrerequisites.add(prerequisite);
+    }
+
+    private static ModuleDescriptor parseDescriptor(IvySettings settings, File ivyFile,
+            boolean validate) throws Exception {
+        return ModuleDescriptorParserRegistry.getInstance().parseDescriptor(
+            settings, ivyFile.toURI().toURL(), validate);
+    }
+
+    private Object getParsedDescriptor(Future future) throws Exception {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new BuildException("interrupted while parsing ivy files", e);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof Exception) {
+                throw (Exception) cause;
+            }
+            throw (Error) cause;
+        }
     }
 
     private void onMissingDescriptor(File buildFile, File ivyFile, List noDescriptor) {
@@ -564,5 +747,19 @@ public class IvyBuildList extends IvyTask {
         this.restartFrom = restartFrom;
     }
 
-    
+    public int getThreadCount() {
+        return threadCount;
+    }
+
+    public void setThreadCount(int threadCount) {
+        this.threadCount = threadCount;
+    }
+
+    public boolean isWaves() {
+        return waves;
+    }
+
+    public void setWaves(boolean waves) {
+        this.waves = waves;
+    }
 }
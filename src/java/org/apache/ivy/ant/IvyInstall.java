@@ -57,6 +57,12 @@ public class IvyInstall extends IvyTask {
 
     private boolean haltOnFailure = true;
 
+    private int threadCount = 1;
+
+    private boolean skipIdentical = false;
+
+    private File progressFile;
+
     public void doExecute() throws BuildException {
         Ivy ivy = getIvyInstance();
         IvySettings settings = ivy.getSettings();
@@ -107,7 +113,10 @@ public class IvyInstall extends IvyTask {
                     .setOverwrite(overwrite)
                     .setConfs(conf.split(","))
                     .setArtifactFilter(FilterHelper.getArtifactTypeFilter(type))
-                    .setMatcherName(matcher));
+                    .setMatcherName(matcher)
+                    .setThreadCount(threadCount)
+                    .setSkipIdentical(skipIdentical)
+                    .setProgressFile(progressFile));
         } catch (Exception e) {
             throw new BuildException("impossible to install " + mrid + ": " + e, e);
         }
@@ -218,4 +227,28 @@ public class IvyInstall extends IvyTask {
         this.conf = conf;
     }
 
+    public int getThreadCount() {
+        return threadCount;
+    }
+
+    public void setThreadCount(int threadCount) {
+        this.threadCount = threadCount;
+    }
+
+    public boolean isSkipIdentical() {
+        return skipIdentical;
+    }
+
+    public void setSkipIdentical(boolean skipIdentical) {
+        this.skipIdentical = skipIdentical;
+    }
+
+    public File getProgressFile() {
+        return progressFile;
+    }
+
+    public void setProgressFile(File progressFile) {
+        this.progressFile = progressFile;
+    }
+
 }
@@ -47,6 +47,8 @@ public class IvyListModules extends IvyTask {
     
     private String resolver;
 
+    private boolean rebuildCatalog = false;
+
     public String getMatcher() {
         return matcher;
     }
@@ -111,6 +113,14 @@ public class IvyListModules extends IvyTask {
         return resolver;
     }
 
+    public boolean isRebuildCatalog() {
+        return rebuildCatalog;
+    }
+
+    public void setRebuildCatalog(boolean rebuildCatalog) {
+        this.rebuildCatalog = rebuildCatalog;
+    }
+
     public void doExecute() throws BuildException {
         if (organisation == null) {
             throw new BuildException("no organisation provided for ivy listmodules task");
@@ -134,8 +144,15 @@ public class IvyListModules extends IvyTask {
         SearchEngine searcher = new SearchEngine(settings);
         PatternMatcher patternMatcher = settings.getMatcher(matcher);
         
+        if (rebuildCatalog && searcher.getCatalogDir() == null) {
+            throw new BuildException("no catalogue to rebuild: set ivy.search.catalog.dir");
+        }
+
         ModuleRevisionId[] mrids;
         if (resolver == null) {
+            if (rebuildCatalog) {
+                searcher.rebuildCatalog();
+            }
             mrids = searcher.listModules(ModuleRevisionId.newInstance(organisation,
                 module, branch, revision), patternMatcher);
         } else {
@@ -143,6 +160,9 @@ public class IvyListModules extends IvyTask {
             if (depResolver == null) {
                 throw new BuildException("Unknown resolver: " + resolver);
             }
+            if (rebuildCatalog) {
+                searcher.rebuildCatalog(depResolver);
+            }
             mrids = searcher.listModules(depResolver, ModuleRevisionId.newInstance(organisation,
                 module, branch, revision), patternMatcher);
         }
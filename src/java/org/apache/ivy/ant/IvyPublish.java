@@ -81,6 +81,8 @@ public class IvyPublish extends IvyTask {
 
     private boolean forcedeliver;
 
+    private int threadCount = 1;
+
     private Collection artifacts = new ArrayList();
 
     private String pubBranch;
@@ -324,6 +326,7 @@ public class IvyPublish extends IvyTask {
                     .setMerge(merge)
                     .setWarnOnMissing(warnonmissing)
                     .setHaltOnMissing(haltonmissing)
+                    .setThreadCount(threadCount)
                     .setConfs(splitConfs(conf)));
         } catch (Exception e) {
             if (e instanceof BuildException) {
@@ -355,6 +358,14 @@ public class IvyPublish extends IvyTask {
         this.warnonmissing = warnonmissing;
     }
 
+    public int getThreadCount() {
+        return threadCount;
+    }
+
+    public void setThreadCount(int threadCount) {
+        this.threadCount = threadCount;
+    }
+
     public boolean isHaltonmissing() {
         return haltonmissing;
     }
@@ -28,13 +28,20 @@ import java.io.OutputStream;
 import java.text.ParseException;
 import java.util.ArrayList;
 import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 import javax.xml.transform.Source;
+import javax.xml.transform.Templates;
 import javax.xml.transform.Transformer;
 import javax.xml.transform.TransformerConfigurationException;
 import javax.xml.transform.TransformerException;
-import javax.xml.transform.TransformerFactory;
 import javax.xml.transform.stream.StreamResult;
 import javax.xml.transform.stream.StreamSource;
 
@@ -205,24 +212,33 @@ public class IvyReport extends IvyTask {
             resolveId = ResolveOptions.getDefaultResolveId(new ModuleId(organisation, module));
         }
 
+        String[] confs = splitConfs(conf);
+        // transformers are not thread safe, but compiled templates are: each configuration
+        // report is transformed in its own thread with its own transformer, the threads being
+        // shared by all the reports generated by this task
+        ExecutorService executor = confs.length < 2 ? null : Executors.newFixedThreadPool(
+            Math.min(confs.length, Runtime.getRuntime().availableProcessors()));
         try {
-            String[] confs = splitConfs(conf);
             if (xsl) {
-                genreport(confs);
+                genreport(confs, executor);
             }
             if (xml) {
                 genxml(confs);
             }
             if (graph) {
                 genStyled(confs, 
-                    getStylePath("ivy-report-graph.xsl"), "graphml");
+                    getBuiltInTemplates("ivy-report-graph.xsl"), "graphml", executor);
             }
             if (dot) {
                 genStyled(confs, 
-                    getStylePath("ivy-report-dot.xsl"), "dot");
+                    getBuiltInTemplates("ivy-report-dot.xsl"), "dot", executor);
             }
         } catch (IOException e) {
             throw new BuildException("impossible to generate report: " + e, e);
+        } finally {
+            if (executor != null) {
+                executor.shutdownNow();
+            }
         }
     }
 
@@ -243,9 +259,9 @@ public class IvyReport extends IvyTask {
         }
     }
 
-    private void genreport(String[] confs)
+    private void genreport(String[] confs, ExecutorService executor)
             throws IOException {
-        genStyled(confs, getReportStylePath(), xslext);
+        genStyled(confs, getReportTemplates(), xslext, executor);
 
         // copy the css if required
         if (xslFile == null) {
@@ -264,19 +280,11 @@ public class IvyReport extends IvyTask {
         }
     }
 
-    private File getReportStylePath() throws IOException {
+    private Templates getReportTemplates() throws IOException {
         if (xslFile != null) {
-            return xslFile;
-        }
-        // style should be a file (and not an url)
-        // so we have to copy it from classpath to cache
-        ResolutionCacheManager cacheMgr = getIvyInstance().getResolutionCacheManager();
-        File style = new File(cacheMgr.getResolutionCacheRoot(), "ivy-report.xsl");
-        if (!style.exists()) {
-            Message.debug("copying ivy-report.xsl to " + style.getAbsolutePath());
-            FileUtil.copy(XmlReportOutputter.class.getResourceAsStream("ivy-report.xsl"), style, null);
+            return getTemplates(xslFile);
         }
-        return style;
+        return getBuiltInTemplates("ivy-report.xsl");
     }
     
     private String getOutputPattern(String conf, String ext) {
@@ -303,7 +311,8 @@ public class IvyReport extends IvyTask {
             mRevId.getRevision(), "", "", ext, conf, mRevId.getQualifiedExtraAttributes(), null);
     }
 
-    private void genStyled(String[] confs, File style, String ext) throws IOException {
+    private void genStyled(String[] confs, final Templates templates, String ext,
+            ExecutorService executor) throws IOException {
         ResolutionCacheManager cacheMgr = getIvyInstance().getResolutionCacheManager();
 
         // process the report with xslt to generate dot file
@@ -314,77 +323,108 @@ public class IvyReport extends IvyTask {
             out = getProject().getBaseDir();
         }
         
-        InputStream xsltStream = null;
-        try {
-            // create stream to stylesheet
-            xsltStream = new BufferedInputStream(new FileInputStream(style));
-            Source xsltSource = new StreamSource(xsltStream, JAXPUtils.getSystemId(style));
-            
-            // create transformer
-            TransformerFactory tFactory = TransformerFactory.newInstance();
-            Transformer transformer = tFactory.newTransformer(xsltSource);
+        // standard parameters and the provided XSLT parameters
+        final Map xslParams = new LinkedHashMap();
+        xslParams.put("confs", conf);
+        xslParams.put("extension", xslext);
+        for (Iterator it = params.iterator(); it.hasNext();) {
+            XSLTProcess.Param param = (XSLTProcess.Param) it.next();
+            xslParams.put(param.getName(), param.getExpression());
+        }
+
+        // prepare one transformation per configuration
+        List/*<Callable>*/ transformations = new ArrayList();
+        for (int i = 0; i < confs.length; i++) {
+            final File reportFile = 
+                cacheMgr.getConfigurationResolveReportInCache (resolveId, confs[i]);
+            final File outFile = 
+                new File(out, getOutputPattern(confs[i], ext));
             
-            // add standard parameters
-            transformer.setParameter("confs", conf);
-            transformer.setParameter("extension", xslext);
+            log("Processing " + reportFile + " to " + outFile);
             
-            // add the provided XSLT parameters
-            for (Iterator it = params.iterator(); it.hasNext();) {
-                XSLTProcess.Param param = (XSLTProcess.Param) it.next();
-                transformer.setParameter(param.getName(), param.getExpression());
+            // make sure the output directory exist
+            File outFileDir = outFile.getParentFile();
+            if (!outFileDir.exists()) {
+                if (!outFileDir.mkdirs()) {
+                    throw new BuildException("Unable to create directory: "
+                                             + outFileDir.getAbsolutePath());
+                }
             }
             
-            // create the report
-            for (int i = 0; i < confs.length; i++) {
-                File reportFile = 
-                    cacheMgr.getConfigurationResolveReportInCache (resolveId, confs[i]);
-                File outFile = 
-                    new File(out, getOutputPattern(confs[i], ext));
-                
-                log("Processing " + reportFile + " to " + outFile);
-                
-                // make sure the output directory exist
-                File outFileDir = outFile.getParentFile();
-                if (!outFileDir.exists()) {
-                    if (!outFileDir.mkdirs()) {
-                        throw new BuildException("Unable to create directory: "
-                                                 + outFileDir.getAbsolutePath());
-                    }
+            transformations.add(new Callable() {
+                public Object call() throws Exception {
+                    transform(templates, xslParams, reportFile, outFile);
+                    return null;
                 }
-                
-                InputStream inStream = null;
-                OutputStream outStream = null;
+            });
+        }
+        
+        if (executor == null || transformations.size() < 2) {
+            for (Iterator it = transformations.iterator(); it.hasNext();) {
                 try {
-                    inStream = new BufferedInputStream(new FileInputStream(reportFile));
-                    outStream = new BufferedOutputStream(new FileOutputStream(outFile));
-                    StreamResult res = new StreamResult(outStream);
-                    Source src = new StreamSource(inStream, JAXPUtils.getSystemId(style));
-                    transformer.transform(src, res);
-                } catch (TransformerException e) {
+                    ((Callable) it.next()).call();
+                } catch (BuildException e) {
+                    throw e;
+                } catch (IOException e) {
+                    throw e;
+                } catch (Exception e) {
                     throw new BuildException(e);
-                } finally {
-                    if (inStream != null) {
-                        try {
-                            inStream.close();
-                        } catch (IOException e) {
-                            // ignore
-                        }
-                    } 
-                    if (outStream != null) {
-                        try {
-                            outStream.close();
-                        } catch (IOException e) {
-                            // ignore
-                        }
+                }
+            }
+            return;
+        }
+        try {
+            List futures = executor.invokeAll(transformations);
+            for (Iterator it = futures.iterator(); it.hasNext();) {
+                Future future = (Future) it.next();
+                try {
+                    future.get();
+                } catch (ExecutionException e) {
+                    Throwable cause = e.getCause();
+                    if (cause instanceof BuildException) {
+                        throw (BuildException) cause;
                     }
+                    if (cause instanceof IOException) {
+                        throw (IOException) cause;
+                    }
+                    throw new BuildException(cause);
                 }
             }
-        } catch (TransformerConfigurationException e) {
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new BuildException("report generation interrupted", e);
+        }
+    }
+
+    static void transform(Templates templates, Map xslParams, File reportFile,
+            File outFile) throws IOException {
+        InputStream inStream = null;
+        OutputStream outStream = null;
+        try {
+            Transformer transformer = templates.newTransformer();
+            for (Iterator it = xslParams.entrySet().iterator(); it.hasNext();) {
+                Map.Entry param = (Map.Entry) it.next();
+                transformer.setParameter((String) param.getKey(), param.getValue());
+            }
+            
+            inStream = new BufferedInputStream(new FileInputStream(reportFile));
+            outStream = new BufferedOutputStream(new FileOutputStream(outFile));
+            StreamResult res = new StreamResult(outStream);
+            Source src = new StreamSource(inStream, JAXPUtils.getSystemId(reportFile));
+            transformer.transform(src, res);
+        } catch (TransformerException e) {
             throw new BuildException(e);
         } finally {
-            if (xsltStream != null) {
+            if (inStream != null) {
                 try {
-                    xsltStream.close();
+                    inStream.close();
+                } catch (IOException e) {
+                    // ignore
+                }
+            } 
+            if (outStream != null) {
+                try {
+                    outStream.close();
                 } catch (IOException e) {
                     // ignore
                 }
@@ -392,13 +432,20 @@ public class IvyReport extends IvyTask {
         }
     }
 
-    private File getStylePath(String styleResourceName) throws IOException {
-        // style should be a file (and not an url)
-        // so we have to copy it from classpath to cache
-        ResolutionCacheManager cacheMgr = getIvyInstance().getResolutionCacheManager();
-        File style = new File(cacheMgr.getResolutionCacheRoot(), styleResourceName);
-        FileUtil.copy(XmlReportOutputter.class.getResourceAsStream(styleResourceName), style, null);
-        return style;
+    private Templates getBuiltInTemplates(String styleResourceName) throws IOException {
+        try {
+            return XslTemplatesCache.getBuiltInTemplates(styleResourceName);
+        } catch (TransformerConfigurationException e) {
+            throw new BuildException(e);
+        }
+    }
+
+    private Templates getTemplates(File style) throws IOException {
+        try {
+            return XslTemplatesCache.getTemplates(style);
+        } catch (TransformerConfigurationException e) {
+            throw new BuildException(e);
+        }
     }
 
     public boolean isXml() {
@@ -18,23 +18,35 @@
 package org.apache.ivy.ant;
 
 import java.io.File;
+import java.io.FileOutputStream;
 import java.io.IOException;
+import java.io.OutputStream;
+import java.text.ParseException;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
 import java.util.HashSet;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Set;
 
+import javax.xml.transform.Templates;
+import javax.xml.transform.TransformerConfigurationException;
+
 import org.apache.ivy.Ivy;
 import org.apache.ivy.core.cache.ResolutionCacheManager;
+import org.apache.ivy.core.module.descriptor.Configuration;
+import org.apache.ivy.core.module.descriptor.DefaultDependencyDescriptor;
 import org.apache.ivy.core.module.descriptor.DefaultModuleDescriptor;
 import org.apache.ivy.core.module.descriptor.ModuleDescriptor;
 import org.apache.ivy.core.module.id.ModuleId;
 import org.apache.ivy.core.module.id.ModuleRevisionId;
 import org.apache.ivy.core.report.ResolveReport;
 import org.apache.ivy.core.resolve.ResolveOptions;
+import org.apache.ivy.core.resolve.ResolveReportHandler;
 import org.apache.ivy.core.settings.IvySettings;
 import org.apache.ivy.plugins.matcher.PatternMatcher;
+import org.apache.ivy.plugins.report.MergedXmlReportWriter;
 import org.apache.ivy.plugins.report.XmlReportOutputter;
 import org.apache.ivy.util.FileUtil;
 import org.apache.tools.ant.BuildException;
@@ -43,6 +55,11 @@ import org.apache.tools.ant.taskdefs.XSLTProcess;
 /**
  * Generates a report of dependencies of a set of modules in the repository. The set of modules is
  * specified using organisation/module and matcher.
+ * <p>
+ * By default the modules are resolved together. With a thread count, each module is resolved on
+ * its own, concurrently, and its report is merged in the repository report as soon as it is
+ * resolved.
+ * </p>
  */
 public class IvyRepositoryReport extends IvyTask {
     private String organisation = "*";
@@ -73,6 +90,8 @@ public class IvyRepositoryReport extends IvyTask {
 
     private List params = new ArrayList();
 
+    private int threadCount = 0;
+
     public void doExecute() throws BuildException {
         Ivy ivy = getIvyInstance();
         IvySettings settings = ivy.getSettings();
@@ -110,13 +129,16 @@ public class IvyRepositoryReport extends IvyTask {
             mrids = (ModuleRevisionId[]) modules.toArray(new ModuleRevisionId[modules.size()]);
             ModuleDescriptor md = DefaultModuleDescriptor.newCallerInstance(mrids, true, false);
             String resolveId = ResolveOptions.getDefaultResolveId(md);
-            ResolveReport report = ivy.resolve(md, 
-                new ResolveOptions()
-                    .setResolveId(resolveId)
-                    .setValidate(doValidate(settings)));
-
             ResolutionCacheManager cacheMgr = getIvyInstance().getResolutionCacheManager();
-            new XmlReportOutputter().output(report, cacheMgr, new ResolveOptions());
+            if (threadCount > 0) {
+                resolveEach(mrids, md, resolveId);
+            } else {
+                ResolveReport report = ivy.resolve(md, 
+                    new ResolveOptions()
+                        .setResolveId(resolveId)
+                        .setValidate(doValidate(settings)));
+                new XmlReportOutputter().output(report, cacheMgr, new ResolveOptions());
+            }
             if (graph) {
                 gengraph(cacheMgr, md.getModuleRevisionId().getOrganisation(), md
                         .getModuleRevisionId().getName());
@@ -139,6 +161,64 @@ public class IvyRepositoryReport extends IvyTask {
         }
     }
 
+    /**
+     * Resolves each module on its own, merging the reports in a single report stored in the
+     * cache as the report of the given caller module descriptor.
+     */
+    private void resolveEach(ModuleRevisionId[] mrids, ModuleDescriptor md, String resolveId)
+            throws ParseException, IOException {
+        Ivy ivy = getIvyInstance();
+        final ResolutionCacheManager cacheMgr = ivy.getResolutionCacheManager();
+        List mds = new ArrayList(mrids.length);
+        for (int i = 0; i < mrids.length; i++) {
+            mds.add(newCallerInstance(mrids[i], i));
+        }
+        final MergedXmlReportWriter writer = new MergedXmlReportWriter(
+            md.getModuleRevisionId());
+        ivy.getResolveEngine().resolve(mds,
+            new ResolveOptions().setValidate(doValidate(ivy.getSettings()))
+                    .setOutputReport(false), threadCount,
+            new ResolveReportHandler() {
+                public void handle(ResolveReport report) {
+                    writer.add(report.getConfigurationReport(
+                        ModuleDescriptor.DEFAULT_CONFIGURATION));
+                    // the resolved caller is of no use, don't leave one per module in the cache
+                    ModuleRevisionId caller = report.getModuleDescriptor()
+                            .getResolvedModuleRevisionId();
+                    cacheMgr.getResolvedIvyFileInCache(caller).delete();
+                    cacheMgr.getResolvedIvyPropertiesInCache(caller).delete();
+                }
+            });
+
+        File reportFile = cacheMgr.getConfigurationResolveReportInCache(resolveId,
+            ModuleDescriptor.DEFAULT_CONFIGURATION);
+        reportFile.getParentFile().mkdirs();
+        OutputStream out = new FileOutputStream(reportFile);
+        try {
+            writer.output(ModuleDescriptor.DEFAULT_CONFIGURATION, new Date(), out);
+        } finally {
+            out.close();
+        }
+    }
+
+    /**
+     * Returns a caller of the given module, like the one used to resolve all the modules
+     * together but with a name of its own, so that concurrent resolves don't share files in the
+     * resolution cache.
+     */
+    private static ModuleDescriptor newCallerInstance(ModuleRevisionId mrid, int index) {
+        DefaultModuleDescriptor md = new DefaultModuleDescriptor(
+                ModuleRevisionId.newInstance("caller", "all-caller-" + index, "working"),
+                "integration", null, true);
+        md.addConfiguration(new Configuration(ModuleDescriptor.DEFAULT_CONFIGURATION));
+        md.setLastModified(System.currentTimeMillis());
+        DefaultDependencyDescriptor dd = new DefaultDependencyDescriptor(md, mrid, true, false,
+                true);
+        dd.addDependencyConfiguration(ModuleDescriptor.DEFAULT_CONFIGURATION, "*");
+        md.addDependency(dd);
+        return md;
+    }
+
     private void genreport(ResolutionCacheManager cache, String organisation, String module)
             throws IOException {
         // first process the report with xslt
@@ -170,46 +250,28 @@ public class IvyRepositoryReport extends IvyTask {
 
     private void gengraph(ResolutionCacheManager cache, String organisation, String module)
             throws IOException {
-        gen(cache, organisation, module, 
-            getGraphStylePath(cache.getResolutionCacheRoot()), "graphml");
-    }
-
-    private String getGraphStylePath(File cache) throws IOException {
-        // style should be a file (and not an url)
-        // so we have to copy it from classpath to cache
-        File style = new File(cache, "ivy-report-graph-all.xsl");
-        FileUtil.copy(XmlReportOutputter.class.getResourceAsStream("ivy-report-graph-all.xsl"),
-            style, null);
-        return style.getAbsolutePath();
+        gen(cache, organisation, module, "ivy-report-graph-all.xsl", "graphml");
     }
 
     private void gendot(
             ResolutionCacheManager cache, String organisation, String module) throws IOException {
-        gen(cache, organisation, module, getDotStylePath(cache.getResolutionCacheRoot()), "dot");
+        gen(cache, organisation, module, "ivy-report-dot-all.xsl", "dot");
     }
 
-    private String getDotStylePath(File cache) throws IOException {
-        // style should be a file (and not an url)
-        // so we have to copy it from classpath to cache
-        File style = new File(cache, "ivy-report-dot-all.xsl");
-        FileUtil.copy(XmlReportOutputter.class.getResourceAsStream("ivy-report-dot-all.xsl"),
-            style, null);
-        return style.getAbsolutePath();
-    }
-
-    private void gen(ResolutionCacheManager cache, String organisation, String module, String style,
-            String ext) throws IOException {
-        XSLTProcess xslt = new XSLTProcess();
-        xslt.setTaskName(getTaskName());
-        xslt.setProject(getProject());
-        xslt.init();
+    private void gen(ResolutionCacheManager cache, String organisation, String module,
+            String styleResourceName, String ext) throws IOException {
+        Templates templates;
+        try {
+            templates = XslTemplatesCache.getBuiltInTemplates(styleResourceName);
+        } catch (TransformerConfigurationException e) {
+            throw new BuildException(e);
+        }
 
         String resolveId = ResolveOptions.getDefaultResolveId(new ModuleId(organisation, module));
-        xslt.setIn(cache.getConfigurationResolveReportInCache(resolveId, "default"));
-        xslt.setOut(new File(getTodir(), outputname + "." + ext));
-        xslt.setBasedir(cache.getResolutionCacheRoot());
-        xslt.setStyle(style);
-        xslt.execute();
+        File in = cache.getConfigurationResolveReportInCache(resolveId, "default");
+        File out = new File(getTodir(), outputname + "." + ext);
+        log("Processing " + in + " to " + out);
+        IvyReport.transform(templates, Collections.EMPTY_MAP, in, out);
     }
 
     public File getTodir() {
@@ -328,4 +390,12 @@ public class IvyRepositoryReport extends IvyTask {
     public void setDot(boolean dot) {
         this.dot = dot;
     }
+
+    public int getThreadCount() {
+        return threadCount;
+    }
+
+    public void setThreadCount(int threadCount) {
+        this.threadCount = threadCount;
+    }
 }
@@ -50,6 +50,12 @@ public class IvyRetrieve extends IvyPostResolveTask {
     private boolean sync = false;
 
     private boolean symlink = false;
+
+    private boolean hardlink = false;
+
+    private boolean useManifest = false;
+
+    private int threadCount = 1;
     
     private String overwriteMode = RetrieveOptions.OVERWRITEMODE_NEWER;
 
@@ -106,6 +112,9 @@ public class IvyRetrieve extends IvyPostResolveTask {
                             .setOverwriteMode(getOverwriteMode())
                             .setUseOrigin(isUseOrigin())
                             .setMakeSymlinks(symlink)
+                            .setMakeHardLinks(hardlink)
+                            .setUseManifest(useManifest)
+                            .setThreadCount(threadCount)
                             .setResolveId(getResolveId())
                             .setMapper(mapper == null ? null : new MapperAdapter(mapper)));
 
@@ -168,6 +177,28 @@ public class IvyRetrieve extends IvyPostResolveTask {
         this.symlink = symlink;
     }
 
+    /**
+     * Option to create hard links instead of copying, when the file system supports them.
+     */
+    public void setHardlink(boolean hardlink) {
+        this.hardlink = hardlink;
+    }
+
+    /**
+     * Option to keep a manifest of the retrieved files, to tell which files are up to date without
+     * checking them.
+     */
+    public void setUseManifest(boolean useManifest) {
+        this.useManifest = useManifest;
+    }
+
+    /**
+     * The number of threads retrieving files.
+     */
+    public void setThreadCount(int threadCount) {
+        this.threadCount = threadCount;
+    }
+
     public void setOverwriteMode(String overwriteMode) {
         if (!OVERWRITEMODE_VALUES.contains(overwriteMode)) {
             throw new IllegalArgumentException("invalid overwriteMode value '" + overwriteMode + "'. "
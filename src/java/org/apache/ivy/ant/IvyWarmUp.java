@@ -0,0 +1,171 @@
+/*
+ *  Licensed to the Apache Software Foundation (ASF) under one or more
+ *  contributor license agreements.  See the NOTICE file distributed with
+ *  this work for additional information regarding copyright ownership.
+ *  The ASF licenses this file to You under the Apache License, Version 2.0
+ *  (the "License"); you may not use this file except in compliance with
+ *  the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ */
+package org.apache.ivy.ant;
+
+import java.io.File;
+import java.net.MalformedURLException;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+
+import org.apache.ivy.Ivy;
+import org.apache.ivy.core.module.id.ModuleRevisionId;
+import org.apache.ivy.core.report.WarmUpReport;
+import org.apache.ivy.core.resolve.ResolveOptions;
+import org.apache.ivy.core.settings.IvySettings;
+import org.apache.ivy.util.filter.FilterHelper;
+import org.apache.tools.ant.BuildException;
+import org.apache.tools.ant.DirectoryScanner;
+import org.apache.tools.ant.types.FileSet;
+
+/**
+ * Puts in the repository cache the dependency closures of a set of modules, given by their ivy
+ * files or by their ids.
+ */
+public class IvyWarmUp extends IvyTask {
+    public static class Module {
+        private String org;
+
+        private String name;
+
+        private String branch;
+
+        private String rev = "latest.integration";
+
+        public void setOrg(String org) {
+            this.org = org;
+        }
+
+        public void setName(String name) {
+            this.name = name;
+        }
+
+        public void setBranch(String branch) {
+            this.branch = branch;
+        }
+
+        public void setRev(String rev) {
+            this.rev = rev;
+        }
+
+        ModuleRevisionId getModuleRevisionId() {
+            if (org == null || name == null) {
+                throw new BuildException("org and name are mandatory for modules to warm up");
+            }
+            return ModuleRevisionId.newInstance(org, name, branch, rev);
+        }
+    }
+
+    private List/*<FileSet>*/ ivyFileSets = new ArrayList();
+
+    private List/*<Module>*/ modules = new ArrayList();
+
+    private String conf = "*";
+
+    private String type = "*";
+
+    private boolean transitive = true;
+
+    private boolean refresh = false;
+
+    private String log = ResolveOptions.LOG_DEFAULT;
+
+    private int threadCount = 4;
+
+    private boolean haltOnFailure = true;
+
+    public void addFileset(FileSet ivyFiles) {
+        ivyFileSets.add(ivyFiles);
+    }
+
+    public Module createModule() {
+        Module module = new Module();
+        modules.add(module);
+        return module;
+    }
+
+    public void setConf(String conf) {
+        this.conf = conf;
+    }
+
+    public void setType(String type) {
+        this.type = type;
+    }
+
+    public void setTransitive(boolean transitive) {
+        this.transitive = transitive;
+    }
+
+    public void setRefresh(boolean refresh) {
+        this.refresh = refresh;
+    }
+
+    public void setLog(String log) {
+        this.log = log;
+    }
+
+    public void setThreadCount(int threadCount) {
+        this.threadCount = threadCount;
+    }
+
+    public void setHaltonfailure(boolean haltOnFailure) {
+        this.haltOnFailure = haltOnFailure;
+    }
+
+    public void doExecute() throws BuildException {
+        Ivy ivy = getIvyInstance();
+        IvySettings settings = ivy.getSettings();
+        List toWarmUp = new ArrayList();
+        for (Iterator iter = ivyFileSets.iterator(); iter.hasNext();) {
+            FileSet fs = (FileSet) iter.next();
+            DirectoryScanner ds = fs.getDirectoryScanner(getProject());
+            String[] ivyFiles = ds.getIncludedFiles();
+            for (int i = 0; i < ivyFiles.length; i++) {
+                try {
+                    toWarmUp.add(new File(ds.getBasedir(), ivyFiles[i]).toURI().toURL());
+                } catch (MalformedURLException e) {
+                    throw new BuildException("unable to convert given ivy file to url: "
+                            + ivyFiles[i] + ": " + e, e);
+                }
+            }
+        }
+        for (Iterator iter = modules.iterator(); iter.hasNext();) {
+            toWarmUp.add(((Module) iter.next()).getModuleRevisionId());
+        }
+        if (toWarmUp.isEmpty()) {
+            throw new BuildException("no module to warm up: add ivy file sets or modules");
+        }
+
+        try {
+            ResolveOptions options = ((ResolveOptions) new ResolveOptions().setLog(log))
+                    .setConfs(splitConfs(conf))
+                    .setValidate(doValidate(settings))
+                    .setArtifactFilter(FilterHelper.getArtifactTypeFilter(type))
+                    .setTransitive(transitive)
+                    .setRefresh(refresh);
+            WarmUpReport report = ivy.warmUp(toWarmUp, options, threadCount);
+            if (report.hasError() && haltOnFailure) {
+                throw new BuildException("cache warm up failed: " + report);
+            }
+        } catch (BuildException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new BuildException("impossible to warm up the cache: " + e, e);
+        }
+    }
+}
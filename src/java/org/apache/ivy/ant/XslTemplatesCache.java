@@ -0,0 +1,120 @@
+/*
+ *  Licensed to the Apache Software Foundation (ASF) under one or more
+ *  contributor license agreements.  See the NOTICE file distributed with
+ *  this work for additional information regarding copyright ownership.
+ *  The ASF licenses this file to You under the Apache License, Version 2.0
+ *  (the "License"); you may not use this file except in compliance with
+ *  the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ */
+package org.apache.ivy.ant;
+
+import java.io.BufferedInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URL;
+import java.util.HashMap;
+import java.util.Map;
+
+import javax.xml.transform.Source;
+import javax.xml.transform.Templates;
+import javax.xml.transform.TransformerConfigurationException;
+import javax.xml.transform.TransformerFactory;
+import javax.xml.transform.stream.StreamSource;
+
+import org.apache.ivy.plugins.report.XmlReportOutputter;
+import org.apache.ivy.util.Message;
+import org.apache.tools.ant.util.JAXPUtils;
+
+/**
+ * Keeps compiled XSLT stylesheets used by the report tasks, so that a stylesheet is compiled only
+ * once per JVM instead of once per generated report.
+ * <p>
+ * Stylesheets bundled with Ivy are cached by resource name, user provided stylesheets are cached
+ * by path and recompiled when the file is modified.
+ * </p>
+ */
+final class XslTemplatesCache {
+    private static final Map/*<String, CachedTemplates>*/ CACHE = new HashMap();
+
+    private XslTemplatesCache() {
+    }
+
+    /**
+     * Returns the compiled version of a stylesheet bundled with Ivy next to
+     * {@link XmlReportOutputter}.
+     */
+    public static synchronized Templates getBuiltInTemplates(String resourceName)
+            throws IOException, TransformerConfigurationException {
+        String key = "resource:" + resourceName;
+        CachedTemplates cached = (CachedTemplates) CACHE.get(key);
+        if (cached == null) {
+            URL url = XmlReportOutputter.class.getResource(resourceName);
+            if (url == null) {
+                throw new IOException("stylesheet not found in classpath: " + resourceName);
+            }
+            Message.debug("compiling stylesheet " + url);
+            InputStream in = new BufferedInputStream(url.openStream());
+            try {
+                cached = new CachedTemplates(
+                    compile(new StreamSource(in, url.toExternalForm())), -1, -1);
+            } finally {
+                in.close();
+            }
+            CACHE.put(key, cached);
+        }
+        return cached.templates;
+    }
+
+    /**
+     * Returns the compiled version of the given stylesheet file, compiling it again if it has
+     * changed since it was last compiled.
+     */
+    public static synchronized Templates getTemplates(File style)
+            throws IOException, TransformerConfigurationException {
+        String key = style.getAbsolutePath();
+        CachedTemplates cached = (CachedTemplates) CACHE.get(key);
+        if (cached == null || cached.lastModified != style.lastModified()
+                || cached.length != style.length()) {
+            Message.debug("compiling stylesheet " + style);
+            InputStream in = new BufferedInputStream(new FileInputStream(style));
+            try {
+                cached = new CachedTemplates(
+                    compile(new StreamSource(in, JAXPUtils.getSystemId(style))),
+                    style.lastModified(), style.length());
+            } finally {
+                in.close();
+            }
+            CACHE.put(key, cached);
+        }
+        return cached.templates;
+    }
+
+    private static Templates compile(Source xsltSource) throws TransformerConfigurationException {
+        return TransformerFactory.newInstance().newTemplates(xsltSource);
+    }
+
+    private static class CachedTemplates {
+        private final Templates templates;
+
+        private final long lastModified;
+
+        private final long length;
+
+        public CachedTemplates(Templates templates, long lastModified, long length) {
+            this.templates = templates;
+            this.lastModified = lastModified;
+            this.length = length;
+        }
+    }
+}
@@ -23,6 +23,7 @@ import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
 import java.util.Stack;
+import java.util.concurrent.Callable;
 
 import org.apache.ivy.Ivy;
 import org.apache.ivy.core.event.EventManager;
@@ -123,6 +124,55 @@ public class IvyContext {
         return context;
     }
     
+    /**
+     * Returns a task running the given one in a copy of the current context.
+     * <p>
+     * This should be used for tasks run by other threads on behalf of the current one, like
+     * tasks submitted to an executor: the context is captured when this method is called, and
+     * each run of the returned task uses its own copy of it, so that tasks run at the same time
+     * don't share their context.
+     * </p>
+     * 
+     * @param task
+     *            the task to run in a copy of the current context
+     * @return a task running the given one in a copy of the current context
+     */
+    public static Runnable propagate(final Runnable task) {
+        final IvyContext captured = new IvyContext(getContext());
+        return new Runnable() {
+            public void run() {
+                pushContext(new IvyContext(captured));
+                try {
+                    task.run();
+                } finally {
+                    popContext();
+                }
+            }
+        };
+    }
+
+    /**
+     * Returns a task calling the given one in a copy of the current context.
+     * 
+     * @param task
+     *            the task to call in a copy of the current context
+     * @return a task calling the given one in a copy of the current context
+     * @see #propagate(Runnable)
+     */
+    public static Callable propagate(final Callable task) {
+        final IvyContext captured = new IvyContext(getContext());
+        return new Callable() {
+            public Object call() throws Exception {
+                pushContext(new IvyContext(captured));
+                try {
+                    return task.call();
+                } finally {
+                    popContext();
+                }
+            }
+        };
+    }
+
     /**
      * Pops one context used with this thread. This is usually called after having finished a task
      * for which a call to {@link #pushNewContext()} or {@link #pushContext(IvyContext)} was done
@@ -23,9 +23,13 @@ import java.io.UnsupportedEncodingException;
 import java.security.MessageDigest;
 import java.security.NoSuchAlgorithmException;
 import java.text.ParseException;
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.Date;
+import java.util.Iterator;
+import java.util.List;
 import java.util.Map;
+import java.util.Properties;
 import java.util.regex.Pattern;
 
 import org.apache.ivy.Ivy;
@@ -79,6 +83,8 @@ public class DefaultRepositoryCacheManager implements RepositoryCacheManager, Iv
         "[organisation]/[module](/[branch])/ivy-[revision].xml";
     
     private static final int DEFAULT_MEMORY_CACHE_SIZE = 150;
+
+    private static final String LAYERS_SHADOWED_KEY = "layers.shadowed";
     
     private static MessageDigest SHA_DIGEST;
     static {
@@ -119,6 +125,8 @@ public class DefaultRepositoryCacheManager implements RepositoryCacheManager, Iv
 
     private ModuleDescriptorMemoryCache memoryModuleDescrCache;
 
+    private List/*<File>*/ baseLayers = new ArrayList();
+
     public DefaultRepositoryCacheManager() {
     }
 
@@ -137,9 +145,16 @@ public class DefaultRepositoryCacheManager implements RepositoryCacheManager, Iv
     }
 
     public File getIvyFileInCache(ModuleRevisionId mrid) {
-        String file = IvyPatternHelper.substitute(getIvyPattern(), DefaultArtifact
-                .newIvyArtifact(mrid, null));
-        return new File(getRepositoryCacheRoot(), file);
+        return getFileInLayers(mrid, getIvyPathInCache(mrid));
+    }
+
+    private File getLocalIvyFileInCache(ModuleRevisionId mrid) {
+        return new File(getRepositoryCacheRoot(), getIvyPathInCache(mrid));
+    }
+
+    private String getIvyPathInCache(ModuleRevisionId mrid) {
+        return IvyPatternHelper.substitute(getIvyPattern(), DefaultArtifact.newIvyArtifact(mrid,
+            null));
     }
 
     public String getIvyPattern() {
@@ -251,6 +266,53 @@ public class DefaultRepositoryCacheManager implements RepositoryCacheManager, Iv
                     parseDuration(duration));
     }
 
+    /**
+     * Adds a read only layer to this cache: a directory with the same layout as the base
+     * directory of this cache, typically a cache populated beforehand and shared by several
+     * machines.
+     * <p>
+     * Module descriptors, artifacts and their cached data are looked up in the base directory of
+     * this cache first, then in the read only layers in the order in which they have been added.
+     * Read only layers are never written nor locked: everything which has to be downloaded or
+     * saved goes in the base directory of this cache. Once the artifacts of a changing module
+     * revision have been found outdated, the layers are not used anymore for this module revision.
+     * </p>
+     */
+    public void addBaseLayer(File dir) {
+        baseLayers.add(dir);
+    }
+
+    public void addConfiguredLayer(Map/*<String,String>*/ attributes) {
+        String dir = (String) attributes.get("dir");
+        if (dir == null) {
+            throw new IllegalArgumentException("'dir' attribute is mandatory for layer");
+        }
+        addBaseLayer(Checks.checkAbsolute(dir, "layer dir"));
+    }
+
+    public File[] getBaseLayers() {
+        return (File[]) baseLayers.toArray(new File[baseLayers.size()]);
+    }
+
+    /**
+     * Returns the file at the given path in the first layer of this cache having it, or in the
+     * base directory of this cache if none has it or if the layers are shadowed for the given
+     * module revision.
+     */
+    private File getFileInLayers(ModuleRevisionId mrid, String path) {
+        File file = new File(getRepositoryCacheRoot(), path);
+        if (file.exists() || baseLayers.isEmpty() || isLayersShadowed(mrid)) {
+            return file;
+        }
+        for (Iterator iter = baseLayers.iterator(); iter.hasNext();) {
+            File layerFile = new File((File) iter.next(), path);
+            if (layerFile.exists()) {
+                return layerFile;
+            }
+        }
+        return file;
+    }
+
     public void setMemorySize(int size) {
         memoryModuleDescrCache = new ModuleDescriptorMemoryCache(size);
     }
@@ -271,7 +333,16 @@ public class DefaultRepositoryCacheManager implements RepositoryCacheManager, Iv
     private static final int MILLIS_IN_HOUR = 60 * MILLIS_IN_MINUTES;
     private static final int MILLIS_IN_DAY = 24 * MILLIS_IN_HOUR;
 
-    private long parseDuration(String duration) {
+    /**
+     * Parses a duration such as '1d 2h', in the format used by TTLs.
+     * 
+     * @param duration
+     *            the duration to parse, may be <code>null</code>, in which case 0 is returned
+     * @return the duration in milliseconds, Long.MAX_VALUE if duration is 'eternal'
+     * @throws IllegalArgumentException
+     *             if the duration is not valid
+     */
+    public static long parseDuration(String duration) {
         if (duration == null) {
             return 0;
         }
@@ -300,7 +371,7 @@ public class DefaultRepositoryCacheManager implements RepositoryCacheManager, Iv
         }
     }
 
-    private int getGroupIntValue(java.util.regex.Matcher m, int groupNumber) {
+    private static int getGroupIntValue(java.util.regex.Matcher m, int groupNumber) {
         String g = m.group(groupNumber);
         return g == null || g.length() == 0 ? 0 : Integer.parseInt(g);
     }
@@ -363,7 +434,8 @@ public class DefaultRepositoryCacheManager implements RepositoryCacheManager, Iv
      * the resolve has been done with useOrigin = true
      */
     public File getArchiveFileInCache(Artifact artifact, ArtifactOrigin origin) {
-        File archive = new File(getRepositoryCacheRoot(), getArchivePathInCache(artifact, origin));
+        File archive = getFileInLayers(artifact.getModuleRevisionId(),
+            getArchivePathInCache(artifact, origin));
         if (!archive.exists() 
                 && !ArtifactOrigin.isUnknown(origin) && origin.isLocal()) {
             File original = Checks.checkAbsolute(
@@ -446,13 +518,13 @@ public class DefaultRepositoryCacheManager implements RepositoryCacheManager, Iv
 
     private String getSavedResolverName(ModuleDescriptor md) {
         // should always be called with a lock on module metadata artifact
-        PropertiesFile cdf = getCachedDataFile(md);
+        Properties cdf = getCachedData(md.getResolvedModuleRevisionId());
         return cdf.getProperty("resolver");
     }
 
     private String getSavedArtResolverName(ModuleDescriptor md) {
         // should always be called with a lock on module metadata artifact
-        PropertiesFile cdf = getCachedDataFile(md);
+        Properties cdf = getCachedData(md.getResolvedModuleRevisionId());
         return cdf.getProperty("artifact.resolver");
     }
 
@@ -474,9 +546,42 @@ public class DefaultRepositoryCacheManager implements RepositoryCacheManager, Iv
         cdf.remove(getLocationKey(artifact));
         cdf.remove(getIsLocalKey(artifact));
         cdf.remove(getLastCheckedKey(artifact));
+        if (!baseLayers.isEmpty()) {
+            // the origin saved in the layers is outdated too
+            cdf.setProperty(LAYERS_SHADOWED_KEY, "true");
+        }
         cdf.save();
     }
 
+    /**
+     * Makes the read only layers of this cache ignored for the given module revision, because
+     * what they contain for it is outdated.
+     */
+    private void shadowLayers(ModuleRevisionId mrid) {
+        // should always be called with a lock on module metadata artifact
+        if (baseLayers.isEmpty()) {
+            return;
+        }
+        PropertiesFile cdf = getCachedDataFile(mrid);
+        if (!"true".equals(cdf.getProperty(LAYERS_SHADOWED_KEY))) {
+            cdf.setProperty(LAYERS_SHADOWED_KEY, "true");
+            cdf.save();
+        }
+    }
+
+    private boolean isLayersShadowed(ModuleRevisionId mrid) {
+        if (!lockMetadataArtifact(mrid)) {
+            Message.error("impossible to acquire lock for " + mrid);
+            // the layers may be outdated, only the actual cache can be trusted
+            return true;
+        }
+        try {
+            return "true".equals(getCachedDataFile(mrid).getProperty(LAYERS_SHADOWED_KEY));
+        } finally {
+            unlockMetadataArtifact(mrid);
+        }
+    }
+
     public ArtifactOrigin getSavedArtifactOrigin(Artifact artifact) {
         ModuleRevisionId mrid = artifact.getModuleRevisionId();
         if (!lockMetadataArtifact(mrid)) {
@@ -484,7 +589,7 @@ public class DefaultRepositoryCacheManager implements RepositoryCacheManager, Iv
             return ArtifactOrigin.unkwnown(artifact);
         }
         try {
-            PropertiesFile cdf = getCachedDataFile(artifact.getModuleRevisionId());
+            Properties cdf = getCachedData(artifact.getModuleRevisionId());
             String location = cdf.getProperty(getLocationKey(artifact));
             String local = cdf.getProperty(getIsLocalKey(artifact));
             String lastChecked = cdf.getProperty(getLastCheckedKey(artifact));
@@ -584,6 +689,28 @@ public class DefaultRepositoryCacheManager implements RepositoryCacheManager, Iv
                 getDataFilePattern(), mRevId)), "ivy cached data file for " + mRevId);
     }
 
+    /**
+     * Returns the cached data of the given module revision, merged from all the layers of this
+     * cache. The data saved in the base directory of this cache wins over the one of the read
+     * only layers, which win over the layers added after them.
+     */
+    private Properties getCachedData(ModuleRevisionId mRevId) {
+        PropertiesFile cdf = getCachedDataFile(mRevId);
+        if (baseLayers.isEmpty() || "true".equals(cdf.getProperty(LAYERS_SHADOWED_KEY))) {
+            return cdf;
+        }
+        String path = IvyPatternHelper.substitute(getDataFilePattern(), mRevId);
+        Properties data = new Properties();
+        for (int i = baseLayers.size() - 1; i >= 0; i--) {
+            File layerFile = new File((File) baseLayers.get(i), path);
+            if (layerFile.exists()) {
+                data.putAll(new PropertiesFile(layerFile, null));
+            }
+        }
+        data.putAll(cdf);
+        return data;
+    }
+
     public ResolvedModuleRevision findModuleInCache(
             DependencyDescriptor dd, ModuleRevisionId requestedRevisionId, 
             CacheMetadataOptions options, String expectedResolver) {
@@ -745,7 +872,7 @@ public class DefaultRepositoryCacheManager implements RepositoryCacheManager, Iv
                 Message.verbose("refresh mode: no check for cached resolved revision for " + mrid);
                 return null;
             }
-            PropertiesFile cachedResolvedRevision = getCachedDataFile(mrid);
+            Properties cachedResolvedRevision = getCachedData(mrid);
             resolvedRevision = cachedResolvedRevision.getProperty("resolved.revision");
             if (resolvedRevision == null) {
                 Message.verbose(getName() + ": no cached resolved revision for " + mrid);
@@ -789,6 +916,22 @@ public class DefaultRepositoryCacheManager implements RepositoryCacheManager, Iv
         }
     }
 
+    /**
+     * Returns the revision saved in this cache as the resolution of the given dynamic revision,
+     * whatever its age, or null if none has been saved.
+     */
+    public String getSavedResolvedRevision(ModuleRevisionId mrid) {
+        if (!lockMetadataArtifact(mrid)) {
+            Message.error("impossible to acquire lock for " + mrid);
+            return null;
+        }
+        try {
+            return getCachedData(mrid).getProperty("resolved.revision");
+        } finally {
+            unlockMetadataArtifact(mrid);
+        }
+    }
+
     public long getTTL(ModuleRevisionId mrid) {
         Long ttl = (Long) ttlRules.getRule(mrid);
         return ttl == null ? getDefaultTTL() : ttl.longValue();
@@ -846,9 +989,13 @@ public class DefaultRepositoryCacheManager implements RepositoryCacheManager, Iv
             }
             ArtifactOrigin origin = getSavedArtifactOrigin(artifact);
             // if we can use origin file, we just ask ivy for the file in cache, and it will
-            // return the original one if possible. If we are not in useOrigin mode, we use the
-            // getArchivePath method which always return a path in the actual cache
+            // return the original one if possible. If we are not in useOrigin mode, or if the
+            // original one isn't there, we use the getArchivePath method which always return a
+            // path in the actual cache, or in one of its read only layers
             File archiveFile = getArchiveFileInCache(artifact, origin, useOrigin);
+            if (!archiveFile.exists()) {
+                archiveFile = getFileInLayers(mrid, getArchivePathInCache(artifact, origin));
+            }
 
             if (archiveFile.exists() && !options.isForce()) {
                 adr.setDownloadStatus(DownloadStatus.NO);
@@ -1060,7 +1207,7 @@ public class DefaultRepositoryCacheManager implements RepositoryCacheManager, Iv
             ResolvedModuleRevision rmr, ModuleDescriptorWriter writer) {
         ModuleDescriptor md = rmr.getDescriptor();
         Artifact originalMetadataArtifact = getOriginalMetadataArtifact(requestedMetadataArtifact);
-        File mdFileInCache = getIvyFileInCache(md.getResolvedModuleRevisionId());
+        File mdFileInCache = getLocalIvyFileInCache(md.getResolvedModuleRevisionId());
 
         ModuleRevisionId mrid = requestedMetadataArtifact.getModuleRevisionId();
         if (!lockMetadataArtifact(mrid)) {
@@ -1127,6 +1274,14 @@ public class DefaultRepositoryCacheManager implements RepositoryCacheManager, Iv
                             return null;
                         }
                         removeSavedArtifactOrigin(transformedArtifact);
+                    } else if (!artFile.exists()) {
+                        File layerFile = getFileInLayers(mrid, 
+                            getArchivePathInCache(transformedArtifact, origin));
+                        if (layerFile.exists() && repoLastModified > layerFile.lastModified()) {
+                            Message.verbose(mrid + " has changed: ignoring old artifacts in "
+                                + "read only layers");
+                            removeSavedArtifactOrigin(transformedArtifact);
+                        }
                     }
                 }
                 return null;
@@ -1213,6 +1368,8 @@ public class DefaultRepositoryCacheManager implements RepositoryCacheManager, Iv
                     deleteOldArtifacts = true;
                 }
                 if (deleteOldArtifacts) {
+                    // what the read only layers contain for this module is outdated too
+                    shadowLayers(mrid);
                     String[] confs = md.getConfigurationsNames();
                     for (int i = 0; i < confs.length; i++) {
                         Artifact[] arts = md.getArtifacts(confs[i]);
@@ -1298,7 +1455,7 @@ public class DefaultRepositoryCacheManager implements RepositoryCacheManager, Iv
             // if the cache pattern is using original name, and the substitution thus trying to get
             // the saved artifact origin value which in turns calls this method
             return getLockStrategy().lockArtifact(artifact, 
-                getArchiveFileInCache(artifact, getDefaultMetadataArtifactOrigin(mrid)));
+                getArchiveFileInCache(artifact, getDefaultMetadataArtifactOrigin(mrid), false));
         } catch (InterruptedException e) {
             Thread.currentThread().interrupt(); // reset interrupt status 
             throw new RuntimeException("operation interrupted");
@@ -1308,7 +1465,7 @@ public class DefaultRepositoryCacheManager implements RepositoryCacheManager, Iv
     private void unlockMetadataArtifact(ModuleRevisionId mrid) {
         Artifact artifact = getDefaultMetadataArtifact(mrid);
         getLockStrategy().unlockArtifact(artifact, 
-            getArchiveFileInCache(artifact, getDefaultMetadataArtifactOrigin(mrid)));
+            getArchiveFileInCache(artifact, getDefaultMetadataArtifactOrigin(mrid), false));
     }
     
     
@@ -1316,7 +1473,8 @@ public class DefaultRepositoryCacheManager implements RepositoryCacheManager, Iv
         // it's important to say the origin is not local to make sure it won't ever be used for
         // anything else than original token
         return new ArtifactOrigin(
-            DefaultArtifact.newIvyArtifact(mrid, null), false, getIvyFileInCache(mrid).getPath());
+            DefaultArtifact.newIvyArtifact(mrid, null), false, 
+            getLocalIvyFileInCache(mrid).getPath());
     }
     
     private Artifact getDefaultMetadataArtifact(ModuleRevisionId mrid) {
@@ -1413,6 +1571,7 @@ public class DefaultRepositoryCacheManager implements RepositoryCacheManager, Iv
         Message.debug("\t\tlockingStrategy: " + getLockStrategy().getName());
         Message.debug("\t\tchangingPattern: " + getChangingPattern());
         Message.debug("\t\tchangingMatcher: " + getChangingMatcherName());
+        Message.debug("\t\tbaseLayers: " + baseLayers);
     }
 
     /**
@@ -19,9 +19,19 @@ package org.apache.ivy.core.install;
 
 import java.io.File;
 import java.io.IOException;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Date;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
 
+import org.apache.ivy.core.IvyContext;
 import org.apache.ivy.core.module.descriptor.Configuration;
 import org.apache.ivy.core.module.descriptor.DefaultDependencyDescriptor;
 import org.apache.ivy.core.module.descriptor.DefaultModuleDescriptor;
@@ -40,6 +50,7 @@ import org.apache.ivy.plugins.matcher.ExactPatternMatcher;
 import org.apache.ivy.plugins.matcher.MatcherHelper;
 import org.apache.ivy.plugins.matcher.PatternMatcher;
 import org.apache.ivy.plugins.resolver.DependencyResolver;
+import org.apache.ivy.plugins.resolver.RepositoryResolver;
 import org.apache.ivy.util.Message;
 
 public class InstallEngine {
@@ -128,46 +139,25 @@ public class InstallEngine {
             report.setDependencies(Arrays.asList(dependencies), options.getArtifactFilter());
 
             Message.info(":: downloading artifacts to cache ::");
-            resolveEngine.downloadArtifacts(
-                report, options.getArtifactFilter(), new DownloadOptions());
-            
+            resolveEngine.downloadArtifacts(report, options.getArtifactFilter(),
+                new DownloadOptions(), options.getThreadCount());
+
             // now that everything is in cache, we can publish all these modules
             Message.info(":: installing in " + to + " ::");
-            for (int i = 0; i < dependencies.length; i++) {
-                ModuleDescriptor depmd = dependencies[i].getDescriptor();
-                if (depmd != null) {
-                    ModuleRevisionId depMrid = depmd.getModuleRevisionId();
-                    Message.verbose("installing " + depMrid);
-                    boolean successfullyPublished = false;
-                    try {
-                        toResolver.beginPublishTransaction(depMrid, options.isOverwrite());
-                        
-                        // publish artifacts
-                        ArtifactDownloadReport[] artifacts = 
-                                report.getArtifactsReports(depMrid);
-                        for (int j = 0; j < artifacts.length; j++) {
-                            if (artifacts[j].getLocalFile() != null) {
-                                toResolver.publish(artifacts[j].getArtifact(), 
-                                    artifacts[j].getLocalFile(), options.isOverwrite());
-                            }
-                        }
-                        
-                        // publish metadata
-                        File localIvyFile = dependencies[i]
-                                                    .getModuleRevision().getReport().getLocalFile();
-                        toResolver.publish(
-                            depmd.getMetadataArtifact(), localIvyFile, options.isOverwrite());
-                        
-                        // end module publish
-                        toResolver.commitPublishTransaction();
-                        successfullyPublished  = true;
-                    } finally {
-                        if (!successfullyPublished) {
-                            toResolver.abortPublishTransaction();
-                        }
-                    }
+            InstallProgress progress = null;
+            if (options.getProgressFile() != null) {
+                progress = InstallProgress.load(options.getProgressFile());
+            }
+            try {
+                install(dependencies, report, toResolver, options, progress);
+            } finally {
+                if (progress != null) {
+                    progress.close();
                 }
             }
+            if (progress != null) {
+                progress.delete();
+            }
 
             Message.info(":: install resolution report ::");
 
@@ -185,4 +175,152 @@ public class InstallEngine {
         }
     }
 
+    /**
+     * Installs the modules of the given dependencies, concurrently if the options ask for more
+     * than one thread. As a resolver can only have one publish transaction at a time, the
+     * modules are published one after the other, but the other modules are checked against the
+     * destination resolver meanwhile.
+     */
+    private void install(IvyNode[] dependencies, final ResolveReport report,
+            final DependencyResolver toResolver, final InstallOptions options,
+            final InstallProgress progress) throws IOException {
+        final Object publishLock = new Object();
+        int threadCount = Math.min(options.getThreadCount(), dependencies.length);
+        if (threadCount < 2) {
+            for (int i = 0; i < dependencies.length; i++) {
+                install(dependencies[i], report, toResolver, options, progress, publishLock);
+            }
+            return;
+        }
+
+        ExecutorService executor = Executors.newFixedThreadPool(threadCount);
+        boolean completed = false;
+        try {
+            List futures = new ArrayList(dependencies.length);
+            for (int i = 0; i < dependencies.length; i++) {
+                final IvyNode dependency = dependencies[i];
+                futures.add(executor.submit(IvyContext.propagate(new Callable() {
+                    public Object call() throws Exception {
+                        install(dependency, report, toResolver, options, progress, publishLock);
+                        return null;
+                    }
+                })));
+            }
+            for (Iterator iter = futures.iterator(); iter.hasNext();) {
+                waitFor((Future) iter.next());
+            }
+            completed = true;
+        } finally {
+            executor.shutdownNow();
+            if (!completed) {
+                // don't let modules be installed after the install has failed
+                awaitTermination(executor);
+            }
+        }
+    }
+
+    private void install(IvyNode dependency, ResolveReport report, DependencyResolver toResolver,
+            InstallOptions options, InstallProgress progress, Object publishLock)
+            throws IOException {
+        ModuleDescriptor depmd = dependency.getDescriptor();
+        if (depmd == null) {
+            return;
+        }
+        IvyContext.getContext().checkInterrupted();
+        ModuleRevisionId depMrid = depmd.getModuleRevisionId();
+        if (progress != null && progress.isInstalled(depMrid)) {
+            Message.verbose("\t" + depMrid + " already installed [SKIPPED]");
+            return;
+        }
+        long start = System.currentTimeMillis();
+        ArtifactDownloadReport[] artifacts = report.getArtifactsReports(depMrid);
+        File localIvyFile = dependency.getModuleRevision().getReport().getLocalFile();
+        if (options.isSkipIdentical()
+                && isInstalled(toResolver, depmd, localIvyFile, artifacts)) {
+            Message.info("\t" + depMrid + " already installed with the same content"
+                    + " [NOT REQUIRED]");
+        } else {
+            Message.verbose("installing " + depMrid);
+            synchronized (publishLock) {
+                boolean successfullyPublished = false;
+                try {
+                    toResolver.beginPublishTransaction(depMrid, options.isOverwrite());
+
+                    // publish artifacts
+                    for (int j = 0; j < artifacts.length; j++) {
+                        if (artifacts[j].getLocalFile() != null) {
+                            toResolver.publish(artifacts[j].getArtifact(), 
+                                artifacts[j].getLocalFile(), options.isOverwrite());
+                        }
+                    }
+
+                    // publish metadata
+                    toResolver.publish(
+                        depmd.getMetadataArtifact(), localIvyFile, options.isOverwrite());
+
+                    // end module publish
+                    toResolver.commitPublishTransaction();
+                    successfullyPublished  = true;
+                } finally {
+                    if (!successfullyPublished) {
+                        toResolver.abortPublishTransaction();
+                    }
+                }
+            }
+            Message.info("\tinstalled " + depMrid + " ("
+                    + (System.currentTimeMillis() - start) + "ms)");
+        }
+        if (progress != null) {
+            progress.record(depMrid);
+        }
+    }
+
+    /**
+     * Returns true if the given module is already installed in the given resolver, with the same
+     * metadata and artifacts. Only resolvers based on a repository can tell it.
+     */
+    private boolean isInstalled(DependencyResolver toResolver, ModuleDescriptor md,
+            File localIvyFile, ArtifactDownloadReport[] artifacts) throws IOException {
+        if (!(toResolver instanceof RepositoryResolver)) {
+            return false;
+        }
+        RepositoryResolver resolver = (RepositoryResolver) toResolver;
+        for (int i = 0; i < artifacts.length; i++) {
+            if (artifacts[i].getLocalFile() != null
+                    && !resolver.isPublished(artifacts[i].getArtifact(),
+                        artifacts[i].getLocalFile())) {
+                return false;
+            }
+        }
+        return resolver.isPublished(md.getMetadataArtifact(), localIvyFile);
+    }
+
+    private void waitFor(Future future) throws IOException {
+        try {
+            future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("interrupted while waiting for an install", e);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof IOException) {
+                throw (IOException) cause;
+            } else if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            } else if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            throw new RuntimeException(cause.getMessage(), cause);
+        }
+    }
+
+    private void awaitTermination(ExecutorService executor) {
+        try {
+            while (!executor.awaitTermination(1, TimeUnit.SECONDS)) {
+                Message.verbose("waiting for the modules being installed to be done");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
 }
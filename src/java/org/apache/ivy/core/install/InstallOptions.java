@@ -17,6 +17,8 @@
  */
 package org.apache.ivy.core.install;
 
+import java.io.File;
+
 import org.apache.ivy.plugins.matcher.PatternMatcher;
 import org.apache.ivy.util.filter.Filter;
 import org.apache.ivy.util.filter.FilterHelper;
@@ -28,6 +30,9 @@ public class InstallOptions {
     private String[] confs = {"*"};
     private Filter artifactFilter = FilterHelper.NO_FILTER;
     private String matcherName = PatternMatcher.EXACT;
+    private int threadCount = 1;
+    private boolean skipIdentical = false;
+    private File progressFile;
     
     public boolean isTransitive() {
         return transitive;
@@ -71,4 +76,38 @@ public class InstallOptions {
         this.confs = conf;
         return this;
     }
+    public int getThreadCount() {
+        return threadCount;
+    }
+    /**
+     * Sets the number of threads downloading and installing modules. The modules are downloaded
+     * and installed one after the other in the calling thread if it is lower than 2.
+     */
+    public InstallOptions setThreadCount(int threadCount) {
+        this.threadCount = threadCount;
+        return this;
+    }
+    public boolean isSkipIdentical() {
+        return skipIdentical;
+    }
+    /**
+     * Sets whether the modules already installed with the same content, i.e. with artifacts of
+     * the same size and checksum, must be left untouched instead of being installed again.
+     */
+    public InstallOptions setSkipIdentical(boolean skipIdentical) {
+        this.skipIdentical = skipIdentical;
+        return this;
+    }
+    public File getProgressFile() {
+        return progressFile;
+    }
+    /**
+     * Sets the file in which the installed modules are recorded as the install goes, so that an
+     * interrupted install can be resumed without installing these modules again. The file is
+     * deleted once the install is done.
+     */
+    public InstallOptions setProgressFile(File progressFile) {
+        this.progressFile = progressFile;
+        return this;
+    }
 }
@@ -0,0 +1,117 @@
+/*
+ *  Licensed to the Apache Software Foundation (ASF) under one or more
+ *  contributor license agreements.  See the NOTICE file distributed with
+ *  this work for additional information regarding copyright ownership.
+ *  The ASF licenses this file to You under the Apache License, Version 2.0
+ *  (the "License"); you may not use this file except in compliance with
+ *  the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ */
+package org.apache.ivy.core.install;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.util.HashSet;
+import java.util.Set;
+
+import org.apache.ivy.core.module.id.ModuleRevisionId;
+import org.apache.ivy.util.Message;
+
+/**
+ * The modules installed so far by an install.
+ * <p>
+ * Each module is appended to a file as soon as it is installed, so that an install interrupted
+ * for any reason can be resumed without installing these modules again. The file is deleted once
+ * the whole install is done.
+ * </p>
+ */
+class InstallProgress {
+    private static final String ENCODING = "UTF-8";
+
+    private final File file;
+
+    private final Set/*<String>*/ installed = new HashSet();
+
+    private Writer writer;
+
+    private InstallProgress(File file) {
+        this.file = file;
+    }
+
+    /**
+     * Loads the modules recorded in the given file by a previous install, if any.
+     */
+    public static InstallProgress load(File file) throws IOException {
+        InstallProgress progress = new InstallProgress(file);
+        if (file.exists()) {
+            BufferedReader in = new BufferedReader(new InputStreamReader(
+                    new FileInputStream(file), ENCODING));
+            try {
+                String line;
+                while ((line = in.readLine()) != null) {
+                    if (line.length() > 0) {
+                        progress.installed.add(line);
+                    }
+                }
+            } finally {
+                in.close();
+            }
+            Message.info("\tresuming install: " + progress.installed.size()
+                    + " modules already installed according to " + file);
+        }
+        return progress;
+    }
+
+    public synchronized boolean isInstalled(ModuleRevisionId mrid) {
+        return installed.contains(mrid.encodeToString());
+    }
+
+    /**
+     * Records that the given module is installed.
+     */
+    public synchronized void record(ModuleRevisionId mrid) throws IOException {
+        String encoded = mrid.encodeToString();
+        if (installed.add(encoded)) {
+            if (writer == null) {
+                if (file.getParentFile() != null) {
+                    file.getParentFile().mkdirs();
+                }
+                writer = new OutputStreamWriter(new FileOutputStream(file, true), ENCODING);
+            }
+            writer.write(encoded);
+            writer.write('\n');
+            writer.flush();
+        }
+    }
+
+    public synchronized void close() throws IOException {
+        if (writer != null) {
+            writer.close();
+            writer = null;
+        }
+    }
+
+    /**
+     * Closes and deletes the file recording the installed modules.
+     */
+    public synchronized void delete() throws IOException {
+        close();
+        if (file.exists() && !file.delete()) {
+            Message.warn("impossible to delete install progress file " + file);
+        }
+    }
+}
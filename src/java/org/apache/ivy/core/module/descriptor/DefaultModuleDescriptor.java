@@ -42,7 +42,6 @@ import org.apache.ivy.core.module.id.ModuleRules;
 import org.apache.ivy.core.module.status.StatusManager;
 import org.apache.ivy.plugins.conflict.ConflictManager;
 import org.apache.ivy.plugins.matcher.MapMatcher;
-import org.apache.ivy.plugins.matcher.MatcherHelper;
 import org.apache.ivy.plugins.matcher.PatternMatcher;
 import org.apache.ivy.plugins.namespace.NameSpaceHelper;
 import org.apache.ivy.plugins.namespace.Namespace;
@@ -248,6 +247,8 @@ public class DefaultModuleDescriptor implements ModuleDescriptor {
 
     private List excludeRules = new ArrayList(); // List(ExcludeRule)
 
+    private volatile ExcludeRulesIndex excludeRulesIndex; // built on demand
+
     private Artifact metadataArtifact;
 
     private List inheritedDescriptors = new ArrayList(); // List(ExtendsDescriptor)
@@ -781,6 +782,7 @@ public class DefaultModuleDescriptor implements ModuleDescriptor {
 
     public void addExcludeRule(ExcludeRule rule) {
         excludeRules.add(rule);
+        excludeRulesIndex = null;
     }
 
     public boolean canExclude() {
@@ -796,13 +798,12 @@ public class DefaultModuleDescriptor implements ModuleDescriptor {
             artifactId = NameSpaceHelper
                     .transform(artifactId, namespace.getFromSystemTransformer());
         }
-        ExcludeRule[] rules = getExcludeRules(moduleConfigurations);
-        for (int i = 0; i < rules.length; i++) {
-            if (MatcherHelper.matches(rules[i].getMatcher(), rules[i].getId(), artifactId)) {
-                return true;
-            }
+        ExcludeRulesIndex index = excludeRulesIndex;
+        if (index == null) {
+            index = new ExcludeRulesIndex(excludeRules);
+            excludeRulesIndex = index;
         }
-        return false;
+        return index.doesExclude(moduleConfigurations, artifactId);
     }
 
     public ExcludeRule[] getAllExcludeRules() {
@@ -0,0 +1,102 @@
+/*
+ *  Licensed to the Apache Software Foundation (ASF) under one or more
+ *  contributor license agreements.  See the NOTICE file distributed with
+ *  this work for additional information regarding copyright ownership.
+ *  The ASF licenses this file to You under the Apache License, Version 2.0
+ *  (the "License"); you may not use this file except in compliance with
+ *  the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ */
+package org.apache.ivy.core.module.descriptor;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.ivy.core.module.id.ArtifactId;
+import org.apache.ivy.core.module.id.ModuleId;
+import org.apache.ivy.plugins.matcher.MatcherHelper;
+import org.apache.ivy.plugins.matcher.PatternMatcher;
+
+/**
+ * An index of exclude rules, used to quickly find the rules excluding an artifact.
+ * <p>
+ * Rules which organisation and module are exact expressions are stored by organisation and module,
+ * so that only the rules concerning the module of an artifact are matched against it. Other rules
+ * are always matched.
+ * </p>
+ */
+final class ExcludeRulesIndex {
+    private final Map/*<String, List<ExcludeRule>>*/ byModule = new HashMap();
+
+    private final List/*<ExcludeRule>*/ others = new ArrayList();
+
+    public ExcludeRulesIndex(Collection/*<ExcludeRule>*/ rules) {
+        for (Iterator iter = rules.iterator(); iter.hasNext();) {
+            ExcludeRule rule = (ExcludeRule) iter.next();
+            PatternMatcher matcher = rule.getMatcher();
+            ModuleId mid = rule.getId().getModuleId();
+            if (MatcherHelper.isExact(matcher, mid.getOrganisation())
+                    && MatcherHelper.isExact(matcher, mid.getName())) {
+                String key = getKey(mid.getOrganisation(), mid.getName());
+                List moduleRules = (List) byModule.get(key);
+                if (moduleRules == null) {
+                    moduleRules = new ArrayList();
+                    byModule.put(key, moduleRules);
+                }
+                moduleRules.add(rule);
+            } else {
+                others.add(rule);
+            }
+        }
+    }
+
+    /**
+     * Returns true if one of the indexed rules applying to one of the given configurations
+     * excludes the given artifact.
+     */
+    public boolean doesExclude(String[] moduleConfigurations, ArtifactId artifactId) {
+        ModuleId mid = artifactId.getModuleId();
+        List moduleRules = (List) byModule.get(getKey(mid.getOrganisation(), mid.getName()));
+        return moduleRules != null && doesExclude(moduleRules, moduleConfigurations, artifactId)
+                || doesExclude(others, moduleConfigurations, artifactId);
+    }
+
+    private static boolean doesExclude(List rules, String[] moduleConfigurations,
+            ArtifactId artifactId) {
+        for (int i = 0; i < rules.size(); i++) {
+            ExcludeRule rule = (ExcludeRule) rules.get(i);
+            if (containsAny(rule.getConfigurations(), moduleConfigurations)
+                    && MatcherHelper.matches(rule.getMatcher(), rule.getId(), artifactId)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static boolean containsAny(String[] arr1, String[] arr2) {
+        for (int i = 0; i < arr1.length; i++) {
+            for (int j = 0; j < arr2.length; j++) {
+                if (arr1[i].equals(arr2[j])) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    private static String getKey(String org, String module) {
+        return org + '#' + module;
+    }
+}
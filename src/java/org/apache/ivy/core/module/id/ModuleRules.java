@@ -19,13 +19,17 @@ package org.apache.ivy.core.module.id;
 
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.Iterator;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
+import java.util.concurrent.ConcurrentHashMap;
 
+import org.apache.ivy.core.IvyPatternHelper;
 import org.apache.ivy.plugins.matcher.MapMatcher;
+import org.apache.ivy.plugins.matcher.PatternMatcher;
 import org.apache.ivy.util.Checks;
 import org.apache.ivy.util.Message;
 import org.apache.ivy.util.filter.Filter;
@@ -49,10 +53,23 @@ import org.apache.ivy.util.filter.NoFilter;
  * Rules themselves can be represented by any object, depending on the purpose of the rule (define
  * which resolver to use, which TTL in cache, ...)
  * </p>
+ * <p>
+ * Rules whose organisation (and possibly module) condition is exact are indexed, so that only
+ * them and the rules using patterns are evaluated for a given module. The rules matching a given
+ * set of module attributes are then kept in cache until a new rule is defined.
+ * </p>
  */
 public class ModuleRules {
+    /**
+     * The maximum number of module attributes for which matching rules are kept in cache. When
+     * this size is reached the cache is simply cleared.
+     */
+    private static final int MAX_CACHED_MATCHES = 10000;
+
     private Map/*<MapMatcher,Object>*/ rules = new LinkedHashMap();
-    
+
+    private volatile RulesIndex index;
+
     /**
      * Constructs an empty ModuleRules.
      */
@@ -75,7 +92,12 @@ public class ModuleRules {
         Checks.checkNotNull(condition, "condition");
         Checks.checkNotNull(rule, "rule");
         
-        rules.put(condition, rule);
+        synchronized (this) {
+            rules.put(condition, rule);
+            // the matching rules are cached by the index, a lookup still using the previous one
+            // can't put its result in the cache of the next one
+            index = null;
+        }
     }
 
     /**
@@ -166,19 +188,38 @@ public class ModuleRules {
     }
 
     private Object getRule(Map moduleAttributes, Filter filter) {
-        for (Iterator iter = rules.entrySet().iterator(); iter.hasNext();) {
-            Map.Entry ruleEntry = (Entry) iter.next();
-            MapMatcher midm = (MapMatcher) ruleEntry.getKey();            
-            if (midm.matches(moduleAttributes)) {
-                Object rule = ruleEntry.getValue();
-                if (filter.accept(rule)) {
-                    return rule;
-                }
+        List matching = getMatchingRules(moduleAttributes);
+        for (Iterator iter = matching.iterator(); iter.hasNext();) {
+            Object rule = iter.next();
+            if (filter.accept(rule)) {
+                return rule;
             }
         }
         return null;
     }
 
+    /**
+     * Returns the rule objects whose condition matches the given module attributes, in the order
+     * in which they were defined.
+     */
+    private List getMatchingRules(Map moduleAttributes) {
+        return getIndex().getCachedMatchingRules(moduleAttributes);
+    }
+
+    private RulesIndex getIndex() {
+        RulesIndex result = index;
+        if (result == null) {
+            synchronized (this) {
+                result = index;
+                if (result == null) {
+                    result = new RulesIndex(rules);
+                    index = result;
+                }
+            }
+        }
+        return result;
+    }
+
     
     
     
@@ -204,18 +245,15 @@ public class ModuleRules {
 
     
     private Object[] getRules(Map moduleAttributes, Filter filter) {
-        List matchingRules = new ArrayList();
-        for (Iterator iter = rules.entrySet().iterator(); iter.hasNext();) {
-            Map.Entry ruleEntry = (Entry) iter.next();
-            MapMatcher midm = (MapMatcher) ruleEntry.getKey();            
-            if (midm.matches(moduleAttributes)) {
-                Object rule = ruleEntry.getValue();
-                if (filter.accept(rule)) {
-                    matchingRules.add(rule);
-                }
+        List acceptedRules = new ArrayList();
+        List matching = getMatchingRules(moduleAttributes);
+        for (Iterator iter = matching.iterator(); iter.hasNext();) {
+            Object rule = iter.next();
+            if (filter.accept(rule)) {
+                acceptedRules.add(rule);
             }
         }
-        return matchingRules.toArray();
+        return acceptedRules.toArray();
     }
 
     /**
@@ -252,4 +290,140 @@ public class ModuleRules {
     public Object clone() {
         return new ModuleRules(rules);
     }
+
+    /**
+     * An immutable snapshot of the rules, where rules whose condition on the organisation and
+     * module is exact are indexed by organisation and module, with the rules matching the module
+     * attributes already looked up.
+     */
+    private static final class RulesIndex {
+        private static final List NO_RULES = Collections.EMPTY_LIST;
+
+        private final Map/*<Map, List<Object>>*/ matchingRules = new ConcurrentHashMap();
+
+        private final Map/*<String, List<IndexedRule>>*/ byOrgModule = new HashMap();
+
+        private final Map/*<String, List<IndexedRule>>*/ byOrg = new HashMap();
+
+        private final List/*<IndexedRule>*/ others = new ArrayList();
+
+        public RulesIndex(Map/*<MapMatcher,Object>*/ rules) {
+            int position = 0;
+            for (Iterator iter = rules.entrySet().iterator(); iter.hasNext();) {
+                Map.Entry ruleEntry = (Entry) iter.next();
+                MapMatcher midm = (MapMatcher) ruleEntry.getKey();
+                IndexedRule indexed = new IndexedRule(position++, midm, ruleEntry.getValue());
+
+                String org = getExactValue(midm, IvyPatternHelper.ORGANISATION_KEY);
+                String module = getExactValue(midm, IvyPatternHelper.MODULE_KEY);
+                if (org == null) {
+                    others.add(indexed);
+                } else if (module == null) {
+                    add(byOrg, org, indexed);
+                } else {
+                    add(byOrgModule, org + '#' + module, indexed);
+                }
+            }
+        }
+
+        private static void add(Map index, String key, IndexedRule indexed) {
+            List list = (List) index.get(key);
+            if (list == null) {
+                list = new ArrayList();
+                index.put(key, list);
+            }
+            list.add(indexed);
+        }
+
+        /**
+         * Returns the value the given attribute must be equal to for the given condition to
+         * match, or <code>null</code> if the condition is not exact on this attribute.
+         */
+        private static String getExactValue(MapMatcher midm, String attribute) {
+            String value = (String) midm.getAttributes().get(attribute);
+            if (value == null || PatternMatcher.ANY_EXPRESSION.equals(value)) {
+                return null;
+            }
+            return midm.getPatternMatcher().getMatcher(value).isExact() ? value : null;
+        }
+
+        public List getCachedMatchingRules(Map moduleAttributes) {
+            List matching = (List) matchingRules.get(moduleAttributes);
+            if (matching == null) {
+                matching = getMatchingRules(moduleAttributes);
+                if (matchingRules.size() >= MAX_CACHED_MATCHES) {
+                    matchingRules.clear();
+                }
+                matchingRules.put(new HashMap(moduleAttributes), matching);
+            }
+            return matching;
+        }
+
+        private List getMatchingRules(Map moduleAttributes) {
+            String org = (String) moduleAttributes.get(IvyPatternHelper.ORGANISATION_KEY);
+            String module = (String) moduleAttributes.get(IvyPatternHelper.MODULE_KEY);
+            List orgModuleRules = getList(byOrgModule, org + '#' + module);
+            List orgRules = getList(byOrg, org);
+
+            // evaluate candidates in their definition order, first match must win
+            List matching = new ArrayList();
+            int i = 0;
+            int j = 0;
+            int k = 0;
+            while (i < orgModuleRules.size() || j < orgRules.size() || k < others.size()) {
+                IndexedRule next = null;
+                int source = -1;
+                if (i < orgModuleRules.size()) {
+                    next = (IndexedRule) orgModuleRules.get(i);
+                    source = 0;
+                }
+                if (j < orgRules.size() 
+                        && (next == null || ((IndexedRule) orgRules.get(j)).position 
+                                < next.position)) {
+                    next = (IndexedRule) orgRules.get(j);
+                    source = 1;
+                }
+                if (k < others.size() 
+                        && (next == null || ((IndexedRule) others.get(k)).position 
+                                < next.position)) {
+                    next = (IndexedRule) others.get(k);
+                    source = 2;
+                }
+                switch (source) {
+                    case 0:
+                        i++;
+                        break;
+                    case 1:
+                        j++;
+                        break;
+                    default:
+                        k++;
+                        break;
+                }
+                if (next.condition.matches(moduleAttributes)) {
+                    matching.add(next.rule);
+                }
+            }
+            return matching;
+        }
+
+        private static List getList(Map index, String key) {
+            List list = (List) index.get(key);
+            return list == null ? NO_RULES : list;
+        }
+    }
+
+    private static final class IndexedRule {
+        private final int position;
+
+        private final MapMatcher condition;
+
+        private final Object rule;
+
+        public IndexedRule(int position, MapMatcher condition, Object rule) {
+            this.position = position;
+            this.condition = condition;
+            this.rule = rule;
+        }
+    }
 }
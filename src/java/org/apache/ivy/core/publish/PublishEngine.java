@@ -30,9 +30,16 @@ import java.util.HashSet;
 import java.util.Iterator;
 import java.util.LinkedHashMap;
 import java.util.LinkedHashSet;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.Map.Entry;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
 
 import org.apache.ivy.core.IvyContext;
 import org.apache.ivy.core.IvyPatternHelper;
@@ -246,6 +253,26 @@ public class PublishEngine {
         boolean successfullyPublished = false;
         try {
             resolver.beginPublishTransaction(md.getModuleRevisionId(), options.isOverwrite());
+            publish(artifactsFiles, resolver, options);
+            resolver.commitPublishTransaction();
+            successfullyPublished = true;
+        } finally {
+            if (!successfullyPublished) {
+                resolver.abortPublishTransaction();
+            }
+        }
+        return missing;
+    }
+
+    /**
+     * Publishes the given artifacts, concurrently if the options ask for more than one thread.
+     * In this case, the ivy file is published once all the other artifacts are, and no artifact
+     * is being published anymore when this method returns, even if it fails.
+     */
+    private void publish(Map/*<Artifact,File>*/ artifactsFiles,
+            final DependencyResolver resolver, final PublishOptions options) throws IOException {
+        int threadCount = Math.min(options.getThreadCount(), artifactsFiles.size());
+        if (threadCount < 2) {
             // for each declared published artifact in this descriptor, do:
             for (Iterator iter = artifactsFiles.entrySet().iterator(); iter.hasNext();) {
                 Map.Entry entry = (Entry) iter.next();
@@ -253,14 +280,73 @@ public class PublishEngine {
                 File artifactFile = (File) entry.getValue();
                 publish(artifact, artifactFile, resolver, options.isOverwrite());
             }
-            resolver.commitPublishTransaction();
-            successfullyPublished = true;
+            return;
+        }
+
+        Map.Entry ivyEntry = null;
+        ExecutorService executor = Executors.newFixedThreadPool(threadCount);
+        boolean completed = false;
+        try {
+            List futures = new ArrayList(artifactsFiles.size());
+            for (Iterator iter = artifactsFiles.entrySet().iterator(); iter.hasNext();) {
+                Map.Entry entry = (Entry) iter.next();
+                final Artifact artifact = (Artifact) entry.getKey();
+                final File artifactFile = (File) entry.getValue();
+                if (artifact.isMetadata()) {
+                    ivyEntry = entry;
+                    continue;
+                }
+                futures.add(executor.submit(IvyContext.propagate(new Callable() {
+                    public Object call() throws Exception {
+                        publish(artifact, artifactFile, resolver, options.isOverwrite());
+                        return null;
+                    }
+                })));
+            }
+            for (Iterator iter = futures.iterator(); iter.hasNext();) {
+                waitFor((Future) iter.next());
+            }
+            completed = true;
         } finally {
-            if (!successfullyPublished) {
-                resolver.abortPublishTransaction();
+            executor.shutdownNow();
+            if (!completed) {
+                // the transaction may only be aborted once the uploads in progress are stopped
+                awaitTermination(executor);
             }
         }
-        return missing;
+        if (ivyEntry != null) {
+            publish((Artifact) ivyEntry.getKey(), (File) ivyEntry.getValue(), resolver,
+                options.isOverwrite());
+        }
+    }
+
+    private void waitFor(Future future) throws IOException {
+        try {
+            future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("interrupted while waiting for a publish", e);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof IOException) {
+                throw (IOException) cause;
+            } else if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            } else if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            throw new RuntimeException(cause.getMessage(), cause);
+        }
+    }
+
+    private void awaitTermination(ExecutorService executor) {
+        try {
+            while (!executor.awaitTermination(1, TimeUnit.SECONDS)) {
+                Message.verbose("waiting for the artifacts being published to be done");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
     }
 
     private void publish(Artifact artifact, File src,
@@ -63,6 +63,12 @@ public class PublishOptions {
 
     private boolean warnonmissing;
 
+    /**
+     * The number of threads uploading the artifacts, the artifacts are uploaded one after the
+     * other in the calling thread if it is lower than 2.
+     */
+    private int threadCount = 1;
+
     public String[] getConfs() {
         return confs;
     }
@@ -180,4 +186,13 @@ public class PublishOptions {
         return this;
     }
 
+    public int getThreadCount() {
+        return threadCount;
+    }
+
+    public PublishOptions setThreadCount(int threadCount) {
+        this.threadCount = threadCount;
+        return this;
+    }
+
 }
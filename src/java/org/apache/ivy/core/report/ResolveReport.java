@@ -62,6 +62,14 @@ public class ResolveReport {
 
     private long downloadSize;
 
+    private int reusedNodeCount;
+
+    private int recomputedNodeCount;
+
+    private int restartCount;
+
+    private int revisitedNodeCount;
+
     public ResolveReport(ModuleDescriptor md) {
         this(md, ResolveOptions.getDefaultResolveId(md));
     }
@@ -321,4 +329,67 @@ public class ResolveReport {
         return resolveId;
     }
 
+    /**
+     * Records a restart of the resolve process.
+     */
+    public void addRestart() {
+        restartCount++;
+    }
+
+    /**
+     * Records nodes visited again after a restart of the resolve process.
+     * 
+     * @param revisitedNodes
+     *            the number of nodes whose dependencies have been fetched again
+     */
+    public void addRevisitedNodes(int revisitedNodes) {
+        revisitedNodeCount += revisitedNodes;
+    }
+
+    /**
+     * The number of times the resolve process has been restarted, for instance by the
+     * latest-compatible conflict manager after having blacklisted a revision.
+     * 
+     * @return the number of restarts of the resolve process, in all configurations
+     */
+    public int getRestartCount() {
+        return restartCount;
+    }
+
+    /**
+     * The number of nodes visited again because of restarts of the resolve process.
+     * 
+     * @return the number of nodes visited again, summed over all restarts
+     */
+    public int getRevisitedNodeCount() {
+        return revisitedNodeCount;
+    }
+
+    public void setIncrementalNodeCounts(int reused, int recomputed) {
+        this.reusedNodeCount = reused;
+        this.recomputedNodeCount = recomputed;
+    }
+
+    /**
+     * The number of dependencies whose resolved revision has been taken from the previous
+     * resolution, when this report is the result of an incremental resolve.
+     * 
+     * @return the number of dependencies reused from the previous resolution, 0 if the resolve
+     *         wasn't incremental
+     */
+    public int getReusedNodeCount() {
+        return reusedNodeCount;
+    }
+
+    /**
+     * The number of dependencies which have been looked up again, when this report is the result
+     * of an incremental resolve.
+     * 
+     * @return the number of dependencies which haven't been reused from the previous resolution,
+     *         0 if the resolve wasn't incremental
+     */
+    public int getRecomputedNodeCount() {
+        return recomputedNodeCount;
+    }
+
 }
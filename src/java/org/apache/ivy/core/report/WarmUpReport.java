@@ -0,0 +1,148 @@
+/*
+ *  Licensed to the Apache Software Foundation (ASF) under one or more
+ *  contributor license agreements.  See the NOTICE file distributed with
+ *  this work for additional information regarding copyright ownership.
+ *  The ASF licenses this file to You under the Apache License, Version 2.0
+ *  (the "License"); you may not use this file except in compliance with
+ *  the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ */
+package org.apache.ivy.core.report;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+import org.apache.ivy.core.module.id.ModuleRevisionId;
+
+/**
+ * Sums up the warm up of the repository cache for several modules: the dependencies found in
+ * their dependency closures, and the metadata and artifact files which had to be downloaded to
+ * put them in the cache.
+ * <p>
+ * The report can be filled concurrently.
+ * </p>
+ */
+public class WarmUpReport {
+    private final int moduleCount;
+
+    private final Set/*<ModuleRevisionId>*/ dependencies = new HashSet();
+
+    private final Set/*<ModuleRevisionId>*/ unresolvedDependencies = new LinkedHashSet();
+
+    private final List/*<ArtifactDownloadReport>*/ failedArtifacts = new ArrayList();
+
+    private int artifactCount;
+
+    private int downloadedFileCount;
+
+    private long downloadSize;
+
+    private long time;
+
+    public WarmUpReport(int moduleCount) {
+        this.moduleCount = moduleCount;
+    }
+
+    /**
+     * Adds a dependency found in the closure of one of the modules, with the report of its
+     * metadata artifact. A dependency found in several closures is counted only once.
+     * 
+     * @return true if the dependency had not been added yet
+     */
+    public synchronized boolean addDependency(ModuleRevisionId mrid,
+            MetadataArtifactDownloadReport report) {
+        if (!dependencies.add(mrid)) {
+            return false;
+        }
+        if (report != null && report.isDownloaded()) {
+            downloadedFileCount++;
+            downloadSize += report.getSize();
+        }
+        return true;
+    }
+
+    public synchronized void addUnresolvedDependency(ModuleRevisionId mrid) {
+        unresolvedDependencies.add(mrid);
+    }
+
+    /**
+     * Adds the report of the download of an artifact of one of the dependencies.
+     */
+    public synchronized void addArtifactReport(ArtifactDownloadReport report) {
+        artifactCount++;
+        if (report.getDownloadStatus() == DownloadStatus.FAILED) {
+            failedArtifacts.add(report);
+        } else if (report.getDownloadStatus() == DownloadStatus.SUCCESSFUL) {
+            downloadedFileCount++;
+            downloadSize += report.getSize();
+        }
+    }
+
+    public int getModuleCount() {
+        return moduleCount;
+    }
+
+    public synchronized int getDependencyCount() {
+        return dependencies.size();
+    }
+
+    public synchronized ModuleRevisionId[] getUnresolvedDependencies() {
+        return (ModuleRevisionId[]) unresolvedDependencies.toArray(
+            new ModuleRevisionId[unresolvedDependencies.size()]);
+    }
+
+    public synchronized int getArtifactCount() {
+        return artifactCount;
+    }
+
+    public synchronized ArtifactDownloadReport[] getFailedArtifactsReports() {
+        return (ArtifactDownloadReport[]) failedArtifacts.toArray(
+            new ArtifactDownloadReport[failedArtifacts.size()]);
+    }
+
+    /**
+     * Returns the number of metadata and artifact files downloaded to the cache.
+     */
+    public synchronized int getDownloadedFileCount() {
+        return downloadedFileCount;
+    }
+
+    /**
+     * Returns the total size of the metadata and artifact files downloaded to the cache, in
+     * bytes.
+     */
+    public synchronized long getDownloadSize() {
+        return downloadSize;
+    }
+
+    public synchronized long getTime() {
+        return time;
+    }
+
+    public synchronized void setTime(long time) {
+        this.time = time;
+    }
+
+    public synchronized boolean hasError() {
+        return !unresolvedDependencies.isEmpty() || !failedArtifacts.isEmpty();
+    }
+
+    public synchronized String toString() {
+        return moduleCount + " modules, " + dependencies.size() + " dependencies, "
+                + artifactCount + " artifacts: " + downloadedFileCount + " files downloaded ("
+                + (downloadSize / 1024) + "kB) in " + time + "ms"
+                + (hasError() ? ", " + unresolvedDependencies.size() + " unresolved dependencies, "
+                        + failedArtifacts.size() + " failed artifacts" : "");
+    }
+}
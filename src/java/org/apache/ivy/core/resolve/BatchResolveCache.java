@@ -0,0 +1,206 @@
+/*
+ *  Licensed to the Apache Software Foundation (ASF) under one or more
+ *  contributor license agreements.  See the NOTICE file distributed with
+ *  this work for additional information regarding copyright ownership.
+ *  The ASF licenses this file to You under the Apache License, Version 2.0
+ *  (the "License"); you may not use this file except in compliance with
+ *  the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ */
+package org.apache.ivy.core.resolve;
+
+import java.util.Date;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+
+import org.apache.ivy.core.module.descriptor.Artifact;
+import org.apache.ivy.core.module.descriptor.DependencyDescriptor;
+import org.apache.ivy.core.module.id.ArtifactRevisionId;
+import org.apache.ivy.core.module.id.ModuleRevisionId;
+import org.apache.ivy.core.report.ArtifactDownloadReport;
+import org.apache.ivy.core.report.DownloadReport;
+import org.apache.ivy.core.report.MetadataArtifactDownloadReport;
+import org.apache.ivy.plugins.resolver.DependencyResolver;
+
+/**
+ * Module revisions and artifact downloads shared by the resolves of a batch.
+ * <p>
+ * When several modules are resolved together, their dependency graphs usually have a lot in
+ * common. This cache makes each dependency looked up and each artifact downloaded only once for
+ * the whole batch, even when the resolves run concurrently: a resolve asking for something which
+ * is being looked up by another one waits for its result instead of looking it up again.
+ * </p>
+ * <p>
+ * Module revisions are only shared by resolves using the same options for their lookups, and each
+ * resolve gets its own copy of the download reports, which it may update. A lookup failing with an
+ * exception fails for all the resolves waiting for it, but isn't remembered for the next ones.
+ * </p>
+ */
+class BatchResolveCache {
+    private final ConcurrentMap/*<DependencyKey, FutureTask>*/ modules = new ConcurrentHashMap();
+
+    private final ConcurrentMap/*<ArtifactKey, FutureTask>*/ downloads = new ConcurrentHashMap();
+
+    /**
+     * Returns the module revision found by the given resolver for the given dependency, looking
+     * it up only if no other resolve of the batch has done it yet.
+     */
+    public ResolvedModuleRevision getDependency(final DependencyResolver resolver,
+            final DependencyDescriptor dd, final ResolveData data) throws Exception {
+        ResolvedModuleRevision rmr = (ResolvedModuleRevision) get(modules,
+            new DependencyKey(resolver, dd, data.getOptions()), new Callable() {
+                public Object call() throws Exception {
+                    return resolver.getDependency(dd, data);
+                }
+            });
+        if (rmr == null || rmr.getReport() == null) {
+            return rmr;
+        }
+        MetadataArtifactDownloadReport report = new MetadataArtifactDownloadReport(rmr
+                .getReport().getArtifact());
+        copy(rmr.getReport(), report);
+        report.setSearched(rmr.getReport().isSearched());
+        report.setOriginalLocalFile(rmr.getReport().getOriginalLocalFile());
+        return new ResolvedModuleRevision(rmr.getResolver(), rmr.getArtifactResolver(), rmr
+                .getDescriptor(), report, rmr.isForce());
+    }
+
+    /**
+     * Downloads the given artifacts with the given resolver, reusing the reports of the artifacts
+     * already downloaded by other resolves of the batch.
+     */
+    public DownloadReport download(final DependencyResolver resolver, Artifact[] artifacts,
+            final DownloadOptions options) throws Exception {
+        DownloadReport report = new DownloadReport();
+        for (int i = 0; i < artifacts.length; i++) {
+            final Artifact artifact = artifacts[i];
+            ArtifactDownloadReport adr = (ArtifactDownloadReport) get(downloads,
+                new ArtifactKey(resolver, artifact), new Callable() {
+                    public Object call() throws Exception {
+                        return resolver.download(new Artifact[] {artifact}, options)
+                                .getArtifactReport(artifact);
+                    }
+                });
+            if (adr != null) {
+                ArtifactDownloadReport copy = new ArtifactDownloadReport(adr.getArtifact());
+                copy(adr, copy);
+                adr = copy;
+            }
+            report.addArtifactReport(adr);
+        }
+        return report;
+    }
+
+    private static void copy(ArtifactDownloadReport from, ArtifactDownloadReport to) {
+        to.setDownloadStatus(from.getDownloadStatus());
+        to.setDownloadDetails(from.getDownloadDetails());
+        to.setSize(from.getSize());
+        to.setDownloadTimeMillis(from.getDownloadTimeMillis());
+        to.setLocalFile(from.getLocalFile());
+        to.setArtifactOrigin(from.getArtifactOrigin());
+    }
+
+    private Object get(ConcurrentMap map, Object key, Callable callable) throws Exception {
+        FutureTask task = new FutureTask(callable);
+        FutureTask existing = (FutureTask) map.putIfAbsent(key, task);
+        if (existing == null) {
+            existing = task;
+            task.run();
+        }
+        try {
+            return existing.get();
+        } catch (ExecutionException e) {
+            map.remove(key, existing);
+            Throwable cause = e.getCause();
+            if (cause instanceof Exception) {
+                throw (Exception) cause;
+            }
+            throw (Error) cause;
+        }
+    }
+
+    private static final class DependencyKey {
+        private final DependencyResolver resolver;
+
+        private final ModuleRevisionId revisionId;
+
+        private final ModuleRevisionId constraintRevisionId;
+
+        private final boolean changing;
+
+        private final Object namespace;
+
+        private final boolean refresh;
+
+        private final boolean useCacheOnly;
+
+        private final boolean validate;
+
+        private final Date date;
+
+        public DependencyKey(DependencyResolver resolver, DependencyDescriptor dd,
+                ResolveOptions options) {
+            this.resolver = resolver;
+            this.revisionId = dd.getDependencyRevisionId();
+            this.constraintRevisionId = dd.getDynamicConstraintDependencyRevisionId();
+            this.changing = dd.isChanging();
+            this.namespace = dd.getNamespace();
+            this.refresh = options.isRefresh();
+            this.useCacheOnly = options.isUseCacheOnly();
+            this.validate = options.isValidate();
+            this.date = options.getDate();
+        }
+
+        public boolean equals(Object obj) {
+            if (!(obj instanceof DependencyKey)) {
+                return false;
+            }
+            DependencyKey other = (DependencyKey) obj;
+            return resolver == other.resolver && changing == other.changing
+                    && namespace == other.namespace && revisionId.equals(other.revisionId)
+                    && (constraintRevisionId == null ? other.constraintRevisionId == null
+                            : constraintRevisionId.equals(other.constraintRevisionId))
+                    && refresh == other.refresh && useCacheOnly == other.useCacheOnly
+                    && validate == other.validate
+                    && (date == null ? other.date == null : date.equals(other.date));
+        }
+
+        public int hashCode() {
+            return revisionId.hashCode() * 31 + System.identityHashCode(resolver);
+        }
+    }
+
+    private static final class ArtifactKey {
+        private final DependencyResolver resolver;
+
+        private final ArtifactRevisionId artifactId;
+
+        public ArtifactKey(DependencyResolver resolver, Artifact artifact) {
+            this.resolver = resolver;
+            this.artifactId = artifact.getId();
+        }
+
+        public boolean equals(Object obj) {
+            if (!(obj instanceof ArtifactKey)) {
+                return false;
+            }
+            ArtifactKey other = (ArtifactKey) obj;
+            return resolver == other.resolver && artifactId.equals(other.artifactId);
+        }
+
+        public int hashCode() {
+            return artifactId.hashCode() * 31 + System.identityHashCode(resolver);
+        }
+    }
+}
@@ -0,0 +1,209 @@
+/*
+ *  Licensed to the Apache Software Foundation (ASF) under one or more
+ *  contributor license agreements.  See the NOTICE file distributed with
+ *  this work for additional information regarding copyright ownership.
+ *  The ASF licenses this file to You under the Apache License, Version 2.0
+ *  (the "License"); you may not use this file except in compliance with
+ *  the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ */
+package org.apache.ivy.core.resolve;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+
+import org.apache.ivy.core.cache.DefaultRepositoryCacheManager;
+import org.apache.ivy.core.cache.RepositoryCacheManager;
+import org.apache.ivy.core.module.descriptor.DependencyDescriptor;
+import org.apache.ivy.core.module.id.ModuleRevisionId;
+import org.apache.ivy.plugins.latest.ArtifactInfo;
+import org.apache.ivy.plugins.latest.LatestStrategy;
+import org.apache.ivy.plugins.resolver.AbstractResolver;
+import org.apache.ivy.plugins.resolver.ChainResolver;
+import org.apache.ivy.plugins.resolver.ChainResolver.ResolvedModuleRevisionArtifactInfo;
+import org.apache.ivy.plugins.resolver.DependencyResolver;
+import org.apache.ivy.plugins.resolver.DualResolver;
+import org.apache.ivy.plugins.resolver.util.HasLatestStrategy;
+import org.apache.ivy.util.Message;
+import org.apache.ivy.util.StringUtils;
+
+/**
+ * Looks dependencies up in the repository caches only, without going through the resolvers.
+ * <p>
+ * When a resolve is asked to use the cache only, there is nothing a resolver can do but look in
+ * its cache, so the module revisions are directly taken from the caches of the resolver in charge
+ * of the dependency and of the resolvers it delegates to, including the resolutions of dynamic
+ * revisions saved there. Each resolver's cache is looked up as the resolver itself does it, with
+ * its own cache options, changing pattern and resolver name. As in a chain, the first module found
+ * is kept for a static revision, and the latest one for a dynamic revision.
+ * </p>
+ * <p>
+ * When no cache has the module, the lookup fails at once with what is missing in each cache,
+ * unless the caller has a fallback of its own for this case.
+ * </p>
+ */
+final class CacheOnlyLookup {
+    private CacheOnlyLookup() {
+    }
+
+    /**
+     * Returns the module revision found in the caches for the given dependency, failing with what
+     * is missing in each cache when none has it.
+     */
+    public static ResolvedModuleRevision getDependency(DependencyResolver resolver,
+            DependencyDescriptor dd, ResolveData data) {
+        List missing = new ArrayList();
+        ResolvedModuleRevision rmr = lookUp(resolver, dd, data, missing);
+        if (rmr != null) {
+            return rmr;
+        }
+        StringBuffer message = new StringBuffer("not found in cache (useCacheOnly): "
+                + dd.getDependencyRevisionId());
+        for (Iterator iter = missing.iterator(); iter.hasNext();) {
+            message.append("\n\t").append(iter.next());
+        }
+        Message.verbose("\t" + message);
+        throw new RuntimeException(message.toString());
+    }
+
+    /**
+     * Returns the module revision found in the caches for the given dependency, or
+     * <code>null</code> if none has it.
+     */
+    public static ResolvedModuleRevision findDependency(DependencyResolver resolver,
+            DependencyDescriptor dd, ResolveData data) {
+        ResolvedModuleRevision rmr = lookUp(resolver, dd, data, null);
+        if (rmr == null) {
+            Message.verbose("\tnot found in cache (useCacheOnly): "
+                    + dd.getDependencyRevisionId());
+        }
+        return rmr;
+    }
+
+    private static ResolvedModuleRevision lookUp(DependencyResolver resolver,
+            DependencyDescriptor dd, ResolveData data, List missing) {
+        boolean dynamic = data.getSettings().getVersionMatcher().isDynamic(
+            dd.getDependencyRevisionId());
+        List found = new ArrayList();
+        lookUp(resolver, dd, data, dynamic, missing, found);
+        if (found.isEmpty()) {
+            return null;
+        }
+        ResolvedModuleRevision rmr = (ResolvedModuleRevision) found.get(0);
+        for (Iterator iter = found.iterator(); iter.hasNext() && !rmr.isForce();) {
+            ResolvedModuleRevision other = (ResolvedModuleRevision) iter.next();
+            if (other.isForce() || isAfter(resolver, other, rmr, data)) {
+                rmr = other;
+            }
+        }
+        Message.verbose("\t" + rmr.getResolver().getName() + ": revision in cache: "
+                + rmr.getId());
+        return rmr;
+    }
+
+    /**
+     * Adds the module revisions found for the given dependency in the caches of the given resolver
+     * and of the resolvers it delegates to, as each of them looks up its cache, stopping at the
+     * first one found unless the revision asked is dynamic.
+     */
+    private static void lookUp(DependencyResolver resolver, DependencyDescriptor dd,
+            ResolveData data, boolean dynamic, List missing, List found) {
+        if (!dynamic && !found.isEmpty()) {
+            return;
+        }
+        if (resolver instanceof ChainResolver) {
+            ChainResolver chain = (ChainResolver) resolver;
+            // a chain first looks for a module cached by any resolver, and keeps it if found
+            ResolvedModuleRevision rmr = chain.getCachedDependency(dd, data, true);
+            if (rmr != null) {
+                found.add(new ResolvedModuleRevision(rmr.getResolver(), rmr
+                        .getArtifactResolver(), rmr.getDescriptor(), rmr.getReport(), true));
+                return;
+            }
+            for (Iterator iter = chain.getResolvers().iterator(); iter.hasNext();) {
+                lookUp((DependencyResolver) iter.next(), dd, data, dynamic, missing, found);
+            }
+        } else if (resolver instanceof DualResolver) {
+            List ivyFound = new ArrayList();
+            lookUp(((DualResolver) resolver).getIvyResolver(), dd, data, dynamic, missing,
+                ivyFound);
+            for (Iterator iter = ivyFound.iterator(); iter.hasNext();) {
+                ResolvedModuleRevision rmr = (ResolvedModuleRevision) iter.next();
+                found.add(new ResolvedModuleRevision(rmr.getResolver(), resolver, rmr
+                        .getDescriptor(), rmr.getReport(), rmr.isForce()));
+            }
+        } else if (resolver instanceof AbstractResolver) {
+            ResolvedModuleRevision rmr = ((AbstractResolver) resolver).getCachedDependency(dd,
+                data, false);
+            if (rmr != null) {
+                found.add(rmr);
+            } else if (missing != null) {
+                missing.add(getMissingEntry(resolver, dd, data));
+            }
+        } else {
+            // its cache can't be looked up from outside, the resolver knows it must use it only
+            try {
+                ResolvedModuleRevision rmr = resolver.getDependency(dd, data);
+                if (rmr != null) {
+                    found.add(rmr);
+                } else if (missing != null) {
+                    missing.add(resolver.getName() + ": no module found for "
+                            + dd.getDependencyRevisionId());
+                }
+            } catch (Exception ex) {
+                if (missing != null) {
+                    missing.add(resolver.getName() + ": " + StringUtils.getErrorMessage(ex));
+                }
+            }
+        }
+    }
+
+    private static boolean isAfter(DependencyResolver resolver, ResolvedModuleRevision rmr1,
+            ResolvedModuleRevision rmr2, ResolveData data) {
+        LatestStrategy strategy = resolver instanceof HasLatestStrategy
+                ? ((HasLatestStrategy) resolver).getLatestStrategy()
+                : data.getSettings().getDefaultLatestStrategy();
+        ArtifactInfo[] ais = new ArtifactInfo[] {
+                new ResolvedModuleRevisionArtifactInfo(rmr1),
+                new ResolvedModuleRevisionArtifactInfo(rmr2)};
+        return strategy.findLatest(ais, data.getDate()) == ais[0];
+    }
+
+    private static String getMissingEntry(DependencyResolver resolver,
+            DependencyDescriptor dd, ResolveData data) {
+        String prefix = resolver.getName() + ": ";
+        ModuleRevisionId mrid = dd.getDependencyRevisionId();
+        if (dd.isChanging()) {
+            return prefix + mrid + " is changing";
+        }
+        RepositoryCacheManager cacheManager = resolver.getRepositoryCacheManager();
+        if (!(cacheManager instanceof DefaultRepositoryCacheManager)) {
+            return prefix + "no module found for " + mrid;
+        }
+        DefaultRepositoryCacheManager cache = (DefaultRepositoryCacheManager) cacheManager;
+        if (data.getSettings().getVersionMatcher().isDynamic(mrid)) {
+            String revision = data.getOptions().isRefresh() ? null : cache
+                    .getSavedResolvedRevision(mrid);
+            if (revision == null) {
+                return prefix + "no resolved revision saved for " + mrid;
+            }
+            mrid = ModuleRevisionId.newInstance(mrid, revision);
+        }
+        File ivyFile = cache.getIvyFileInCache(mrid);
+        if (!ivyFile.exists()) {
+            return prefix + "no ivy file for " + mrid + ": tried " + ivyFile;
+        }
+        return prefix + "cached ivy file for " + mrid + " is unreadable, blacklisted, changing"
+                + " or was found by another resolver: " + ivyFile;
+    }
+}
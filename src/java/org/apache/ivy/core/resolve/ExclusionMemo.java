@@ -0,0 +1,226 @@
+/*
+ *  Licensed to the Apache Software Foundation (ASF) under one or more
+ *  contributor license agreements.  See the NOTICE file distributed with
+ *  this work for additional information regarding copyright ownership.
+ *  The ASF licenses this file to You under the Apache License, Version 2.0
+ *  (the "License"); you may not use this file except in compliance with
+ *  the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ */
+package org.apache.ivy.core.resolve;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.ivy.core.module.id.ArtifactId;
+import org.apache.ivy.core.module.id.ModuleRevisionId;
+
+/**
+ * Remembers, for the duration of a resolve, whether all the callers of a node exclude an artifact
+ * in a root module configuration.
+ * <p>
+ * The answer for a node depends on its callers, on the nodes registered for the module revisions
+ * of its callers, and on the answers for these caller nodes. The memo records these dependencies
+ * while answers are evaluated, so that a change to the callers of a node, reported with
+ * {@link #callersChanged(IvyNode)}, only discards the answers for this node and for the nodes
+ * whose answers have been computed from them. In the same way, a change to the node registered
+ * for a module revision, reported with {@link #nodeChanged(ModuleRevisionId)}, only discards the
+ * answers which have looked this module revision up. This keeps the memo useful while the
+ * dependency graph is being walked, when callers are added all the time.
+ * </p>
+ * <p>
+ * Answers computed while a circular dependency was cut are never remembered, since they depend
+ * on the path from which the evaluation started.
+ * </p>
+ */
+class ExclusionMemo {
+    private Map/*<Key, Boolean>*/ results = new HashMap();
+
+    private Map/*<IvyNode, List<Key>>*/ keysByNode = new IdentityHashMap();
+
+    // dependents are kept as the key sets of identity maps, since distinct nodes may be equal
+    private Map/*<IvyNode, Map<IvyNode, IvyNode>>*/ dependentsByNode = new IdentityHashMap();
+
+    private Map/*<String, Map<IvyNode, IvyNode>>*/ dependentsByMrid = new HashMap();
+
+    private List/*<IvyNode>*/ evaluated = new ArrayList();
+
+    private boolean circular;
+
+    private long hitCount;
+
+    /**
+     * Reports a change to the callers of the given node, discarding the answers which depend on
+     * them.
+     */
+    void callersChanged(IvyNode node) {
+        List keys = (List) keysByNode.remove(node);
+        if (keys != null) {
+            for (Iterator iter = keys.iterator(); iter.hasNext();) {
+                results.remove(iter.next());
+            }
+        }
+        invalidate((Map) dependentsByNode.remove(node));
+    }
+
+    /**
+     * Reports a change to the node registered for the given module revision, discarding the
+     * answers which have looked it up.
+     */
+    void nodeChanged(ModuleRevisionId mrid) {
+        invalidate((Map) dependentsByMrid.remove(getLookupKey(mrid)));
+    }
+
+    /**
+     * Reports a change which may affect any answer, discarding all of them.
+     */
+    void graphChanged() {
+        results.clear();
+        keysByNode.clear();
+        dependentsByNode.clear();
+        dependentsByMrid.clear();
+    }
+
+    private void invalidate(Map dependents) {
+        if (dependents != null) {
+            for (Iterator iter = dependents.keySet().iterator(); iter.hasNext();) {
+                callersChanged((IvyNode) iter.next());
+            }
+        }
+    }
+
+    /**
+     * Returns the remembered answer for the given node, root module conf and artifact, or
+     * <code>null</code> if it isn't known.
+     * <p>
+     * The answer of the node being evaluated, if any, is recorded as depending on the one of the
+     * given node, whether it is known or not.
+     * </p>
+     */
+    Boolean get(IvyNode node, String rootModuleConf, ArtifactId artifactId) {
+        if (!evaluated.isEmpty()) {
+            addDependent(dependentsByNode, node);
+        }
+        Boolean result = (Boolean) results.get(new Key(node, rootModuleConf, artifactId));
+        if (result != null) {
+            hitCount++;
+        }
+        return result;
+    }
+
+    void put(IvyNode node, String rootModuleConf, ArtifactId artifactId, boolean exclude) {
+        Key key = new Key(node, rootModuleConf, artifactId);
+        results.put(key, Boolean.valueOf(exclude));
+        List keys = (List) keysByNode.get(node);
+        if (keys == null) {
+            keys = new ArrayList();
+            keysByNode.put(node, keys);
+        }
+        keys.add(key);
+    }
+
+    /**
+     * Records that the answer of the node being evaluated depends on the node registered for the
+     * given module revision.
+     */
+    void lookedUp(ModuleRevisionId mrid) {
+        if (!evaluated.isEmpty()) {
+            addDependent(dependentsByMrid, getLookupKey(mrid));
+        }
+    }
+
+    private static String getLookupKey(ModuleRevisionId mrid) {
+        // nodes are also found for module revision ids with less extra attributes than the one
+        // they are registered with, so only the attributes always compared can be used
+        return mrid.getOrganisation() + '#' + mrid.getName() + ';' + mrid.getRevision();
+    }
+
+    private void addDependent(Map dependents, Object dependency) {
+        Map nodes = (Map) dependents.get(dependency);
+        if (nodes == null) {
+            nodes = new IdentityHashMap();
+            dependents.put(dependency, nodes);
+        }
+        Object node = evaluated.get(evaluated.size() - 1);
+        nodes.put(node, node);
+    }
+
+    /**
+     * Returns the number of answers found in this memo so far.
+     */
+    long getHitCount() {
+        return hitCount;
+    }
+
+    /**
+     * Starts the evaluation of the given node, returning the state to give back to
+     * {@link #endEvaluation(boolean)} once done.
+     */
+    boolean startEvaluation(IvyNode node) {
+        evaluated.add(node);
+        boolean outer = circular;
+        circular = false;
+        return outer;
+    }
+
+    /**
+     * Ends the evaluation of the current node, returning <code>true</code> if a circular
+     * dependency has been cut during this evaluation.
+     */
+    boolean endEvaluation(boolean outer) {
+        evaluated.remove(evaluated.size() - 1);
+        boolean inner = circular;
+        circular = outer || inner;
+        return inner;
+    }
+
+    /**
+     * Reports that a circular dependency has been cut during the current evaluation.
+     */
+    void circularDependencyCut() {
+        circular = true;
+    }
+
+    private static final class Key {
+        private final IvyNode node;
+
+        private final String rootModuleConf;
+
+        private final ArtifactId artifactId;
+
+        private final int hash;
+
+        public Key(IvyNode node, String rootModuleConf, ArtifactId artifactId) {
+            this.node = node;
+            this.rootModuleConf = rootModuleConf;
+            this.artifactId = artifactId;
+            this.hash = (System.identityHashCode(node) * 31 + rootModuleConf.hashCode()) * 31
+                    + artifactId.hashCode();
+        }
+
+        public boolean equals(Object obj) {
+            if (!(obj instanceof Key)) {
+                return false;
+            }
+            Key other = (Key) obj;
+            return node == other.node && rootModuleConf.equals(other.rootModuleConf)
+                    && artifactId.equals(other.artifactId);
+        }
+
+        public int hashCode() {
+            return hash;
+        }
+    }
+}
@@ -0,0 +1,311 @@
+/*
+ *  Licensed to the Apache Software Foundation (ASF) under one or more
+ *  contributor license agreements.  See the NOTICE file distributed with
+ *  this work for additional information regarding copyright ownership.
+ *  The ASF licenses this file to You under the Apache License, Version 2.0
+ *  (the "License"); you may not use this file except in compliance with
+ *  the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ */
+package org.apache.ivy.core.resolve;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.apache.ivy.core.cache.ResolutionCacheManager;
+import org.apache.ivy.core.module.descriptor.Configuration;
+import org.apache.ivy.core.module.descriptor.DependencyArtifactDescriptor;
+import org.apache.ivy.core.module.descriptor.DependencyDescriptor;
+import org.apache.ivy.core.module.descriptor.ExcludeRule;
+import org.apache.ivy.core.module.descriptor.IncludeRule;
+import org.apache.ivy.core.module.descriptor.ModuleDescriptor;
+import org.apache.ivy.core.module.id.ArtifactId;
+import org.apache.ivy.core.module.id.ModuleId;
+import org.apache.ivy.core.module.id.ModuleRevisionId;
+import org.apache.ivy.plugins.matcher.PatternMatcher;
+import org.apache.ivy.plugins.report.XmlReportParser;
+import org.apache.ivy.plugins.version.VersionMatcher;
+import org.apache.ivy.util.Message;
+
+/**
+ * The state of an incremental resolve, which reuses the previous resolution of the same module
+ * for the dependencies which haven't changed since then.
+ * <p>
+ * The dependencies declared by the module are compared with the ones of the resolved module
+ * descriptor stored in the resolution cache. A node reached through a dependency which has changed
+ * is recomputed as usual. Any other node for which a matching revision was selected by the
+ * previous resolution, as found in the previous configuration reports, is pinned to this revision:
+ * it is then looked up as a static revision, which doesn't require to list the repositories.
+ * </p>
+ * <p>
+ * The dependency graph itself is still walked, and conflicts are still managed, but in memory
+ * only. If this selects a different revision for a module which wasn't recomputed, the change
+ * propagated further than the changed dependencies, and the resolve must be done again as a full
+ * resolve (see {@link #isConsistent(IvyNode[])}).
+ * </p>
+ */
+class IncrementalResolve {
+    private final Set/*<ModuleId>*/ changedDependencies;
+
+    private final Map/*<ModuleId, List<ModuleRevisionId>>*/ previousRevisions;
+
+    private final Set/*<ModuleId>*/ recomputed = new HashSet();
+
+    private int reusedNodeCount;
+
+    private int recomputedNodeCount;
+
+    private IncrementalResolve(Set changedDependencies, Map previousRevisions) {
+        this.changedDependencies = changedDependencies;
+        this.previousRevisions = previousRevisions;
+    }
+
+    /**
+     * Loads the previous resolution of the given module descriptor, and compares it with the
+     * given module descriptor.
+     *
+     * @return the state of the incremental resolve, or <code>null</code> if no usable previous
+     *         resolution has been found, in which case a full resolve must be done.
+     */
+    static IncrementalResolve load(ResolutionCacheManager cacheManager, ModuleDescriptor md,
+            String[] confs, String resolveId) {
+        ModuleRevisionId mrid = md.getResolvedModuleRevisionId();
+        if (!cacheManager.getResolvedIvyFileInCache(mrid).exists()) {
+            Message.verbose("no previous resolution of " + mrid + ": doing a full resolve");
+            return null;
+        }
+        try {
+            ModuleDescriptor previousMd = cacheManager.getResolvedModuleDescriptor(mrid);
+            if (!getSignatures(previousMd).equals(getSignatures(md))) {
+                Message.verbose("configurations, excludes or overrides of " + mrid
+                        + " have changed: doing a full resolve");
+                return null;
+            }
+
+            Map previousRevisions = new HashMap();
+            for (int i = 0; i < confs.length; i++) {
+                File report = cacheManager.getConfigurationResolveReportInCache(resolveId,
+                    confs[i]);
+                if (!report.exists()) {
+                    Message.verbose("no previous resolution of " + mrid + " in " + confs[i]
+                            + ": doing a full resolve");
+                    return null;
+                }
+                XmlReportParser parser = new XmlReportParser();
+                parser.parse(report);
+                if (parser.hasError()) {
+                    Message.verbose("previous resolution of " + mrid + " in " + confs[i]
+                            + " had errors: doing a full resolve");
+                    return null;
+                }
+                ModuleRevisionId[] mrids = parser.getDependencyRevisionIds();
+                for (int j = 0; j < mrids.length; j++) {
+                    List revisions = (List) previousRevisions.get(mrids[j].getModuleId());
+                    if (revisions == null) {
+                        revisions = new ArrayList();
+                        previousRevisions.put(mrids[j].getModuleId(), revisions);
+                    }
+                    if (!revisions.contains(mrids[j])) {
+                        revisions.add(mrids[j]);
+                    }
+                }
+            }
+
+            Map previousDependencies = getSignatures(previousMd.getDependencies());
+            Map dependencies = getSignatures(md.getDependencies());
+            Set changed = new HashSet();
+            Set ids = new HashSet(previousDependencies.keySet());
+            ids.addAll(dependencies.keySet());
+            for (Iterator iter = ids.iterator(); iter.hasNext();) {
+                ModuleId id = (ModuleId) iter.next();
+                Object previous = previousDependencies.get(id);
+                if (previous == null || !previous.equals(dependencies.get(id))) {
+                    changed.add(id);
+                }
+            }
+            Message.verbose("incremental resolve of " + mrid + ": changed dependencies = "
+                    + changed);
+            return new IncrementalResolve(changed, previousRevisions);
+        } catch (Exception e) {
+            Message.verbose("impossible to load previous resolution of " + mrid + ": "
+                    + e.getMessage() + ": doing a full resolve");
+            return null;
+        }
+    }
+
+    /**
+     * Returns the dependency descriptor to look up for the given dependency of the given visit
+     * node, which is the given one pinned to its previously resolved revision if it can be
+     * reused, or <code>null</code> if it must be looked up as usual.
+     */
+    DependencyDescriptor getPreviousDependency(DependencyDescriptor dd, VisitNode node,
+            VersionMatcher versionMatcher) {
+        ModuleRevisionId askedMrid = dd.getDependencyRevisionId();
+        if (!isChanged(node)) {
+            List revisions = (List) previousRevisions.get(askedMrid.getModuleId());
+            if (revisions != null) {
+                for (Iterator iter = revisions.iterator(); iter.hasNext();) {
+                    ModuleRevisionId previous = (ModuleRevisionId) iter.next();
+                    if (previous.equals(askedMrid)) {
+                        return dd;
+                    }
+                    if (versionMatcher.isDynamic(askedMrid)
+                            && versionMatcher.accept(askedMrid, previous)) {
+                        return dd.clone(previous);
+                    }
+                }
+            }
+        }
+        markRecomputed(askedMrid.getModuleId());
+        return null;
+    }
+
+    /**
+     * Checks that the module revision found for a dependency pinned by
+     * {@link #getPreviousDependency(DependencyDescriptor, VisitNode, VersionMatcher)} can be used
+     * for the original dependency.
+     */
+    boolean isReusable(DependencyDescriptor dd, ResolvedModuleRevision module,
+            VersionMatcher versionMatcher) {
+        ModuleRevisionId askedMrid = dd.getDependencyRevisionId();
+        if (module != null && (askedMrid.equals(module.getId())
+                || !versionMatcher.needModuleDescriptor(askedMrid, module.getId())
+                || versionMatcher.accept(askedMrid, module.getDescriptor()))) {
+            reusedNodeCount++;
+            return true;
+        }
+        markRecomputed(askedMrid.getModuleId());
+        return false;
+    }
+
+    /**
+     * Returns <code>true</code> if all the modules which haven't been recomputed have been
+     * resolved to a revision selected by the previous resolution.
+     */
+    boolean isConsistent(IvyNode[] dependencies) {
+        for (int i = 0; i < dependencies.length; i++) {
+            IvyNode node = dependencies[i];
+            if (node.hasProblem() || node.isCompletelyEvicted()
+                    || recomputed.contains(node.getModuleId())) {
+                continue;
+            }
+            List revisions = (List) previousRevisions.get(node.getModuleId());
+            if (revisions == null || !revisions.contains(node.getResolvedId())) {
+                Message.verbose("incremental resolve selected " + node.getResolvedId()
+                        + " which wasn't selected by the previous resolution");
+                return false;
+            }
+        }
+        return true;
+    }
+
+    int getReusedNodeCount() {
+        return reusedNodeCount;
+    }
+
+    int getRecomputedNodeCount() {
+        return recomputedNodeCount;
+    }
+
+    private void markRecomputed(ModuleId moduleId) {
+        recomputedNodeCount++;
+        recomputed.add(moduleId);
+    }
+
+    /**
+     * Returns <code>true</code> if the given visit node has been reached through a dependency
+     * which has changed since the previous resolution.
+     */
+    private boolean isChanged(VisitNode node) {
+        if (node == null) {
+            return true;
+        }
+        for (Iterator iter = node.getPath().iterator(); iter.hasNext();) {
+            VisitNode ancestor = (VisitNode) iter.next();
+            if (ancestor.getParent() != null
+                    && changedDependencies.contains(ancestor.getModuleId())) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static List getSignatures(ModuleDescriptor md) {
+        List signatures = new ArrayList();
+        Configuration[] confs = md.getConfigurations();
+        for (int i = 0; i < confs.length; i++) {
+            signatures.add(confs[i].getName() + " " + confs[i].getVisibility() + " "
+                    + confs[i].isTransitive() + " " + Arrays.asList(confs[i].getExtends()));
+        }
+        addSignatures(signatures, md.getAllExcludeRules());
+        signatures.add(md.getAllDependencyDescriptorMediators().getAllRules().toString());
+        return signatures;
+    }
+
+    private static Map/*<ModuleId, List<String>>*/ getSignatures(DependencyDescriptor[] dds) {
+        Map signatures = new HashMap();
+        for (int i = 0; i < dds.length; i++) {
+            List signature = (List) signatures.get(dds[i].getDependencyId());
+            if (signature == null) {
+                signature = new ArrayList();
+                signatures.put(dds[i].getDependencyId(), signature);
+            }
+            addSignatures(signature, dds[i]);
+        }
+        return signatures;
+    }
+
+    private static void addSignatures(Collection signatures, DependencyDescriptor dd) {
+        ModuleRevisionId constraint = dd.getDynamicConstraintDependencyRevisionId();
+        signatures.add(dd.getDependencyRevisionId().encodeToString() + " "
+                + (constraint == null ? null : constraint.encodeToString()) + " "
+                + dd.isForce() + " " + dd.isChanging() + " " + dd.isTransitive());
+        String[] confs = dd.getModuleConfigurations();
+        for (int i = 0; i < confs.length; i++) {
+            signatures.add(confs[i] + "->"
+                    + Arrays.asList(dd.getDependencyConfigurations(confs[i])));
+        }
+        DependencyArtifactDescriptor[] artifacts = dd.getAllDependencyArtifacts();
+        for (int i = 0; i < artifacts.length; i++) {
+            signatures.add(artifacts[i].getName() + " " + artifacts[i].getType() + " "
+                    + artifacts[i].getExt() + " " + artifacts[i].getUrl() + " "
+                    + Arrays.asList(artifacts[i].getConfigurations()));
+        }
+        addSignatures(signatures, dd.getAllIncludeRules());
+        addSignatures(signatures, dd.getAllExcludeRules());
+    }
+
+    private static void addSignatures(Collection signatures, IncludeRule[] rules) {
+        for (int i = 0; i < rules.length; i++) {
+            signatures.add("include " + getSignature(rules[i].getId(), rules[i].getMatcher(),
+                rules[i].getConfigurations()));
+        }
+    }
+
+    private static void addSignatures(Collection signatures, ExcludeRule[] rules) {
+        for (int i = 0; i < rules.length; i++) {
+            signatures.add("exclude " + getSignature(rules[i].getId(), rules[i].getMatcher(),
+                rules[i].getConfigurations()));
+        }
+    }
+
+    private static String getSignature(ArtifactId id, PatternMatcher matcher, String[] confs) {
+        return id + " " + matcher.getName() + " " + Arrays.asList(confs);
+    }
+}
@@ -20,6 +20,7 @@ package org.apache.ivy.core.resolve;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Iterator;
@@ -53,6 +54,7 @@ import org.apache.ivy.core.resolve.IvyNodeEviction.EvictionData;
 import org.apache.ivy.plugins.conflict.ConflictManager;
 import org.apache.ivy.plugins.matcher.MatcherHelper;
 import org.apache.ivy.plugins.resolver.DependencyResolver;
+import org.apache.ivy.plugins.version.VersionMatcher;
 import org.apache.ivy.util.Message;
 import org.apache.ivy.util.StringUtils;
 import org.apache.ivy.util.filter.Filter;
@@ -105,7 +107,8 @@ public class IvyNode implements Comparable {
     private IvyNodeUsage usage = new IvyNodeUsage(this);
     
     // usage information merged from evicted nodes this node is "replacing"
-    private Map/*<ModuleRevisionId, IvyNodeUsage>*/ mergedUsages = new LinkedHashMap();
+    // allocated only when needed, most nodes don't replace any other
+    private Map/*<ModuleRevisionId, IvyNodeUsage>*/ mergedUsages = Collections.EMPTY_MAP;
 
     public IvyNode(ResolveData data, IvyNode parent, DependencyDescriptor dd) {
         id = dd.getDependencyRevisionId();
@@ -166,7 +169,7 @@ public class IvyNode implements Comparable {
                     data.getEventManager().fireIvyEvent(
                         new StartResolveDependencyEvent(
                             resolver, dependencyDescriptor, requestedRevisionId));
-                    module = resolver.getDependency(dependencyDescriptor, data);
+                    module = getDependency(resolver, dependencyDescriptor);
                     data.getEventManager().fireIvyEvent(
                         new EndResolveDependencyEvent(
                             resolver, dependencyDescriptor, requestedRevisionId, 
@@ -262,6 +265,46 @@ public class IvyNode implements Comparable {
         }
     }
 
+    private ResolvedModuleRevision getDependency(DependencyResolver resolver,
+            DependencyDescriptor dd) throws Exception {
+        IncrementalResolve incremental = data.getIncrementalResolve();
+        if (incremental != null) {
+            VersionMatcher versionMatcher = settings.getVersionMatcher();
+            DependencyDescriptor previous = incremental.getPreviousDependency(
+                dd, data.getCurrentVisitNode(), versionMatcher);
+            if (previous != null) {
+                // a previous revision which can't be found only means it can't be reused
+                ResolvedModuleRevision module = null;
+                if (data.getOptions().isUseCacheOnly()) {
+                    module = CacheOnlyLookup.findDependency(resolver, previous, data);
+                } else {
+                    try {
+                        module = lookUpDependency(resolver, previous);
+                    } catch (Exception ex) {
+                        Message.verbose("\tprevious revision " + previous.getDependencyRevisionId()
+                                + " can't be reused: " + StringUtils.getErrorMessage(ex));
+                    }
+                }
+                if (incremental.isReusable(dd, module, versionMatcher)) {
+                    return module;
+                }
+            }
+        }
+        return lookUpDependency(resolver, dd);
+    }
+
+    private ResolvedModuleRevision lookUpDependency(DependencyResolver resolver,
+            DependencyDescriptor dd) throws Exception {
+        if (data.getOptions().isUseCacheOnly()) {
+            return CacheOnlyLookup.getDependency(resolver, dd, data);
+        }
+        BatchResolveCache batchCache = data.getBatchCache();
+        if (batchCache != null && !data.hasBlacklistedNodes()) {
+            return batchCache.getDependency(resolver, dd, data);
+        }
+        return resolver.getDependency(dd, data);
+    }
+
     private void moveToRealNode(String rootModuleConf, IvyNode parent, String parentConf,
             String conf, boolean shouldBePublic, IvyNode resolved) {
         if (resolved.md == null) {
@@ -404,10 +447,12 @@ public class IvyNode implements Comparable {
             return Boolean.TRUE;
         }
         // ... or if it is excluded by all its callers
+        getData().getExclusionMemo().lookedUp(md.getModuleRevisionId());
         IvyNode c = getData().getNode(md.getModuleRevisionId());
         if (c != null) {
             if (callersStack.contains(c.getId())) {
                 // a circular dependency, we cannot be conclusive here
+                getData().getExclusionMemo().circularDependencyCut();
                 return null;
             }
             return Boolean.valueOf(c.doesCallersExclude(rootModuleConf, artifact, callersStack));
@@ -739,6 +784,9 @@ public class IvyNode implements Comparable {
             IvyNodeUsage mergedUsage = (IvyNodeUsage) mergedUsages.get(node.getId());
             if (mergedUsage == null) {
                 mergedUsage = new IvyNodeUsage(node);
+                if (mergedUsages.isEmpty()) {
+                    mergedUsages = new LinkedHashMap();
+                }
                 mergedUsages.put(node.getId(), mergedUsage);
             }
             mergedUsage.updateDataFrom(node.getAllUsages(), rootModuleConf);
@@ -1143,6 +1191,11 @@ public class IvyNode implements Comparable {
         return eviction.getEvictedData(rootModuleConf);
     }
 
+    public boolean isResolvedRevision(ModuleId moduleId, String rootModuleConf,
+            ModuleRevisionId mrid) {
+        return eviction.isResolvedRevision(moduleId, rootModuleConf, mrid);
+    }
+
     public Collection getEvictedNodes(ModuleId mid, String rootModuleConf) {
         return eviction.getEvictedNodes(mid, rootModuleConf);
     }
@@ -1170,6 +1223,10 @@ public class IvyNode implements Comparable {
         markEvicted(evictionData);
     }
 
+    public boolean isEvictedRevision(ModuleId mid, String rootModuleConf, ModuleRevisionId mrid) {
+        return eviction.isEvictedRevision(mid, rootModuleConf, mrid);
+    }
+
     public void setEvictedNodes(ModuleId moduleId, String rootModuleConf, Collection evicted) {
         eviction.setEvictedNodes(moduleId, rootModuleConf, evicted);
     }
@@ -30,6 +30,7 @@ import org.apache.ivy.core.module.descriptor.Artifact;
 import org.apache.ivy.core.module.descriptor.Configuration;
 import org.apache.ivy.core.module.descriptor.DependencyDescriptor;
 import org.apache.ivy.core.module.descriptor.ModuleDescriptor;
+import org.apache.ivy.core.module.id.ArtifactId;
 import org.apache.ivy.core.module.id.ModuleId;
 import org.apache.ivy.core.module.id.ModuleRevisionId;
 
@@ -167,6 +168,7 @@ public class IvyNodeCallers {
             throw new IllegalArgumentException("a module is not authorized to depend on itself: "
                     + node.getId());
         }
+        node.getData().getExclusionMemo().callersChanged(node);
         Map callers = (Map) callersByRootConf.get(rootModuleConf);
         if (callers == null) {
             callers = new HashMap();
@@ -188,6 +190,7 @@ public class IvyNodeCallers {
     }
     
     void removeCaller(String rootModuleConf, ModuleRevisionId callerMrid) {
+        node.getData().getExclusionMemo().callersChanged(node);
         allCallers.remove(callerMrid.getModuleId());
         Map callers = (Map) callersByRootConf.get(rootModuleConf);
         if (callers != null) {
@@ -231,6 +234,7 @@ public class IvyNodeCallers {
     }
 
     void updateFrom(IvyNodeCallers callers, String rootModuleConf, boolean real) {
+        node.getData().getExclusionMemo().callersChanged(node);
         Map nodecallers = (Map) callers.callersByRootConf.get(rootModuleConf);
         if (nodecallers != null) {
             Map thiscallers = (Map) callersByRootConf.get(rootModuleConf);
@@ -266,6 +270,30 @@ public class IvyNodeCallers {
     }
 
     boolean doesCallersExclude(String rootModuleConf, Artifact artifact, Stack callersStack) {
+        ExclusionMemo memo = node.getData().getExclusionMemo();
+        ArtifactId artifactId = artifact.getId().getArtifactId();
+        Boolean memoised = memo.get(node, rootModuleConf, artifactId);
+        if (memoised != null) {
+            return memoised.booleanValue();
+        }
+        boolean outer = memo.startEvaluation(node);
+        boolean exclude;
+        boolean circular;
+        try {
+            exclude = doDoesCallersExclude(rootModuleConf, artifact, callersStack);
+        } finally {
+            circular = memo.endEvaluation(outer);
+        }
+        if (!circular) {
+            // no circular dependency has been cut, the result doesn't depend on the callers
+            // stack and can be reused
+            memo.put(node, rootModuleConf, artifactId, exclude);
+        }
+        return exclude;
+    }
+
+    private boolean doDoesCallersExclude(
+            String rootModuleConf, Artifact artifact, Stack callersStack) {
         callersStack.push(node.getId());
         try {
             Caller[] callers = getCallers(rootModuleConf);
@@ -18,6 +18,7 @@
 package org.apache.ivy.core.resolve;
 
 import java.util.Collection;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Iterator;
@@ -131,65 +132,64 @@ public class IvyNodeEviction {
         }
     }
 
-    private static final class ModuleIdConf {
-        private ModuleId moduleId;
-
-        private String conf;
-
-        public ModuleIdConf(ModuleId mid, String conf) {
-            if (mid == null) {
-                throw new NullPointerException("mid cannot be null");
-            }
-            if (conf == null) {
-                throw new NullPointerException("conf cannot be null");
-            }
-            moduleId = mid;
-            this.conf = conf;
-        }
-
-        public final String getConf() {
-            return conf;
+    /**
+     * Returns an unmodifiable copy of the given collection using as little memory as possible.
+     * These tables are kept for each dependency of each node in each root module configuration,
+     * and most of them contain no more than one element.
+     */
+    private static Collection compactCopy(Collection c) {
+        switch (c.size()) {
+            case 0:
+                return Collections.EMPTY_SET;
+            case 1:
+                return Collections.singleton(c.iterator().next());
+            default:
+                return Collections.unmodifiableSet(new HashSet(c));
         }
+    }
 
-        public final ModuleId getModuleId() {
-            return moduleId;
-        }
+    private static Collection getFromTable(Map table, ModuleId mid, String rootModuleConf) {
+        Map confTable = (Map) table.get(rootModuleConf);
+        return confTable == null ? null : (Collection) confTable.get(mid);
+    }
 
-        public boolean equals(Object obj) {
-            if (!(obj instanceof ModuleIdConf)) {
-                return false;
+    private static void putInTable(Map table, ModuleId mid, String rootModuleConf,
+            Collection c) {
+        Map confTable = (Map) table.get(rootModuleConf);
+        if (c.isEmpty()) {
+            // an empty collection is equivalent to no collection at all
+            if (confTable != null) {
+                confTable.remove(mid);
             }
-            return getModuleId().equals(((ModuleIdConf) obj).getModuleId())
-                    && getConf().equals(((ModuleIdConf) obj).getConf());
+            return;
         }
-
-        public int hashCode() {
-            //CheckStyle:MagicNumber| OFF
-            int hash = 33;
-            hash += getModuleId().hashCode() * 17;
-            hash += getConf().hashCode() * 17;
-            //CheckStyle:MagicNumber| ON
-            return hash;
+        if (confTable == null) {
+            confTable = new HashMap();
+            table.put(rootModuleConf, confTable);
         }
+        confTable.put(mid, compactCopy(c));
     }
 
     private IvyNode node;
 
-    private Map selectedDeps = new HashMap(); // Map (ModuleIdConf -> Set(Node)) // map indicating
+    // the following tables are indexed by root module conf first, then by module id:
+    // Map (String rootModuleConf -> Map (ModuleId -> Collection))
+
+    private Map selectedDeps = new HashMap(); // Collection(Node) // map indicating
 
     // for each dependency which node has been selected
 
-    private Map pendingConflicts = new HashMap(); // Map (ModuleIdConf -> Set(Node)) // map
+    private Map pendingConflicts = new HashMap(); // Collection(Node) // map
 
     // indicating for each dependency which nodes
     // are in pending conflict (conflict detected
     // but not yet resolved)
 
-    private Map evictedDeps = new HashMap(); // Map (ModuleIdConf -> Set(Node)) // map indicating
+    private Map evictedDeps = new HashMap(); // Collection(Node) // map indicating
 
     // for each dependency which node has been evicted
 
-    private Map evictedRevs = new HashMap(); // Map (ModuleIdConf -> Set(ModuleRevisionId)) //
+    private Map evictedRevs = new HashMap(); // Collection(ModuleRevisionId) //
 
     // map indicating for each dependency which revision
     // has been evicted
@@ -209,7 +209,7 @@ public class IvyNodeEviction {
      * @return A copy of the set of resolved nodes (real nodes)
      */
     public Set getResolvedNodes(ModuleId mid, String rootModuleConf) {
-        Collection resolved = (Collection) selectedDeps.get(new ModuleIdConf(mid, rootModuleConf));
+        Collection resolved = getFromTable(selectedDeps, mid, rootModuleConf);
         Set ret = new HashSet();
         if (resolved != null) {
             for (Iterator iter = resolved.iterator(); iter.hasNext();) {
@@ -221,7 +221,7 @@ public class IvyNodeEviction {
     }
 
     public Collection getResolvedRevisions(ModuleId mid, String rootModuleConf) {
-        Collection resolved = (Collection) selectedDeps.get(new ModuleIdConf(mid, rootModuleConf));
+        Collection resolved = getFromTable(selectedDeps, mid, rootModuleConf);
         if (resolved == null) {
             return new HashSet();
         } else {
@@ -243,13 +243,37 @@ public class IvyNodeEviction {
         }
     }
 
+    /**
+     * Returns true if the given revision is one of the revisions returned by
+     * {@link #getResolvedRevisions(ModuleId, String)}, without computing them all.
+     */
+    public boolean isResolvedRevision(ModuleId mid, String rootModuleConf, ModuleRevisionId mrid) {
+        Collection resolved = getFromTable(selectedDeps, mid, rootModuleConf);
+        if (resolved == null) {
+            return false;
+        }
+        for (Iterator iter = resolved.iterator(); iter.hasNext();) {
+            IvyNode node = (IvyNode) iter.next();
+            ModuleRevisionId resolvedId = node.getResolvedId();
+            if (mrid.equals(node.getId()) || mrid.equals(resolvedId)) {
+                return true;
+            }
+            if (!resolvedId.getExtraAttributes().isEmpty()
+                    && mrid.getQualifiedExtraAttributes().isEmpty()
+                    && mrid.equals(ModuleRevisionId.newInstance(resolvedId.getOrganisation(),
+                        resolvedId.getName(), resolvedId.getBranch(), resolvedId.getRevision()))) {
+                return true;
+            }
+        }
+        return false;
+    }
+
     public void setResolvedNodes(ModuleId moduleId, String rootModuleConf, Collection resolved) {
-        ModuleIdConf moduleIdConf = new ModuleIdConf(moduleId, rootModuleConf);
-        selectedDeps.put(moduleIdConf, new HashSet(resolved));
+        putInTable(selectedDeps, moduleId, rootModuleConf, resolved);
     }
 
     public Collection getEvictedNodes(ModuleId mid, String rootModuleConf) {
-        Collection resolved = (Collection) evictedDeps.get(new ModuleIdConf(mid, rootModuleConf));
+        Collection resolved = getFromTable(evictedDeps, mid, rootModuleConf);
         Set ret = new HashSet();
         if (resolved != null) {
             for (Iterator iter = resolved.iterator(); iter.hasNext();) {
@@ -261,7 +285,7 @@ public class IvyNodeEviction {
     }
 
     public Collection getEvictedRevisions(ModuleId mid, String rootModuleConf) {
-        Collection evicted = (Collection) evictedRevs.get(new ModuleIdConf(mid, rootModuleConf));
+        Collection evicted = getFromTable(evictedRevs, mid, rootModuleConf);
         if (evicted == null) {
             return new HashSet();
         } else {
@@ -269,16 +293,24 @@ public class IvyNodeEviction {
         }
     }
 
+    /**
+     * Returns true if the given revision is one of the revisions returned by
+     * {@link #getEvictedRevisions(ModuleId, String)}, without copying them.
+     */
+    public boolean isEvictedRevision(ModuleId mid, String rootModuleConf, ModuleRevisionId mrid) {
+        Collection evicted = getFromTable(evictedRevs, mid, rootModuleConf);
+        return evicted != null && evicted.contains(mrid);
+    }
+
     public void setEvictedNodes(ModuleId moduleId, String rootModuleConf, Collection evicted) {
-        ModuleIdConf moduleIdConf = new ModuleIdConf(moduleId, rootModuleConf);
-        evictedDeps.put(moduleIdConf, new HashSet(evicted));
+        putInTable(evictedDeps, moduleId, rootModuleConf, evicted);
         Collection evictedRevs = new HashSet();
         for (Iterator iter = evicted.iterator(); iter.hasNext();) {
             IvyNode node = (IvyNode) iter.next();
             evictedRevs.add(node.getId());
             evictedRevs.add(node.getResolvedId());
         }
-        this.evictedRevs.put(moduleIdConf, evictedRevs);
+        putInTable(this.evictedRevs, moduleId, rootModuleConf, evictedRevs);
     }
 
     public boolean isEvicted(String rootModuleConf) {
@@ -421,8 +453,7 @@ public class IvyNodeEviction {
     }
 
     public Collection getPendingConflicts(String rootModuleConf, ModuleId mid) {
-        Collection resolved = (Collection) pendingConflicts.get(new ModuleIdConf(mid,
-                rootModuleConf));
+        Collection resolved = getFromTable(pendingConflicts, mid, rootModuleConf);
         Set ret = new HashSet();
         if (resolved != null) {
             for (Iterator iter = resolved.iterator(); iter.hasNext();) {
@@ -435,8 +466,7 @@ public class IvyNodeEviction {
 
     public void setPendingConflicts(ModuleId moduleId, String rootModuleConf, 
             Collection conflicts) {
-        ModuleIdConf moduleIdConf = new ModuleIdConf(moduleId, rootModuleConf);
-        pendingConflicts.put(moduleIdConf, new HashSet(conflicts));
+        putInTable(pendingConflicts, moduleId, rootModuleConf, conflicts);
     }
 
 }
@@ -21,11 +21,14 @@ import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.Date;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.Iterator;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
+import java.util.Set;
 
 import org.apache.ivy.core.event.EventManager;
 import org.apache.ivy.core.module.descriptor.DependencyDescriptor;
@@ -38,6 +41,15 @@ public class ResolveData {
     private ResolveEngine engine;
 
     private Map visitData; // shared map of all visit data: Map (ModuleRevisionId -> VisitData)
+
+    // shared index of the keys of visitData by organisation, module and revision, used to look up
+    // visit data regardless of extra attributes:
+    // Map (String -> List (ModuleRevisionId)), lists being in visitData order
+    private Map visitDataIndex;
+
+    // true when the visit data is given by the caller, and may thus be changed by other resolve
+    // data without their changes being in this index
+    private boolean foreignVisitData;
     
     private ConfigurationResolveReport report;
 
@@ -47,28 +59,60 @@ public class ResolveData {
 
     private ResolvedModuleRevision currentResolvedModuleRevision;
 
+    private ExclusionMemo exclusionMemo = new ExclusionMemo();
+
+    // shared set of the node and conf pairs for which dependencies have already been fetched
+    // in the current root module conf: Set (String)
+    private Set fetchedSet = new HashSet();
+
+    // shared set of the node and conf pairs whose dependencies have been started to be fetched
+    // since the resolve process has last been started or restarted: Set (String)
+    private Set fetchingSet = new HashSet();
+
+    // module revisions and downloads shared with the other resolves of a batch, if any
+    private BatchResolveCache batchCache;
+
+    // the previous resolution reused by this resolve, if it is incremental
+    private IncrementalResolve incrementalResolve;
+
+    private boolean blacklisted;
+
     public ResolveData(ResolveData data, boolean validate) {
         this(data.engine, new ResolveOptions(data.options).setValidate(validate), 
-            data.report, data.visitData);
+            data.report, data.visitData, data.visitDataIndex);
+        foreignVisitData = data.foreignVisitData;
+        // the visit data is shared, so are the exclusions computed on it
+        exclusionMemo = data.exclusionMemo;
+        fetchedSet = data.fetchedSet;
+        fetchingSet = data.fetchingSet;
+        batchCache = data.batchCache;
+        incrementalResolve = data.incrementalResolve;
         setCurrentVisitNode(data.currentVisitNode);
         setCurrentResolvedModuleRevision(data.currentResolvedModuleRevision);
     }
 
     public ResolveData(ResolveEngine engine, ResolveOptions options) {
-        this(engine, options, null, new LinkedHashMap());
+        this(engine, options, null, new LinkedHashMap(), null);
     }
 
     public ResolveData(ResolveEngine engine, ResolveOptions options,
             ConfigurationResolveReport report) {
-        this(engine, options, report, new LinkedHashMap());
+        this(engine, options, report, new LinkedHashMap(), null);
     }
 
     public ResolveData(ResolveEngine engine, ResolveOptions options,
             ConfigurationResolveReport report, Map visitData) {
+        this(engine, options, report, visitData, null);
+        foreignVisitData = true;
+    }
+
+    private ResolveData(ResolveEngine engine, ResolveOptions options,
+            ConfigurationResolveReport report, Map visitData, Map visitDataIndex) {
         this.engine = engine;
         this.report = report;
         this.visitData = visitData;
         this.options = options;
+        this.visitDataIndex = visitDataIndex == null ? newIndex(visitData) : visitDataIndex;
     }
 
     public ConfigurationResolveReport getReport() {
@@ -98,18 +142,72 @@ public class ResolveData {
 
         if (result == null) {
             // search again, now ignore the missing extra attributes
-            for (Iterator it = visitData.entrySet().iterator(); it.hasNext();) {
-                Map.Entry entry = (Entry) it.next();
-                ModuleRevisionId current = (ModuleRevisionId) entry.getKey();
-                
+            result = getVisitDataInIndex(mrid);
+            if (result == null && foreignVisitData) {
+                // the visit data may have been changed by other resolve data
+                visitDataIndex = newIndex(visitData);
+                result = getVisitDataInIndex(mrid);
+            }
+        }
+
+        return result;
+    }
+
+    private VisitData getVisitDataInIndex(ModuleRevisionId mrid) {
+        // only ids with the same organisation, module and revision can match
+        List candidates = (List) visitDataIndex.get(getIndexKey(mrid));
+        if (candidates != null) {
+            for (Iterator it = candidates.iterator(); it.hasNext();) {
+                ModuleRevisionId current = (ModuleRevisionId) it.next();
+
                 if (isSubMap(mrid.getAttributes(), current.getAttributes())) {
-                    result = (VisitData) entry.getValue();
-                    break;
+                    VisitData result = (VisitData) visitData.get(current);
+                    if (result != null) {
+                        return result;
+                    }
                 }
             }
         }
+        return null;
+    }
 
-        return result;
+    private static Map newIndex(Map visitData) {
+        Map index = new HashMap();
+        for (Iterator iter = visitData.keySet().iterator(); iter.hasNext();) {
+            addToIndex(index, (ModuleRevisionId) iter.next());
+        }
+        return index;
+    }
+
+    private void putVisitData(ModuleRevisionId mrid, VisitData data) {
+        if (visitData.put(mrid, data) == null) {
+            addToIndex(visitDataIndex, mrid);
+        }
+    }
+
+    private void removeFromIndex(ModuleRevisionId mrid) {
+        String key = getIndexKey(mrid);
+        List mrids = (List) visitDataIndex.get(key);
+        if (mrids != null) {
+            mrids.remove(mrid);
+            if (mrids.isEmpty()) {
+                visitDataIndex.remove(key);
+            }
+        }
+    }
+
+    private static void addToIndex(Map index, ModuleRevisionId mrid) {
+        String key = getIndexKey(mrid);
+        List mrids = (List) index.get(key);
+        if (mrids == null) {
+            mrids = new ArrayList(1);
+            index.put(key, mrids);
+        }
+        mrids.add(mrid);
+    }
+
+    private static String getIndexKey(ModuleRevisionId mrid) {
+        return mrid.getOrganisation() + '#' + mrid.getName() + ';' + mrid.getRevision();
     }
     
     /**
@@ -186,10 +284,15 @@ public class ResolveData {
     public void register(ModuleRevisionId mrid, VisitNode node) {
         VisitData visitData = getVisitData(mrid);
         if (visitData == null) {
+            exclusionMemo.nodeChanged(mrid);
             visitData = new VisitData(node.getNode());
             visitData.addVisitNode(node);
-            this.visitData.put(mrid, visitData);
+            putVisitData(mrid, visitData);
         } else {
+            if (visitData.getNode() != node.getNode()) {
+                // the visit data may be shared with other module revision ids
+                exclusionMemo.graphChanged();
+            }
             visitData.setNode(node.getNode());
             visitData.addVisitNode(node);
         }
@@ -217,8 +320,9 @@ public class ResolveData {
             throw new IllegalArgumentException("impossible to replace node with " + node
                     + ". No registered node found for " + node.getId() + ".");
         }
+        exclusionMemo.nodeChanged(mrid);
         // replace visit data in Map (discards old one)
-        this.visitData.put(mrid, keptVisitData);
+        putVisitData(mrid, keptVisitData);
         // update visit data with discarde visit nodes
         keptVisitData.addVisitNodes(rootModuleConf, visitData.getVisitNodes(rootModuleConf));
         
@@ -257,7 +361,65 @@ public class ResolveData {
         return engine;
     }
 
+    /**
+     * Returns the set of the keys of the node and conf pairs for which dependencies have already
+     * been fetched in this resolve. This set is owned by the resolve, so that concurrent resolves
+     * run by the same engine don't interfere.
+     */
+    Set getFetchedSet() {
+        return fetchedSet;
+    }
+
+    /**
+     * Returns the set of the keys of the node and conf pairs whose dependencies have been started
+     * to be fetched, which the engine clears when it starts or restarts the resolve process.
+     */
+    Set getFetchingSet() {
+        return fetchingSet;
+    }
+
+    /**
+     * Returns the cache shared with the other resolves of the batch this resolve is part of, or
+     * <code>null</code> if it isn't part of a batch.
+     */
+    BatchResolveCache getBatchCache() {
+        return batchCache;
+    }
+
+    void setBatchCache(BatchResolveCache batchCache) {
+        this.batchCache = batchCache;
+    }
+
+    /**
+     * Returns the state of the incremental resolve, or <code>null</code> if this resolve isn't
+     * incremental.
+     */
+    IncrementalResolve getIncrementalResolve() {
+        return incrementalResolve;
+    }
+
+    void setIncrementalResolve(IncrementalResolve incrementalResolve) {
+        this.incrementalResolve = incrementalResolve;
+    }
+
+    /**
+     * Returns <code>true</code> if a node has been blacklisted in this resolve, in which case
+     * lookups depend on the state of this resolve and can't be shared with other ones.
+     */
+    boolean hasBlacklistedNodes() {
+        return blacklisted;
+    }
+
+    /**
+     * Returns the memo of exclusions evaluated on the dependency graph of this resolve.
+     */
+    ExclusionMemo getExclusionMemo() {
+        return exclusionMemo;
+    }
+
     void blacklist(IvyNode node) {
+        exclusionMemo.graphChanged();
+        blacklisted = true;
         for (Iterator iter = visitData.entrySet().iterator(); iter.hasNext();) {
             Entry entry = (Entry) iter.next();
             VisitData vdata = (VisitData) entry.getValue();
@@ -265,6 +427,7 @@ public class ResolveData {
                 // this visit data was associated with the blacklisted node, 
                 // we discard this association
                 iter.remove();
+                removeFromIndex((ModuleRevisionId) entry.getKey());
             }
         }
     }
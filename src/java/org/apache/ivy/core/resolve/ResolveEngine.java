@@ -31,11 +31,19 @@ import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Iterator;
 import java.util.LinkedHashSet;
+import java.util.LinkedList;
 import java.util.List;
 import java.util.ListIterator;
 import java.util.Map;
 import java.util.Properties;
 import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 import org.apache.ivy.Ivy;
 import org.apache.ivy.core.IvyContext;
@@ -59,6 +67,8 @@ import org.apache.ivy.core.report.ConfigurationResolveReport;
 import org.apache.ivy.core.report.DownloadReport;
 import org.apache.ivy.core.report.DownloadStatus;
 import org.apache.ivy.core.report.ResolveReport;
+import org.apache.ivy.core.report.WarmUpReport;
+import org.apache.ivy.core.resolve.IvyNodeCallers.Caller;
 import org.apache.ivy.core.resolve.IvyNodeEviction.EvictionData;
 import org.apache.ivy.core.sort.SortEngine;
 import org.apache.ivy.core.sort.SortOptions;
@@ -87,8 +97,6 @@ public class ResolveEngine {
 
     private SortEngine sortEngine;
 
-    private Set fetchedSet = new HashSet();
-
     private DependencyResolver dictatorResolver;
 
     /**
@@ -179,6 +187,11 @@ public class ResolveEngine {
      */
     public ResolveReport resolve(URL ivySource, ResolveOptions options) throws ParseException,
             IOException {
+        return resolve(parse(ivySource, options), options);
+    }
+
+    private ModuleDescriptor parse(URL ivySource, ResolveOptions options) throws ParseException,
+            IOException {
         URLResource res = new URLResource(ivySource);
         ModuleDescriptorParser parser = ModuleDescriptorParserRegistry.getInstance().getParser(res);
         Message.verbose("using " + parser + " to parse " + ivySource);
@@ -191,8 +204,7 @@ public class ResolveEngine {
             md.setResolvedModuleRevisionId(ModuleRevisionId.newInstance(md.getModuleRevisionId(),
                 revision));
         }
-
-        return resolve(md, options);
+        return md;
     }
 
     /**
@@ -200,6 +212,285 @@ public class ResolveEngine {
      */
     public ResolveReport resolve(ModuleDescriptor md, ResolveOptions options)
             throws ParseException, IOException {
+        return resolve(md, options, null);
+    }
+
+    /**
+     * Resolve dependencies of several modules described by module descriptors.
+     * <p>
+     * The modules are resolved concurrently, and share the module revisions they find and the
+     * artifacts they download: a dependency used by several modules is looked up and downloaded
+     * only once for the whole batch. Each module still gets its own report, as if it had been
+     * resolved alone with the given options.
+     * </p>
+     * <p>
+     * If no resolve id is set in the given options, each module uses its default resolve id.
+     * </p>
+     * 
+     * @param mds
+     *            the descriptors of the modules to resolve
+     * @param options
+     *            the options to use for each resolve
+     * @param threadCount
+     *            the number of threads resolving modules, the modules are resolved one after the
+     *            other in the calling thread if it is lower than 2
+     * @return the reports of the resolves, in the order of the given module descriptors
+     */
+    public ResolveReport[] resolve(Collection/*<ModuleDescriptor>*/ mds,
+            final ResolveOptions options, int threadCount) throws ParseException, IOException {
+        final BatchResolveCache batchCache = new BatchResolveCache();
+        ResolveReport[] reports = new ResolveReport[mds.size()];
+        if (threadCount < 2) {
+            int i = 0;
+            for (Iterator iter = mds.iterator(); iter.hasNext(); i++) {
+                ModuleDescriptor md = (ModuleDescriptor) iter.next();
+                reports[i] = resolve(md, new ResolveOptions(options), batchCache);
+            }
+            return reports;
+        }
+
+        ExecutorService executor = Executors.newFixedThreadPool(threadCount);
+        try {
+            List futures = new ArrayList(mds.size());
+            for (Iterator iter = mds.iterator(); iter.hasNext();) {
+                final ModuleDescriptor md = (ModuleDescriptor) iter.next();
+                futures.add(executor.submit(IvyContext.propagate(new Callable() {
+                    public Object call() throws Exception {
+                        return resolve(md, new ResolveOptions(options), batchCache);
+                    }
+                })));
+            }
+            for (int i = 0; i < reports.length; i++) {
+                reports[i] = (ResolveReport) getResult((Future) futures.get(i));
+            }
+            return reports;
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * Resolve dependencies of several modules described by module descriptors, handing each
+     * report to the given handler as soon as its module is resolved.
+     * <p>
+     * This is the same as {@link #resolve(Collection, ResolveOptions, int)}, except that the
+     * reports are not kept until the whole batch is resolved: a report can be garbage collected
+     * as soon as it has been handled, which makes it possible to resolve batches whose reports
+     * wouldn't fit in memory together.
+     * </p>
+     * 
+     * @param mds
+     *            the descriptors of the modules to resolve
+     * @param options
+     *            the options to use for each resolve
+     * @param threadCount
+     *            the number of threads resolving modules, the modules are resolved one after the
+     *            other in the calling thread if it is lower than 2
+     * @param handler
+     *            the handler to which the reports are given, in no particular order
+     */
+    public void resolve(Collection/*<ModuleDescriptor>*/ mds, ResolveOptions options,
+            int threadCount, ResolveReportHandler handler) throws ParseException, IOException {
+        resolve(new ArrayList(mds), Collections.nCopies(mds.size(), options), threadCount,
+            handler);
+    }
+
+    /**
+     * Resolves each of the given modules with the options at the same index in the given list.
+     */
+    private void resolve(List/*<ModuleDescriptor>*/ mds, final List/*<ResolveOptions>*/ options,
+            int threadCount, final ResolveReportHandler handler)
+            throws ParseException, IOException {
+        final BatchResolveCache batchCache = new BatchResolveCache();
+        if (threadCount < 2) {
+            for (int i = 0; i < mds.size(); i++) {
+                ModuleDescriptor md = (ModuleDescriptor) mds.get(i);
+                handler.handle(resolve(md,
+                    new ResolveOptions((ResolveOptions) options.get(i)), batchCache));
+            }
+            return;
+        }
+
+        ExecutorService executor = Executors.newFixedThreadPool(threadCount);
+        try {
+            List futures = new ArrayList(mds.size());
+            for (int i = 0; i < mds.size(); i++) {
+                final ModuleDescriptor md = (ModuleDescriptor) mds.get(i);
+                final ResolveOptions mdOptions = (ResolveOptions) options.get(i);
+                futures.add(executor.submit(IvyContext.propagate(new Callable() {
+                    public Object call() throws Exception {
+                        handler.handle(resolve(md, new ResolveOptions(mdOptions), batchCache));
+                        return null;
+                    }
+                })));
+            }
+            for (Iterator iter = futures.iterator(); iter.hasNext();) {
+                getResult((Future) iter.next());
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * Puts in the repository cache the dependency closures of several modules, with the metadata
+     * and artifacts of all their dependencies.
+     * <p>
+     * The modules are resolved as in {@link #resolve(Collection, ResolveOptions, int)}, without
+     * downloading their artifacts nor writing their reports. Instead, the artifacts of the union
+     * of the closures are downloaded by a separate pool of threads as soon as the resolve of a
+     * module finds them, each artifact being downloaded only once.
+     * </p>
+     * 
+     * @param modules
+     *            the modules whose closures must be put in the cache: either their descriptors,
+     *            the URLs of their ivy files, or their ids for modules to find in the
+     *            repositories
+     * @param options
+     *            the options to use for each resolve, its artifact filter selecting the artifacts
+     *            to download
+     * @param threadCount
+     *            the number of threads resolving modules and of threads downloading artifacts,
+     *            everything is done in the calling thread if it is lower than 2
+     * @return a summary of the dependencies found and of the files downloaded
+     */
+    public WarmUpReport warmUp(Collection/*<Object>*/ modules, ResolveOptions options,
+            int threadCount) throws ParseException, IOException {
+        long start = System.currentTimeMillis();
+        List mds = new ArrayList(modules.size());
+        List resolveOptions = new ArrayList(modules.size());
+        List/*<ModuleRevisionId>*/ callers = new ArrayList();
+        for (Iterator iter = modules.iterator(); iter.hasNext();) {
+            Object module = iter.next();
+            ResolveOptions mdOptions = new ResolveOptions(options).setDownload(false)
+                    .setOutputReport(false);
+            if (module instanceof ModuleRevisionId) {
+                ModuleDescriptor caller = newWarmUpCaller((ModuleRevisionId) module, mds.size(),
+                    options);
+                mds.add(caller);
+                callers.add(caller.getResolvedModuleRevisionId());
+                mdOptions.setConfs(new String[] {DefaultModuleDescriptor.DEFAULT_CONFIGURATION});
+            } else if (module instanceof URL) {
+                mds.add(parse((URL) module, options));
+            } else {
+                mds.add(module);
+            }
+            resolveOptions.add(mdOptions);
+        }
+        final WarmUpReport warmUpReport = new WarmUpReport(mds.size());
+        final Filter artifactFilter = options.getArtifactFilter();
+        final DownloadOptions downloadOptions = (DownloadOptions) new DownloadOptions()
+                .setLog(options.getLog());
+        final ConcurrentMap/*<ArtifactRevisionId, Boolean>*/ artifacts = new ConcurrentHashMap();
+        final List/*<Future>*/ downloads = Collections.synchronizedList(new ArrayList());
+        final ExecutorService executor = threadCount < 2 ? null
+                : Executors.newFixedThreadPool(threadCount);
+        try {
+            resolve(mds, resolveOptions, threadCount, new ResolveReportHandler() {
+                public void handle(ResolveReport report) {
+                    for (Iterator iter = report.getDependencies().iterator(); iter.hasNext();) {
+                        IvyNode dependency = (IvyNode) iter.next();
+                        if (dependency.hasProblem()) {
+                            warmUpReport.addUnresolvedDependency(dependency.getId());
+                            continue;
+                        }
+                        if (!isDownloadable(dependency) || !warmUpReport.addDependency(
+                                dependency.getResolvedId(),
+                                dependency.getModuleRevision().getReport())) {
+                            continue;
+                        }
+                        final DependencyResolver resolver = dependency.getModuleRevision()
+                                .getArtifactResolver();
+                        Artifact[] selectedArtifacts = dependency
+                                .getSelectedArtifacts(artifactFilter);
+                        for (int i = 0; i < selectedArtifacts.length; i++) {
+                            final Artifact artifact = selectedArtifacts[i];
+                            if (artifacts.putIfAbsent(artifact.getId(), Boolean.TRUE) != null) {
+                                continue;
+                            }
+                            Runnable download = new Runnable() {
+                                public void run() {
+                                    warmUpReport.addArtifactReport(resolver.download(
+                                        new Artifact[] {artifact}, downloadOptions)
+                                            .getArtifactReport(artifact));
+                                }
+                            };
+                            if (executor == null) {
+                                download.run();
+                            } else {
+                                downloads.add(executor.submit(IvyContext.propagate(download)));
+                            }
+                        }
+                    }
+                }
+            });
+            synchronized (downloads) {
+                for (Iterator iter = downloads.iterator(); iter.hasNext();) {
+                    getResult((Future) iter.next());
+                }
+            }
+        } finally {
+            if (executor != null) {
+                executor.shutdownNow();
+            }
+            // the resolved callers are of no use, don't leave one per module in the cache
+            ResolutionCacheManager cacheManager = settings.getResolutionCacheManager();
+            for (Iterator iter = callers.iterator(); iter.hasNext();) {
+                ModuleRevisionId caller = (ModuleRevisionId) iter.next();
+                cacheManager.getResolvedIvyFileInCache(caller).delete();
+                cacheManager.getResolvedIvyPropertiesInCache(caller).delete();
+            }
+        }
+        warmUpReport.setTime(System.currentTimeMillis() - start);
+        Message.info(":: cache warm up done :: " + warmUpReport);
+        return warmUpReport;
+    }
+
+    /**
+     * Returns a module depending on the module with the given id in the asked configurations, its
+     * index among the warmed up modules making it unique.
+     */
+    private static ModuleDescriptor newWarmUpCaller(ModuleRevisionId mrid, int index,
+            ResolveOptions options) {
+        DefaultModuleDescriptor md = new DefaultModuleDescriptor(ModuleRevisionId.newInstance(
+            mrid.getOrganisation(), mrid.getName() + "-caller-" + index, "working"),
+            "integration", null, true);
+        md.addConfiguration(new Configuration(DefaultModuleDescriptor.DEFAULT_CONFIGURATION));
+        md.setLastModified(System.currentTimeMillis());
+        DefaultDependencyDescriptor dd = new DefaultDependencyDescriptor(md, mrid, true, false,
+                options.isTransitive());
+        String[] confs = options.useSpecialConfs() || options.getConfs() == null
+                ? new String[] {"*"} : options.getConfs();
+        for (int i = 0; i < confs.length; i++) {
+            dd.addDependencyConfiguration(DefaultModuleDescriptor.DEFAULT_CONFIGURATION, confs[i]);
+        }
+        md.addDependency(dd);
+        return md;
+    }
+
+    private Object getResult(Future future) throws ParseException, IOException {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("interrupted while waiting for a resolve", e);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof ParseException) {
+                throw (ParseException) cause;
+            } else if (cause instanceof IOException) {
+                throw (IOException) cause;
+            } else if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            } else if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            throw new RuntimeException(cause.getMessage(), cause);
+        }
+    }
+
+    private ResolveReport resolve(ModuleDescriptor md, ResolveOptions options,
+            BatchResolveCache batchCache) throws ParseException, IOException {
         DependencyResolver oldDictator = getDictatorResolver();
         IvyContext context = IvyContext.getContext();
         try {
@@ -225,13 +516,39 @@ public class ResolveEngine {
             Message.verbose("\tvalidate = " + options.isValidate());
             Message.verbose("\trefresh = " + options.isRefresh());
             
+            IncrementalResolve incremental = null;
+            if (options.isIncremental()) {
+                incremental = IncrementalResolve.load(settings.getResolutionCacheManager(), md,
+                    confs, options.getResolveId());
+            }
+
             ResolveReport report = new ResolveReport(md, options.getResolveId());
 
             ResolveData data = new ResolveData(this, options);
+            data.setBatchCache(batchCache);
+            data.setIncrementalResolve(incremental);
             context.setResolveData(data);
             
             // resolve dependencies
             IvyNode[] dependencies = getDependencies(md, options, report);
+            if (incremental != null) {
+                if (incremental.isConsistent(dependencies)) {
+                    report.setIncrementalNodeCounts(incremental.getReusedNodeCount(),
+                        incremental.getRecomputedNodeCount());
+                } else {
+                    Message.verbose("\tchanges propagated beyond the changed dependencies: "
+                        + "doing a full resolve");
+                    report = new ResolveReport(md, options.getResolveId());
+                    data = new ResolveData(this, options);
+                    data.setBatchCache(batchCache);
+                    context.setResolveData(data);
+                    dependencies = getDependencies(md, options, report);
+                    report.setIncrementalNodeCounts(0, incremental.getReusedNodeCount()
+                        + incremental.getRecomputedNodeCount());
+                }
+                Message.verbose("\tincremental resolve: " + report.getReusedNodeCount()
+                    + " nodes reused, " + report.getRecomputedNodeCount() + " recomputed");
+            }
             report.setDependencies(Arrays.asList(dependencies), options.getArtifactFilter());
             
             if (options.getCheckIfChanged()) {
@@ -329,7 +646,8 @@ public class ResolveEngine {
                 Message.verbose(":: downloading artifacts ::");
 
                 downloadArtifacts(report, options.getArtifactFilter(), 
-                    (DownloadOptions) new DownloadOptions().setLog(options.getLog()));
+                    (DownloadOptions) new DownloadOptions().setLog(options.getLog()), batchCache,
+                    1);
             }
 
             if (options.isOutputReport()) {
@@ -352,6 +670,17 @@ public class ResolveEngine {
         }
     }
 
+    private DownloadReport download(BatchResolveCache batchCache, DependencyResolver resolver,
+            Artifact[] artifacts, DownloadOptions options) {
+        try {
+            return batchCache.download(resolver, artifacts, options);
+        } catch (RuntimeException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new RuntimeException(e.getMessage(), e);
+        }
+    }
+
     public void outputReport(
             ResolveReport report, ResolutionCacheManager cacheMgr, ResolveOptions options) 
             throws IOException {
@@ -369,6 +698,33 @@ public class ResolveEngine {
 
     public void downloadArtifacts(
             ResolveReport report, Filter artifactFilter, DownloadOptions options) {
+        downloadArtifacts(report, artifactFilter, options, null, 1);
+    }
+
+    /**
+     * Downloads the artifacts of the dependencies of the given report, using several threads.
+     * <p>
+     * The artifacts of each dependency are downloaded by one of the threads, but the given report
+     * is only updated by the calling thread, once the downloads are done.
+     * </p>
+     * 
+     * @param report
+     *            the report of the resolve of the dependencies
+     * @param artifactFilter
+     *            the filter selecting the artifacts to download
+     * @param options
+     *            the options to use for the downloads
+     * @param threadCount
+     *            the number of threads downloading artifacts, the artifacts are downloaded one
+     *            dependency after the other in the calling thread if it is lower than 2
+     */
+    public void downloadArtifacts(ResolveReport report, Filter artifactFilter,
+            DownloadOptions options, int threadCount) {
+        downloadArtifacts(report, artifactFilter, options, null, threadCount);
+    }
+
+    private void downloadArtifacts(ResolveReport report, Filter artifactFilter,
+            DownloadOptions options, BatchResolveCache batchCache, int threadCount) {
         long start = System.currentTimeMillis();
         IvyNode[] dependencies = (IvyNode[]) report.getDependencies().toArray(
             new IvyNode[report.getDependencies().size()]);
@@ -376,16 +732,28 @@ public class ResolveEngine {
         eventManager.fireIvyEvent(new PrepareDownloadEvent((Artifact[]) report.getArtifacts()
                 .toArray(new Artifact[report.getArtifacts().size()])));
 
+        DownloadReport[] dReports = null;
+        if (threadCount > 1) {
+            dReports = downloadConcurrently(dependencies, artifactFilter, options, batchCache,
+                threadCount);
+        }
+
         long totalSize = 0;
         for (int i = 0; i < dependencies.length; i++) {
             checkInterrupted();
             // download artifacts required in all asked configurations
-            if (!dependencies[i].isCompletelyEvicted() && !dependencies[i].hasProblem()
-                    && dependencies[i].getModuleRevision() != null) {
+            if (isDownloadable(dependencies[i])) {
                 DependencyResolver resolver = dependencies[i].getModuleRevision()
                         .getArtifactResolver();
                 Artifact[] selectedArtifacts = dependencies[i].getSelectedArtifacts(artifactFilter);
-                DownloadReport dReport = resolver.download(selectedArtifacts, options);
+                DownloadReport dReport;
+                if (dReports != null) {
+                    dReport = dReports[i];
+                } else if (batchCache == null) {
+                    dReport = resolver.download(selectedArtifacts, options);
+                } else {
+                    dReport = download(batchCache, resolver, selectedArtifacts, options);
+                }
                 ArtifactDownloadReport[] adrs = dReport.getArtifactsReports();
                 for (int j = 0; j < adrs.length; j++) {
                     if (adrs[j].getDownloadStatus() == DownloadStatus.FAILED) {
@@ -421,6 +789,55 @@ public class ResolveEngine {
         report.setDownloadSize(totalSize);
     }
 
+    private static boolean isDownloadable(IvyNode dependency) {
+        return !dependency.isCompletelyEvicted() && !dependency.hasProblem()
+                && dependency.getModuleRevision() != null;
+    }
+
+    /**
+     * Downloads the artifacts of the given dependencies from a pool of threads, and returns the
+     * download reports of the dependencies, null for the dependencies not downloaded.
+     */
+    private DownloadReport[] downloadConcurrently(IvyNode[] dependencies,
+            Filter artifactFilter, final DownloadOptions options,
+            final BatchResolveCache batchCache, int threadCount) {
+        DownloadReport[] dReports = new DownloadReport[dependencies.length];
+        Future[] futures = new Future[dependencies.length];
+        ExecutorService executor = Executors.newFixedThreadPool(threadCount);
+        try {
+            for (int i = 0; i < dependencies.length; i++) {
+                if (isDownloadable(dependencies[i])) {
+                    final DependencyResolver resolver = dependencies[i].getModuleRevision()
+                            .getArtifactResolver();
+                    final Artifact[] selectedArtifacts = dependencies[i]
+                            .getSelectedArtifacts(artifactFilter);
+                    futures[i] = executor.submit(IvyContext.propagate(new Callable() {
+                        public Object call() throws Exception {
+                            if (batchCache == null) {
+                                return resolver.download(selectedArtifacts, options);
+                            }
+                            return download(batchCache, resolver, selectedArtifacts, options);
+                        }
+                    }));
+                }
+            }
+            for (int i = 0; i < futures.length; i++) {
+                if (futures[i] != null) {
+                    try {
+                        dReports[i] = (DownloadReport) getResult(futures[i]);
+                    } catch (ParseException e) {
+                        throw new RuntimeException(e.getMessage(), e);
+                    } catch (IOException e) {
+                        throw new RuntimeException(e.getMessage(), e);
+                    }
+                }
+            }
+            return dReports;
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
     /**
      * Download an artifact to the cache. Not used internally, useful especially for IDE plugins
      * needing to download artifact one by one (for source or javadoc artifact, for instance).
@@ -568,7 +985,7 @@ public class ResolveEngine {
             for (int i = 0; i < confs.length; i++) {
                 Message.verbose("resolving dependencies for configuration '" + confs[i] + "'");
                 // for each configuration we clear the cache of what's been fetched
-                fetchedSet.clear();
+                data.getFetchedSet().clear();
     
                 ConfigurationResolveReport confReport = null;
                 if (report != null) {
@@ -589,16 +1006,31 @@ public class ResolveEngine {
 
                 // go fetch !
                 boolean fetched = false;
+                // the node and conf pairs visited before the last restart, if any
+                Set visited = new HashSet();
                 while (!fetched) {
+                    data.getFetchingSet().clear();
+                    RestartResolveProcess restart = null;
                     try {
                         fetchDependencies(root, confs[i], false);
                         fetched = true;
-                    } catch (RestartResolveProcess restart) {
+                    } catch (RestartResolveProcess e) {
+                        restart = e;
+                    }
+                    if (report != null && !visited.isEmpty()) {
+                        report.addRevisitedNodes(
+                            countRevisitedNodes(data.getFetchingSet(), visited));
+                    }
+                    if (restart != null) {
                         Message.verbose("====================================================");
                         Message.verbose("=           RESTARTING RESOLVE PROCESS");
                         Message.verbose("= " + restart.getMessage());
                         Message.verbose("====================================================");
-                        fetchedSet.clear();
+                        prepareRestart(data, restart.getChangedNodes());
+                        visited.addAll(data.getFetchingSet());
+                        if (report != null) {
+                            report.addRestart();
+                        }
                     }
                 }
 
@@ -685,6 +1117,56 @@ public class ResolveEngine {
         }
     }
 
+    /**
+     * Prepares a restart of the resolve process, marking the dependencies of the nodes which must
+     * be visited again as not fetched. Those are all the nodes if changedNodes is
+     * <code>null</code>, and otherwise the changed nodes and all their callers up to the root,
+     * the dependencies of any other node being kept as they are.
+     */
+    private void prepareRestart(ResolveData data, Collection/*<IvyNode>*/ changedNodes) {
+        Set fetchedSet = data.getFetchedSet();
+        if (changedNodes == null) {
+            fetchedSet.clear();
+            return;
+        }
+
+        Set toRevisit = new HashSet();
+        LinkedList toVisit = new LinkedList(changedNodes);
+        while (!toVisit.isEmpty()) {
+            IvyNode node = (IvyNode) toVisit.removeFirst();
+            if (toRevisit.add(getDependenciesFetchedKey(node, ""))) {
+                Caller[] callers = node.getAllCallers();
+                for (int i = 0; i < callers.length; i++) {
+                    IvyNode caller = data.getNode(callers[i].getModuleRevisionId());
+                    if (caller != null) {
+                        toVisit.add(caller);
+                    }
+                }
+            }
+        }
+        for (Iterator iter = fetchedSet.iterator(); iter.hasNext();) {
+            String key = (String) iter.next();
+            if (toRevisit.contains(key.substring(0, key.lastIndexOf('|') + 1))) {
+                iter.remove();
+            }
+        }
+    }
+
+    /**
+     * Returns the number of nodes whose dependencies have been started to be fetched again in
+     * some configuration, after having been visited before a restart.
+     */
+    private static int countRevisitedNodes(Set fetchingSet, Set visited) {
+        Set revisited = new HashSet();
+        for (Iterator iter = fetchingSet.iterator(); iter.hasNext();) {
+            String key = (String) iter.next();
+            if (visited.contains(key)) {
+                revisited.add(key.substring(0, key.lastIndexOf('|') + 1));
+            }
+        }
+        return revisited.size();
+    }
+
     private void fetchDependencies(VisitNode node, String conf, boolean shouldBePublic) {
         checkInterrupted();
         long start = System.currentTimeMillis();
@@ -789,6 +1271,8 @@ public class ResolveEngine {
 
         // now we can actually resolve this configuration dependencies
         if (!isDependenciesFetched(node.getNode(), conf) && node.isTransitive()) {
+            node.getNode().getData().getFetchingSet().add(
+                getDependenciesFetchedKey(node.getNode(), conf));
             Collection/*<VisitNode>*/ dependencies = node.getDependencies(conf);
             for (Iterator iter = dependencies.iterator(); iter.hasNext();) {
                 VisitNode dep = (VisitNode) iter.next();
@@ -833,12 +1317,12 @@ public class ResolveEngine {
      */
     private boolean isDependenciesFetched(IvyNode node, String conf) {
         String key = getDependenciesFetchedKey(node, conf);
-        return fetchedSet.contains(key);
+        return node.getData().getFetchedSet().contains(key);
     }
     
     private void markDependenciesFetched(IvyNode node, String conf) {
         String key = getDependenciesFetchedKey(node, conf);
-        fetchedSet.add(key);
+        node.getData().getFetchedSet().add(key);
     }
 
     private String getDependenciesFetchedKey(IvyNode node, String conf) {
@@ -1112,7 +1596,7 @@ public class ResolveEngine {
     }
 
     private boolean checkConflictSolvedSelected(VisitNode node, VisitNode ancestor) {
-        if (ancestor.getResolvedRevisions(node.getModuleId()).contains(node.getResolvedId())) {
+        if (ancestor.isResolvedRevision(node.getModuleId(), node.getResolvedId())) {
             // resolve conflict has already be done with node with the same id
             if (settings.debugConflictResolution()) {
                 Message.debug("conflict resolution already done for " + node + " in " + ancestor);
@@ -1123,7 +1607,7 @@ public class ResolveEngine {
     }
 
     private boolean checkConflictSolvedEvicted(VisitNode node, VisitNode ancestor) {
-        if (ancestor.getEvictedRevisions(node.getModuleId()).contains(node.getResolvedId())) {
+        if (ancestor.isEvictedRevision(node.getModuleId(), node.getResolvedId())) {
             // resolve conflict has already be done with node with the same id
             if (settings.debugConflictResolution()) {
                 Message.debug("conflict resolution already done for " + node + " in " + ancestor);
@@ -118,6 +118,12 @@ public class ResolveOptions extends LogOptions {
      **/  
     private boolean checkIfChanged = false;
 
+    /**
+     * True if the resolve should reuse the previous resolution of the same module and resolve id
+     * for the dependencies which haven't changed since then
+     */
+    private boolean incremental = false;
+
     public ResolveOptions() {
     }
 
@@ -136,6 +142,7 @@ public class ResolveOptions extends LogOptions {
         artifactFilter = options.artifactFilter;
         resolveId = options.resolveId;
         checkIfChanged = options.checkIfChanged;
+        incremental = options.incremental;
     }
 
     public Filter getArtifactFilter() {
@@ -296,6 +303,15 @@ public class ResolveOptions extends LogOptions {
         return checkIfChanged;
     }
 
+    public boolean isIncremental() {
+        return incremental;
+    }
+
+    public ResolveOptions setIncremental(boolean incremental) {
+        this.incremental = incremental;
+        return this;
+    }
+
 
     public static String getDefaultResolveId(ModuleDescriptor md) {
         ModuleId module = md.getModuleRevisionId().getModuleId();
@@ -0,0 +1,35 @@
+/*
+ *  Licensed to the Apache Software Foundation (ASF) under one or more
+ *  contributor license agreements.  See the NOTICE file distributed with
+ *  this work for additional information regarding copyright ownership.
+ *  The ASF licenses this file to You under the Apache License, Version 2.0
+ *  (the "License"); you may not use this file except in compliance with
+ *  the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ */
+package org.apache.ivy.core.resolve;
+
+import java.io.IOException;
+
+import org.apache.ivy.core.report.ResolveReport;
+
+/**
+ * Receives the reports of the resolves of a batch as soon as each resolve is done.
+ * 
+ * @see ResolveEngine#resolve(java.util.Collection, ResolveOptions, int, ResolveReportHandler)
+ */
+public interface ResolveReportHandler {
+    /**
+     * Handles the report of a resolve of the batch. When the batch is resolved concurrently, this
+     * method is called concurrently by the resolving threads.
+     */
+    void handle(ResolveReport report) throws IOException;
+}
@@ -17,6 +17,8 @@
  */
 package org.apache.ivy.core.resolve;
 
+import java.util.Collection;
+
 /**
  * This RuntimeException is used during the resolve process to ask the engine to restart the resolve
  * process.
@@ -26,9 +28,35 @@ package org.apache.ivy.core.resolve;
  * </p>
  */
 public class RestartResolveProcess extends ResolveProcessException {
+    private final Collection/*<IvyNode>*/ changedNodes;
 
+    /**
+     * Asks the engine to restart the whole resolve process.
+     */
     public RestartResolveProcess(String message) {
+        this(message, null);
+    }
+
+    /**
+     * Asks the engine to restart the resolve process for the parts of the dependency graph which
+     * depend on the given nodes only, i.e. their callers and the callers of their callers.
+     * 
+     * @param message
+     *            the reason of the restart
+     * @param changedNodes
+     *            the nodes whose state has changed, <code>null</code> to restart the whole
+     *            resolve process
+     */
+    public RestartResolveProcess(String message, Collection/*<IvyNode>*/ changedNodes) {
         super(message);
+        this.changedNodes = changedNodes;
     }
 
+    /**
+     * Returns the nodes whose state has changed, or <code>null</code> if the whole resolve
+     * process should be restarted.
+     */
+    public Collection/*<IvyNode>*/ getChangedNodes() {
+        return changedNodes;
+    }
 }
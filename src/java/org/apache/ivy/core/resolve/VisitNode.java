@@ -17,12 +17,13 @@
  */
 package org.apache.ivy.core.resolve;
 
+import java.util.AbstractCollection;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.HashSet;
 import java.util.Iterator;
-import java.util.LinkedHashSet;
 import java.util.List;
 
 import org.apache.ivy.core.IvyContext;
@@ -168,14 +169,50 @@ public class VisitNode {
 
     private Collection/*<VisitNode>*/ computePath() {
         if (parent != null) {
-            Collection p = new LinkedHashSet(parent.getPath());
-            p.add(this);
-            return p;
+            return new VisitPath(this, parent.getPath().size() + 1);
         } else {
             return Collections.singletonList(this);
         }
     }
 
+    /**
+     * An unmodifiable view of the path from the root to a visit node, walking up the parents of
+     * the node instead of holding a copy of the whole path in each visit node.
+     */
+    private static final class VisitPath extends AbstractCollection/*<VisitNode>*/ {
+        private final VisitNode last;
+
+        private final int size;
+
+        public VisitPath(VisitNode last, int size) {
+            this.last = last;
+            this.size = size;
+        }
+
+        public int size() {
+            return size;
+        }
+
+        public boolean contains(Object o) {
+            for (VisitNode n = last; n != null; n = n.parent) {
+                if (o == null ? n == null : o.equals(n)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        public Iterator iterator() {
+            VisitNode[] nodes = new VisitNode[size];
+            VisitNode n = last;
+            for (int i = size - 1; i >= 0; i--) {
+                nodes[i] = n;
+                n = n.parent;
+            }
+            return Collections.unmodifiableList(Arrays.asList(nodes)).iterator();
+        }
+    }
+
     private VisitNode computeRoot() {
         if (node.isRoot()) {
             return this;
@@ -463,6 +500,10 @@ public class VisitNode {
         return node.getResolvedRevisions(mid, rootModuleConf);
     }
 
+    public boolean isResolvedRevision(ModuleId mid, ModuleRevisionId mrid) {
+        return node.isResolvedRevision(mid, rootModuleConf, mrid);
+    }
+
     public void markEvicted(EvictionData evictionData) {
         node.markEvicted(evictionData);
     }
@@ -498,6 +539,10 @@ public class VisitNode {
         return node.getEvictedRevisions(moduleId, rootModuleConf);
     }
 
+    public boolean isEvictedRevision(ModuleId moduleId, ModuleRevisionId mrid) {
+        return node.isEvictedRevision(moduleId, rootModuleConf, mrid);
+    }
+
     // public void setRootModuleConf(String rootModuleConf) {
     // if (rootModuleConf != null && !rootModuleConf.equals(rootModuleConf)) {
     // _confsToFetch.clear(); // we change of root module conf => we discard all confs to fetch
@@ -31,6 +31,11 @@ import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 import org.apache.ivy.core.IvyContext;
 import org.apache.ivy.core.IvyPatternHelper;
@@ -112,14 +117,17 @@ public class RetrieveEngine {
             report.setRetrieveRoot(fileRetrieveRoot);
             File ivyRetrieveRoot = destIvyPattern == null
                 ? null : settings.resolveFile(IvyPatternHelper.getTokenRoot(destIvyPattern));
-            Collection targetArtifactsStructure = new HashSet(); // Set(File) set of all paths
-            // which should be present at
-            // then end of retrieve (useful
-            // for sync)
-            Collection targetIvysStructure = new HashSet(); // same for ivy files
+            RetrieveManifest manifest = null;
+            if (options.isUseManifest()) {
+                manifest = RetrieveManifest.load(fileRetrieveRoot);
+            } else {
+                // the files recorded by a previous retrieve may be about to change
+                RetrieveManifest.delete(fileRetrieveRoot);
+            }
 
             // do retrieve
-            long totalCopiedSize = 0;
+            List retrievals = new ArrayList();
+            Set destFiles = new HashSet();
             for (Iterator iter = artifactsToCopy.keySet().iterator(); iter.hasNext();) {
                 ArtifactDownloadReport artifact = (ArtifactDownloadReport) iter.next();
                 File archive = artifact.getLocalFile();
@@ -130,62 +138,45 @@ public class RetrieveEngine {
                 Set dest = (Set) artifactsToCopy.get(artifact);
                 Message.verbose("\tretrieving " + archive);
                 for (Iterator it2 = dest.iterator(); it2.hasNext();) {
-                    IvyContext.getContext().checkInterrupted();
                     File destFile = settings.resolveFile((String) it2.next());
-                    if (!settings.isCheckUpToDate() || !upToDate(archive, destFile, options)) {
-                        Message.verbose("\t\tto " + destFile);
-                        if (this.eventManager != null) {
-                            this.eventManager.fireIvyEvent(
-                                new StartRetrieveArtifactEvent(artifact, destFile));
-                        }
-                        if (options.isMakeSymlinks()) {
-                            FileUtil.symlink(archive, destFile, null, true);
-                        } else {
-                            FileUtil.copy(archive, destFile, null, true);
-                        }
-                        if (this.eventManager != null) {
-                            this.eventManager.fireIvyEvent(
-                                new EndRetrieveArtifactEvent(artifact, destFile));
-                        }
-                        totalCopiedSize += destFile.length();
-                        report.addCopiedFile(destFile, artifact);
-                    } else {
-                        Message.verbose("\t\tto " + destFile + " [NOT REQUIRED]");
-                        report.addUpToDateFile(destFile, artifact);
+                    if (destFiles.add(destFile)) {
+                        retrievals.add(new FileRetrieval(artifact, destFile));
                     }
+                }
+            }
+            retrieveFiles(retrievals, manifest, options);
 
-                    if ("ivy".equals(artifact.getType())) {
-                        targetIvysStructure
-                                .addAll(FileUtil.getPathFiles(ivyRetrieveRoot, destFile));
-                    } else {
-                        targetArtifactsStructure.addAll(FileUtil.getPathFiles(fileRetrieveRoot,
-                            destFile));
-                    }
+            long totalCopiedSize = 0;
+            for (Iterator iter = retrievals.iterator(); iter.hasNext();) {
+                FileRetrieval retrieval = (FileRetrieval) iter.next();
+                if (retrieval.copied) {
+                    totalCopiedSize += retrieval.destFile.length();
+                    report.addCopiedFile(retrieval.destFile, retrieval.artifact);
+                } else {
+                    report.addUpToDateFile(retrieval.destFile, retrieval.artifact);
+                }
+                if (manifest != null) {
+                    manifest.record(retrieval.destFile, retrieval.sourceEntry);
                 }
             }
 
             if (options.isSync()) {
                 Message.verbose("\tsyncing...");
-                
-                String[] ignorableFilenames = settings.getIgnorableFilenames();
-                Collection ignoreList = Arrays.asList(ignorableFilenames);
-                
-                Collection existingArtifacts = FileUtil.listAll(fileRetrieveRoot, ignoreList);
-                Collection existingIvys = ivyRetrieveRoot == null ? null : FileUtil
-                        .listAll(ivyRetrieveRoot, ignoreList);
-
-                if (fileRetrieveRoot.equals(ivyRetrieveRoot)) {
-                    Collection target = targetArtifactsStructure;
-                    target.addAll(targetIvysStructure);
-                    Collection existing = existingArtifacts;
-                    existing.addAll(existingIvys);
-                    sync(target, existing);
+                // the manifest tells if the retrieve root contains only the recorded files, an ivy
+                // retrieve root outside of it has to be scanned
+                if (manifest != null && manifest.isSynced()
+                        && (ivyRetrieveRoot == null || ivyRetrieveRoot.equals(fileRetrieveRoot)
+                                || isInDirectory(ivyRetrieveRoot, fileRetrieveRoot))) {
+                    syncWithManifest(manifest, fileRetrieveRoot, ivyRetrieveRoot);
                 } else {
-                    sync(targetArtifactsStructure, existingArtifacts);
-                    if (existingIvys != null) {
-                        sync(targetIvysStructure, existingIvys);
-                    }
+                    sync(retrievals, manifest, fileRetrieveRoot, ivyRetrieveRoot);
                 }
+            } else if (manifest != null) {
+                // the files of the previous retrieve which are not retrieved anymore are kept
+                manifest.retainPreviousFiles();
+            }
+            if (manifest != null) {
+                manifest.save(options.isSync() || manifest.isSynced());
             }
             long elapsedTime = System.currentTimeMillis() - start;
             String msg = "\t"
@@ -212,6 +203,104 @@ public class RetrieveEngine {
         }
     }
 
+    /**
+     * Retrieves the given files, concurrently if the options ask for more than one thread.
+     */
+    private void retrieveFiles(List retrievals, final RetrieveManifest manifest,
+            final RetrieveOptions options) throws IOException {
+        int threadCount = Math.min(options.getThreadCount(), retrievals.size());
+        if (threadCount < 2) {
+            for (Iterator iter = retrievals.iterator(); iter.hasNext();) {
+                retrieveFile((FileRetrieval) iter.next(), manifest, options);
+            }
+            return;
+        }
+
+        ExecutorService executor = Executors.newFixedThreadPool(threadCount);
+        try {
+            List futures = new ArrayList(retrievals.size());
+            for (Iterator iter = retrievals.iterator(); iter.hasNext();) {
+                final FileRetrieval retrieval = (FileRetrieval) iter.next();
+                futures.add(executor.submit(IvyContext.propagate(new Callable() {
+                    public Object call() throws Exception {
+                        retrieveFile(retrieval, manifest, options);
+                        return null;
+                    }
+                })));
+            }
+            for (Iterator iter = futures.iterator(); iter.hasNext();) {
+                waitFor((Future) iter.next());
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private void waitFor(Future future) throws IOException {
+        try {
+            future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("interrupted while waiting for a retrieve", e);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof IOException) {
+                throw (IOException) cause;
+            } else if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            } else if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            throw new RuntimeException(cause.getMessage(), cause);
+        }
+    }
+
+    /**
+     * Copies or links the artifact of the given retrieval to its destination file, unless this
+     * file is up to date.
+     */
+    private void retrieveFile(FileRetrieval retrieval, RetrieveManifest manifest,
+            RetrieveOptions options) throws IOException {
+        IvyContext.getContext().checkInterrupted();
+        ArtifactDownloadReport artifact = retrieval.artifact;
+        File archive = artifact.getLocalFile();
+        File destFile = retrieval.destFile;
+        String sourceEntry = manifest == null ? null : RetrieveManifest.getEntry(archive);
+        if (settings.isCheckUpToDate()) {
+            if (sourceEntry != null && manifest.isUpToDate(destFile, sourceEntry)
+                    && !RetrieveOptions.OVERWRITEMODE_ALWAYS.equals(options.getOverwriteMode())) {
+                Message.verbose("\t\tto " + destFile + " [NOT REQUIRED]");
+                retrieval.sourceEntry = sourceEntry;
+                return;
+            }
+            if (upToDate(archive, destFile, options)) {
+                Message.verbose("\t\tto " + destFile + " [NOT REQUIRED]");
+                if (destFile.length() == archive.length()
+                        && destFile.lastModified() == archive.lastModified()) {
+                    // the file has most probably been retrieved without manifest
+                    retrieval.sourceEntry = sourceEntry;
+                }
+                return;
+            }
+        }
+        Message.verbose("\t\tto " + destFile);
+        if (this.eventManager != null) {
+            this.eventManager.fireIvyEvent(new StartRetrieveArtifactEvent(artifact, destFile));
+        }
+        if (options.isMakeSymlinks()) {
+            FileUtil.symlink(archive, destFile, null, true);
+        } else if (options.isMakeHardLinks()) {
+            FileUtil.hardlink(archive, destFile, null, true);
+        } else {
+            FileUtil.copy(archive, destFile, null, true);
+        }
+        if (this.eventManager != null) {
+            this.eventManager.fireIvyEvent(new EndRetrieveArtifactEvent(artifact, destFile));
+        }
+        retrieval.copied = true;
+        retrieval.sourceEntry = sourceEntry;
+    }
+
     private String[] getConfs(ModuleRevisionId mrid, RetrieveOptions options) throws IOException {
         String[] confs = options.getConfs();
         if (confs == null || (confs.length == 1 && "*".equals(confs[0]))) {
@@ -235,6 +324,82 @@ public class RetrieveEngine {
         return settings.getResolutionCacheManager();
     }
 
+    /**
+     * Deletes all the files of the retrieve roots which have not been retrieved.
+     */
+    private void sync(List retrievals, RetrieveManifest manifest, File fileRetrieveRoot,
+            File ivyRetrieveRoot) {
+        // Set(File) set of all paths which should be present at then end of retrieve
+        Collection targetArtifactsStructure = new HashSet();
+        Collection targetIvysStructure = new HashSet(); // same for ivy files
+        for (Iterator iter = retrievals.iterator(); iter.hasNext();) {
+            FileRetrieval retrieval = (FileRetrieval) iter.next();
+            if ("ivy".equals(retrieval.artifact.getType())) {
+                targetIvysStructure.addAll(FileUtil.getPathFiles(ivyRetrieveRoot,
+                    retrieval.destFile));
+            } else {
+                targetArtifactsStructure.addAll(FileUtil.getPathFiles(fileRetrieveRoot,
+                    retrieval.destFile));
+            }
+        }
+        if (manifest != null) {
+            targetArtifactsStructure.addAll(FileUtil.getPathFiles(fileRetrieveRoot,
+                manifest.getFile()));
+        }
+
+        String[] ignorableFilenames = settings.getIgnorableFilenames();
+        Collection ignoreList = Arrays.asList(ignorableFilenames);
+
+        Collection existingArtifacts = FileUtil.listAll(fileRetrieveRoot, ignoreList);
+        Collection existingIvys = ivyRetrieveRoot == null ? null : FileUtil.listAll(
+            ivyRetrieveRoot, ignoreList);
+
+        if (fileRetrieveRoot.equals(ivyRetrieveRoot)) {
+            Collection target = targetArtifactsStructure;
+            target.addAll(targetIvysStructure);
+            Collection existing = existingArtifacts;
+            existing.addAll(existingIvys);
+            sync(target, existing);
+        } else {
+            sync(targetArtifactsStructure, existingArtifacts);
+            if (existingIvys != null) {
+                sync(targetIvysStructure, existingIvys);
+            }
+        }
+    }
+
+    /**
+     * Deletes the files retrieved by the previous retrieve which have not been retrieved this
+     * time, and the directories left empty, without looking at the other files of the retrieve
+     * roots.
+     */
+    private void syncWithManifest(RetrieveManifest manifest, File fileRetrieveRoot,
+            File ivyRetrieveRoot) {
+        for (Iterator iter = manifest.getRemovedFiles().iterator(); iter.hasNext();) {
+            File file = (File) iter.next();
+            File root = isInDirectory(file, fileRetrieveRoot) ? fileRetrieveRoot
+                    : isInDirectory(file, ivyRetrieveRoot) ? ivyRetrieveRoot : null;
+            if (root == null) {
+                // retrieved to another ivy retrieve root, which is not synchronized
+                continue;
+            }
+            if (file.exists()) {
+                Message.verbose("\t\tdeleting " + file);
+                FileUtil.forceDelete(file);
+            }
+            for (File dir = file.getParentFile(); !dir.equals(root) && dir.delete();
+                    dir = dir.getParentFile()) {
+                // only empty directories can be deleted
+                Message.verbose("\t\tdeleting " + dir);
+            }
+        }
+    }
+
+    private static boolean isInDirectory(File file, File dir) {
+        return dir != null && file.getAbsolutePath().startsWith(
+            dir.getAbsolutePath() + File.separator);
+    }
+
     private void sync(Collection target, Collection existing) {
         Collection toRemove = new HashSet();
         for (Iterator iter = existing.iterator(); iter.hasNext();) {
@@ -446,4 +611,25 @@ public class RetrieveEngine {
         };
     }
 
+    /**
+     * The retrieval of an artifact to one of its destination files.
+     */
+    private static final class FileRetrieval {
+        private final ArtifactDownloadReport artifact;
+
+        private final File destFile;
+
+        private boolean copied = false;
+
+        /**
+         * The manifest entry of the source of the destination file, null if the destination file
+         * shouldn't be recorded in the manifest.
+         */
+        private String sourceEntry;
+
+        public FileRetrieval(ArtifactDownloadReport artifact, File destFile) {
+            this.artifact = artifact;
+            this.destFile = destFile;
+        }
+    }
 }
@@ -0,0 +1,186 @@
+/*
+ *  Licensed to the Apache Software Foundation (ASF) under one or more
+ *  contributor license agreements.  See the NOTICE file distributed with
+ *  this work for additional information regarding copyright ownership.
+ *  The ASF licenses this file to You under the Apache License, Version 2.0
+ *  (the "License"); you may not use this file except in compliance with
+ *  the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ */
+package org.apache.ivy.core.retrieve;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.Properties;
+
+import org.apache.ivy.util.Message;
+
+/**
+ * The files written by the last retrieve in a directory.
+ * <p>
+ * For each destination file, the manifest records the source file it has been retrieved from,
+ * with the size and the last modification date this source file had then. As long as its source
+ * is still the same, with the same size and date, a destination file is considered up to date
+ * without being looked at. As a consequence, destination files modified by other means than a
+ * retrieve are not detected.
+ * </p>
+ * <p>
+ * The manifest also tells whether the retrieve root directory is synchronized, i.e. whether it
+ * contains only the recorded files. In this case, synchronizing it again only requires to delete
+ * the recorded files which are not retrieved anymore.
+ * </p>
+ * <p>
+ * The manifest is stored in the retrieve root directory, as a properties file.
+ * </p>
+ */
+class RetrieveManifest {
+    public static final String FILE_NAME = ".ivy-retrieve.properties";
+
+    private static final String SEPARATOR = "|";
+
+    // recorded files are stored by absolute path, so this key can't be mistaken for one of them
+    private static final String SYNCED_KEY = "synced";
+
+    private final File file;
+
+    private final Properties previous;
+
+    private final Properties current = new Properties();
+
+    private RetrieveManifest(File file, Properties previous) {
+        this.file = file;
+        this.previous = previous;
+    }
+
+    /**
+     * Loads the manifest of the given retrieve root directory. The returned manifest is empty if
+     * no retrieve with a manifest has been done in this directory yet.
+     */
+    public static RetrieveManifest load(File retrieveRoot) {
+        File file = new File(retrieveRoot, FILE_NAME);
+        Properties previous = new Properties();
+        if (file.exists()) {
+            try {
+                InputStream in = new FileInputStream(file);
+                try {
+                    previous.load(in);
+                } finally {
+                    in.close();
+                }
+            } catch (IOException e) {
+                Message.verbose("impossible to read retrieve manifest " + file + ": " + e);
+                previous.clear();
+            }
+        }
+        return new RetrieveManifest(file, previous);
+    }
+
+    /**
+     * Deletes the manifest of the given retrieve root directory, if any.
+     */
+    public static void delete(File retrieveRoot) {
+        File file = new File(retrieveRoot, FILE_NAME);
+        if (file.exists()) {
+            Message.verbose("\tdeleting retrieve manifest " + file);
+            file.delete();
+        }
+    }
+
+    /**
+     * Returns the entry to record for a destination file retrieved from the given source.
+     */
+    public static String getEntry(File source) {
+        return source.length() + SEPARATOR + source.lastModified() + SEPARATOR
+                + source.getAbsolutePath();
+    }
+
+    public File getFile() {
+        return file;
+    }
+
+    /**
+     * Returns true if the retrieve root directory contained only the recorded files after the last
+     * retrieve.
+     */
+    public boolean isSynced() {
+        return Boolean.valueOf(previous.getProperty(SYNCED_KEY)).booleanValue();
+    }
+
+    /**
+     * Returns true if the last retrieve wrote the given destination file from a source with the
+     * given entry.
+     */
+    public boolean isUpToDate(File dest, String sourceEntry) {
+        return sourceEntry.equals(previous.getProperty(dest.getAbsolutePath()));
+    }
+
+    /**
+     * Records that the given destination file has been retrieved from a source with the given
+     * entry. The entry may be null if it isn't known whether the destination file is a copy of its
+     * source, in which case the file will never be considered as up to date.
+     */
+    public void record(File dest, String sourceEntry) {
+        current.setProperty(dest.getAbsolutePath(), sourceEntry == null ? "" : sourceEntry);
+    }
+
+    /**
+     * Returns the files recorded by the previous retrieve which have not been recorded by this
+     * one.
+     */
+    public Collection/*<File>*/ getRemovedFiles() {
+        Collection removed = new ArrayList();
+        for (Iterator iter = previous.keySet().iterator(); iter.hasNext();) {
+            String path = (String) iter.next();
+            if (!SYNCED_KEY.equals(path) && !current.containsKey(path)) {
+                removed.add(new File(path));
+            }
+        }
+        return removed;
+    }
+
+    /**
+     * Records again the files recorded by the previous retrieve which have not been recorded by
+     * this one, because they are still in the retrieve root directory.
+     */
+    public void retainPreviousFiles() {
+        for (Iterator iter = previous.keySet().iterator(); iter.hasNext();) {
+            String path = (String) iter.next();
+            if (!SYNCED_KEY.equals(path) && !current.containsKey(path)) {
+                current.setProperty(path, previous.getProperty(path));
+            }
+        }
+    }
+
+    /**
+     * Saves the recorded files as the manifest of the retrieve root directory, replacing the
+     * previous one.
+     * 
+     * @param synced
+     *            true if the retrieve root directory contains only the recorded files
+     */
+    public void save(boolean synced) throws IOException {
+        current.setProperty(SYNCED_KEY, String.valueOf(synced));
+        file.getParentFile().mkdirs();
+        OutputStream out = new FileOutputStream(file);
+        try {
+            current.store(out, null);
+        } finally {
+            out.close();
+        }
+    }
+}
@@ -74,6 +74,24 @@ public class RetrieveOptions extends LogOptions {
      */
     private boolean makeSymlinks = false;
 
+    /**
+     * True if hard links should be created instead of plain copy, when the file system supports
+     * them. Note that the retrieved files then share their content with the cache.
+     */
+    private boolean makeHardLinks = false;
+
+    /**
+     * True if a manifest of the retrieved files should be kept in the retrieve root directory, to
+     * tell which files are up to date without checking them.
+     */
+    private boolean useManifest = false;
+
+    /**
+     * The number of threads retrieving files, the files are retrieved one after the other in the
+     * calling thread if it is lower than 2.
+     */
+    private int threadCount = 1;
+
     /**
      * The id used to store the resolve information.
      */
@@ -94,6 +112,9 @@ public class RetrieveOptions extends LogOptions {
         this.overwriteMode = options.overwriteMode;
         this.useOrigin = options.useOrigin;
         this.makeSymlinks = options.makeSymlinks;
+        this.makeHardLinks = options.makeHardLinks;
+        this.useManifest = options.useManifest;
+        this.threadCount = options.threadCount;
         this.resolveId = options.resolveId;
         this.mapper = options.mapper;
     }
@@ -152,6 +173,33 @@ public class RetrieveOptions extends LogOptions {
         return this;
     }
 
+    public boolean isMakeHardLinks() {
+        return makeHardLinks;
+    }
+
+    public RetrieveOptions setMakeHardLinks(boolean makeHardLinks) {
+        this.makeHardLinks = makeHardLinks;
+        return this;
+    }
+
+    public boolean isUseManifest() {
+        return useManifest;
+    }
+
+    public RetrieveOptions setUseManifest(boolean useManifest) {
+        this.useManifest = useManifest;
+        return this;
+    }
+
+    public int getThreadCount() {
+        return threadCount;
+    }
+
+    public RetrieveOptions setThreadCount(int threadCount) {
+        this.threadCount = threadCount;
+        return this;
+    }
+
     public boolean isSync() {
         return sync;
     }
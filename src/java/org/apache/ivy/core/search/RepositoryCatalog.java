@@ -0,0 +1,399 @@
+/*
+ *  Licensed to the Apache Software Foundation (ASF) under one or more
+ *  contributor license agreements.  See the NOTICE file distributed with
+ *  this work for additional information regarding copyright ownership.
+ *  The ASF licenses this file to You under the Apache License, Version 2.0
+ *  (the "License"); you may not use this file except in compliance with
+ *  the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ */
+package org.apache.ivy.core.search;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Set;
+import java.util.Map.Entry;
+
+import org.apache.ivy.core.IvyPatternHelper;
+import org.apache.ivy.plugins.matcher.AnyMatcher;
+import org.apache.ivy.plugins.matcher.Matcher;
+import org.apache.ivy.plugins.resolver.DependencyResolver;
+import org.apache.ivy.util.Message;
+
+/**
+ * An on disk catalogue of the organisations, modules and revisions available in the repositories
+ * of the resolvers.
+ * <p>
+ * The catalogue is populated incrementally: the organisations, the modules of an organisation
+ * or the revisions of a module are listed with the resolver the first time they are asked, and
+ * then served from the catalogue until their listing gets older than the time to live of the
+ * catalogue. Listings are done with {@link DependencyResolver#listTokenValues(String[], Map)},
+ * so that maven-metadata.xml files are used to list revisions when the resolver uses them.
+ * </p>
+ * <p>
+ * The catalogue only knows about organisations, modules and revisions: listings involving any
+ * other token, such as an extra attribute, are not answered by the catalogue. Branches are never
+ * listed from the catalogue: they are not set in the listed values, and listings can be answered
+ * only if they match any branch.
+ * </p>
+ * <p>
+ * Each resolver has its own properties file in the catalogue directory, in which each listing is
+ * stored with the time at which it has been done. This class is thread safe, but listings are
+ * not done under lock: the same listing may be done concurrently by several threads.
+ * </p>
+ */
+class RepositoryCatalog {
+    private static final String SEPARATOR = "|";
+
+    // organisations are never empty, so this key can't be mistaken for one of them
+    private static final String ORGANISATIONS_KEY = "";
+
+    private final File dir;
+
+    private final long ttl;
+
+    private final Map/*<String, Index>*/ indexes = new HashMap();
+
+    /**
+     * @param dir
+     *            the directory in which the catalogue is stored
+     * @param ttl
+     *            the time in milliseconds after which a listing must be done again
+     */
+    public RepositoryCatalog(File dir, long ttl) {
+        this.dir = dir;
+        this.ttl = ttl;
+    }
+
+    public File getDir() {
+        return dir;
+    }
+
+    public long getTTL() {
+        return ttl;
+    }
+
+    public String[] listOrganisations(DependencyResolver resolver) {
+        return list(resolver, ORGANISATIONS_KEY, IvyPatternHelper.ORGANISATION_KEY,
+            new HashMap());
+    }
+
+    public String[] listModules(DependencyResolver resolver, String org) {
+        Map criteria = new HashMap();
+        criteria.put(IvyPatternHelper.ORGANISATION_KEY, org);
+        return list(resolver, org, IvyPatternHelper.MODULE_KEY, criteria);
+    }
+
+    public String[] listRevisions(DependencyResolver resolver, String org, String module) {
+        Map criteria = new HashMap();
+        criteria.put(IvyPatternHelper.ORGANISATION_KEY, org);
+        criteria.put(IvyPatternHelper.MODULE_KEY, module);
+        return list(resolver, org + SEPARATOR + module, IvyPatternHelper.REVISION_KEY, criteria);
+    }
+
+    /**
+     * Returns true if a listing of the given tokens matching the given criteria can be answered
+     * by this catalogue.
+     */
+    public static boolean canList(String[] tokens, Map criteria) {
+        for (int i = 0; i < tokens.length; i++) {
+            if (!isCatalogued(tokens[i]) && !IvyPatternHelper.BRANCH_KEY.equals(tokens[i])) {
+                return false;
+            }
+        }
+        for (Iterator iter = criteria.entrySet().iterator(); iter.hasNext();) {
+            Entry entry = (Entry) iter.next();
+            if (entry.getValue() != null && !(entry.getValue() instanceof AnyMatcher)
+                    && !isCatalogued((String) entry.getKey())) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean isCatalogued(String token) {
+        return IvyPatternHelper.ORGANISATION_KEY.equals(token)
+                || IvyPatternHelper.MODULE_KEY.equals(token)
+                || IvyPatternHelper.REVISION_KEY.equals(token);
+    }
+
+    /**
+     * Lists the values of the given tokens matching the given criteria, like
+     * {@link DependencyResolver#listTokenValues(String[], Map)} does, but using this catalogue.
+     * The listing must be one this catalogue {@link #canList(String[], Map) can answer}.
+     */
+    public Map[] listTokenValues(DependencyResolver resolver, String[] tokens, Map criteria) {
+        List tokenList = Arrays.asList(tokens);
+        boolean listRevisions = tokenList.contains(IvyPatternHelper.REVISION_KEY)
+                || criteria.get(IvyPatternHelper.REVISION_KEY) != null;
+        boolean listModules = listRevisions || tokenList.contains(IvyPatternHelper.MODULE_KEY)
+                || criteria.get(IvyPatternHelper.MODULE_KEY) != null;
+
+        // like resolvers, don't list the exact organisation or module when a deeper level has to
+        // be listed anyway, at the last level the listing tells whether they exist
+        Set result = new LinkedHashSet();
+        Object orgCriterion = criteria.get(IvyPatternHelper.ORGANISATION_KEY);
+        String[] orgs = orgCriterion instanceof String && listModules
+                ? new String[] {(String) orgCriterion} : listOrganisations(resolver);
+        for (int i = 0; i < orgs.length; i++) {
+            if (!matches(orgCriterion, orgs[i])) {
+                continue;
+            }
+            if (!listModules) {
+                result.add(newTokenValues(tokenList, orgs[i], null, null));
+                continue;
+            }
+            Object moduleCriterion = criteria.get(IvyPatternHelper.MODULE_KEY);
+            String[] modules = moduleCriterion instanceof String && listRevisions
+                    ? new String[] {(String) moduleCriterion} : listModules(resolver, orgs[i]);
+            for (int j = 0; j < modules.length; j++) {
+                if (!matches(moduleCriterion, modules[j])) {
+                    continue;
+                }
+                if (!listRevisions) {
+                    result.add(newTokenValues(tokenList, orgs[i], modules[j], null));
+                    continue;
+                }
+                Object revisionCriterion = criteria.get(IvyPatternHelper.REVISION_KEY);
+                String[] revisions = listRevisions(resolver, orgs[i], modules[j]);
+                for (int k = 0; k < revisions.length; k++) {
+                    if (matches(revisionCriterion, revisions[k])) {
+                        result.add(newTokenValues(tokenList, orgs[i], modules[j], revisions[k]));
+                    }
+                }
+            }
+        }
+        return (Map[]) result.toArray(new Map[result.size()]);
+    }
+
+    private static boolean matches(Object criterion, String value) {
+        if (criterion == null) {
+            return true;
+        }
+        if (criterion instanceof Matcher) {
+            return ((Matcher) criterion).matches(value);
+        }
+        return criterion.equals(value);
+    }
+
+    private static Map newTokenValues(List tokens, String org, String module, String revision) {
+        Map tokenValues = new HashMap();
+        if (tokens.contains(IvyPatternHelper.ORGANISATION_KEY)) {
+            tokenValues.put(IvyPatternHelper.ORGANISATION_KEY, org);
+        }
+        if (tokens.contains(IvyPatternHelper.MODULE_KEY)) {
+            tokenValues.put(IvyPatternHelper.MODULE_KEY, module);
+        }
+        if (tokens.contains(IvyPatternHelper.REVISION_KEY)) {
+            tokenValues.put(IvyPatternHelper.REVISION_KEY, revision);
+        }
+        return tokenValues;
+    }
+
+    /**
+     * Lists again everything the given resolver can list, discarding what the catalogue knew
+     * about it.
+     */
+    public void rebuild(DependencyResolver resolver) {
+        Message.verbose("rebuilding catalogue of " + resolver.getName());
+        getIndex(resolver).clear();
+        String[] orgs = listOrganisations(resolver);
+        for (int i = 0; i < orgs.length; i++) {
+            String[] modules = listModules(resolver, orgs[i]);
+            for (int j = 0; j < modules.length; j++) {
+                listRevisions(resolver, orgs[i], modules[j]);
+            }
+        }
+    }
+
+    /**
+     * Saves the listings done since the last save.
+     */
+    public void save() throws IOException {
+        Index[] toSave;
+        synchronized (indexes) {
+            toSave = (Index[]) indexes.values().toArray(new Index[indexes.size()]);
+        }
+        for (int i = 0; i < toSave.length; i++) {
+            toSave[i].save();
+        }
+    }
+
+    private String[] list(DependencyResolver resolver, String key, String token, Map criteria) {
+        Index index = getIndex(resolver);
+        String[] values = index.get(key, ttl);
+        if (values == null) {
+            Map[] tokenValues = resolver.listTokenValues(new String[] {token}, criteria);
+            Set listed = new LinkedHashSet();
+            for (int i = 0; i < tokenValues.length; i++) {
+                Object value = tokenValues[i].get(token);
+                if (value != null) {
+                    listed.add(value);
+                }
+            }
+            values = (String[]) listed.toArray(new String[listed.size()]);
+            index.put(key, values);
+        }
+        return values;
+    }
+
+    private Index getIndex(DependencyResolver resolver) {
+        synchronized (indexes) {
+            Index index = (Index) indexes.get(resolver.getName());
+            if (index == null) {
+                index = new Index(new File(dir, getFileName(resolver.getName())));
+                indexes.put(resolver.getName(), index);
+            }
+            return index;
+        }
+    }
+
+    private static String getFileName(String resolverName) {
+        StringBuffer name = new StringBuffer();
+        for (int i = 0; i < resolverName.length(); i++) {
+            char c = resolverName.charAt(i);
+            name.append(Character.isLetterOrDigit(c) || c == '-' || c == '.' ? c : '_');
+        }
+        return name.append(".properties").toString();
+    }
+
+    /**
+     * The listings of one resolver, each one stored as the time at which it has been done
+     * followed by the listed values.
+     * <p>
+     * The file is loaded again when another catalogue saved it, and the listings done since the
+     * last save are merged into it when saving, so that catalogues sharing a directory see and
+     * keep each other's listings.
+     * </p>
+     */
+    private static final class Index {
+        private final File file;
+
+        private Properties listings;
+
+        // the last modification time and length of the file when it was loaded
+        private long lastModified;
+
+        private long length;
+
+        // the listings done since the last save
+        private final Properties changes = new Properties();
+
+        private boolean cleared;
+
+        public Index(File file) {
+            this.file = file;
+        }
+
+        public synchronized String[] get(String key, long ttl) {
+            String listing = getListings().getProperty(key);
+            if (listing == null) {
+                return null;
+            }
+            List values = new ArrayList(Arrays.asList(listing.split("\\" + SEPARATOR, -1)));
+            long listedAt;
+            try {
+                listedAt = Long.parseLong((String) values.remove(0));
+            } catch (NumberFormatException e) {
+                return null;
+            }
+            if (System.currentTimeMillis() - listedAt >= ttl) {
+                return null;
+            }
+            return (String[]) values.toArray(new String[values.size()]);
+        }
+
+        public synchronized void put(String key, String[] values) {
+            StringBuffer listing = new StringBuffer().append(System.currentTimeMillis());
+            for (int i = 0; i < values.length; i++) {
+                listing.append(SEPARATOR).append(values[i]);
+            }
+            getListings().setProperty(key, listing.toString());
+            changes.setProperty(key, listing.toString());
+        }
+
+        public synchronized void clear() {
+            getListings().clear();
+            changes.clear();
+            cleared = true;
+        }
+
+        public synchronized void save() throws IOException {
+            if (changes.isEmpty() && !cleared) {
+                return;
+            }
+            Properties toSave = cleared ? new Properties() : load();
+            toSave.putAll(changes);
+            file.getParentFile().mkdirs();
+            // write a new file then rename it over the previous one, so that it is never seen
+            // half written by another process. Where a file can't be renamed over another one,
+            // the previous one is deleted first: a catalogue reading the index in the meantime
+            // finds it empty and only lists again.
+            File tmp = new File(file.getParentFile(), file.getName() + ".tmp");
+            OutputStream out = new FileOutputStream(tmp);
+            try {
+                toSave.store(out, null);
+            } finally {
+                out.close();
+            }
+            if (!tmp.renameTo(file) && !(file.delete() && tmp.renameTo(file))) {
+                tmp.delete();
+                throw new IOException("impossible to rename " + tmp + " to " + file);
+            }
+            listings = toSave;
+            lastModified = file.lastModified();
+            length = file.length();
+            changes.clear();
+            cleared = false;
+        }
+
+        private Properties getListings() {
+            if (listings == null || file.lastModified() != lastModified
+                    || file.length() != length) {
+                lastModified = file.lastModified();
+                length = file.length();
+                listings = cleared ? new Properties() : load();
+                listings.putAll(changes);
+            }
+            return listings;
+        }
+
+        private Properties load() {
+            Properties loaded = new Properties();
+            if (file.exists()) {
+                try {
+                    InputStream in = new FileInputStream(file);
+                    try {
+                        loaded.load(in);
+                    } finally {
+                        in.close();
+                    }
+                } catch (IOException e) {
+                    Message.verbose("impossible to read catalogue " + file + ": " + e);
+                    loaded.clear();
+                }
+            }
+            return loaded;
+        }
+    }
+}
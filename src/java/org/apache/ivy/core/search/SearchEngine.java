@@ -17,6 +17,8 @@
  */
 package org.apache.ivy.core.search;
 
+import java.io.File;
+import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
@@ -30,6 +32,7 @@ import java.util.Set;
 import java.util.Map.Entry;
 
 import org.apache.ivy.core.IvyPatternHelper;
+import org.apache.ivy.core.cache.DefaultRepositoryCacheManager;
 import org.apache.ivy.core.module.id.ModuleId;
 import org.apache.ivy.core.module.id.ModuleRevisionId;
 import org.apache.ivy.core.settings.IvySettings;
@@ -40,15 +43,154 @@ import org.apache.ivy.plugins.namespace.NameSpaceHelper;
 import org.apache.ivy.plugins.namespace.Namespace;
 import org.apache.ivy.plugins.resolver.AbstractResolver;
 import org.apache.ivy.plugins.resolver.DependencyResolver;
+import org.apache.ivy.util.Checks;
 import org.apache.ivy.util.Message;
 
 public class SearchEngine {
+    private static final String DEFAULT_CATALOG_TTL = "1h";
+
     private IvySettings settings;
 
+    private RepositoryCatalog catalog;
+
+    private boolean catalogConfigured;
+
     public SearchEngine(IvySettings settings) {
         this.settings = settings;
     }
 
+    /**
+     * Makes this engine list organisations, modules and revisions through an on disk catalogue
+     * of the repositories rather than asking the resolvers each time.
+     * <p>
+     * By default, the catalogue is used if the ivy.search.catalog.dir variable is set, its time
+     * to live being given by the ivy.search.catalog.ttl variable (one hour by default).
+     * </p>
+     * 
+     * @param dir
+     *            the directory in which the catalogue is stored, <code>null</code> to always
+     *            ask the resolvers
+     * @param ttl
+     *            the time in milliseconds after which a listing stored in the catalogue must be
+     *            done again with the resolver
+     */
+    public synchronized void setCatalog(File dir, long ttl) {
+        catalog = dir == null ? null : new RepositoryCatalog(dir, ttl);
+        catalogConfigured = true;
+    }
+
+    /**
+     * Returns the directory of the catalogue used by this engine, or <code>null</code> if it
+     * doesn't use any.
+     */
+    public File getCatalogDir() {
+        RepositoryCatalog catalog = getCatalog();
+        return catalog == null ? null : catalog.getDir();
+    }
+
+    /**
+     * Lists again everything the resolvers can list and stores it in the catalogue.
+     * 
+     * @throws IllegalStateException
+     *             if this engine doesn't use a catalogue
+     */
+    public void rebuildCatalog() {
+        for (Iterator iter = settings.getResolvers().iterator(); iter.hasNext();) {
+            rebuildCatalog((DependencyResolver) iter.next());
+        }
+    }
+
+    /**
+     * Lists again everything the given resolver can list and stores it in the catalogue.
+     * 
+     * @throws IllegalStateException
+     *             if this engine doesn't use a catalogue
+     */
+    public void rebuildCatalog(DependencyResolver resolver) {
+        RepositoryCatalog catalog = getCatalog();
+        if (catalog == null) {
+            throw new IllegalStateException(
+                    "no catalogue to rebuild: set ivy.search.catalog.dir to use one");
+        }
+        catalog.rebuild(resolver);
+        saveCatalog();
+    }
+
+    private synchronized RepositoryCatalog getCatalog() {
+        if (!catalogConfigured) {
+            String dir = settings.getVariable("ivy.search.catalog.dir");
+            if (dir != null) {
+                String ttl = settings.getVariable("ivy.search.catalog.ttl");
+                catalog = new RepositoryCatalog(
+                        Checks.checkAbsolute(dir, "ivy.search.catalog.dir"),
+                        DefaultRepositoryCacheManager.parseDuration(
+                            ttl == null ? DEFAULT_CATALOG_TTL : ttl));
+            }
+            catalogConfigured = true;
+        }
+        return catalog;
+    }
+
+    private void saveCatalog() {
+        RepositoryCatalog catalog = getCatalog();
+        if (catalog != null) {
+            try {
+                catalog.save();
+            } catch (IOException e) {
+                Message.warn("impossible to save repository catalogue in " + catalog.getDir()
+                        + ": " + e);
+            }
+        }
+    }
+
+    private Map[] listTokenValues(DependencyResolver resolver, String[] tokens, Map criteria) {
+        RepositoryCatalog catalog = getCatalog();
+        if (catalog != null && RepositoryCatalog.canList(tokens, criteria)) {
+            return catalog.listTokenValues(resolver, tokens, criteria);
+        }
+        return resolver.listTokenValues(tokens, criteria);
+    }
+
+    private OrganisationEntry[] listOrganisations(DependencyResolver resolver) {
+        RepositoryCatalog catalog = getCatalog();
+        if (catalog == null) {
+            return resolver.listOrganisations();
+        }
+        String[] orgs = catalog.listOrganisations(resolver);
+        OrganisationEntry[] entries = new OrganisationEntry[orgs.length];
+        for (int i = 0; i < orgs.length; i++) {
+            entries[i] = new OrganisationEntry(resolver, orgs[i]);
+        }
+        return entries;
+    }
+
+    private ModuleEntry[] listModules(DependencyResolver resolver, OrganisationEntry org) {
+        RepositoryCatalog catalog = getCatalog();
+        if (catalog == null) {
+            return resolver.listModules(org);
+        }
+        String[] modules = catalog.listModules(resolver, org.getOrganisation());
+        ModuleEntry[] entries = new ModuleEntry[modules.length];
+        for (int i = 0; i < modules.length; i++) {
+            entries[i] = new ModuleEntry(org, modules[i]);
+        }
+        return entries;
+    }
+
+    private RevisionEntry[] listRevisions(DependencyResolver resolver, ModuleEntry module) {
+        RepositoryCatalog catalog = getCatalog();
+        if (catalog == null) {
+            return resolver.listRevisions(module);
+        }
+        String[] revisions = catalog.listRevisions(
+            resolver, module.getOrganisation(), module.getModule());
+        RevisionEntry[] entries = new RevisionEntry[revisions.length];
+        for (int i = 0; i < revisions.length; i++) {
+            entries[i] = new RevisionEntry(module, revisions[i]);
+        }
+        return entries;
+    }
+
     /**
      * Returns an empty array when no token values are found.
      * 
@@ -61,12 +203,13 @@ public class SearchEngine {
         
         for (Iterator iter = settings.getResolvers().iterator(); iter.hasNext();) {
             DependencyResolver resolver = (DependencyResolver) iter.next();
-            Map[] values = resolver.listTokenValues(new String[] {token}, otherTokenValues);
+            Map[] values = listTokenValues(resolver, new String[] {token}, otherTokenValues);
             for (int i = 0; i < values.length; i++) {
                 entries.add(values[i].get(token));
             }
         }
-        
+
+        saveCatalog();
         return (String[]) entries.toArray(new String[entries.size()]);
     }
 
@@ -75,7 +218,7 @@ public class SearchEngine {
 
         for (Iterator iter = settings.getResolvers().iterator(); iter.hasNext();) {
             DependencyResolver resolver = (DependencyResolver) iter.next();
-            Map[] orgs = resolver.listTokenValues(
+            Map[] orgs = listTokenValues(resolver,
                 new String[] {IvyPatternHelper.ORGANISATION_KEY}, new HashMap());
             for (int i = 0; i < orgs.length; i++) {
                 String org = (String) orgs[i].get(IvyPatternHelper.ORGANISATION_KEY);
@@ -83,6 +226,7 @@ public class SearchEngine {
             }
         }
 
+        saveCatalog();
         return (OrganisationEntry[]) entries.toArray(new OrganisationEntry[entries.size()]);
     }
 
@@ -91,13 +235,14 @@ public class SearchEngine {
 
         for (Iterator iter = settings.getResolvers().iterator(); iter.hasNext();) {
             DependencyResolver resolver = (DependencyResolver) iter.next();
-            Map[] orgs = resolver.listTokenValues(
+            Map[] orgs = listTokenValues(resolver,
                 new String[] {IvyPatternHelper.ORGANISATION_KEY}, new HashMap());
             for (int i = 0; i < orgs.length; i++) {
                 entries.add(orgs[i].get(IvyPatternHelper.ORGANISATION_KEY));
             }
         }
 
+        saveCatalog();
         return (String[]) entries.toArray(new String[entries.size()]);
     }
 
@@ -109,7 +254,7 @@ public class SearchEngine {
         
         for (Iterator iter = settings.getResolvers().iterator(); iter.hasNext();) {
             DependencyResolver resolver = (DependencyResolver) iter.next();
-            Map[] modules = resolver.listTokenValues(
+            Map[] modules = listTokenValues(resolver,
                 new String[] {IvyPatternHelper.MODULE_KEY}, tokenValues);
             for (int i = 0; i < modules.length; i++) {
                 String module = (String) modules[i].get(IvyPatternHelper.MODULE_KEY);
@@ -117,6 +262,7 @@ public class SearchEngine {
             }
         }
 
+        saveCatalog();
         return (ModuleEntry[]) entries.toArray(new ModuleEntry[entries.size()]);
     }
 
@@ -128,13 +274,14 @@ public class SearchEngine {
         
         for (Iterator iter = settings.getResolvers().iterator(); iter.hasNext();) {
             DependencyResolver resolver = (DependencyResolver) iter.next();
-            Map[] modules = resolver.listTokenValues(
+            Map[] modules = listTokenValues(resolver,
                 new String[] {IvyPatternHelper.MODULE_KEY}, tokenValues);
             for (int i = 0; i < modules.length; i++) {
                 entries.add(modules[i].get(IvyPatternHelper.MODULE_KEY));
             }
         }
 
+        saveCatalog();
         return (String[]) entries.toArray(new String[entries.size()]);
     }
     
@@ -147,7 +294,7 @@ public class SearchEngine {
         
         for (Iterator iter = settings.getResolvers().iterator(); iter.hasNext();) {
             DependencyResolver resolver = (DependencyResolver) iter.next();
-            Map[] revisions = resolver.listTokenValues(
+            Map[] revisions = listTokenValues(resolver,
                 new String[] {IvyPatternHelper.REVISION_KEY}, tokenValues);
             for (int i = 0; i < revisions.length; i++) {
                 String revision = (String) revisions[i].get(IvyPatternHelper.REVISION_KEY);
@@ -155,6 +302,7 @@ public class SearchEngine {
             }
         }
 
+        saveCatalog();
         return (RevisionEntry[]) entries.toArray(new RevisionEntry[entries.size()]);
     }
 
@@ -167,13 +315,14 @@ public class SearchEngine {
         
         for (Iterator iter = settings.getResolvers().iterator(); iter.hasNext();) {
             DependencyResolver resolver = (DependencyResolver) iter.next();
-            Map[] revisions = resolver.listTokenValues(
+            Map[] revisions = listTokenValues(resolver,
                 new String[] {IvyPatternHelper.REVISION_KEY}, tokenValues);
             for (int i = 0; i < revisions.length; i++) {
                 entries.add(revisions[i].get(IvyPatternHelper.REVISION_KEY));
             }
         }
 
+        saveCatalog();
         return (String[]) entries.toArray(new String[entries.size()]);
     }
     
@@ -201,7 +350,7 @@ public class SearchEngine {
 
         for (Iterator iter = settings.getResolvers().iterator(); iter.hasNext();) {
             DependencyResolver resolver = (DependencyResolver) iter.next();
-            Map[] moduleIdAsMap = resolver.listTokenValues(tokensToList, criteria);
+            Map[] moduleIdAsMap = listTokenValues(resolver, tokensToList, criteria);
             for (int i = 0; i < moduleIdAsMap.length; i++) {
                 String org = (String) moduleIdAsMap[i].get(IvyPatternHelper.ORGANISATION_KEY);
                 String name = (String) moduleIdAsMap[i].get(IvyPatternHelper.MODULE_KEY);
@@ -211,6 +360,7 @@ public class SearchEngine {
             }
         }
 
+        saveCatalog();
         return (ModuleId[]) ret.toArray(new ModuleId[ret.size()]);
     }
 
@@ -239,7 +389,7 @@ public class SearchEngine {
 
         for (Iterator iter = settings.getResolvers().iterator(); iter.hasNext();) {
             DependencyResolver resolver = (DependencyResolver) iter.next();
-            Map[] moduleIdAsMap = resolver.listTokenValues(tokensToList, criteria);
+            Map[] moduleIdAsMap = listTokenValues(resolver, tokensToList, criteria);
             for (int i = 0; i < moduleIdAsMap.length; i++) {
                 String org = (String) moduleIdAsMap[i].get(IvyPatternHelper.ORGANISATION_KEY);
                 String name = (String) moduleIdAsMap[i].get(IvyPatternHelper.MODULE_KEY);
@@ -268,6 +418,7 @@ public class SearchEngine {
             }
         }
 
+        saveCatalog();
         return (ModuleRevisionId[]) ret.toArray(new ModuleRevisionId[ret.size()]);
     }
 
@@ -293,7 +444,7 @@ public class SearchEngine {
         String[] tokensToList = (String[]) moduleCrit.getAttributes().keySet().toArray(
             new String[moduleCrit.getAttributes().size()]);
 
-        Map[] moduleIdAsMap = resolver.listTokenValues(tokensToList, criteria);
+        Map[] moduleIdAsMap = listTokenValues(resolver, tokensToList, criteria);
         Set result = new LinkedHashSet(); // we use a Set to remove duplicates
         for (int i = 0; i < moduleIdAsMap.length; i++) {
             String org = (String) moduleIdAsMap[i].get(IvyPatternHelper.ORGANISATION_KEY);
@@ -321,7 +472,8 @@ public class SearchEngine {
             ModuleRevisionId modRevId = ModuleRevisionId.newInstance(org, name, branch, rev, foundExtraAtts);
             result.add(resolver.getNamespace().getToSystemTransformer().transform(modRevId));
         }
-        
+
+        saveCatalog();
         return (ModuleRevisionId[]) result.toArray(new ModuleRevisionId[result.size()]);
     }
     
@@ -352,7 +504,7 @@ public class SearchEngine {
         
         Collection modules = new ArrayList();
 
-        OrganisationEntry[] orgs = resolver.listOrganisations();
+        OrganisationEntry[] orgs = listOrganisations(resolver);
         if (orgs == null || orgs.length == 0) {
             // hack for resolvers which are not able to list organisation, we try to see if the
             // asked organisation is not an exact one:
@@ -362,7 +514,7 @@ public class SearchEngine {
                     fromNamespace.getFromSystemTransformer()).getOrganisation();
             }
             modules.addAll(Arrays
-                    .asList(resolver.listModules(new OrganisationEntry(resolver, org))));
+                    .asList(listModules(resolver, new OrganisationEntry(resolver, org))));
         } else {
             Matcher orgMatcher = matcher.getMatcher(pattern.getOrganisation());
             for (int i = 0; i < orgs.length; i++) {
@@ -373,7 +525,7 @@ public class SearchEngine {
                             .getToSystemTransformer());
                 }
                 if (orgMatcher.matches(systemOrg)) {
-                    modules.addAll(Arrays.asList(resolver.listModules(new OrganisationEntry(
+                    modules.addAll(Arrays.asList(listModules(resolver, new OrganisationEntry(
                             resolver, org))));
                 }
             }
@@ -394,7 +546,7 @@ public class SearchEngine {
             if (MatcherHelper.matches(matcher, pattern.getModuleId(), systemMid)) {
                 // The module corresponds to the searched module pattern
                 foundModule = true;
-                RevisionEntry[] rEntries = resolver.listRevisions(mEntry);
+                RevisionEntry[] rEntries = listRevisions(resolver, mEntry);
                 Message.debug("found " + rEntries.length + " revisions for ["
                         + mEntry.getOrganisation() + ", " + mEntry.getModule() + "] on "
                         + resolverName);
@@ -426,6 +578,7 @@ public class SearchEngine {
         if (!foundModule) {
             Message.debug("no module found matching " + pattern + " using " + resolverName);
         }
+        saveCatalog();
         return mrids;
     }
 
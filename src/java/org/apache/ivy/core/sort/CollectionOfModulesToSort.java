@@ -69,12 +69,12 @@ class CollectionOfModulesToSort {
 
     private void addToModulesByModuleId(ModuleDescriptor md, ModuleInSort mdInSort) {
         ModuleId mdId = md.getModuleRevisionId().getModuleId();
-        List mdInSortAsList = new LinkedList();
-        mdInSortAsList.add(mdInSort);
-        List previousList = (List) modulesByModuleId.put(mdId, mdInSortAsList);
-        if (previousList != null) {
-            mdInSortAsList.addAll(previousList);
+        LinkedList mdInSortAsList = (LinkedList) modulesByModuleId.get(mdId);
+        if (mdInSortAsList == null) {
+            mdInSortAsList = new LinkedList();
+            modulesByModuleId.put(mdId, mdInSortAsList);
         }
+        mdInSortAsList.addFirst(mdInSort);
     }
 
     public Iterator iterator() {
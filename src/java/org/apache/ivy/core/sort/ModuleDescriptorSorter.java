@@ -17,9 +17,9 @@
  */
 package org.apache.ivy.core.sort;
 
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Iterator;
-import java.util.LinkedList;
 import java.util.List;
 
 import org.apache.ivy.core.module.descriptor.DependencyDescriptor;
@@ -40,7 +40,7 @@ public class ModuleDescriptorSorter {
 
     private final CollectionOfModulesToSort moduleDescriptors;
 
-    private final List sorted = new LinkedList();
+    private final List sorted;
 
     private final CircularDependencyStrategy circularDepStrategy;
 
@@ -50,6 +50,7 @@ public class ModuleDescriptorSorter {
         this.circularDepStrategy = circularDepStrategy;
         moduleDescriptors = new CollectionOfModulesToSort(modulesDescriptorsToSort, matcher,
                 nonMatchingVersionReporter);
+        sorted = new ArrayList(moduleDescriptors.size());
     }
 
     /**
@@ -63,45 +64,67 @@ public class ModuleDescriptorSorter {
         Iterator moduleDescriptorsIterator = moduleDescriptors.iterator();
         while (moduleDescriptorsIterator.hasNext()) {
             ModuleInSort next = (ModuleInSort) moduleDescriptorsIterator.next();
-            sortModuleDescriptorsHelp(next, next);
+            sortModuleDescriptorsHelp(next);
         }
         return sorted;
     }
 
     /**
-     * If current module has already been added to list, returns, Otherwise invokes
-     * sortModuleDescriptorsHelp for all dependencies contained within set of moduleDescriptors.
-     * Then finally adds self to list of sorted.<br/> When a loop is detected by a recursive call,
-     * the moduleDescriptors are not added immediately added to the sorted list. They are added as
-     * loop dependencies of the root, and will be added to the sorted list only when the root itself
-     * will be added.
+     * Traverses depth first the dependencies of the given module contained within set of
+     * moduleDescriptors, adding each module to the list of sorted after all its dependencies.<br/>
+     * When a loop is detected, the moduleDescriptors are not added immediately added to the sorted
+     * list. They are added as loop dependencies of the root, and will be added to the sorted list
+     * only when the root itself will be added.<br/>
+     * The traversal uses an explicit stack rather than recursion, so that long chains of
+     * dependencies can't overflow the call stack.
      * 
-     * @param current
-     *            Current module to add to sorted list.
+     * @param root
+     *            module to add to sorted list, with all its dependencies.
      * @throws CircularDependencyException
      */
-    private void sortModuleDescriptorsHelp(ModuleInSort current, ModuleInSort caller)
+    private void sortModuleDescriptorsHelp(ModuleInSort root)
+            throws CircularDependencyException {
+        if (!startVisit(root, root)) {
+            return;
+        }
+        List stack = new ArrayList();
+        stack.add(root);
+        while (!stack.isEmpty()) {
+            ModuleInSort current = (ModuleInSort) stack.get(stack.size() - 1);
+            DependencyDescriptor descriptor = current.nextDependency();
+            if (descriptor == null) {
+                stack.remove(stack.size() - 1);
+                current.endOfCall();
+                Message.debug("Sort done for : " + current.toString());
+                current.addToSortedListIfRequired(sorted);
+            } else {
+                ModuleInSort child = moduleDescriptors.getModuleDescriptorDependency(descriptor);
+                if (child != null && startVisit(child, current)) {
+                    stack.add(child);
+                }
+            }
+        }
+    }
+
+    /**
+     * Starts the visit of the current module if it has not already been processed and isn't
+     * already being visited.
+     * 
+     * @return true if the dependencies of current module must now be visited.
+     */
+    private boolean startVisit(ModuleInSort current, ModuleInSort caller)
             throws CircularDependencyException {
         // if already sorted return
         if (current.isProcessed()) {
-            return;
+            return false;
         }
         if (current.checkLoop(caller, circularDepStrategy)) {
-            return;
+            return false;
         }
-        DependencyDescriptor[] descriptors = current.getDependencies();
         Message.debug("Sort dependencies of : " + current.toString()
-                + " / Number of dependencies = " + descriptors.length);
+                + " / Number of dependencies = " + current.getDependencies().length);
         current.setCaller(caller);
-        for (int i = 0; i < descriptors.length; i++) {
-            ModuleInSort child = moduleDescriptors.getModuleDescriptorDependency(descriptors[i]);
-            if (child != null) {
-                sortModuleDescriptorsHelp(child, current);
-            }
-        }
-        current.endOfCall();
-        Message.debug("Sort done for : " + current.toString());
-        current.addToSortedListIfRequired(sorted);
+        return true;
     }
 
 }
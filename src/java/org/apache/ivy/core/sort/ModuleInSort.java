@@ -42,8 +42,11 @@ import org.apache.ivy.util.Message;
  * (excluding the root itself.</li>
  * <li><code>isLoopIntermediateElement</code> : When a loop is detected, all modules included in
  * the loop (except the root) have <code>isLoopIntermediateElement</code> set to true.</li>
- * <li><code>caller</code> : During the sort, we traverse recursively the graph. When doing that,
- * caller point to the parent element.
+ * <li><code>caller</code> : During the sort, we traverse the graph depth first. When doing that,
+ * caller point to the parent element.</li>
+ * <li><code>nextDependency</code> : While the module is being traversed, the index of the next
+ * dependency to visit.</li>
+ * </ul>
  */
 class ModuleInSort {
 
@@ -57,6 +60,10 @@ class ModuleInSort {
 
     private ModuleInSort caller;
 
+    private DependencyDescriptor[] dependencies;
+
+    private int nextDependency = 0;
+
     public ModuleInSort(ModuleDescriptor moduleToSort) {
         module = moduleToSort;
     }
@@ -81,13 +88,8 @@ class ModuleInSort {
      * when the root of the loop will be added to the list. 
      */
     public boolean isProcessed() {
-        if (isSorted || isLoopIntermediateElement) {
-            Message.debug("Module descriptor is processed : "
-                    + module.getModuleRevisionId().toString());
-            return true;
-        } else {
-            return false;
-        }
+        // not logged: this is checked for each dependency of each module to sort
+        return isSorted || isLoopIntermediateElement;
     }
 
     
@@ -162,7 +164,23 @@ class ModuleInSort {
     }
 
     public DependencyDescriptor[] getDependencies() {
-        return module.getDependencies();
+        if (dependencies == null) {
+            dependencies = module.getDependencies();
+        }
+        return dependencies;
+    }
+
+    /**
+     * Returns the next dependency of this module to visit during the sort, or null if all of them
+     * have already been visited.
+     */
+    public DependencyDescriptor nextDependency() {
+        DependencyDescriptor[] dependencies = getDependencies();
+        if (nextDependency < dependencies.length) {
+            return dependencies[nextDependency++];
+        } else {
+            return null;
+        }
     }
 
     /** Log a warning saying that a loop is detected */
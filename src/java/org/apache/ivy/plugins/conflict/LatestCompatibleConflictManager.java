@@ -191,9 +191,14 @@ public class LatestCompatibleConflictManager extends LatestConflictManager {
             settings.getVersionMatcher(), parent, selected, evicted, callerStack); 
         if (toBlacklist != null) {
             final StringBuffer blacklisted = new StringBuffer();
+            // the nodes whose selection depends on this conflict
+            final Collection changed = new HashSet();
+            changed.add(selected);
+            changed.add(evicted);
             for (Iterator iterator = toBlacklist.iterator(); iterator.hasNext();) {
                 IvyNodeBlacklist blacklist = (IvyNodeBlacklist) iterator.next();
                 blacklist.getBlacklistedNode().blacklist(blacklist);
+                changed.add(blacklist.getBlacklistedNode());
                 blacklisted.append(blacklist.getBlacklistedNode());
                 if (iterator.hasNext()) {
                     blacklisted.append(" ");
@@ -211,7 +216,7 @@ public class LatestCompatibleConflictManager extends LatestConflictManager {
                     + evicted.getEvictedData(rootModuleConf));
             }
             throw new RestartResolveProcess("trying to handle incompatibilities between "
-                + selected + " and " + evicted);
+                + selected + " and " + evicted, changed);
         }
     }
 
@@ -21,36 +21,132 @@ import java.util.Comparator;
 import java.util.HashMap;
 import java.util.Locale;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.regex.Pattern;
 
 import org.apache.ivy.core.IvyContext;
 import org.apache.ivy.core.module.id.ModuleRevisionId;
 import org.apache.ivy.plugins.version.VersionMatcher;
 
 public class LatestRevisionStrategy extends ComparatorLatestStrategy {
+    /**
+     * The maximum number of revision keys kept in cache. When this size is reached the cache is
+     * simply cleared.
+     */
+    private static final int MAX_CACHED_KEYS = 10000;
+
+    /**
+     * Any string of digits shorter than this can be safely parsed as a long.
+     */
+    private static final int MAX_LONG_DIGITS = 19;
+
+    private static final Pattern LETTER_DIGIT = Pattern.compile("([a-zA-Z])(\\d)");
+
+    private static final Pattern DIGIT_LETTER = Pattern.compile("(\\d)([a-zA-Z])");
+
+    private static final Pattern SEPARATORS = Pattern.compile("[\\._\\-\\+]");
+
+    private static final Pattern NUMBER = Pattern.compile("\\d+");
+
+    private static final Map/*<String, RevisionKey>*/ KEYS = new ConcurrentHashMap();
+
+    /**
+     * A revision split in the parts used to compare it with other revisions. Splitting a
+     * revision requires several regular expressions, so it is done only once per revision and
+     * the result is cached.
+     */
+    private static final class RevisionKey {
+        private final String[] parts;
+
+        private final String[] lowerCaseParts;
+
+        private final boolean[] numbers;
+
+        private final long[] values;
+
+        private final ModuleRevisionId mrid;
+
+        private volatile DynamicFlag dynamicFlag;
+
+        private RevisionKey(String revision) {
+            String rev = LETTER_DIGIT.matcher(revision).replaceAll("$1.$2");
+            rev = DIGIT_LETTER.matcher(rev).replaceAll("$1.$2");
+            parts = SEPARATORS.split(rev);
+            lowerCaseParts = new String[parts.length];
+            numbers = new boolean[parts.length];
+            values = new long[parts.length];
+            for (int i = 0; i < parts.length; i++) {
+                lowerCaseParts[i] = parts[i].toLowerCase(Locale.US);
+                numbers[i] = NUMBER.matcher(parts[i]).matches();
+                if (numbers[i] && parts[i].length() < MAX_LONG_DIGITS) {
+                    values[i] = Long.parseLong(parts[i]);
+                }
+            }
+            mrid = ModuleRevisionId.newInstance("", "", revision);
+        }
+
+        private int compareNumbers(RevisionKey other, int i) {
+            if (parts[i].length() < MAX_LONG_DIGITS 
+                    && other.parts[i].length() < MAX_LONG_DIGITS) {
+                return values[i] < other.values[i] ? -1 : (values[i] == other.values[i] ? 0 : 1);
+            }
+            return Long.valueOf(parts[i]).compareTo(Long.valueOf(other.parts[i]));
+        }
+
+        private boolean isDynamic(VersionMatcher vmatcher) {
+            DynamicFlag flag = dynamicFlag;
+            if (flag == null || flag.vmatcher != vmatcher) {
+                flag = new DynamicFlag(vmatcher, vmatcher.isDynamic(mrid));
+                dynamicFlag = flag;
+            }
+            return flag.dynamic;
+        }
+    }
+
+    private static final class DynamicFlag {
+        private final VersionMatcher vmatcher;
+
+        private final boolean dynamic;
+
+        private DynamicFlag(VersionMatcher vmatcher, boolean dynamic) {
+            this.vmatcher = vmatcher;
+            this.dynamic = dynamic;
+        }
+    }
+
+    private static RevisionKey getRevisionKey(String revision) {
+        RevisionKey key = (RevisionKey) KEYS.get(revision);
+        if (key == null) {
+            if (KEYS.size() >= MAX_CACHED_KEYS) {
+                KEYS.clear();
+            }
+            key = new RevisionKey(revision);
+            KEYS.put(revision, key);
+        }
+        return key;
+    }
+
     /**
      * Compares two ModuleRevisionId by their revision. Revisions are compared using an algorithm
      * inspired by PHP version_compare one.
      */
     final class MridComparator implements Comparator {
         public int compare(Object o1, Object o2) {
-            String rev1 = ((ModuleRevisionId) o1).getRevision();
-            String rev2 = ((ModuleRevisionId) o2).getRevision();
-        
-            rev1 = rev1.replaceAll("([a-zA-Z])(\\d)", "$1.$2");
-            rev1 = rev1.replaceAll("(\\d)([a-zA-Z])", "$1.$2");
-            rev2 = rev2.replaceAll("([a-zA-Z])(\\d)", "$1.$2");
-            rev2 = rev2.replaceAll("(\\d)([a-zA-Z])", "$1.$2");
-        
-            String[] parts1 = rev1.split("[\\._\\-\\+]");
-            String[] parts2 = rev2.split("[\\._\\-\\+]");
+            return compareKeys(getRevisionKey(((ModuleRevisionId) o1).getRevision()),
+                getRevisionKey(((ModuleRevisionId) o2).getRevision()));
+        }
+
+        private int compareKeys(RevisionKey key1, RevisionKey key2) {
+            String[] parts1 = key1.parts;
+            String[] parts2 = key2.parts;
         
             int i = 0;
             for (; i < parts1.length && i < parts2.length; i++) {
                 if (parts1[i].equals(parts2[i])) {
                     continue;
                 }
-                boolean is1Number = isNumber(parts1[i]);
-                boolean is2Number = isNumber(parts2[i]);
+                boolean is1Number = key1.numbers[i];
+                boolean is2Number = key2.numbers[i];
                 if (is1Number && !is2Number) {
                     return 1;
                 }
@@ -58,12 +154,12 @@ public class LatestRevisionStrategy extends ComparatorLatestStrategy {
                     return -1;
                 }
                 if (is1Number && is2Number) {
-                    return Long.valueOf(parts1[i]).compareTo(Long.valueOf(parts2[i]));
+                    return key1.compareNumbers(key2, i);
                 }
                 // both are strings, we compare them taking into account special meaning
                 Map specialMeanings = getSpecialMeanings();
-                Integer sm1 = (Integer) specialMeanings.get(parts1[i].toLowerCase(Locale.US));
-                Integer sm2 = (Integer) specialMeanings.get(parts2[i].toLowerCase(Locale.US));
+                Integer sm1 = (Integer) specialMeanings.get(key1.lowerCaseParts[i]);
+                Integer sm2 = (Integer) specialMeanings.get(key2.lowerCaseParts[i]);
                 if (sm1 != null) {
                     sm2 = sm2 == null ? new Integer(0) : sm2;
                     return sm1.compareTo(sm2);
@@ -74,17 +170,13 @@ public class LatestRevisionStrategy extends ComparatorLatestStrategy {
                 return parts1[i].compareTo(parts2[i]);
             }
             if (i < parts1.length) {
-                return isNumber(parts1[i]) ? 1 : -1;
+                return key1.numbers[i] ? 1 : -1;
             }
             if (i < parts2.length) {
-                return isNumber(parts2[i]) ? -1 : 1;
+                return key2.numbers[i] ? -1 : 1;
             }
             return 0;
         }
-
-        private boolean isNumber(String str) {
-            return str.matches("\\d+");
-        }
     }
 
     /**
@@ -94,8 +186,8 @@ public class LatestRevisionStrategy extends ComparatorLatestStrategy {
      */
     final class ArtifactInfoComparator implements Comparator {
         public int compare(Object o1, Object o2) {
-            String rev1 = ((ArtifactInfo) o1).getRevision();
-            String rev2 = ((ArtifactInfo) o2).getRevision();
+            RevisionKey key1 = getRevisionKey(((ArtifactInfo) o1).getRevision());
+            RevisionKey key2 = getRevisionKey(((ArtifactInfo) o2).getRevision());
         
             /*
              * The revisions can still be not resolved, so we use the current version matcher to
@@ -106,18 +198,16 @@ public class LatestRevisionStrategy extends ComparatorLatestStrategy {
              * actually resolved and a real comparison will occur.
              */
             VersionMatcher vmatcher = IvyContext.getContext().getSettings().getVersionMatcher();
-            ModuleRevisionId mrid1 = ModuleRevisionId.newInstance("", "", rev1);
-            ModuleRevisionId mrid2 = ModuleRevisionId.newInstance("", "", rev2);
 
-            if (vmatcher.isDynamic(mrid1)) {
-                int c = vmatcher.compare(mrid1, mrid2, mridComparator);
+            if (key1.isDynamic(vmatcher)) {
+                int c = vmatcher.compare(key1.mrid, key2.mrid, mridComparator);
                 return c >= 0 ? 1 : -1;
-            } else if (vmatcher.isDynamic(mrid2)) {
-                int c = vmatcher.compare(mrid2, mrid1, mridComparator);
+            } else if (key2.isDynamic(vmatcher)) {
+                int c = vmatcher.compare(key2.mrid, key1.mrid, mridComparator);
                 return c >= 0 ? -1 : 1;
             }
         
-            return mridComparator.compare(mrid1, mrid2);
+            return mridComparator.compareKeys(key1, key2);
         }
     }
 
@@ -160,7 +250,7 @@ public class LatestRevisionStrategy extends ComparatorLatestStrategy {
         DEFAULT_SPECIAL_MEANINGS.put("final", new Integer(2));
     }
 
-    private final Comparator mridComparator = new MridComparator();
+    private final MridComparator mridComparator = new MridComparator();
 
     private final Comparator artifactInfoComparator = new ArtifactInfoComparator();
 
@@ -18,12 +18,33 @@
 
 package org.apache.ivy.plugins.matcher;
 
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
 /**
  * An abstract implementation of the pattern matcher providing base template methods
+ * <p>
+ * Matchers are kept in a bounded cache, so that an expression used over and over (exclude rules,
+ * module settings, ...) is compiled only once. This requires the matchers returned by
+ * {@link #newMatcher(String)} to be thread safe.
+ * </p>
  */
 public abstract class AbstractPatternMatcher implements PatternMatcher {
+    /**
+     * The maximum number of matchers kept in cache. When this size is reached the cache is simply
+     * cleared.
+     */
+    private static final int MAX_CACHED_MATCHERS = 10000;
+
     private final String name;
 
+    private final Map/*<String, Matcher>*/ matchers = new ConcurrentHashMap();
+
+    private final AtomicLong cacheHits = new AtomicLong();
+
+    private final AtomicLong cacheMisses = new AtomicLong();
+
     /**
      * Create a new instance of a pattern matcher
      * 
@@ -41,7 +62,43 @@ public abstract class AbstractPatternMatcher implements PatternMatcher {
         if (ANY_EXPRESSION.equals(expression)) {
             return AnyMatcher.INSTANCE;
         }
-        return newMatcher(expression);
+        Matcher matcher = (Matcher) matchers.get(expression);
+        if (matcher != null) {
+            cacheHits.incrementAndGet();
+            return matcher;
+        }
+        cacheMisses.incrementAndGet();
+        matcher = newMatcher(expression);
+        if (matchers.size() >= MAX_CACHED_MATCHERS) {
+            matchers.clear();
+        }
+        matchers.put(expression, matcher);
+        return matcher;
+    }
+
+    /**
+     * Returns the number of calls to {@link #getMatcher(String)} which have been served from the
+     * cache.
+     */
+    public long getCacheHits() {
+        return cacheHits.get();
+    }
+
+    /**
+     * Returns the number of calls to {@link #getMatcher(String)} which required to create a new
+     * matcher.
+     */
+    public long getCacheMisses() {
+        return cacheMisses.get();
+    }
+
+    /**
+     * Empties the cache of matchers and resets the cache statistics.
+     */
+    public void clearCache() {
+        matchers.clear();
+        cacheHits.set(0);
+        cacheMisses.set(0);
     }
 
     public/* @NotNull */String getName() {
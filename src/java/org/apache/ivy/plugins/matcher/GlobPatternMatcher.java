@@ -41,9 +41,9 @@ public/* @Immutable */final class GlobPatternMatcher extends AbstractPatternMatc
     public static final GlobPatternMatcher INSTANCE = new GlobPatternMatcher();
 
     /*
-     * NOTE: GlobCompiler does ~100K compilation/s - If necessary look into using ThreadLocal for
-     * GlobCompiler/Perl5Matcher to cut on useless object creation - If expression are reused over
-     * and over a LRU cache could make sense
+     * NOTE: GlobCompiler does ~100K compilation/s - Expressions reused over and over are compiled
+     * only once, AbstractPatternMatcher keeping their matchers in a bounded cache - If necessary
+     * look into using ThreadLocal for Perl5Matcher to cut on useless object creation
      */
 
     public GlobPatternMatcher() {
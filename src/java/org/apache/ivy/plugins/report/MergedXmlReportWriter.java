@@ -0,0 +1,214 @@
+/*
+ *  Licensed to the Apache Software Foundation (ASF) under one or more
+ *  contributor license agreements.  See the NOTICE file distributed with
+ *  this work for additional information regarding copyright ownership.
+ *  The ASF licenses this file to You under the Apache License, Version 2.0
+ *  (the "License"); you may not use this file except in compliance with
+ *  the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ */
+package org.apache.ivy.plugins.report;
+
+import java.io.BufferedWriter;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.io.StringWriter;
+import java.io.UnsupportedEncodingException;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.apache.ivy.core.module.id.ModuleId;
+import org.apache.ivy.core.module.id.ModuleRevisionId;
+import org.apache.ivy.core.report.ConfigurationResolveReport;
+import org.apache.ivy.core.resolve.IvyNode;
+import org.apache.ivy.util.XMLHelper;
+
+/**
+ * Writes a single xml report for the configuration reports of several resolves.
+ * <p>
+ * The configuration reports are added one after the other, and only what is needed to write the
+ * merged report is kept from them: a configuration report can be garbage collected as soon as it
+ * has been added. The merged report is in the same format as the one written by
+ * {@link XmlReportWriter}, each module revision appearing once:
+ * <ul>
+ * <li>with its callers in all the reports in which it has been found, if it has been evicted in
+ * none of them or in all of them,</li>
+ * <li>as found in the reports in which it has not been evicted otherwise.</li>
+ * </ul>
+ * The position of a module revision is the order in which it has first been found. The root
+ * module of each added report is written as the module of the merged report wherever it is a
+ * caller.
+ * </p>
+ * <p>
+ * Reports can be added concurrently.
+ * </p>
+ */
+public class MergedXmlReportWriter {
+    private final XmlReportWriter writer = new XmlReportWriter();
+
+    private final ModuleRevisionId mrid;
+
+    private final Map/*<ModuleId, Map<ModuleRevisionId, MergedRevision>>*/ modules =
+        new LinkedHashMap();
+
+    private int revisionCount = 0;
+
+    /**
+     * Creates a writer of a merged report.
+     * 
+     * @param mrid
+     *            the module revision id to give to the merged report
+     */
+    public MergedXmlReportWriter(ModuleRevisionId mrid) {
+        this.mrid = mrid;
+    }
+
+    /**
+     * Adds the dependencies of the given configuration report to the merged report.
+     */
+    public void add(ConfigurationResolveReport report) {
+        // render the revisions before taking the lock, only merging them requires it
+        List revisions = new ArrayList();
+        for (Iterator iter = report.getModuleIds().iterator(); iter.hasNext();) {
+            ModuleId mid = (ModuleId) iter.next();
+            for (Iterator it2 = report.getNodes(mid).iterator(); it2.hasNext();) {
+                revisions.add(new MergedRevision(report, (IvyNode) it2.next()));
+            }
+        }
+        synchronized (modules) {
+            for (Iterator iter = revisions.iterator(); iter.hasNext();) {
+                merge((MergedRevision) iter.next());
+            }
+        }
+    }
+
+    private void merge(MergedRevision revision) {
+        Map moduleRevisions = (Map) modules.get(revision.id.getModuleId());
+        if (moduleRevisions == null) {
+            moduleRevisions = new LinkedHashMap();
+            modules.put(revision.id.getModuleId(), moduleRevisions);
+        }
+        MergedRevision merged = (MergedRevision) moduleRevisions.get(revision.id);
+        if (merged == null) {
+            revision.position = revisionCount++;
+            moduleRevisions.put(revision.id, revision);
+        } else if (merged.evicted == revision.evicted) {
+            merged.callers.addAll(revision.callers);
+        } else if (merged.evicted) {
+            revision.position = merged.position;
+            moduleRevisions.put(revision.id, revision);
+        }
+    }
+
+    /**
+     * Writes the merged report.
+     * 
+     * @param conf
+     *            the configuration to give to the merged report
+     * @param date
+     *            the date of the merged report
+     * @param stream
+     *            the stream to which the report is written
+     */
+    public void output(String conf, Date date, OutputStream stream) {
+        OutputStreamWriter encodedOutStream;
+        try {
+            encodedOutStream = new OutputStreamWriter(stream, XmlReportWriter.REPORT_ENCODING);
+        } catch (UnsupportedEncodingException e) {
+            throw new RuntimeException(
+                XmlReportWriter.REPORT_ENCODING + " is not known on your jvm", e);
+        }
+        PrintWriter out = new PrintWriter(new BufferedWriter(encodedOutStream));
+        writer.outputHeader(out, mrid, conf, new String[] {conf}, date);
+
+        out.println("\t<dependencies>");
+        synchronized (modules) {
+            for (Iterator iter = modules.entrySet().iterator(); iter.hasNext();) {
+                Map.Entry entry = (Map.Entry) iter.next();
+                ModuleId mid = (ModuleId) entry.getKey();
+                out.println("\t\t<module organisation=\""
+                    + XMLHelper.escape(mid.getOrganisation()) + "\"" + " name=\""
+                        + XMLHelper.escape(mid.getName()) + "\">");
+                for (Iterator it2 = ((Map) entry.getValue()).values().iterator(); it2
+                        .hasNext();) {
+                    MergedRevision revision = (MergedRevision) it2.next();
+                    out.println("\t\t\t<revision " + revision.attributes + " position=\""
+                            + revision.position + "\">");
+                    out.print(revision.details);
+                    for (Iterator it3 = revision.callers.iterator(); it3.hasNext();) {
+                        out.println(it3.next());
+                    }
+                    out.print(revision.artifacts);
+                    out.println("\t\t\t</revision>");
+                }
+                out.println("\t\t</module>");
+            }
+        }
+        out.println("\t</dependencies>");
+        out.println("</ivy-report>");
+        out.flush();
+    }
+
+    /**
+     * A module revision of the merged report, rendered as it will be written.
+     */
+    private final class MergedRevision {
+        private final ModuleRevisionId id;
+
+        private final boolean evicted;
+
+        private final String attributes;
+
+        private final String details;
+
+        private final Set/*<String>*/ callers = new LinkedHashSet();
+
+        private final String artifacts;
+
+        private int position;
+
+        public MergedRevision(ConfigurationResolveReport report, IvyNode dep) {
+            id = dep.getResolvedId();
+            evicted = dep.isEvicted(report.getConfiguration());
+            attributes = writer.getRevisionAttributes(report, dep);
+
+            StringWriter buffer = new StringWriter();
+            PrintWriter out = new PrintWriter(buffer);
+            writer.outputRevisionDetails(report, out, dep);
+            out.flush();
+            details = buffer.toString();
+
+            buffer = new StringWriter();
+            out = new PrintWriter(buffer);
+            writer.outputCallers(report, out, dep, mrid);
+            out.flush();
+            String[] callerLines = buffer.toString().split("\r?\n");
+            for (int i = 0; i < callerLines.length; i++) {
+                if (callerLines[i].length() > 0) {
+                    callers.add(callerLines[i]);
+                }
+            }
+
+            buffer = new StringWriter();
+            out = new PrintWriter(buffer);
+            writer.outputArtifacts(report, out, dep);
+            out.flush();
+            artifacts = buffer.toString();
+        }
+    }
+}
@@ -17,10 +17,12 @@
  */
 package org.apache.ivy.plugins.report;
 
+import java.io.ByteArrayOutputStream;
 import java.io.File;
 import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.OutputStream;
+import java.text.ParseException;
 
 import org.apache.ivy.core.cache.ResolutionCacheManager;
 import org.apache.ivy.core.report.ConfigurationResolveReport;
@@ -56,13 +58,32 @@ public class XmlReportOutputter implements ReportOutputter {
             resolveId, report.getConfiguration());
         File reportParentDir = reportFile.getParentFile();
         reportParentDir.mkdirs();
+        File binaryReportFile = XmlReportParser.getBinaryReportFile(reportFile);
+        binaryReportFile.delete();
+        // the report is written once in memory, and parsed from there for the binary report
+        ByteArrayOutputStream content = new ByteArrayOutputStream();
+        writer.output(report, confs, content);
         OutputStream stream = new FileOutputStream(reportFile);
-        writer.output(report, confs, stream);
-        stream.close();
+        try {
+            content.writeTo(stream);
+        } finally {
+            stream.close();
+        }
 
         Message.verbose("\treport for " + report.getModuleDescriptor().getModuleRevisionId()
             + " " + report.getConfiguration() + " produced in " + reportFile);
 
+        // the binary report spares the xml parsing to post resolve tasks reading this report
+        try {
+            XmlReportParser.writeBinaryReport(reportFile, content.toByteArray());
+        } catch (ParseException e) {
+            Message.warn("impossible to produce binary report for " + reportFile + ": " + e);
+            binaryReportFile.delete();
+        } catch (IOException e) {
+            Message.warn("impossible to produce binary report for " + reportFile + ": " + e);
+            binaryReportFile.delete();
+        }
+
         File reportXsl = new File(reportParentDir, "ivy-report.xsl");
         File reportCss = new File(reportParentDir, "ivy-report.css");
         if (!reportXsl.exists()) {
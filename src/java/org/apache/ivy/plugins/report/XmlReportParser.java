@@ -17,7 +17,15 @@
  */
 package org.apache.ivy.plugins.report;
 
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
 import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
 import java.text.ParseException;
 import java.util.ArrayList;
 import java.util.Date;
@@ -39,12 +47,32 @@ import org.apache.ivy.core.report.ArtifactDownloadReport;
 import org.apache.ivy.core.report.DownloadStatus;
 import org.apache.ivy.core.report.MetadataArtifactDownloadReport;
 import org.apache.ivy.util.DateUtil;
+import org.apache.ivy.util.Message;
 import org.apache.ivy.util.extendable.ExtendableItemHelper;
 import org.xml.sax.Attributes;
 import org.xml.sax.SAXException;
 import org.xml.sax.helpers.DefaultHandler;
 
+/**
+ * Parses the xml configuration reports produced by {@link XmlReportWriter}.
+ * <p>
+ * When a binary report produced by {@link #writeBinaryReport(File, byte[])} is available next to
+ * the xml report and still matches it, it is loaded instead of parsing the xml.
+ * </p>
+ */
 public class XmlReportParser {
+    private static final int BINARY_MAGIC = 0x49565952;
+
+    private static final int BINARY_VERSION = 1;
+
+    private static final byte ORIGIN_NONE = 0;
+
+    private static final byte ORIGIN_UNKNOWN = 1;
+
+    private static final byte ORIGIN_KNOWN = 2;
+
+    private static final String BINARY_REPORT_SUFFIX = ".bin";
+
     private static class SaxXmlReportParser {
         private final class XmlReportParserHandler extends DefaultHandler {
             private String organisation;
@@ -262,6 +290,235 @@ public class XmlReportParser {
             saxParser.parse(report, new XmlReportParserHandler());
         }
         
+        /**
+         * Parses the given content of the xml report, as it has been written to the report file.
+         */
+        public void parse(byte[] content) throws Exception {
+            SAXParser saxParser = SAXParserFactory.newInstance().newSAXParser();
+            saxParser.parse(new ByteArrayInputStream(content), new XmlReportParserHandler());
+        }
+        
+        /**
+         * Loads the report content from its binary form, previously written by
+         * {@link #writeBinary(File)}.
+         * 
+         * @return <code>false</code> if the binary report doesn't correspond to the xml report
+         *         anymore, in which case nothing is loaded
+         */
+        public boolean readBinary(File binaryReport) throws IOException {
+            DataInputStream in = new DataInputStream(new BufferedInputStream(
+                    new FileInputStream(binaryReport)));
+            try {
+                if (in.readInt() != BINARY_MAGIC || in.readInt() != BINARY_VERSION
+                        || in.readLong() != report.length()
+                        || in.readLong() != report.lastModified()) {
+                    return false;
+                }
+                hasError = in.readBoolean();
+                mRevisionId = in.readBoolean() ? readMrid(in) : null;
+
+                int nbMrids = in.readInt();
+                List allMrids = new ArrayList(nbMrids);
+                for (int i = 0; i < nbMrids; i++) {
+                    ModuleRevisionId mrid = readMrid(in);
+                    allMrids.add(mrid);
+                    mrids.add(mrid);
+                    if (in.readBoolean()) {
+                        defaultMrids.add(mrid);
+                    } else {
+                        MetadataArtifactDownloadReport madr = new MetadataArtifactDownloadReport(
+                                DefaultArtifact.newIvyArtifact(mrid, readDate(in)));
+                        readDownloadReport(in, madr);
+                        madr.setSearched(in.readBoolean());
+                        madr.setOriginalLocalFile(readFile(in));
+                        metadataReports.put(mrid, madr);
+                        realMrids.add(mrid);
+                    }
+                }
+
+                int nbArtifacts = in.readInt();
+                for (int i = 0; i < nbArtifacts; i++) {
+                    ModuleRevisionId mrid = (ModuleRevisionId) allMrids.get(in.readInt());
+                    Artifact artifact = new DefaultArtifact(mrid, readDate(in), readString(in),
+                            readString(in), readString(in), readMap(in));
+                    ArtifactDownloadReport aReport = new ArtifactDownloadReport(artifact);
+                    readDownloadReport(in, aReport);
+                    artifactReports.add(aReport);
+                    if (aReport.getDownloadStatus() != DownloadStatus.FAILED) {
+                        artifacts.add(artifact);
+                    }
+                }
+                return true;
+            } finally {
+                in.close();
+            }
+        }
+
+        /**
+         * Writes the content of the parsed report in a compact binary form, which can be loaded
+         * back by {@link #readBinary(File)} as long as the xml report is left untouched.
+         */
+        public void writeBinary(File binaryReport) throws IOException {
+            DataOutputStream out = new DataOutputStream(new BufferedOutputStream(
+                    new FileOutputStream(binaryReport)));
+            try {
+                out.writeInt(BINARY_MAGIC);
+                out.writeInt(BINARY_VERSION);
+                out.writeLong(report.length());
+                out.writeLong(report.lastModified());
+                out.writeBoolean(hasError);
+                out.writeBoolean(mRevisionId != null);
+                if (mRevisionId != null) {
+                    writeMrid(out, mRevisionId);
+                }
+
+                Map mridIndexes = new HashMap();
+                out.writeInt(mrids.size());
+                for (int i = 0; i < mrids.size(); i++) {
+                    ModuleRevisionId mrid = (ModuleRevisionId) mrids.get(i);
+                    if (!mridIndexes.containsKey(mrid)) {
+                        mridIndexes.put(mrid, new Integer(i));
+                    }
+                    writeMrid(out, mrid);
+                    MetadataArtifactDownloadReport madr = 
+                        (MetadataArtifactDownloadReport) metadataReports.get(mrid);
+                    boolean isDefault = madr == null || defaultMrids.contains(mrid);
+                    out.writeBoolean(isDefault);
+                    if (!isDefault) {
+                        writeDate(out, madr.getArtifact().getPublicationDate());
+                        writeDownloadReport(out, madr);
+                        out.writeBoolean(madr.isSearched());
+                        writeFile(out, madr.getOriginalLocalFile());
+                    }
+                }
+
+                out.writeInt(artifactReports.size());
+                for (Iterator it = artifactReports.iterator(); it.hasNext();) {
+                    ArtifactDownloadReport aReport = (ArtifactDownloadReport) it.next();
+                    Artifact artifact = aReport.getArtifact();
+                    out.writeInt(((Integer) mridIndexes.get(artifact.getModuleRevisionId()))
+                            .intValue());
+                    writeDate(out, artifact.getPublicationDate());
+                    writeString(out, artifact.getName());
+                    writeString(out, artifact.getType());
+                    writeString(out, artifact.getExt());
+                    writeMap(out, artifact.getQualifiedExtraAttributes());
+                    writeDownloadReport(out, aReport);
+                }
+            } finally {
+                out.close();
+            }
+        }
+
+        private static void writeDownloadReport(DataOutputStream out, 
+                ArtifactDownloadReport aReport) throws IOException {
+            writeString(out, aReport.getDownloadStatus() == null ? null 
+                    : aReport.getDownloadStatus().toString());
+            writeString(out, aReport.getDownloadDetails());
+            out.writeLong(aReport.getSize());
+            out.writeLong(aReport.getDownloadTimeMillis());
+            writeFile(out, aReport.getLocalFile());
+            ArtifactOrigin origin = aReport.getArtifactOrigin();
+            if (origin == null) {
+                out.writeByte(ORIGIN_NONE);
+            } else if (ArtifactOrigin.isUnknown(origin)) {
+                out.writeByte(ORIGIN_UNKNOWN);
+            } else {
+                out.writeByte(ORIGIN_KNOWN);
+                out.writeBoolean(origin.isLocal());
+                writeString(out, origin.getLocation());
+            }
+        }
+
+        private static void readDownloadReport(DataInputStream in, 
+                ArtifactDownloadReport aReport) throws IOException {
+            String status = readString(in);
+            aReport.setDownloadStatus(status == null ? null : DownloadStatus.fromString(status));
+            aReport.setDownloadDetails(readString(in));
+            aReport.setSize(in.readLong());
+            aReport.setDownloadTimeMillis(in.readLong());
+            aReport.setLocalFile(readFile(in));
+            byte origin = in.readByte();
+            if (origin == ORIGIN_UNKNOWN) {
+                aReport.setArtifactOrigin(ArtifactOrigin.unkwnown(aReport.getArtifact()));
+            } else if (origin == ORIGIN_KNOWN) {
+                aReport.setArtifactOrigin(
+                    new ArtifactOrigin(aReport.getArtifact(), in.readBoolean(), readString(in)));
+            }
+        }
+
+        private static void writeMrid(DataOutputStream out, ModuleRevisionId mrid) 
+                throws IOException {
+            writeString(out, mrid.getOrganisation());
+            writeString(out, mrid.getName());
+            writeString(out, mrid.getBranch());
+            writeString(out, mrid.getRevision());
+            writeMap(out, mrid.getQualifiedExtraAttributes());
+        }
+
+        private static ModuleRevisionId readMrid(DataInputStream in) throws IOException {
+            return ModuleRevisionId.newInstance(readString(in), readString(in), readString(in),
+                readString(in), readMap(in));
+        }
+
+        private static void writeMap(DataOutputStream out, Map map) throws IOException {
+            out.writeInt(map.size());
+            for (Iterator it = map.entrySet().iterator(); it.hasNext();) {
+                Map.Entry entry = (Map.Entry) it.next();
+                writeString(out, (String) entry.getKey());
+                writeString(out, (String) entry.getValue());
+            }
+        }
+
+        private static Map readMap(DataInputStream in) throws IOException {
+            int size = in.readInt();
+            Map map = new HashMap();
+            for (int i = 0; i < size; i++) {
+                map.put(readString(in), readString(in));
+            }
+            return map;
+        }
+
+        private static void writeDate(DataOutputStream out, Date date) throws IOException {
+            out.writeBoolean(date != null);
+            if (date != null) {
+                out.writeLong(date.getTime());
+            }
+        }
+
+        private static Date readDate(DataInputStream in) throws IOException {
+            return in.readBoolean() ? new Date(in.readLong()) : null;
+        }
+
+        private static void writeFile(DataOutputStream out, File file) throws IOException {
+            writeString(out, file == null ? null : file.getPath());
+        }
+
+        private static File readFile(DataInputStream in) throws IOException {
+            String path = readString(in);
+            return path == null ? null : new File(path);
+        }
+
+        private static void writeString(DataOutputStream out, String str) throws IOException {
+            if (str == null) {
+                out.writeInt(-1);
+            } else {
+                byte[] bytes = str.getBytes("UTF-8");
+                out.writeInt(bytes.length);
+                out.write(bytes);
+            }
+        }
+
+        private static String readString(DataInputStream in) throws IOException {
+            int length = in.readInt();
+            if (length < 0) {
+                return null;
+            }
+            byte[] bytes = new byte[length];
+            in.readFully(bytes);
+            return new String(bytes, "UTF-8");
+        }
+
         private static boolean parseBoolean(String str) {
             return (str != null) && str.equalsIgnoreCase("true");
         }
@@ -299,6 +556,19 @@ public class XmlReportParser {
                     + "' does not exist.");
         }
 
+        File binaryReport = getBinaryReportFile(report);
+        if (binaryReport.exists()) {
+            parser = new SaxXmlReportParser(report);
+            try {
+                if (parser.readBinary(binaryReport)) {
+                    return;
+                }
+                Message.debug("binary report " + binaryReport + " is out of date");
+            } catch (Exception e) {
+                Message.debug("impossible to read binary report " + binaryReport + ": " + e);
+            }
+        }
+
         parser = new SaxXmlReportParser(report);
         try {
             parser.parse();
@@ -310,6 +580,37 @@ public class XmlReportParser {
         }
     }
 
+    /**
+     * Returns the file in which the binary form of the given xml report is stored.
+     */
+    public static File getBinaryReportFile(File report) {
+        return new File(report.getParentFile(), report.getName() + BINARY_REPORT_SUFFIX);
+    }
+
+    /**
+     * Writes the binary form of the given xml report next to it, so that later parsing of this
+     * report doesn't need to parse the xml anymore.
+     * 
+     * @param report
+     *            the xml report file
+     * @param content
+     *            the content just written to the xml report file, parsed instead of reading the
+     *            file back
+     */
+    public static void writeBinaryReport(File report, byte[] content) 
+            throws ParseException, IOException {
+        SaxXmlReportParser parser = new SaxXmlReportParser(report);
+        try {
+            parser.parse(content);
+        } catch (Exception e) {
+            ParseException pe = new ParseException("failed to parse report: " + report + ": "
+                    + e.getMessage(), 0);
+            pe.initCause(e);
+            throw pe;
+        }
+        parser.writeBinary(getBinaryReportFile(report));
+    }
+
     public Artifact[] getArtifacts() {
         return (Artifact[]) parser.getArtifacts().toArray(
             new Artifact[parser.getArtifacts().size()]);
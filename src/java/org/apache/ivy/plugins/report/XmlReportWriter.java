@@ -65,27 +65,8 @@ public class XmlReportWriter {
             throw new RuntimeException(REPORT_ENCODING + " is not known on your jvm" , e);
         }
         PrintWriter out = new PrintWriter(new BufferedWriter(encodedOutStream));
-        ModuleRevisionId mrid = report.getModuleDescriptor().getModuleRevisionId();
-        //out.println("<?xml version=\"1.0\" encoding=\"ISO-8859-1\"?>");
-        out.println("<?xml version=\"1.0\" encoding=\"" + REPORT_ENCODING + "\"?>");
-        out.println("<?xml-stylesheet type=\"text/xsl\" href=\"ivy-report.xsl\"?>");
-        out.println("<ivy-report version=\"1.0\">");
-        out.println("\t<info");
-        out.println("\t\torganisation=\"" + XMLHelper.escape(mrid.getOrganisation()) + "\"");
-        out.println("\t\tmodule=\"" + XMLHelper.escape(mrid.getName()) + "\"");
-        out.println("\t\trevision=\"" + XMLHelper.escape(mrid.getRevision()) + "\"");
-        if (mrid.getBranch() != null) {
-            out.println("\t\tbranch=\"" + XMLHelper.escape(mrid.getBranch()) + "\"");
-        }
-        Map extraAttributes = mrid.getExtraAttributes();
-        for (Iterator it = extraAttributes.entrySet().iterator(); it.hasNext();) {
-            Map.Entry entry = (Entry) it.next();
-            out.println("\t\textra-" + entry.getKey() 
-                + "=\"" + XMLHelper.escape(entry.getValue().toString()) + "\"");
-        }
-        out.println("\t\tconf=\"" + XMLHelper.escape(report.getConfiguration()) + "\"");
-        out.println("\t\tconfs=\"" + XMLHelper.escape(StringUtils.join(confs, ", ")) + "\"");
-        out.println("\t\tdate=\"" + DateUtil.format(report.getDate()) + "\"/>");
+        outputHeader(out, report.getModuleDescriptor().getModuleRevisionId(),
+            report.getConfiguration(), confs, report.getDate());
 
         out.println("\t<dependencies>");
 
@@ -108,8 +89,48 @@ public class XmlReportWriter {
         out.flush();
     }
 
+    /**
+     * Writes the beginning of a report, up to its dependencies.
+     */
+    void outputHeader(PrintWriter out, ModuleRevisionId mrid, String conf, String[] confs,
+            Date date) {
+        //out.println("<?xml version=\"1.0\" encoding=\"ISO-8859-1\"?>");
+        out.println("<?xml version=\"1.0\" encoding=\"" + REPORT_ENCODING + "\"?>");
+        out.println("<?xml-stylesheet type=\"text/xsl\" href=\"ivy-report.xsl\"?>");
+        out.println("<ivy-report version=\"1.0\">");
+        out.println("\t<info");
+        out.println("\t\torganisation=\"" + XMLHelper.escape(mrid.getOrganisation()) + "\"");
+        out.println("\t\tmodule=\"" + XMLHelper.escape(mrid.getName()) + "\"");
+        out.println("\t\trevision=\"" + XMLHelper.escape(mrid.getRevision()) + "\"");
+        if (mrid.getBranch() != null) {
+            out.println("\t\tbranch=\"" + XMLHelper.escape(mrid.getBranch()) + "\"");
+        }
+        Map extraAttributes = mrid.getExtraAttributes();
+        for (Iterator it = extraAttributes.entrySet().iterator(); it.hasNext();) {
+            Map.Entry entry = (Entry) it.next();
+            out.println("\t\textra-" + entry.getKey() 
+                + "=\"" + XMLHelper.escape(entry.getValue().toString()) + "\"");
+        }
+        out.println("\t\tconf=\"" + XMLHelper.escape(conf) + "\"");
+        out.println("\t\tconfs=\"" + XMLHelper.escape(StringUtils.join(confs, ", ")) + "\"");
+        out.println("\t\tdate=\"" + DateUtil.format(date) + "\"/>");
+    }
+
     private void ouputRevision(ConfigurationResolveReport report, PrintWriter out,
             List dependencies, IvyNode dep) {
+        int position = dependencies.indexOf(dep.getResolvedId());
+        out.println("\t\t\t<revision " + getRevisionAttributes(report, dep) + " position=\""
+                + position + "\">");
+        outputRevisionDetails(report, out, dep);
+        outputCallers(report, out, dep);
+        outputArtifacts(report, out, dep);
+        out.println("\t\t\t</revision>");
+    }
+
+    /**
+     * Returns the attributes of the revision element of the given dependency, except its position.
+     */
+    String getRevisionAttributes(ConfigurationResolveReport report, IvyNode dep) {
         Map extraAttributes;
         ModuleDescriptor md = null;
         if (dep.getModuleRevision() != null) {
@@ -158,8 +179,7 @@ public class XmlReportWriter {
         }
         String defaultValue = dep.getDescriptor() != null ? " default=\""
                 + dep.getDescriptor().isDefault() + "\"" : "";
-        int position = dependencies.indexOf(dep.getResolvedId());
-        out.println("\t\t\t<revision name=\""
+        return "name=\""
                 + XMLHelper.escape(dep.getResolvedId().getRevision())
                 + "\""
                 + (dep.getResolvedId().getBranch() == null ? "" : " branch=\""
@@ -167,8 +187,18 @@ public class XmlReportWriter {
                             dep.getResolvedId().getBranch()) + "\"") + details
                 + " downloaded=\"" + dep.isDownloaded() + "\"" + " searched=\""
                 + dep.isSearched() + "\"" + defaultValue + " conf=\""
-                + toString(dep.getConfigurations(report.getConfiguration())) + "\""
-                + " position=\"" + position + "\">");
+                + toString(dep.getConfigurations(report.getConfiguration())) + "\"";
+    }
+
+    /**
+     * Writes the licenses, the metadata artifact and the eviction information of the given
+     * dependency.
+     */
+    void outputRevisionDetails(ConfigurationResolveReport report, PrintWriter out, IvyNode dep) {
+        ModuleDescriptor md = null;
+        if (dep.getModuleRevision() != null) {
+            md = dep.getModuleRevision().getDescriptor();
+        }
         if (md != null) {
             License[] licenses = md.getLicenses();
             for (int i = 0; i < licenses.length; i++) {
@@ -185,9 +215,6 @@ public class XmlReportWriter {
         }
         outputMetadataArtifact(out, dep);
         outputEvictionInformation(report, out, dep);
-        outputCallers(report, out, dep);
-        outputArtifacts(report, out, dep);
-        out.println("\t\t\t</revision>");
     }
 
     private void outputEvictionInformation(ConfigurationResolveReport report, PrintWriter out,
@@ -235,9 +262,23 @@ public class XmlReportWriter {
         }
     }
 
-    private void outputCallers(ConfigurationResolveReport report, PrintWriter out, IvyNode dep) {
+    void outputCallers(ConfigurationResolveReport report, PrintWriter out, IvyNode dep) {
+        outputCallers(report, out, dep, null);
+    }
+
+    /**
+     * Outputs the callers of the given dependency, the root module of the report being written as
+     * the given module revision id if it isn't <code>null</code>.
+     */
+    void outputCallers(ConfigurationResolveReport report, PrintWriter out, IvyNode dep,
+            ModuleRevisionId rootId) {
+        ModuleId reportRootId = report.getModuleDescriptor().getModuleRevisionId().getModuleId();
         Caller[] callers = dep.getCallers(report.getConfiguration());
         for (int i = 0; i < callers.length; i++) {
+            ModuleRevisionId callerId = callers[i].getModuleRevisionId();
+            if (rootId != null && callerId.getModuleId().equals(reportRootId)) {
+                callerId = rootId;
+            }
             StringBuffer callerDetails = new StringBuffer();
             Map callerExtraAttributes = callers[i].getDependencyDescriptor()
                     .getExtraAttributes();
@@ -251,10 +292,10 @@ public class XmlReportWriter {
 
             out.println("\t\t\t\t<caller organisation=\""
                     + XMLHelper.escape(
-                        callers[i].getModuleRevisionId().getOrganisation()) + "\""
+                        callerId.getOrganisation()) + "\""
                     + " name=\"" 
                     + XMLHelper.escape(
-                        callers[i].getModuleRevisionId().getName()) + "\""
+                        callerId.getName()) + "\""
                     + " conf=\"" 
                     + XMLHelper.escape(
                         toString(callers[i].getCallerConfigurations())) + "\""
@@ -271,12 +312,12 @@ public class XmlReportWriter {
                             .getDynamicConstraintDependencyRevisionId().getRevision()) + "\""
                     + " callerrev=\"" 
                     + XMLHelper.escape(
-                        callers[i].getModuleRevisionId().getRevision()) + "\""
+                        callerId.getRevision()) + "\""
                     + callerDetails + "/>");
         }
     }
 
-    private void outputArtifacts(ConfigurationResolveReport report, PrintWriter out, IvyNode dep) {
+    void outputArtifacts(ConfigurationResolveReport report, PrintWriter out, IvyNode dep) {
         Map extraAttributes;
         ArtifactDownloadReport[] adr = report.getDownloadReports(dep.getResolvedId());
         out.println("\t\t\t\t<artifacts>");
@@ -27,11 +27,13 @@ public class RepositoryCopyProgressListener implements CopyProgressListener {
         this.repository = repository;
     }
 
-    private Long totalLength = null;
+    // the length of the copy in progress in each thread
+    private final ThreadLocal/*<Long>*/ totalLength = new ThreadLocal();
 
     public void start(CopyProgressEvent evt) {
-        if (totalLength != null) {
-            repository.fireTransferStarted(totalLength.longValue());
+        Long length = getTotalLength();
+        if (length != null) {
+            repository.fireTransferStarted(length.longValue());
         } else {
             repository.fireTransferStarted();
         }
@@ -47,10 +49,10 @@ public class RepositoryCopyProgressListener implements CopyProgressListener {
     }
 
     public Long getTotalLength() {
-        return totalLength;
+        return (Long) totalLength.get();
     }
 
     public void setTotalLength(Long totalLength) {
-        this.totalLength = totalLength;
+        this.totalLength.set(totalLength);
     }
 }
@@ -93,6 +93,12 @@ public abstract class AbstractResolver
 
     private String latestStrategyName;
 
+    /**
+     * The latest strategy to use instead of latestStrategy in the current thread, used by chains
+     * to impose their own latest strategy without changing the resolver for other threads
+     */
+    private final ThreadLocal/*<LatestStrategy>*/ latestStrategyOverride = new ThreadLocal();
+
     /**
      * The namespace to which this resolver belongs
      */
@@ -235,12 +241,31 @@ public abstract class AbstractResolver
     }
 
     public LatestStrategy getLatestStrategy() {
+        LatestStrategy override = (LatestStrategy) latestStrategyOverride.get();
+        if (override != null) {
+            return override;
+        }
         if (latestStrategy == null) {
             initLatestStrategyFromSettings();
         }
         return latestStrategy;
     }
 
+    /**
+     * Makes this resolver use the given latest strategy in the current thread only, until this
+     * method is called again.
+     * 
+     * @param latestStrategy
+     *            the latest strategy to use in the current thread, <code>null</code> to use the
+     *            latest strategy of this resolver again
+     * @return the latest strategy previously imposed in the current thread, if any
+     */
+    LatestStrategy overrideLatestStrategy(LatestStrategy latestStrategy) {
+        LatestStrategy previous = (LatestStrategy) latestStrategyOverride.get();
+        latestStrategyOverride.set(latestStrategy);
+        return previous;
+    }
+
     private void initLatestStrategyFromSettings() {
         if (getSettings() != null) {
             if (latestStrategyName != null && !"default".equals(latestStrategyName)) {
@@ -347,6 +372,20 @@ public abstract class AbstractResolver
         return findModuleInCache(dd, data, false);
     }
 
+    /**
+     * Returns the module revision found for the given dependency in the repository cache of this
+     * resolver, with the cache options and checks this resolver uses when it resolves the
+     * dependency, or <code>null</code> if the cache has no usable one.
+     * 
+     * @param anyResolver
+     *            <code>true</code> to accept a module revision cached by any resolver,
+     *            <code>false</code> to accept only the ones cached by this resolver
+     */
+    public ResolvedModuleRevision getCachedDependency(
+            DependencyDescriptor dd, ResolveData data, boolean anyResolver) {
+        return findModuleInCache(dd, data, anyResolver);
+    }
+
     protected ResolvedModuleRevision findModuleInCache(
             DependencyDescriptor dd, ResolveData data, boolean anyResolver) {
         ResolvedModuleRevision rmr = getRepositoryCacheManager().findModuleInCache(
@@ -136,9 +136,15 @@ public abstract class BasicResolver extends AbstractResolver {
      */
     private boolean envDependent = true;
 
-    private List ivyattempts = new ArrayList();
-
-    private Map artattempts = new HashMap();
+    /**
+     * The locations tried by the current thread, kept per thread so that a resolver can be used
+     * by several resolves at the same time.
+     */
+    private final ThreadLocal/*<Attempts>*/ attempts = new ThreadLocal() {
+        protected Object initialValue() {
+            return new Attempts();
+        }
+    };
 
     private boolean checkconsistency = true;
 
@@ -763,17 +769,22 @@ public abstract class BasicResolver extends AbstractResolver {
         return names;
     }
 
+    private Attempts getAttempts() {
+        return (Attempts) attempts.get();
+    }
+
     protected void clearIvyAttempts() {
-        ivyattempts.clear();
+        getAttempts().ivyattempts.clear();
         clearArtifactAttempts();
     }
 
     protected void logIvyAttempt(String attempt) {
-        ivyattempts.add(attempt);
+        getAttempts().ivyattempts.add(attempt);
         Message.verbose("\t\ttried " + attempt);
     }
 
     protected void logArtifactAttempt(Artifact art, String attempt) {
+        Map artattempts = getAttempts().artattempts;
         List attempts = (List) artattempts.get(art);
         if (attempts == null) {
             attempts = new ArrayList();
@@ -794,6 +805,8 @@ public abstract class BasicResolver extends AbstractResolver {
 
     public void reportFailure() {
         Message.warn("==== " + getName() + ": tried");
+        List ivyattempts = getAttempts().ivyattempts;
+        Map artattempts = getAttempts().artattempts;
         for (ListIterator iter = ivyattempts.listIterator(); iter.hasNext();) {
             String m = (String) iter.next();
             Message.warn("  " + m);
@@ -813,7 +826,7 @@ public abstract class BasicResolver extends AbstractResolver {
 
     public void reportFailure(Artifact art) {
         Message.warn("==== " + getName() + ": tried");
-        List attempts = (List) artattempts.get(art);
+        List attempts = (List) getAttempts().artattempts.get(art);
         if (attempts != null) {
             for (ListIterator iter = attempts.listIterator(); iter.hasNext();) {
                 String m = (String) iter.next();
@@ -852,7 +865,13 @@ public abstract class BasicResolver extends AbstractResolver {
     }
 
     protected void clearArtifactAttempts() {
-        artattempts.clear();
+        getAttempts().artattempts.clear();
+    }
+
+    private static final class Attempts {
+        private final List ivyattempts = new ArrayList();
+
+        private final Map artattempts = new HashMap();
     }
 
     public ArtifactDownloadReport download(final ArtifactOrigin origin, DownloadOptions options) {
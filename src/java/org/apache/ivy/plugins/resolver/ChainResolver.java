@@ -97,7 +97,7 @@ public class ChainResolver extends AbstractResolver {
         
         for (Iterator iter = chain.iterator(); iter.hasNext();) {
             DependencyResolver resolver = (DependencyResolver) iter.next();
-            LatestStrategy oldLatest = setLatestIfRequired(resolver, getLatestStrategy());
+            LatestOverride latestOverride = setLatestIfRequired(resolver, getLatestStrategy());
             try {
                 ResolvedModuleRevision previouslyResolved = mr;
                 data.setCurrentResolvedModuleRevision(previouslyResolved);
@@ -110,8 +110,8 @@ public class ChainResolver extends AbstractResolver {
                         + ": " + StringUtils.getStackTrace(ex));
                 errors.add(ex);
             } finally {
-                if (oldLatest != null) {
-                    setLatest(resolver, oldLatest);
+                if (latestOverride != null) {
+                    latestOverride.restore();
                 }
             }
             checkInterrupted();
@@ -162,18 +162,48 @@ public class ChainResolver extends AbstractResolver {
             rmr.getDescriptor(), rmr.getReport(), true);
     }
 
-    private LatestStrategy setLatestIfRequired(DependencyResolver resolver,
+    private LatestOverride setLatestIfRequired(DependencyResolver resolver,
             LatestStrategy latestStrategy) {
         String latestName = getLatestStrategyName(resolver);
         if (latestName != null && !"default".equals(latestName)) {
-            LatestStrategy oldLatest = getLatest(resolver);
-            setLatest(resolver, latestStrategy);
-            return oldLatest;
+            return new LatestOverride(resolver, latestStrategy);
         } else {
             return null;
         }
     }
 
+    /**
+     * The latest strategy imposed by this chain to one of its resolvers while it is used. 
+     * <p>
+     * For resolvers extending {@link AbstractResolver} the strategy is only imposed in the current
+     * thread, so that the resolver can be used at the same time by other resolves. Other
+     * resolvers are modified until {@link #restore()} is called.
+     * </p>
+     */
+    private static final class LatestOverride {
+        private final DependencyResolver resolver;
+
+        private final LatestStrategy oldLatest;
+
+        public LatestOverride(DependencyResolver resolver, LatestStrategy latestStrategy) {
+            this.resolver = resolver;
+            if (resolver instanceof AbstractResolver) {
+                oldLatest = ((AbstractResolver) resolver).overrideLatestStrategy(latestStrategy);
+            } else {
+                oldLatest = getLatest(resolver);
+                setLatest(resolver, latestStrategy);
+            }
+        }
+
+        public void restore() {
+            if (resolver instanceof AbstractResolver) {
+                ((AbstractResolver) resolver).overrideLatestStrategy(oldLatest);
+            } else if (oldLatest != null) {
+                setLatest(resolver, oldLatest);
+            }
+        }
+    }
+
     public ResolvedResource findIvyFileRef(DependencyDescriptor dd, ResolveData data) {
         for (Iterator iter = chain.iterator(); iter.hasNext();) {
             DependencyResolver resolver = (DependencyResolver) iter.next();
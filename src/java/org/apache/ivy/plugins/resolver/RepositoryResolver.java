@@ -20,6 +20,7 @@ package org.apache.ivy.plugins.resolver;
 import java.io.ByteArrayInputStream;
 import java.io.File;
 import java.io.IOException;
+import java.io.OutputStream;
 import java.text.ParseException;
 import java.util.ArrayList;
 import java.util.Arrays;
@@ -46,6 +47,7 @@ import org.apache.ivy.plugins.resolver.util.ResolvedResource;
 import org.apache.ivy.plugins.resolver.util.ResolverHelper;
 import org.apache.ivy.plugins.resolver.util.ResourceMDParser;
 import org.apache.ivy.plugins.signer.SignatureGenerator;
+import org.apache.ivy.plugins.signer.StreamSignatureGenerator;
 import org.apache.ivy.plugins.version.VersionMatcher;
 import org.apache.ivy.util.ChecksumHelper;
 import org.apache.ivy.util.FileUtil;
@@ -196,25 +198,83 @@ public class RepositoryResolver extends AbstractPatternsBasedResolver {
     }
 
     public void publish(Artifact artifact, File src, boolean overwrite) throws IOException {
-        String destPattern;
+        String destPattern = getPublishPattern(artifact);
+        ModuleRevisionId mrid = getPublishRevisionId(artifact);
+
+        String dest = getDestination(destPattern, artifact, mrid);
+
+        put(artifact, src, dest, overwrite);
+        Message.info("\tpublished " + artifact.getName() + " to "
+                + hidePassword(repository.standardize(dest)));
+    }
+
+    /**
+     * Returns true if the given artifact has already been published by this resolver with the
+     * same content as the given file.
+     * <p>
+     * The published artifact is considered identical to the file if it has the same size, and if
+     * its published checksum, for the first checksum algorithm of this resolver which has been
+     * published, matches the file. An artifact published without any checksum is never considered
+     * identical.
+     * </p>
+     * 
+     * @param artifact
+     *            the artifact to look for
+     * @param src
+     *            the file which would be published as this artifact
+     * @return true if publishing the file again wouldn't change the repository
+     * @throws IOException
+     *             if the published artifact or its checksums can't be read
+     */
+    public boolean isPublished(Artifact artifact, File src) throws IOException {
+        // look at the final destination, even if a publish transaction is in progress
+        String dest = IvyPatternHelper.substitute(getPublishPattern(artifact),
+            getPublishRevisionId(artifact), artifact);
+        Resource res = repository.getResource(dest);
+        if (!res.exists() || res.getContentLength() != src.length()) {
+            return false;
+        }
+        String[] checksums = getChecksumAlgorithms();
+        for (int i = 0; i < checksums.length; i++) {
+            Resource csRes = repository.getResource(dest + "." + checksums[i]);
+            if (csRes.exists()) {
+                File csFile = File.createTempFile("ivytemp", checksums[i]);
+                try {
+                    repository.get(csRes.getName(), csFile);
+                    try {
+                        ChecksumHelper.check(src, csFile, checksums[i]);
+                        return true;
+                    } catch (IOException e) {
+                        Message.verbose("\t" + artifact + " differs from " + src + ": "
+                                + e.getMessage());
+                        return false;
+                    }
+                } finally {
+                    csFile.delete();
+                }
+            }
+        }
+        return false;
+    }
+
+    private String getPublishPattern(Artifact artifact) {
         if ("ivy".equals(artifact.getType()) && !getIvyPatterns().isEmpty()) {
-            destPattern = (String) getIvyPatterns().get(0);
+            return (String) getIvyPatterns().get(0);
         } else if (!getArtifactPatterns().isEmpty()) {
-            destPattern = (String) getArtifactPatterns().get(0);
+            return (String) getArtifactPatterns().get(0);
         } else {
             throw new IllegalStateException("impossible to publish " + artifact + " using " + this
                     + ": no artifact pattern defined");
         }
+    }
+
+    private ModuleRevisionId getPublishRevisionId(Artifact artifact) {
         // Check for m2 compatibility
         ModuleRevisionId mrid = artifact.getModuleRevisionId();
         if (isM2compatible()) {
             mrid = convertM2IdForResourceSearch(mrid);
         }
-
-        String dest = getDestination(destPattern, artifact, mrid);
-
-        put(artifact, src, dest, overwrite);
-        Message.info("\tpublished " + artifact.getName() + " to " + hidePassword(repository.standardize(dest)));
+        return mrid;
     }
 
     protected String getDestination(String pattern, Artifact artifact, ModuleRevisionId mrid) {
@@ -223,30 +283,60 @@ public class RepositoryResolver extends AbstractPatternsBasedResolver {
 
     protected void put(Artifact artifact, File src, String dest, boolean overwrite)
             throws IOException {
-        // verify the checksum algorithms before uploading artifacts!
+        // verify the checksum algorithms and the signer before uploading artifacts!
         String[] checksums = getChecksumAlgorithms();
         for (int i = 0; i < checksums.length; i++) {
             if (!ChecksumHelper.isKnownAlgorithm(checksums[i])) {
                 throw new IllegalArgumentException("Unknown checksum algorithm: " + checksums[i]);
             }
         }
-
-        repository.put(artifact, src, dest, overwrite);
-        for (int i = 0; i < checksums.length; i++) {
-            putChecksum(artifact, src, dest, overwrite, checksums[i]);
+        SignatureGenerator gen = null;
+        if (signerName != null) {
+            gen = getSignatureGenerator();
         }
 
-        if (signerName != null) {
-            putSignature(artifact, src, dest, overwrite);
+        // compute the checksums and the signature in a single read of the file when possible
+        File sigFile = null;
+        OutputStream sigStream = null;
+        try {
+            if (gen instanceof StreamSignatureGenerator) {
+                sigFile = File.createTempFile("ivytemp", gen.getExtension());
+                sigStream = ((StreamSignatureGenerator) gen).newSigningStream(sigFile);
+            }
+            String[] values = checksums.length == 0 && sigStream == null ? new String[0]
+                    : ChecksumHelper.computeAsStrings(src, checksums, sigStream);
+
+            repository.put(artifact, src, dest, overwrite);
+            for (int i = 0; i < checksums.length; i++) {
+                putChecksum(artifact, dest, overwrite, checksums[i], values[i]);
+            }
+
+            if (sigFile != null) {
+                putSignature(artifact, dest, overwrite, gen, sigFile);
+            } else if (gen != null) {
+                putSignature(artifact, src, dest, overwrite);
+            }
+        } finally {
+            if (sigFile != null) {
+                sigFile.delete();
+            }
         }
     }
 
     protected void putChecksum(Artifact artifact, File src, String dest, boolean overwrite,
             String algorithm) throws IOException {
+        putChecksum(artifact, dest, overwrite, algorithm,
+            ChecksumHelper.computeAsString(src, algorithm));
+    }
+
+    /**
+     * Uploads an already computed checksum of an artifact next to it.
+     */
+    protected void putChecksum(Artifact artifact, String dest, boolean overwrite,
+            String algorithm, String checksum) throws IOException {
         File csFile = File.createTempFile("ivytemp", algorithm);
         try {
-            FileUtil.copy(new ByteArrayInputStream(ChecksumHelper.computeAsString(src, algorithm)
-                    .getBytes()), csFile, null);
+            FileUtil.copy(new ByteArrayInputStream(checksum.getBytes()), csFile, null);
             repository.put(DefaultArtifact.cloneWithAnotherTypeAndExt(artifact, algorithm,
                 artifact.getExt() + "." + algorithm), csFile, dest + "." + algorithm, overwrite);
         } finally {
@@ -255,24 +345,36 @@ public class RepositoryResolver extends AbstractPatternsBasedResolver {
     }
 
     protected void putSignature(Artifact artifact, File src, String dest, boolean overwrite) throws IOException {
-        SignatureGenerator gen = getSettings().getSignatureGenerator(signerName);
-        if (gen == null) {
-            throw new IllegalArgumentException("Couldn't sign the artifacts! " +
-                    "Unknown signer name: '" + signerName + "'");
-        }
-
+        SignatureGenerator gen = getSignatureGenerator();
         File tempFile = File.createTempFile("ivytemp", gen.getExtension());
 
         try {
             gen.sign(src, tempFile);
-            repository.put(DefaultArtifact.cloneWithAnotherTypeAndExt(artifact, 
-                    gen.getExtension(), artifact.getExt() + "." + gen.getExtension()), 
-                    tempFile, dest + "." + gen.getExtension(), overwrite);
+            putSignature(artifact, dest, overwrite, gen, tempFile);
         } finally {
             tempFile.delete();
         }
     }
 
+    /**
+     * Uploads an already generated signature of an artifact next to it.
+     */
+    protected void putSignature(Artifact artifact, String dest, boolean overwrite,
+            SignatureGenerator gen, File signature) throws IOException {
+        repository.put(DefaultArtifact.cloneWithAnotherTypeAndExt(artifact, 
+                gen.getExtension(), artifact.getExt() + "." + gen.getExtension()), 
+                signature, dest + "." + gen.getExtension(), overwrite);
+    }
+
+    private SignatureGenerator getSignatureGenerator() {
+        SignatureGenerator gen = getSettings().getSignatureGenerator(signerName);
+        if (gen == null) {
+            throw new IllegalArgumentException("Couldn't sign the artifacts! " +
+                    "Unknown signer name: '" + signerName + "'");
+        }
+        return gen;
+    }
+
     public DownloadReport download(Artifact[] artifacts, DownloadOptions options) {
         EventManager eventManager = getEventManager();
         try {
@@ -0,0 +1,44 @@
+/*
+ *  Licensed to the Apache Software Foundation (ASF) under one or more
+ *  contributor license agreements.  See the NOTICE file distributed with
+ *  this work for additional information regarding copyright ownership.
+ *  The ASF licenses this file to You under the Apache License, Version 2.0
+ *  (the "License"); you may not use this file except in compliance with
+ *  the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ */
+package org.apache.ivy.plugins.signer;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * A {@link SignatureGenerator} able to sign a content as it is written to a stream.
+ * <p>
+ * This allows to sign a file while reading it for other purposes, like computing its checksums
+ * before a publication, instead of reading it once more.
+ * </p>
+ */
+public interface StreamSignatureGenerator extends SignatureGenerator {
+
+    /**
+     * Returns a stream to which the content to sign must be written. The signature of this
+     * content is written to the given file when the stream is closed.
+     * 
+     * @param dest
+     *            the file to which the signature must be written
+     * @return a stream accepting the content to sign
+     * @throws IOException
+     *             if the signature can't be initialized
+     */
+    OutputStream newSigningStream(File dest) throws IOException;
+}
@@ -29,7 +29,8 @@ import java.security.Security;
 import java.security.SignatureException;
 import java.util.Iterator;
 
-import org.apache.ivy.plugins.signer.SignatureGenerator;
+import org.apache.ivy.plugins.signer.StreamSignatureGenerator;
+import org.apache.ivy.util.FileUtil;
 import org.bouncycastle.bcpg.ArmoredOutputStream;
 import org.bouncycastle.bcpg.BCPGOutputStream;
 import org.bouncycastle.jce.provider.BouncyCastleProvider;
@@ -42,7 +43,7 @@ import org.bouncycastle.openpgp.PGPSignature;
 import org.bouncycastle.openpgp.PGPSignatureGenerator;
 import org.bouncycastle.openpgp.PGPUtil;
 
-public class OpenPGPSignatureGenerator implements SignatureGenerator {
+public class OpenPGPSignatureGenerator implements StreamSignatureGenerator {
     
     private static final long MASK = 0xFFFFFFFFL;
 
@@ -84,66 +85,47 @@ public class OpenPGPSignatureGenerator implements SignatureGenerator {
     }
     
     public void sign(File src, File dest) throws IOException {
-        OutputStream out = null;
-        InputStream in = null;
-        InputStream keyIn = null;
-        
+        OutputStream out = newSigningStream(dest);
+        FileUtil.copy(new FileInputStream(src), out, null);
+    }
+
+    public OutputStream newSigningStream(File dest) throws IOException {
         try {
-            if (secring == null) {
-                secring = System.getProperty("user.home") + "/.gnupg/secring.gpg";
-            }
-            
-            if (pgpSec == null) {
-                keyIn = new FileInputStream(secring);
-                pgpSec = readSecretKey(keyIn);
-            }
-            
-            PGPPrivateKey pgpPrivKey = pgpSec.extractPrivateKey(password.toCharArray(), BouncyCastleProvider.PROVIDER_NAME);        
-            PGPSignatureGenerator sGen = new PGPSignatureGenerator(pgpSec.getPublicKey().getAlgorithm(), PGPUtil.SHA1, BouncyCastleProvider.PROVIDER_NAME);
+            PGPSecretKey secretKey = getSecretKey();
+            PGPPrivateKey pgpPrivKey = secretKey.extractPrivateKey(password.toCharArray(), BouncyCastleProvider.PROVIDER_NAME);        
+            PGPSignatureGenerator sGen = new PGPSignatureGenerator(secretKey.getPublicKey().getAlgorithm(), PGPUtil.SHA1, BouncyCastleProvider.PROVIDER_NAME);
             sGen.initSign(PGPSignature.BINARY_DOCUMENT, pgpPrivKey);
-    
-            in = new FileInputStream(src);
-            out = new BCPGOutputStream(new ArmoredOutputStream(new FileOutputStream(dest)));
-            
-            int ch = 0;
-            while ((ch = in.read()) >= 0) {
-                sGen.update((byte) ch);
-            }
-            
-            sGen.generate().encode(out);
-        } catch (SignatureException e) {
-            IOException ioexc = new IOException();
-            ioexc.initCause(e);
-            throw ioexc;
+            return new SigningOutputStream(sGen, dest);
         } catch (PGPException e) {
-            IOException ioexc = new IOException();
-            ioexc.initCause(e);
-            throw ioexc;
+            throw toIOException(e);
         } catch (NoSuchAlgorithmException e) {
-            IOException ioexc = new IOException();
-            ioexc.initCause(e);
-            throw ioexc;
+            throw toIOException(e);
         } catch (NoSuchProviderException e) {
-            IOException ioexc = new IOException();
-            ioexc.initCause(e);
-            throw ioexc;
-        } finally {
-            if (out != null) {
-                try {
-                    out.close();
-                } catch (IOException e) {}
-            }
-            if (in != null) {
-                try {
-                    in.close();
-                } catch (IOException e) {}
+            throw toIOException(e);
+        }
+    }
+
+    private synchronized PGPSecretKey getSecretKey() throws IOException, PGPException {
+        if (pgpSec == null) {
+            if (secring == null) {
+                secring = System.getProperty("user.home") + "/.gnupg/secring.gpg";
             }
-            if (keyIn != null) {
+            InputStream keyIn = new FileInputStream(secring);
+            try {
+                pgpSec = readSecretKey(keyIn);
+            } finally {
                 try {
                     keyIn.close();
                 } catch (IOException e) {}
             }
         }
+        return pgpSec;
+    }
+
+    private static IOException toIOException(Exception e) {
+        IOException ioexc = new IOException();
+        ioexc.initCause(e);
+        return ioexc;
     }
 
     private PGPSecretKey readSecretKey(InputStream in) throws IOException, PGPException {
@@ -173,4 +155,54 @@ public class OpenPGPSignatureGenerator implements SignatureGenerator {
         return key;
     }
 
+    /**
+     * Feeds the written content to a signature generator, and writes the signature to a file when
+     * closed.
+     */
+    private static final class SigningOutputStream extends OutputStream {
+        private final PGPSignatureGenerator sGen;
+
+        private final File dest;
+
+        private boolean closed;
+
+        public SigningOutputStream(PGPSignatureGenerator sGen, File dest) {
+            this.sGen = sGen;
+            this.dest = dest;
+        }
+
+        public void write(int b) throws IOException {
+            try {
+                sGen.update((byte) b);
+            } catch (SignatureException e) {
+                throw toIOException(e);
+            }
+        }
+
+        public void write(byte[] b, int off, int len) throws IOException {
+            try {
+                sGen.update(b, off, len);
+            } catch (SignatureException e) {
+                throw toIOException(e);
+            }
+        }
+
+        public void close() throws IOException {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            OutputStream out = new BCPGOutputStream(new ArmoredOutputStream(
+                    new FileOutputStream(dest)));
+            try {
+                sGen.generate().encode(out);
+            } catch (SignatureException e) {
+                throw toIOException(e);
+            } catch (PGPException e) {
+                throw toIOException(e);
+            } finally {
+                out.close();
+            }
+        }
+    }
 }
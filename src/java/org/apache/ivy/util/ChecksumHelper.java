@@ -23,6 +23,7 @@ import java.io.FileInputStream;
 import java.io.FileReader;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.OutputStream;
 import java.security.MessageDigest;
 import java.security.NoSuchAlgorithmException;
 import java.util.HashMap;
@@ -92,6 +93,53 @@ public final class ChecksumHelper {
         return byteArrayToHexString(compute(f, algorithm));
     }
 
+    /**
+     * Computes the checksums of the given file for several algorithms, reading the file only
+     * once.
+     * 
+     * @param f
+     *            the file to compute the checksums of
+     * @param algorithms
+     *            the checksum algorithms to use
+     * @param out
+     *            a stream to which the content of the file is also written while computing the
+     *            checksums, so that it can be processed in the same read, or <code>null</code>.
+     *            This stream is closed once the whole file has been written to it.
+     * @return the checksums, in the order of the given algorithms
+     * @throws IOException
+     *             if an IO problem occurs while reading the file or writing to the given stream
+     */
+    public static String[] computeAsStrings(File f, String[] algorithms, OutputStream out)
+            throws IOException {
+        MessageDigest[] mds = new MessageDigest[algorithms.length];
+        for (int i = 0; i < algorithms.length; i++) {
+            mds[i] = getMessageDigest(algorithms[i]);
+        }
+        InputStream is = new FileInputStream(f);
+        try {
+            byte[] buf = new byte[BUFFER_SIZE];
+            int len = 0;
+            while ((len = is.read(buf)) != -1) {
+                for (int i = 0; i < mds.length; i++) {
+                    mds[i].update(buf, 0, len);
+                }
+                if (out != null) {
+                    out.write(buf, 0, len);
+                }
+            }
+            if (out != null) {
+                out.close();
+            }
+        } finally {
+            is.close();
+        }
+        String[] checksums = new String[algorithms.length];
+        for (int i = 0; i < mds.length; i++) {
+            checksums[i] = byteArrayToHexString(mds[i].digest());
+        }
+        return checksums;
+    }
+
     private static byte[] compute(File f, String algorithm) throws IOException {
         InputStream is = new FileInputStream(f);
 
@@ -27,7 +27,10 @@ import java.io.InputStreamReader;
 import java.io.OutputStream;
 import java.io.PrintWriter;
 import java.io.StringWriter;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
 import java.net.URL;
+import java.nio.channels.FileChannel;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
@@ -50,8 +53,28 @@ public final class FileUtil {
     // further improvements could be obtained using NIO API
     private static final int BUFFER_SIZE = 64 * 1024;
 
+    // the amount of data transferred at once between file channels, between which the copy can be
+    // interrupted
+    private static final long CHANNEL_TRANSFER_SIZE = 8 * 1024 * 1024;
+
     private static final byte[] EMPTY_BUFFER = new byte[0];
 
+    /**
+     * Files.createLink(Path, Path), null if hard links can't be created with the running JVM.
+     */
+    private static final Method CREATE_LINK = getCreateLinkMethod();
+
+    private static Method getCreateLinkMethod() {
+        try {
+            Class pathClass = Class.forName("java.nio.file.Path");
+            return Class.forName("java.nio.file.Files").getMethod("createLink",
+                new Class[] {pathClass, pathClass});
+        } catch (Exception e) {
+            // hard links are available since java 7 only
+            return null;
+        }
+    }
+
     public static void symlink(File src, File dest, CopyProgressListener l, boolean overwrite)
             throws IOException {
         try {
@@ -110,6 +133,52 @@ public final class FileUtil {
         }
     }
 
+    /**
+     * Creates a hard link to src at dest, falling back to a copy when a hard link can't be created,
+     * for instance when src and dest are on different file systems.
+     * <p>
+     * Note that the file is then shared between src and dest: modifying dest modifies src.
+     * </p>
+     */
+    public static void hardlink(File src, File dest, CopyProgressListener l, boolean overwrite)
+            throws IOException {
+        if (dest.exists()) {
+            if (!dest.isFile()) {
+                throw new IOException("impossible to copy: destination is not a file: " + dest);
+            }
+            if (!overwrite) {
+                Message.verbose(dest + " already exists, nothing done");
+                return;
+            }
+        }
+        if (CREATE_LINK != null) {
+            if (dest.getParentFile() != null) {
+                dest.getParentFile().mkdirs();
+            }
+            File tmp = new File(dest.getPath() + ".link.tmp");
+            tmp.delete();
+            try {
+                Method toPath = File.class.getMethod("toPath", new Class[0]);
+                CREATE_LINK.invoke(null, new Object[] {toPath.invoke(tmp, new Object[0]),
+                        toPath.invoke(src.getAbsoluteFile(), new Object[0])});
+                // the link is created aside then renamed, so that dest is never missing
+                if (tmp.renameTo(dest) || (dest.delete() && tmp.renameTo(dest))) {
+                    // renaming does nothing when dest is already a link to src
+                    tmp.delete();
+                    return;
+                }
+                Message.verbose("impossible to rename " + tmp + " to " + dest);
+            } catch (InvocationTargetException e) {
+                Message.verbose("hard link failed: " + e.getTargetException());
+            } catch (Exception e) {
+                Message.verbose("hard link failed: " + e);
+            }
+            tmp.delete();
+        }
+        Message.verbose("hard link not available; falling back to copy");
+        copy(src, dest, l, overwrite);
+    }
+
     public static boolean copy(File src, File dest, CopyProgressListener l) throws IOException {
         return copy(src, dest, l, false);
     }
@@ -121,15 +190,19 @@ public final class FileUtil {
                 throw new IOException("impossible to copy: destination is not a file: " + dest);
             }
             if (overwrite) {
-                if (!dest.canWrite()) {
-                    dest.delete();
-                } // if dest is writable, the copy will overwrite it without requiring a delete
+                // dest is deleted rather than overwritten, since it may be a hard link to src or
+                // to another file which writing through dest would truncate
+                dest.delete();
             } else {
                 Message.verbose(dest + " already exists, nothing done");
                 return false;
             }
         }
-        copy(new FileInputStream(src), dest, l);
+        if (l == null) {
+            copyChannels(src, dest);
+        } else {
+            copy(new FileInputStream(src), dest, l);
+        }
         long srcLen = src.length();
         long destLen = dest.length();
         if (srcLen != destLen) {
@@ -142,6 +215,42 @@ public final class FileUtil {
         return true;
     }
 
+    /**
+     * Copies src to dest with file channels, letting the operating system transfer the data
+     * directly between the files when it is able to.
+     */
+    private static void copyChannels(File src, File dest) throws IOException {
+        if (dest.getParentFile() != null) {
+            dest.getParentFile().mkdirs();
+        }
+        FileInputStream in = new FileInputStream(src);
+        try {
+            FileOutputStream out = new FileOutputStream(dest);
+            try {
+                FileChannel inChannel = in.getChannel();
+                FileChannel outChannel = out.getChannel();
+                long size = inChannel.size();
+                long position = 0;
+                while (position < size) {
+                    if (Thread.currentThread().isInterrupted()) {
+                        throw new IOException("transfer interrupted");
+                    }
+                    long count = inChannel.transferTo(position,
+                        Math.min(CHANNEL_TRANSFER_SIZE, size - position), outChannel);
+                    if (count <= 0) {
+                        // src has been truncated meanwhile, which is reported by the caller
+                        break;
+                    }
+                    position += count;
+                }
+            } finally {
+                out.close();
+            }
+        } finally {
+            in.close();
+        }
+    }
+
     public static void copy(URL src, File dest, CopyProgressListener l) throws IOException {
         URLHandlerRegistry.getDefault().download(src, dest, l);
     }
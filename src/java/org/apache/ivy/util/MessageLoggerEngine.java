@@ -17,10 +17,10 @@
  */
 package org.apache.ivy.util;
 
-import java.util.ArrayList;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Stack;
+import java.util.concurrent.CopyOnWriteArrayList;
 
 /**
  * A {@link MessageLogger} implementation delegating the work to the current top logger on a stack.
@@ -38,11 +38,12 @@ public class MessageLoggerEngine implements MessageLogger {
     
     private MessageLogger defaultLogger = null;
 
-    private List problems = new ArrayList();
+    // problems may be reported and summed up by concurrent resolves
+    private List problems = new CopyOnWriteArrayList();
 
-    private List warns = new ArrayList();
+    private List warns = new CopyOnWriteArrayList();
 
-    private List errors = new ArrayList();
+    private List errors = new CopyOnWriteArrayList();
     
     public MessageLoggerEngine() {
     }
@@ -0,0 +1,128 @@
+/*
+ *  Licensed to the Apache Software Foundation (ASF) under one or more
+ *  contributor license agreements.  See the NOTICE file distributed with
+ *  this work for additional information regarding copyright ownership.
+ *  The ASF licenses this file to You under the Apache License, Version 2.0
+ *  (the "License"); you may not use this file except in compliance with
+ *  the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ */
+package org.apache.ivy.util;
+
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * A pool of canonical instances, similar to {@link String#intern()}, which doesn't prevent its
+ * instances from being garbage collected.
+ * <p>
+ * This class is thread safe and doesn't use any lock on lookups: it is backed by a
+ * {@link ConcurrentHashMap} of weak references, the references of collected instances being
+ * removed as they are enqueued by the garbage collector.
+ * </p>
+ */
+public final class WeakInterner {
+    private final ConcurrentMap/*<Object, InternedReference>*/ pool = new ConcurrentHashMap();
+
+    private final ReferenceQueue queue = new ReferenceQueue();
+
+    /**
+     * Returns the canonical instance equal to the given object, the given object itself becoming
+     * the canonical instance if there is none yet.
+     *
+     * @param o
+     *            the object to intern, must not be <code>null</code>
+     * @return the canonical instance equal to o
+     */
+    public Object intern(Object o) {
+        expungeStaleReferences();
+        while (true) {
+            InternedReference ref = (InternedReference) pool.get(new Lookup(o));
+            if (ref == null) {
+                InternedReference newRef = new InternedReference(o, queue);
+                ref = (InternedReference) pool.putIfAbsent(newRef, newRef);
+                if (ref == null) {
+                    return o;
+                }
+            }
+            Object interned = ref.get();
+            if (interned != null) {
+                return interned;
+            }
+            // the canonical instance has just been collected
+            pool.remove(ref, ref);
+        }
+    }
+
+    /**
+     * Returns the number of canonical instances currently in this pool, including the ones which
+     * have been collected but not yet removed.
+     */
+    public int size() {
+        expungeStaleReferences();
+        return pool.size();
+    }
+
+    private void expungeStaleReferences() {
+        InternedReference ref;
+        while ((ref = (InternedReference) queue.poll()) != null) {
+            pool.remove(ref, ref);
+        }
+    }
+
+    private static final class InternedReference extends WeakReference {
+        private final int hash;
+
+        public InternedReference(Object referent, ReferenceQueue queue) {
+            super(referent, queue);
+            hash = referent.hashCode();
+        }
+
+        public int hashCode() {
+            return hash;
+        }
+
+        public boolean equals(Object obj) {
+            if (obj == this) {
+                return true;
+            }
+            if (!(obj instanceof InternedReference)) {
+                return false;
+            }
+            Object referent = get();
+            return referent != null && referent.equals(((InternedReference) obj).get());
+        }
+    }
+
+    /**
+     * Key used to look up an object in the pool without creating a reference.
+     */
+    private static final class Lookup {
+        private final Object o;
+
+        public Lookup(Object o) {
+            this.o = o;
+        }
+
+        public int hashCode() {
+            return o.hashCode();
+        }
+
+        public boolean equals(Object obj) {
+            if (!(obj instanceof InternedReference)) {
+                return false;
+            }
+            return o.equals(((InternedReference) obj).get());
+        }
+    }
+}
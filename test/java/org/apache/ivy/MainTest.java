@@ -86,6 +86,17 @@ public class MainTest extends TestCase {
         assertTrue(new File("build/cache/org1/mod1.2/ivy-2.0.xml").exists());
     }
     
+    public void testWarmUp() throws Exception {
+        run(new String[] {
+                "-settings", "test/repositories/ivysettings.xml",
+                "-warmup", "test/repositories/1/org2/mod2.3/ivys/ivy-0.4.xml", "org1#mod1.2;2.0",
+                "-threads", "2"
+        });
+        assertTrue(new File("build/cache/org1/mod1.2/jars/mod1.2-2.0.jar").exists());
+        assertTrue(new File("build/cache/org2/mod2.1/ivy-0.3.xml").exists());
+        assertTrue(new File("build/cache/org1/mod1.1/jars/mod1.1-1.0.jar").exists());
+    }
+
     public void testExtraParams1() throws Exception {
         String[] params = new String[] {
                 "-settings", "test/repositories/ivysettings.xml",
@@ -341,6 +341,97 @@ public class IvyBuildListTest extends TestCase {
         assertListOfFiles("test/buildlist/", new String[] {"B", "C", "A", "D", "E"}, files);
     }
 
+    public void testConcurrentParsing() {
+        FileSet fs = new FileSet();
+        fs.setDir(new File("test/buildlist"));
+        fs.setIncludes("**/build.xml");
+        fs.setExcludes("E2/build.xml,F/build.xml,G/build.xml");
+
+        buildlist.addFileset(fs);
+        buildlist.setOnMissingDescriptor("skip");
+        buildlist.setThreadCount(4);
+
+        String[] files = getFiles(buildlist);
+
+        assertEquals(5, files.length);
+
+        assertListOfFiles("test/buildlist/", new String[] {"B", "C", "A", "D", "E"}, files);
+    }
+
+    public void testWaves() {
+        FileSet fs = new FileSet();
+        fs.setDir(new File("test/buildlist"));
+        fs.setIncludes("**/build.xml");
+        fs.setExcludes("E2/build.xml,F/build.xml,G/build.xml");
+
+        buildlist.addFileset(fs);
+        buildlist.setOnMissingDescriptor("skip");
+        buildlist.setWaves(true);
+
+        String[] files = getFiles(buildlist);
+
+        assertListOfFiles("test/buildlist/", new String[] {"B", "C", "A", "D", "E"}, files);
+        assertEquals("4", project.getProperty("ivy.sorted.waves"));
+        assertWave(1, new String[] {"B", "E"});
+        assertWave(2, new String[] {"C"});
+        assertWave(3, new String[] {"A"});
+        assertWave(4, new String[] {"D"});
+        assertEquals("apache#B, apache#E", project.getProperty("ivy.sorted.wave.1"));
+        assertEquals("apache#C", project.getProperty("ivy.sorted.wave.2"));
+        assertEquals("apache#A", project.getProperty("ivy.sorted.wave.3"));
+        assertEquals("apache#D", project.getProperty("ivy.sorted.wave.4"));
+    }
+
+    public void testWavesReverse() {
+        FileSet fs = new FileSet();
+        fs.setDir(new File("test/buildlist"));
+        fs.setIncludes("**/build.xml");
+        fs.setExcludes("E2/build.xml,F/build.xml,G/build.xml");
+
+        buildlist.addFileset(fs);
+        buildlist.setOnMissingDescriptor("skip");
+        buildlist.setReverse(true);
+        buildlist.setWaves(true);
+
+        getFiles(buildlist);
+
+        assertEquals("4", project.getProperty("ivy.sorted.waves"));
+        assertWave(1, new String[] {"E", "D"});
+        assertWave(2, new String[] {"A"});
+        assertWave(3, new String[] {"C"});
+        assertWave(4, new String[] {"B"});
+        assertEquals("apache#E, apache#D", project.getProperty("ivy.sorted.wave.1"));
+    }
+
+    public void testWavesWithMissingDescriptor() {
+        FileSet fs = new FileSet();
+        fs.setDir(new File("test/buildlist"));
+        fs.setIncludes("**/build.xml");
+        fs.setExcludes("E2/build.xml,F/build.xml,G/build.xml");
+
+        buildlist.addFileset(fs);
+        buildlist.setOnMissingDescriptor("head");
+        buildlist.setWaves(true);
+
+        getFiles(buildlist);
+
+        // the build file without descriptor is in a wave of its own
+        assertEquals("5", project.getProperty("ivy.sorted.waves"));
+        assertWave(1, new String[] {"H"});
+        assertEquals("", project.getProperty("ivy.sorted.wave.1"));
+        assertWave(2, new String[] {"B", "E"});
+        assertEquals("apache#B, apache#E", project.getProperty("ivy.sorted.wave.2"));
+        assertWave(5, new String[] {"D"});
+    }
+
+    private void assertWave(int wave, String[] modules) {
+        Path path = (Path) project.getReference("ordered.build.files.wave." + wave);
+        assertNotNull(path);
+        String[] files = path.list();
+        assertEquals(modules.length, files.length);
+        assertListOfFiles("test/buildlist/", modules, files);
+    }
+
     public void testWithModuleWithSameNameAndDifferentOrg() {
         FileSet fs = new FileSet();
         fs.setDir(new File("test/buildlist"));
@@ -17,6 +17,7 @@
  */
 package org.apache.ivy.ant;
 
+import java.io.ByteArrayInputStream;
 import java.io.File;
 import java.util.Locale;
 
@@ -184,6 +185,45 @@ public class IvyReportTest extends TestCase {
         }
     }
 
+    public void testModifiedXslFile() throws Exception {
+        IvyResolve res = new IvyResolve();
+        res.setProject(project);
+        res.setFile(new File("test/java/org/apache/ivy/ant/ivy-simple.xml"));
+        res.execute();
+
+        File xsl = new File(cache, "custom.xsl");
+        writeStyle(xsl, "first");
+
+        report.setTodir(new File(cache, "report"));
+        report.setXslfile(xsl);
+        report.setGraph(false);
+        report.execute();
+
+        File out = new File(cache, "report/apache-resolve-simple-default.html");
+        assertEquals("first", FileUtil.readEntirely(out).trim());
+
+        // the compiled stylesheet must not be reused once the file has changed
+        writeStyle(xsl, "second version");
+
+        report = new IvyReport();
+        report.setTaskName("report");
+        report.setProject(project);
+        report.setTodir(new File(cache, "report"));
+        report.setXslfile(xsl);
+        report.setGraph(false);
+        report.execute();
+
+        assertEquals("second version", FileUtil.readEntirely(out).trim());
+    }
+
+    private void writeStyle(File xsl, String text) throws Exception {
+        FileUtil.copy(new ByteArrayInputStream(("<xsl:stylesheet version=\"1.0\" "
+                + "xmlns:xsl=\"http://www.w3.org/1999/XSL/Transform\">"
+                + "<xsl:output method=\"text\"/>"
+                + "<xsl:template match=\"/\">" + text + "</xsl:template>"
+                + "</xsl:stylesheet>").getBytes("UTF-8")), xsl, null);
+    }
+
     public void testRegularCircular() throws Exception {
         Locale oldLocale = Locale.getDefault();
         
@@ -20,12 +20,19 @@ package org.apache.ivy.ant;
 import java.io.BufferedReader;
 import java.io.File;
 import java.io.FileReader;
+import java.util.HashSet;
+import java.util.Set;
+
+import javax.xml.parsers.DocumentBuilderFactory;
 
 import junit.framework.TestCase;
 
 import org.apache.ivy.util.FileUtil;
 import org.apache.tools.ant.Project;
 import org.apache.tools.ant.taskdefs.Delete;
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+import org.w3c.dom.NodeList;
 
 public class IvyRepositoryReportTest extends TestCase {
     private File cache;
@@ -110,4 +117,80 @@ public class IvyRepositoryReportTest extends TestCase {
         assertTrue(g.indexOf("<module organisation=\"null\" name=\"b\"") != -1);
         assertTrue(g.indexOf("<module organisation=\"null\" name=\"c\"") != -1);
     }
+
+    public void testConcurrent() throws Exception {
+        report.setOrganisation("org1");
+        report.setOutputname("testserial");
+        report.setTodir(cache);
+        report.setGraph(true);
+        report.execute();
+
+        report.setOutputname("testconcurrent");
+        report.setThreadCount(4);
+        report.execute();
+
+        Set serialModules = getModules(new File(cache, "testserial.xml"));
+        Set concurrentModules = getModules(new File(cache, "testconcurrent.xml"));
+        assertTrue(concurrentModules.contains("org1#mod1.1"));
+        assertTrue(concurrentModules.contains("org1#mod1.6"));
+        assertEquals(serialModules, concurrentModules);
+
+        // the modules are called by the caller of the merged report, not by a caller per module
+        Set concurrentCallers = getCallers(new File(cache, "testconcurrent.xml"));
+        assertTrue(concurrentCallers.contains("caller#all-caller -> org1#mod1.1"));
+        assertEquals(getCallers(new File(cache, "testserial.xml")), concurrentCallers);
+
+        Set concurrentEdges = getEdges(new File(cache, "testconcurrent.graphml"));
+        assertTrue(concurrentEdges.contains("org1-mod1.1 -> org1-mod1.2"));
+        assertEquals(getEdges(new File(cache, "testserial.graphml")), concurrentEdges);
+    }
+
+    private Set getCallers(File reportFile) throws Exception {
+        Document doc = DocumentBuilderFactory.newInstance().newDocumentBuilder().parse(
+            reportFile);
+        NodeList callers = doc.getElementsByTagName("caller");
+        Set result = new HashSet();
+        for (int i = 0; i < callers.getLength(); i++) {
+            Element caller = (Element) callers.item(i);
+            Element module = (Element) caller.getParentNode().getParentNode();
+            result.add(caller.getAttribute("organisation") + "#" + caller.getAttribute("name")
+                + " -> " + module.getAttribute("organisation") + "#"
+                + module.getAttribute("name"));
+        }
+        return result;
+    }
+
+    private Set getEdges(File graphFile) throws Exception {
+        Document doc = DocumentBuilderFactory.newInstance().newDocumentBuilder().parse(
+            graphFile);
+        Set nodes = new HashSet();
+        NodeList nodeElements = doc.getElementsByTagName("node");
+        for (int i = 0; i < nodeElements.getLength(); i++) {
+            nodes.add(((Element) nodeElements.item(i)).getAttribute("id"));
+        }
+        NodeList edges = doc.getElementsByTagName("edge");
+        Set result = new HashSet();
+        for (int i = 0; i < edges.getLength(); i++) {
+            Element edge = (Element) edges.item(i);
+            // each edge must link nodes of the graph
+            assertTrue(edge.getAttribute("source"), nodes.contains(edge.getAttribute("source")));
+            assertTrue(edge.getAttribute("target"), nodes.contains(edge.getAttribute("target")));
+            result.add(edge.getAttribute("source") + " -> " + edge.getAttribute("target"));
+        }
+        return result;
+    }
+
+    private Set getModules(File reportFile) throws Exception {
+        Document doc = DocumentBuilderFactory.newInstance().newDocumentBuilder().parse(
+            reportFile);
+        NodeList modules = doc.getElementsByTagName("module");
+        Set result = new HashSet();
+        for (int i = 0; i < modules.getLength(); i++) {
+            Element module = (Element) modules.item(i);
+            String mid = module.getAttribute("organisation") + "#" + module.getAttribute("name");
+            // each module must be reported once
+            assertTrue(mid, result.add(mid));
+        }
+        return result;
+    }
 }
@@ -0,0 +1,85 @@
+/*
+ *  Licensed to the Apache Software Foundation (ASF) under one or more
+ *  contributor license agreements.  See the NOTICE file distributed with
+ *  this work for additional information regarding copyright ownership.
+ *  The ASF licenses this file to You under the Apache License, Version 2.0
+ *  (the "License"); you may not use this file except in compliance with
+ *  the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ */
+package org.apache.ivy.ant;
+
+import java.io.File;
+
+import junit.framework.TestCase;
+
+import org.apache.ivy.util.FileUtil;
+import org.apache.tools.ant.BuildException;
+import org.apache.tools.ant.Project;
+import org.apache.tools.ant.types.FileSet;
+
+public class IvyWarmUpTest extends TestCase {
+    private File cache;
+
+    private IvyWarmUp warmUp;
+
+    protected void setUp() throws Exception {
+        cache = new File("build/cache");
+        cache.mkdirs();
+        System.setProperty("ivy.cache.dir", cache.getAbsolutePath());
+
+        Project project = AntTestHelper.newProject();
+        project.setProperty("ivy.settings.file", "test/repositories/ivysettings.xml");
+
+        warmUp = new IvyWarmUp();
+        warmUp.setProject(project);
+    }
+
+    protected void tearDown() throws Exception {
+        FileUtil.forceDelete(cache);
+    }
+
+    public void testWarmUp() throws Exception {
+        FileSet fs = new FileSet();
+        fs.setDir(new File("test/repositories/1/org2/mod2.3/ivys"));
+        fs.setIncludes("ivy-0.4.xml");
+        warmUp.addFileset(fs);
+        IvyWarmUp.Module module = warmUp.createModule();
+        module.setOrg("org1");
+        module.setName("mod1.2");
+        module.setRev("2.0");
+        warmUp.setThreadCount(2);
+
+        warmUp.execute();
+
+        assertTrue(new File(cache, "org1/mod1.2/ivy-2.0.xml").exists());
+        assertTrue(new File(cache, "org1/mod1.2/jars/mod1.2-2.0.jar").exists());
+        assertTrue(new File(cache, "org2/mod2.1/ivy-0.3.xml").exists());
+        assertTrue(new File(cache, "org1/mod1.1/jars/mod1.1-1.0.jar").exists());
+    }
+
+    public void testMissingModule() throws Exception {
+        IvyWarmUp.Module module = warmUp.createModule();
+        module.setOrg("org1");
+        module.setName("unknown");
+        module.setRev("1.0");
+
+        try {
+            warmUp.execute();
+            fail("the warm up of a missing module should fail");
+        } catch (BuildException e) {
+            // ok
+        }
+
+        warmUp.setHaltonfailure(false);
+        warmUp.execute();
+    }
+}
@@ -24,6 +24,7 @@ import java.util.Random;
 
 import org.apache.ivy.Ivy;
 import org.apache.ivy.core.cache.DefaultResolutionCacheManager;
+import org.apache.ivy.core.module.descriptor.Configuration;
 import org.apache.ivy.core.module.descriptor.DefaultDependencyDescriptor;
 import org.apache.ivy.core.module.descriptor.DefaultModuleDescriptor;
 import org.apache.ivy.core.module.id.ModuleRevisionId;
@@ -47,13 +48,13 @@ public class TestPerformance {
     private File cache;
 
     public TestPerformance() throws Exception {
-        ivy = new Ivy();
+        ivy = Ivy.newInstance();
         FileSystemResolver resolver = new FileSystemResolver();
         resolver.setName("def");
         resolver.setSettings(ivy.getSettings());
 
-        resolver.addIvyPattern(PATTERN);
-        resolver.addArtifactPattern(PATTERN);
+        resolver.addIvyPattern(new File(PATTERN).getAbsolutePath());
+        resolver.addArtifactPattern(new File(PATTERN).getAbsolutePath());
 
         ivy.getSettings().addResolver(resolver);
         ivy.getSettings().setDefaultResolver("def");
@@ -88,11 +89,16 @@ public class TestPerformance {
 
     private void generateModules(int nbModules, int minDependencies, int maxDependencies,
             int minVersions, int maxVersions) throws IOException {
+        generateModules(nbModules, minDependencies, maxDependencies, minVersions, maxVersions, 0);
+    }
+
+    private void generateModules(int nbModules, int minDependencies, int maxDependencies,
+            int minVersions, int maxVersions, int nbConfs) throws IOException {
         int nb = 0;
         int curDep = 1;
         int varDeps = maxDependencies - minDependencies;
         int varVersions = maxVersions - minVersions;
-        Random r = new Random(System.currentTimeMillis());
+        Random r = new Random(nbModules); // same graph at each run, to compare runs
 
         while (nb < nbModules) {
             int deps = minDependencies + r.nextInt(varDeps + 1);
@@ -102,6 +108,10 @@ public class TestPerformance {
             for (int ver = 0; ver < versions; ver++) {
                 DefaultModuleDescriptor md = new DefaultModuleDescriptor(ModuleRevisionId
                         .newInstance("apache", "mod" + nb, "1." + ver), "integration", new Date());
+                md.addConfiguration(new Configuration("default"));
+                for (int c = 0; c < nbConfs; c++) {
+                    md.addConfiguration(new Configuration("conf" + c));
+                }
 
                 curDep = prevCurDep;
                 for (int i = 0; i < deps && curDep < nbModules; i++) {
@@ -121,6 +131,9 @@ public class TestPerformance {
                             ModuleRevisionId.newInstance("apache", "mod" + d, "latest.integration"),
                             false, false, true);
                     dd.addDependencyConfiguration("default", "default");
+                    for (int c = 0; c < nbConfs; c++) {
+                        dd.addDependencyConfiguration("conf" + c, "conf" + c);
+                    }
                     md.addDependency(dd);
                 }
                 XmlModuleDescriptorWriter.write(md, new File("build/test/perf/mod" + nb + "/ivy-1."
@@ -147,6 +160,30 @@ public class TestPerformance {
         cleanRepo();
     }
 
+    public void testHeapUsage() throws Exception {
+        generateModules(500, 2, 5, 1, 3, 20);
+
+        ResolveReport report = ivy.resolve(new File("build/test/perf/mod0/ivy-1.0.xml").toURL(),
+            getResolveOptions(new String[] {"*"}).setRevision("1.0"));
+        long used = getUsedMemory();
+        System.out.println("resolve " + report.getConfigurationReport("default").getNodesNumber()
+                + " modules in " + report.getConfigurations().length + " configurations uses "
+                + (used / 1024) + " KB of heap");
+        report = null;
+        System.out.println("heap released after resolve: "
+                + ((used - getUsedMemory()) / 1024) + " KB");
+
+        cleanRepo();
+    }
+
+    private static long getUsedMemory() {
+        Runtime runtime = Runtime.getRuntime();
+        for (int i = 0; i < 5; i++) {
+            System.gc();
+        }
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+
     private ResolveOptions getResolveOptions(String[] confs) {
         return new ResolveOptions().setConfs(confs);
     }
@@ -156,5 +193,8 @@ public class TestPerformance {
         t.setUp();
         t.testPerfs();
         t.tearDown();
+        t.setUp();
+        t.testHeapUsage();
+        t.tearDown();
     }
 }
@@ -17,17 +17,33 @@
  */
 package org.apache.ivy.core.cache;
 
+import java.io.ByteArrayInputStream;
 import java.io.File;
+import java.util.Collections;
 import java.util.Date;
+import java.util.HashMap;
+import java.util.Map;
 
 import junit.framework.TestCase;
 
 import org.apache.ivy.Ivy;
 import org.apache.ivy.core.module.descriptor.Artifact;
 import org.apache.ivy.core.module.descriptor.DefaultArtifact;
+import org.apache.ivy.core.module.descriptor.DefaultDependencyDescriptor;
+import org.apache.ivy.core.module.descriptor.DefaultModuleDescriptor;
 import org.apache.ivy.core.module.id.ModuleId;
 import org.apache.ivy.core.module.id.ModuleRevisionId;
+import org.apache.ivy.core.report.ArtifactDownloadReport;
+import org.apache.ivy.core.report.DownloadStatus;
+import org.apache.ivy.core.report.ResolveReport;
+import org.apache.ivy.core.resolve.ResolveOptions;
+import org.apache.ivy.core.resolve.ResolvedModuleRevision;
 import org.apache.ivy.core.settings.IvySettings;
+import org.apache.ivy.plugins.parser.xml.XmlModuleDescriptorWriter;
+import org.apache.ivy.plugins.repository.ArtifactResourceResolver;
+import org.apache.ivy.plugins.resolver.FileSystemResolver;
+import org.apache.ivy.plugins.resolver.util.ResolvedResource;
+import org.apache.ivy.util.FileUtil;
 import org.apache.tools.ant.Project;
 import org.apache.tools.ant.taskdefs.Delete;
 
@@ -100,6 +116,173 @@ public class DefaultRepositoryCacheManagerTest extends TestCase {
         assertTrue(ArtifactOrigin.isUnknown(found));
     }
 
+    public void testBaseLayer() throws Exception {
+        File base = File.createTempFile("ivycache", ".base");
+        base.delete();
+        try {
+            DefaultRepositoryCacheManager baseManager = new DefaultRepositoryCacheManager(
+                "base", cacheManager.getSettings(), base);
+
+            ModuleRevisionId mrid = ModuleRevisionId.newInstance("org", "layered", "1.0");
+            DefaultModuleDescriptor md = DefaultModuleDescriptor.newDefaultInstance(mrid);
+            XmlModuleDescriptorWriter.write(md, baseManager.getIvyFileInCache(mrid));
+            baseManager.saveResolvers(md, "public", "public");
+
+            Artifact jar = createArtifact("org", "layered", "1.0", "layered", "jar", "jar");
+            ArtifactOrigin jarOrigin = new ArtifactOrigin(jar, false, "http://some/where");
+            baseManager.saveArtifactOrigin(jar, jarOrigin);
+            File baseJar = baseManager.getArchiveFileInCache(jar, jarOrigin);
+            FileUtil.copy(new ByteArrayInputStream("jar".getBytes()), baseJar, null);
+            long baseSize = FileUtil.listAll(base, Collections.EMPTY_LIST).size();
+
+            Map attributes = new HashMap();
+            attributes.put("dir", base.getAbsolutePath());
+            cacheManager.addConfiguredLayer(attributes);
+
+            ResolvedModuleRevision rmr = cacheManager.findModuleInCache(
+                new DefaultDependencyDescriptor(mrid, false), mrid, 
+                new CacheMetadataOptions(), null);
+            assertNotNull(rmr);
+            assertEquals(mrid, rmr.getId());
+            assertEquals("public", rmr.getResolver().getName());
+            assertEquals(baseManager.getIvyFileInCache(mrid), rmr.getReport().getLocalFile());
+
+            assertEquals(jarOrigin, cacheManager.getSavedArtifactOrigin(jar));
+            assertEquals(baseJar, cacheManager.getArchiveFileInCache(jar, jarOrigin));
+
+            // the base layer is read only: data saved and locks go in the local cache
+            ArtifactOrigin localOrigin = new ArtifactOrigin(jar, false, "http://else/where");
+            cacheManager.saveArtifactOrigin(jar, localOrigin);
+            assertEquals(localOrigin, cacheManager.getSavedArtifactOrigin(jar));
+            assertEquals(jarOrigin, baseManager.getSavedArtifactOrigin(jar));
+            assertEquals(baseSize, FileUtil.listAll(base, Collections.EMPTY_LIST).size());
+
+            // what is in the local cache wins over the base layer
+            File localJar = new File(cacheManager.getRepositoryCacheRoot(), 
+                cacheManager.getArchivePathInCache(jar, localOrigin));
+            FileUtil.copy(new ByteArrayInputStream("jar".getBytes()), localJar, null);
+            assertEquals(localJar, cacheManager.getArchiveFileInCache(jar, localOrigin));
+        } finally {
+            FileUtil.forceDelete(base);
+        }
+    }
+
+    public void testBaseLayerWithUseOrigin() throws Exception {
+        File base = File.createTempFile("ivycache", ".base");
+        base.delete();
+        try {
+            DefaultRepositoryCacheManager baseManager = new DefaultRepositoryCacheManager(
+                "base", cacheManager.getSettings(), base);
+            Artifact jar = createArtifact("org", "layered", "1.0", "layered", "jar", "jar");
+            ArtifactOrigin jarOrigin = new ArtifactOrigin(jar, false, "http://some/where");
+            baseManager.saveArtifactOrigin(jar, jarOrigin);
+            File baseJar = baseManager.getArchiveFileInCache(jar, jarOrigin);
+            FileUtil.copy(new ByteArrayInputStream("jar".getBytes()), baseJar, null);
+
+            Map attributes = new HashMap();
+            attributes.put("dir", base.getAbsolutePath());
+            cacheManager.addConfiguredLayer(attributes);
+            cacheManager.setUseOrigin(true);
+
+            // the artifact of the base layer is used, it isn't downloaded again
+            ArtifactDownloadReport adr = cacheManager.download(jar,
+                new ArtifactResourceResolver() {
+                    public ResolvedResource resolve(Artifact artifact) {
+                        throw new IllegalStateException("artifact looked up: " + artifact);
+                    }
+                }, null, new CacheDownloadOptions());
+            assertEquals(DownloadStatus.NO, adr.getDownloadStatus());
+            assertEquals(baseJar, adr.getLocalFile());
+        } finally {
+            FileUtil.forceDelete(base);
+        }
+    }
+
+    public void testBaseLayerWithChangingModule() throws Exception {
+        File root = File.createTempFile("ivycache", ".layers");
+        root.delete();
+        try {
+            File repo = new File(root, "repo");
+            File base = new File(root, "base");
+            File local = new File(root, "local");
+            ModuleRevisionId mrid = ModuleRevisionId.newInstance("org", "changing", "1.0");
+            long now = System.currentTimeMillis();
+
+            publish(repo, mrid, now - 100000, "v1");
+            ResolveReport report = newIvy(repo, base, null).resolve(mrid,
+                new ResolveOptions().setConfs(new String[] {"default"}), true);
+            assertFalse(report.hasError());
+            File baseJar = getJar(report);
+            assertEquals("v1", FileUtil.readEntirely(baseJar));
+
+            // served from the base layer as long as the module has not changed
+            Ivy ivy = newIvy(repo, local, base);
+            report = ivy.resolve(mrid, new ResolveOptions().setConfs(new String[] {"default"}),
+                true);
+            assertFalse(report.hasError());
+            assertEquals(baseJar, getJar(report));
+
+            // once it has changed, the base layer isn't used anymore for it
+            publish(repo, mrid, now + 100000, "v2");
+            for (int i = 0; i < 2; i++) {
+                ivy = newIvy(repo, local, base);
+                report = ivy.resolve(mrid, 
+                    new ResolveOptions().setConfs(new String[] {"default"}), true);
+                assertFalse(report.hasError());
+                File jar = getJar(report);
+                assertTrue(jar.getAbsolutePath().startsWith(local.getAbsolutePath()));
+                assertEquals("v2", FileUtil.readEntirely(jar));
+            }
+            assertEquals("v1", FileUtil.readEntirely(baseJar));
+        } finally {
+            FileUtil.forceDelete(root);
+        }
+    }
+
+    private Ivy newIvy(File repo, File cache, File layer) throws Exception {
+        Ivy ivy = new Ivy();
+        ivy.configureDefault();
+        IvySettings settings = ivy.getSettings();
+        settings.setDefaultCache(cache);
+        DefaultRepositoryCacheManager manager = new DefaultRepositoryCacheManager(
+            "layered", settings, cache);
+        if (layer != null) {
+            manager.addBaseLayer(layer);
+        }
+        settings.addRepositoryCacheManager(manager);
+        settings.setDefaultRepositoryCacheManager(manager);
+
+        FileSystemResolver resolver = new FileSystemResolver();
+        resolver.setName("repo");
+        String pattern = repo.getAbsolutePath() 
+                + "/[organisation]/[module]/[revision]/[artifact].[ext]";
+        resolver.addIvyPattern(pattern);
+        resolver.addArtifactPattern(pattern);
+        settings.addResolver(resolver);
+        settings.setDefaultResolver("repo");
+        return ivy;
+    }
+
+    private void publish(File repo, ModuleRevisionId mrid, long date, String content)
+            throws Exception {
+        DefaultModuleDescriptor md = DefaultModuleDescriptor.newDefaultInstance(mrid);
+        md.setResolvedPublicationDate(new Date(date));
+        File dir = new File(repo, mrid.getOrganisation() + "/" + mrid.getName() + "/"
+                + mrid.getRevision());
+        File ivyFile = new File(dir, "ivy.xml");
+        XmlModuleDescriptorWriter.write(md, ivyFile);
+        ivyFile.setLastModified(date);
+        File jar = new File(dir, mrid.getName() + ".jar");
+        FileUtil.copy(new ByteArrayInputStream(content.getBytes()), jar, null);
+        jar.setLastModified(date);
+    }
+
+    private File getJar(ResolveReport report) {
+        ArtifactDownloadReport[] adrs = report.getAllArtifactsReports();
+        assertEquals(1, adrs.length);
+        return adrs[0].getLocalFile();
+    }
+
     protected Artifact createArtifact(String org, String module, String rev, String name,
             String type, String ext) {
         ModuleId mid = new ModuleId(org, module);
@@ -17,6 +17,7 @@
  */
 package org.apache.ivy.core.install;
 
+import java.io.ByteArrayInputStream;
 import java.io.File;
 
 import junit.framework.TestCase;
@@ -24,6 +25,7 @@ import junit.framework.TestCase;
 import org.apache.ivy.Ivy;
 import org.apache.ivy.core.module.id.ModuleRevisionId;
 import org.apache.ivy.plugins.matcher.PatternMatcher;
+import org.apache.ivy.util.FileUtil;
 import org.apache.tools.ant.Project;
 import org.apache.tools.ant.taskdefs.Delete;
 
@@ -161,6 +163,78 @@ public class InstallTest extends TestCase {
         assertTrue(new File("build/test/install/org1/mod1.4/ivy-1.0.1.xml").exists());
     }
 
+    public void testConcurrentInstall() throws Exception {
+        Ivy ivy = Ivy.newInstance();
+        ivy.configure(new File("test/repositories/ivysettings.xml"));
+
+        ivy.install(ModuleRevisionId.newInstance("org1", ".*", ".*"), "1", "install", 
+            new InstallOptions().setMatcherName(PatternMatcher.REGEXP).setOverwrite(true)
+                .setThreadCount(4));
+
+        assertTrue(new File("build/test/install/org1/mod1.1/ivy-1.0.xml").exists());
+        assertTrue(new File("build/test/install/org1/mod1.1/mod1.1-1.0.jar").exists());
+
+        assertTrue(new File("build/test/install/org1/mod1.1/ivy-1.1.xml").exists());
+        assertTrue(new File("build/test/install/org1/mod1.1/mod1.1-1.1.jar").exists());
+
+        assertTrue(new File("build/test/install/org1/mod1.2/ivy-2.0.xml").exists());
+        assertTrue(new File("build/test/install/org1/mod1.2/mod1.2-2.0.jar").exists());
+
+        assertTrue(new File("build/test/install/org1/mod1.3/ivy-B-3.0.xml").exists());
+        assertTrue(new File("build/test/install/org1/mod1.3/ivy-A-3.0.xml").exists());
+        assertTrue(new File("build/test/install/org1/mod1.3/mod1.3-A-3.0.jar").exists());
+        assertTrue(new File("build/test/install/org1/mod1.3/mod1.3-B-3.0.jar").exists());
+
+        assertTrue(new File("build/test/install/org1/mod1.4/ivy-1.0.1.xml").exists());
+    }
+
+    public void testSkipIdentical() throws Exception {
+        Ivy ivy = Ivy.newInstance();
+        ivy.configure(new File("test/repositories/ivysettings.xml"));
+        ModuleRevisionId mrid = ModuleRevisionId.newInstance("org1", "mod1.1", "1.0");
+        String from = ivy.getSettings().getDefaultResolver().getName();
+
+        ivy.install(mrid, from, "install", new InstallOptions());
+
+        File jar11 = new File("build/test/install/org1/mod1.1/mod1.1-1.0.jar");
+        File jar12 = new File("build/test/install/org1/mod1.2/mod1.2-2.0.jar");
+        long lastModified = jar11.lastModified() - 60000;
+        jar11.setLastModified(lastModified);
+        FileUtil.copy(new ByteArrayInputStream("changed".getBytes()), jar12, null);
+
+        // mod1.1 is identical, mod1.2 isn't anymore
+        ivy.install(mrid, from, "install",
+            new InstallOptions().setSkipIdentical(true).setOverwrite(true));
+
+        assertEquals(lastModified, jar11.lastModified());
+        assertEquals(new File("test/repositories/1/org1/mod1.2/jars/mod1.2-2.0.jar").length(),
+            jar12.length());
+
+        // nothing needs to be installed anymore, even without overwrite
+        ivy.install(mrid, from, "install", new InstallOptions().setSkipIdentical(true));
+    }
+
+    public void testResumeInstall() throws Exception {
+        Ivy ivy = Ivy.newInstance();
+        ivy.configure(new File("test/repositories/ivysettings.xml"));
+        File progressFile = new File("build/test/install/progress.txt");
+        FileUtil.copy(new ByteArrayInputStream(ModuleRevisionId.newInstance(
+            "org1", "mod1.2", "2.0").encodeToString().getBytes("UTF-8")), progressFile, null);
+
+        ivy.install(ModuleRevisionId.newInstance("org1", "mod1.1", "1.0"), ivy.getSettings()
+                .getDefaultResolver().getName(), "install",
+                new InstallOptions().setProgressFile(progressFile));
+
+        assertTrue(new File("build/test/install/org1/mod1.1/ivy-1.0.xml").exists());
+        assertTrue(new File("build/test/install/org1/mod1.1/mod1.1-1.0.jar").exists());
+
+        // mod1.2 was already installed according to the progress file
+        assertFalse(new File("build/test/install/org1/mod1.2/ivy-2.0.xml").exists());
+        assertFalse(new File("build/test/install/org1/mod1.2/mod1.2-2.0.jar").exists());
+
+        assertFalse(progressFile.exists());
+    }
+
     private File _cache;
 
     protected void setUp() throws Exception {
@@ -0,0 +1,93 @@
+/*
+ *  Licensed to the Apache Software Foundation (ASF) under one or more
+ *  contributor license agreements.  See the NOTICE file distributed with
+ *  this work for additional information regarding copyright ownership.
+ *  The ASF licenses this file to You under the Apache License, Version 2.0
+ *  (the "License"); you may not use this file except in compliance with
+ *  the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ */
+package org.apache.ivy.core.module.descriptor;
+
+import java.util.Date;
+
+import junit.framework.TestCase;
+
+import org.apache.ivy.core.module.id.ArtifactId;
+import org.apache.ivy.core.module.id.ModuleId;
+import org.apache.ivy.core.module.id.ModuleRevisionId;
+import org.apache.ivy.plugins.matcher.ExactPatternMatcher;
+import org.apache.ivy.plugins.matcher.GlobPatternMatcher;
+import org.apache.ivy.plugins.matcher.PatternMatcher;
+
+public class DefaultModuleDescriptorTest extends TestCase {
+    private static final String[] DEFAULT = new String[] {"default"};
+
+    private DefaultModuleDescriptor md;
+
+    protected void setUp() throws Exception {
+        md = new DefaultModuleDescriptor(
+            ModuleRevisionId.newInstance("org", "mod", "1.0"), "integration", new Date());
+        md.addConfiguration(new Configuration("default"));
+        md.addConfiguration(new Configuration("test"));
+    }
+
+    public void testDoesExcludeExactAndPatternRules() {
+        md.addExcludeRule(rule("org1", "mod1", "*", ExactPatternMatcher.INSTANCE, "default"));
+        md.addExcludeRule(rule("org2", "mod*", "*", GlobPatternMatcher.INSTANCE, "default"));
+        md.addExcludeRule(rule("org3", "mod3", "art", ExactPatternMatcher.INSTANCE, "default"));
+        md.addExcludeRule(rule("org4", "mod4", "*", GlobPatternMatcher.INSTANCE, "test"));
+
+        assertTrue(md.doesExclude(DEFAULT, artifact("org1", "mod1", "*")));
+        assertFalse(md.doesExclude(DEFAULT, artifact("org1", "mod11", "*")));
+        assertTrue(md.doesExclude(DEFAULT, artifact("org2", "mod22", "art")));
+        assertFalse(md.doesExclude(DEFAULT, artifact("org22", "mod2", "art")));
+        assertTrue(md.doesExclude(DEFAULT, artifact("org3", "mod3", "art")));
+        assertFalse(md.doesExclude(DEFAULT, artifact("org3", "mod3", "other")));
+        assertFalse(md.doesExclude(DEFAULT, artifact("org4", "mod4", "art")));
+        assertTrue(md.doesExclude(new String[] {"default", "test"},
+            artifact("org4", "mod4", "art")));
+    }
+
+    public void testAddExcludeRuleAfterLookup() {
+        md.addExcludeRule(rule("org1", "mod1", "*", ExactPatternMatcher.INSTANCE, "default"));
+        assertFalse(md.doesExclude(DEFAULT, artifact("org2", "mod2", "art")));
+
+        md.addExcludeRule(rule("org2", "mod2", "*", ExactPatternMatcher.INSTANCE, "default"));
+        assertTrue(md.doesExclude(DEFAULT, artifact("org2", "mod2", "art")));
+    }
+
+    public void testDoesExcludeWithManyRules() {
+        for (int i = 0; i < 5000; i++) {
+            md.addExcludeRule(rule("org" + i, "mod" + i, "*",
+                ExactPatternMatcher.INSTANCE, "default"));
+        }
+        md.addExcludeRule(rule("other*", "*", "*", GlobPatternMatcher.INSTANCE, "default"));
+
+        for (int i = 0; i < 5000; i++) {
+            assertTrue(md.doesExclude(DEFAULT, artifact("org" + i, "mod" + i, "art")));
+            assertFalse(md.doesExclude(DEFAULT, artifact("org" + i, "mod" + (i + 1), "art")));
+        }
+        assertTrue(md.doesExclude(DEFAULT, artifact("otherorg", "mod", "art")));
+    }
+
+    private ArtifactId artifact(String org, String module, String name) {
+        return new ArtifactId(new ModuleId(org, module), name, "jar", "jar");
+    }
+
+    private ExcludeRule rule(String org, String module, String name, PatternMatcher matcher,
+            String conf) {
+        DefaultExcludeRule rule = new DefaultExcludeRule(
+            new ArtifactId(new ModuleId(org, module), name, "*", "*"), matcher, null);
+        rule.addConfiguration(conf);
+        return rule;
+    }
+}
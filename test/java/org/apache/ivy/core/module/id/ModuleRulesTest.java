@@ -24,6 +24,7 @@ import org.apache.ivy.core.IvyPatternHelper;
 import org.apache.ivy.plugins.matcher.ExactPatternMatcher;
 import org.apache.ivy.plugins.matcher.MapMatcher;
 import org.apache.ivy.plugins.matcher.PatternMatcher;
+import org.apache.ivy.plugins.matcher.RegexpPatternMatcher;
 import org.apache.ivy.util.filter.Filter;
 import org.apache.ivy.util.filter.NoFilter;
 
@@ -70,6 +71,54 @@ public class ModuleRulesTest extends TestCase {
         assertRule(null, "unknown#module4;1.5", acceptAll());
     }
 
+    public void testGetRuleMixingExactAndPatternRules() throws Exception {
+        // fixture
+        rules.defineRule(mapMatcher().organization("apache").module("module1").build(), rule[0]);
+        rules.defineRule(mapMatcher().regexp().organization("apa.*").build(), rule[1]);
+        rules.defineRule(mapMatcher().organization("apache").build(), rule[2]);
+        rules.defineRule(mapMatcher().regexp().module("module.*").build(), rule[3]);
+        
+        // test
+        assertRule(rule[0], "apache#module1;1.5");
+        assertRule(rule[1], "apache#module2;1.5");
+        assertRule(rule[3], "other#module2;1.5");
+        assertRule(null, "other#mod;1.5");
+        assertEquals(4, rules.getRules(ModuleId.parse("apache#module1")).length);
+        assertEquals(rule[2], rules.getRules(ModuleId.parse("apache#module3"))[1]);
+        assertEquals(rule[1], rules.getRule(ModuleId.parse("apache#module1"), acceptSecond()));
+    }
+
+    public void testDefineRuleAfterLookup() throws Exception {
+        rules.defineRule(mapMatcher().regexp().organization("apache").build(), rule[0]);
+        assertRule(null, "other#module1;1.5");
+        assertRule(rule[0], "apache#module1;1.5");
+
+        rules.defineRule(mapMatcher().organization("other").build(), rule[1]);
+        assertRule(rule[1], "other#module1;1.5");
+        assertRule(rule[0], "apache#module1;1.5");
+    }
+
+    public void testDefineRuleDuringLookup() throws Exception {
+        // the rule is defined while other#module1 is looked up, as another thread could do
+        Map attributes = new HashMap();
+        attributes.put(IvyPatternHelper.ORGANISATION_KEY, "other");
+        rules.defineRule(new MapMatcher(attributes, ExactPatternMatcher.INSTANCE) {
+            private boolean defined;
+
+            public boolean matches(Map m) {
+                if (!defined) {
+                    defined = true;
+                    rules.defineRule(mapMatcher().organization("other").build(), rule[1]);
+                }
+                return false;
+            }
+        }, rule[0]);
+        assertRule(null, "other#module1;1.5");
+
+        // the result of the lookup started before the rule was defined isn't kept
+        assertRule(rule[1], "other#module1;1.5");
+    }
+
     
     // test helpers
     
@@ -137,6 +186,11 @@ public class ModuleRulesTest extends TestCase {
             return this;
         }
 
+        public MridMatcherBuilder regexp() {
+            matcher = RegexpPatternMatcher.INSTANCE;
+            return this;
+        }
+
         public MridMatcherBuilder module(String mod) {
             attributes.put(IvyPatternHelper.MODULE_KEY, mod);
             return this;
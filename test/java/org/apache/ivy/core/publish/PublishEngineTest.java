@@ -20,7 +20,9 @@ package org.apache.ivy.core.publish;
 import java.io.File;
 import java.io.IOException;
 import java.text.ParseException;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.List;
 
 import junit.framework.TestCase;
 
@@ -28,6 +30,7 @@ import org.apache.ivy.core.event.EventManager;
 import org.apache.ivy.core.module.descriptor.Artifact;
 import org.apache.ivy.core.module.descriptor.DefaultDependencyDescriptor;
 import org.apache.ivy.core.module.descriptor.DefaultModuleDescriptor;
+import org.apache.ivy.core.module.descriptor.MDArtifact;
 import org.apache.ivy.core.module.id.ModuleRevisionId;
 import org.apache.ivy.core.resolve.ResolveData;
 import org.apache.ivy.core.resolve.ResolveEngine;
@@ -37,6 +40,7 @@ import org.apache.ivy.core.settings.IvySettings;
 import org.apache.ivy.core.sort.SortEngine;
 import org.apache.ivy.plugins.parser.xml.XmlModuleDescriptorWriter;
 import org.apache.ivy.plugins.resolver.FileSystemResolver;
+import org.apache.ivy.util.ChecksumHelper;
 import org.apache.ivy.util.FileUtil;
 
 public class PublishEngineTest extends TestCase {
@@ -111,6 +115,124 @@ public class PublishEngineTest extends TestCase {
         }
         resolveAndAssertFound(settings, resolver, "#A;1.0");
     }
+    public void testConcurrentPublish() throws Exception {
+        IvySettings settings = new IvySettings();
+        PublishEngine engine = new PublishEngine(settings, new EventManager());
+        final List published = new ArrayList();
+        final int[] running = new int[2];
+
+        DefaultModuleDescriptor md = DefaultModuleDescriptor
+            .newDefaultInstance(ModuleRevisionId.parse("#A;1.0"));
+        String[] names = new String[] {"B", "C", "D"};
+        for (int i = 0; i < names.length; i++) {
+            md.addArtifact("default", new MDArtifact(md, names[i], "jar", "jar"));
+        }
+        FileSystemResolver resolver = new FileSystemResolver() {
+            public void publish(Artifact artifact, File src, boolean overwrite) throws IOException {
+                synchronized (running) {
+                    running[0]++;
+                    running[1] = Math.max(running[0], running[1]);
+                }
+                sleepSilently(100);
+                super.publish(artifact, src, overwrite);
+                synchronized (running) {
+                    running[0]--;
+                    published.add(artifact.getName());
+                }
+            }
+        };
+        initResolver(settings, resolver);
+        resolver.setChecksums("sha1,md5");
+
+        File jar = new File("test/repositories/1/org1/mod1.1/jars/mod1.1-1.0.jar");
+        FileUtil.copy(jar, new File("build/test/publish/module/A.jar"), null);
+        for (int i = 0; i < names.length; i++) {
+            FileUtil.copy(jar, new File("build/test/publish/module/" + names[i] + ".jar"), null);
+        }
+        XmlModuleDescriptorWriter.write(md, new File("build/test/publish/module/ivy.xml"));
+
+        engine.publish(md, 
+            Arrays.asList(new String[] {"build/test/publish/module/[artifact].[ext]"}), 
+            resolver, 
+            new PublishOptions().setSrcIvyPattern("build/test/publish/module/[artifact].[ext]")
+                .setThreadCount(4));
+
+        assertEquals(5, published.size());
+        assertTrue(running[1] > 1);
+        // the ivy file is published once all the other artifacts are
+        assertEquals("ivy", published.get(4));
+        resolveAndAssertFound(settings, resolver, "#A;1.0");
+
+        File repoDir = new File("build/test/publish/repo/A/1.0");
+        String sha1 = ChecksumHelper.computeAsString(jar, "sha1");
+        String md5 = ChecksumHelper.computeAsString(jar, "md5");
+        for (int i = 0; i < names.length; i++) {
+            assertEquals(sha1, FileUtil.readEntirely(new File(repoDir, names[i] + ".jar.sha1")));
+            assertEquals(md5, FileUtil.readEntirely(new File(repoDir, names[i] + ".jar.md5")));
+        }
+    }
+
+    public void testConcurrentPublishFailure() throws Exception {
+        IvySettings settings = new IvySettings();
+        PublishEngine engine = new PublishEngine(settings, new EventManager());
+        final boolean[] returned = new boolean[1];
+        final boolean[] publishedAfterReturn = new boolean[1];
+
+        DefaultModuleDescriptor md = DefaultModuleDescriptor
+            .newDefaultInstance(ModuleRevisionId.parse("#A;1.0"));
+        String[] names = new String[] {"B", "C", "D"};
+        for (int i = 0; i < names.length; i++) {
+            md.addArtifact("default", new MDArtifact(md, names[i], "jar", "jar"));
+        }
+        FileSystemResolver resolver = new FileSystemResolver() {
+            public void publish(Artifact artifact, File src, boolean overwrite) throws IOException {
+                if ("B".equals(artifact.getName())) {
+                    throw new IOException("simulated failure");
+                }
+                sleepSilently(100);
+                super.publish(artifact, src, overwrite);
+                synchronized (returned) {
+                    publishedAfterReturn[0] |= returned[0];
+                }
+            }
+        };
+        initResolver(settings, resolver);
+
+        File jar = new File("test/repositories/1/org1/mod1.1/jars/mod1.1-1.0.jar");
+        FileUtil.copy(jar, new File("build/test/publish/module/A.jar"), null);
+        for (int i = 0; i < names.length; i++) {
+            FileUtil.copy(jar, new File("build/test/publish/module/" + names[i] + ".jar"), null);
+        }
+        XmlModuleDescriptorWriter.write(md, new File("build/test/publish/module/ivy.xml"));
+
+        try {
+            engine.publish(md, 
+                Arrays.asList(new String[] {"build/test/publish/module/[artifact].[ext]"}), 
+                resolver, 
+                new PublishOptions().setSrcIvyPattern("build/test/publish/module/[artifact].[ext]")
+                    .setThreadCount(4));
+            fail("publish should have failed");
+        } catch (IOException e) {
+            assertEquals("simulated failure", e.getMessage());
+        }
+        synchronized (returned) {
+            returned[0] = true;
+        }
+        sleepSilently(200);
+
+        assertFalse(publishedAfterReturn[0]);
+        resolveAndAssertNotFound(settings, resolver, "#A;1.0", "after failed publish");
+        assertFalse(new File("build/test/publish/repo/A/1.0").exists());
+    }
+
+    private void initResolver(IvySettings settings, FileSystemResolver resolver) {
+        resolver.setName("test");
+        resolver.setSettings(settings);
+        String publishRepoDir = new File("build/test/publish/repo").getAbsolutePath();
+        resolver.addIvyPattern(publishRepoDir + "/[module]/[revision]/[artifact].[ext]");
+        resolver.addArtifactPattern(publishRepoDir + "/[module]/[revision]/[artifact].[ext]");
+    }
+
     private void resolveAndAssertNotFound(
             IvySettings settings, FileSystemResolver resolver, String module, String context)
             throws ParseException {
@@ -0,0 +1,98 @@
+/*
+ *  Licensed to the Apache Software Foundation (ASF) under one or more
+ *  contributor license agreements.  See the NOTICE file distributed with
+ *  this work for additional information regarding copyright ownership.
+ *  The ASF licenses this file to You under the Apache License, Version 2.0
+ *  (the "License"); you may not use this file except in compliance with
+ *  the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ */
+package org.apache.ivy.core.resolve;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import junit.framework.TestCase;
+
+import org.apache.ivy.Ivy;
+import org.apache.ivy.core.module.descriptor.DefaultModuleDescriptor;
+import org.apache.ivy.core.module.id.ModuleRevisionId;
+
+public class ResolveDataTest extends TestCase {
+    private ResolveData data;
+
+    protected void setUp() throws Exception {
+        Ivy ivy = Ivy.newInstance();
+        data = new ResolveData(ivy.getResolveEngine(), new ResolveOptions());
+    }
+
+    public void testGetNodeIgnoringExtraAttributes() {
+        IvyNode node = register(ModuleRevisionId.newInstance("org", "mod", "1.0",
+            Collections.singletonMap("color", "blue")));
+
+        assertSame(node, data.getNode(ModuleRevisionId.newInstance("org", "mod", "1.0")));
+        assertNull(data.getNode(ModuleRevisionId.newInstance("org", "mod", "2.0")));
+        assertNull(data.getNode(ModuleRevisionId.newInstance("org", "mod", "1.0",
+            Collections.singletonMap("color", "red"))));
+    }
+
+    public void testGetNodeReturnsFirstRegisteredMatch() {
+        IvyNode blue = register(ModuleRevisionId.newInstance("org", "mod", "1.0",
+            Collections.singletonMap("color", "blue")));
+        register(ModuleRevisionId.newInstance("org", "mod", "1.0",
+            Collections.singletonMap("color", "red")));
+
+        assertSame(blue, data.getNode(ModuleRevisionId.newInstance("org", "mod", "1.0")));
+    }
+
+    public void testIndexSharedWithDerivedData() {
+        ResolveData derived = new ResolveData(data, false);
+        IvyNode node = register(ModuleRevisionId.newInstance("org", "mod", "1.0",
+            Collections.singletonMap("color", "blue")));
+
+        assertSame(node, derived.getNode(ModuleRevisionId.newInstance("org", "mod", "1.0")));
+    }
+
+    public void testGetNodeWithVisitDataSharedByCaller() {
+        Map visitData = new LinkedHashMap();
+        ResolveData other = new ResolveData(data.getEngine(), new ResolveOptions(), null,
+            visitData);
+        data = new ResolveData(data.getEngine(), new ResolveOptions(), null, visitData);
+        assertNull(other.getNode(ModuleRevisionId.newInstance("org", "mod", "1.0")));
+        IvyNode node = register(ModuleRevisionId.newInstance("org", "mod", "1.0",
+            Collections.singletonMap("color", "blue")));
+
+        assertSame(node, other.getNode(ModuleRevisionId.newInstance("org", "mod", "1.0")));
+    }
+
+    public void testGetNodeInLargeGraph() {
+        Map extra = Collections.singletonMap("color", "blue");
+        IvyNode[] nodes = new IvyNode[5000];
+        for (int i = 0; i < nodes.length; i++) {
+            nodes[i] = register(ModuleRevisionId.newInstance("org" + (i % 10), "mod" + i, "1.0",
+                extra));
+        }
+
+        for (int i = 0; i < nodes.length; i++) {
+            assertSame(nodes[i], data.getNode(
+                ModuleRevisionId.newInstance("org" + (i % 10), "mod" + i, "1.0")));
+            assertNull(data.getNode(
+                ModuleRevisionId.newInstance("org" + (i % 10), "mod" + i, "1.1")));
+        }
+    }
+
+    private IvyNode register(ModuleRevisionId mrid) {
+        IvyNode node = new IvyNode(data, DefaultModuleDescriptor.newDefaultInstance(mrid));
+        data.register(new VisitNode(data, node, null, "default", null));
+        return node;
+    }
+}
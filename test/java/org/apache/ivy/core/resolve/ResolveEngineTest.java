@@ -18,18 +18,45 @@
 package org.apache.ivy.core.resolve;
 
 import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.Date;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+import java.util.Stack;
 
 import junit.framework.TestCase;
 
 import org.apache.ivy.Ivy;
 import org.apache.ivy.core.cache.ArtifactOrigin;
+import org.apache.ivy.core.cache.DefaultRepositoryCacheManager;
+import org.apache.ivy.core.cache.ResolutionCacheManager;
+import org.apache.ivy.core.event.IvyEvent;
+import org.apache.ivy.core.event.IvyListener;
+import org.apache.ivy.core.event.download.NeedArtifactEvent;
 import org.apache.ivy.core.module.descriptor.Artifact;
 import org.apache.ivy.core.module.descriptor.DefaultArtifact;
+import org.apache.ivy.core.module.descriptor.DefaultDependencyDescriptor;
+import org.apache.ivy.core.module.descriptor.DependencyDescriptor;
+import org.apache.ivy.core.module.descriptor.ModuleDescriptor;
 import org.apache.ivy.core.module.id.ModuleRevisionId;
 import org.apache.ivy.core.report.ArtifactDownloadReport;
 import org.apache.ivy.core.report.DownloadStatus;
 import org.apache.ivy.core.report.ResolveReport;
+import org.apache.ivy.core.report.WarmUpReport;
+import org.apache.ivy.plugins.parser.xml.XmlModuleDescriptorParser;
+import org.apache.ivy.plugins.repository.Resource;
+import org.apache.ivy.plugins.repository.file.FileRepository;
+import org.apache.ivy.plugins.resolver.DependencyResolver;
+import org.apache.ivy.plugins.resolver.FileSystemResolver;
 import org.apache.ivy.util.CacheCleaner;
 
 public class ResolveEngineTest extends TestCase {
@@ -79,6 +106,392 @@ public class ResolveEngineTest extends TestCase {
             new File("test/repositories/1/org1/mod1.1/jars/mod1.1-1.0.jar"));
     }
 
+    public void testConcurrentResolves() throws Exception {
+        final ModuleRevisionId[] mrids = new ModuleRevisionId[] {
+            ModuleRevisionId.parse("org1#mod1.2;latest.integration"),
+            ModuleRevisionId.parse("org1#mod1.4;1.0.2"),
+            ModuleRevisionId.parse("org2#mod2.1;0.3"),
+            ModuleRevisionId.parse("org2#mod2.3;0.4"),
+            ModuleRevisionId.parse("org2#mod2.2;latest.integration"),
+        };
+        // resolve each module once to know what to expect
+        final Set[] expected = new Set[mrids.length];
+        for (int i = 0; i < mrids.length; i++) {
+            expected[i] = getResolvedIds(resolve(mrids[i], "serial-" + i));
+        }
+
+        final int nbThreads = 8;
+        final int nbResolves = 10;
+        final List failures = Collections.synchronizedList(new ArrayList());
+        Thread[] threads = new Thread[nbThreads];
+        for (int t = 0; t < nbThreads; t++) {
+            final int thread = t;
+            threads[t] = new Thread() {
+                public void run() {
+                    try {
+                        for (int j = 0; j < nbResolves; j++) {
+                            int i = (thread + j) % mrids.length;
+                            ResolveReport report = resolve(mrids[i], "concurrent-" + thread);
+                            assertFalse(mrids[i] + " resolved with errors", report.hasError());
+                            assertEquals(expected[i], getResolvedIds(report));
+                        }
+                    } catch (Throwable e) {
+                        failures.add(e);
+                    }
+                }
+            };
+            threads[t].start();
+        }
+        for (int t = 0; t < nbThreads; t++) {
+            threads[t].join();
+        }
+        if (!failures.isEmpty()) {
+            Throwable failure = (Throwable) failures.get(0);
+            failure.printStackTrace();
+            fail(failures.size() + " concurrent resolves failed: " + failure);
+        }
+    }
+
+    public void testBatchResolve() throws Exception {
+        List mds = new ArrayList();
+        mds.add(parse("test/repositories/1/org2/mod2.1/ivys/ivy-0.3.xml"));
+        mds.add(parse("test/repositories/1/org2/mod2.3/ivys/ivy-0.4.xml"));
+        mds.add(parse("test/repositories/1/org2/mod2.2/ivys/ivy-0.10.xml"));
+        mds.add(parse("test/repositories/1/org2/mod2.2/ivys/ivy-0.9.xml"));
+        ResolveOptions options = new ResolveOptions();
+        options.setConfs(new String[] {"*"});
+
+        final List needed = Collections.synchronizedList(new ArrayList());
+        ivy.getEventManager().addIvyListener(new IvyListener() {
+            public void progress(IvyEvent event) {
+                needed.add(((NeedArtifactEvent) event).getArtifact().getId());
+            }
+        }, NeedArtifactEvent.NAME);
+        ResolveReport[] reports = ivy.resolve(mds, options, 3);
+        
+        assertEquals(mds.size(), reports.length);
+        int nbArtifacts = 0;
+        for (int i = 0; i < reports.length; i++) {
+            ModuleDescriptor md = (ModuleDescriptor) mds.get(i);
+            assertFalse(reports[i].hasError());
+            assertEquals(md.getModuleRevisionId(), reports[i].getModuleDescriptor()
+                    .getModuleRevisionId());
+            assertEquals(ResolveOptions.getDefaultResolveId(md), reports[i].getResolveId());
+            nbArtifacts += reports[i].getAllArtifactsReports().length;
+        }
+        // artifacts shared by several modules have been downloaded only once
+        assertEquals(new HashSet(needed).size(), needed.size());
+        assertTrue(needed.size() < nbArtifacts);
+
+        // the reports are the same as the ones of standalone resolves
+        for (int i = 0; i < reports.length; i++) {
+            ResolveReport report = ivy.resolve((ModuleDescriptor) mds.get(i),
+                new ResolveOptions(options));
+            assertEquals(getResolvedIds(report), getResolvedIds(reports[i]));
+            assertEquals(report.getAllArtifactsReports().length,
+                reports[i].getAllArtifactsReports().length);
+        }
+    }
+
+    public void testBatchCacheSharesLookupsWithSameOptionsOnly() throws Exception {
+        final DependencyResolver resolver = ivy.getSettings().getDefaultResolver();
+        final int[] lookups = new int[1];
+        DependencyResolver counting = (DependencyResolver) Proxy.newProxyInstance(
+            getClass().getClassLoader(), new Class[] {DependencyResolver.class},
+            new InvocationHandler() {
+                public Object invoke(Object proxy, Method method, Object[] args)
+                        throws Throwable {
+                    if ("getDependency".equals(method.getName())) {
+                        lookups[0]++;
+                    }
+                    return method.invoke(resolver, args);
+                }
+            });
+        DependencyDescriptor dd = new DefaultDependencyDescriptor(
+            ModuleRevisionId.newInstance("org1", "mod1.2", "2.0"), false);
+        ResolveEngine engine = ivy.getResolveEngine();
+        BatchResolveCache batchCache = new BatchResolveCache();
+
+        ResolvedModuleRevision rmr = batchCache.getDependency(counting, dd,
+            new ResolveData(engine, new ResolveOptions()));
+        ResolvedModuleRevision shared = batchCache.getDependency(counting, dd,
+            new ResolveData(engine, new ResolveOptions()));
+        assertEquals(1, lookups[0]);
+        assertEquals(rmr.getId(), shared.getId());
+        // each resolve gets its own report
+        assertNotSame(rmr.getReport(), shared.getReport());
+        assertEquals(rmr.getReport().getDownloadStatus(), shared.getReport().getDownloadStatus());
+        assertEquals(rmr.getReport().isSearched(), shared.getReport().isSearched());
+
+        batchCache.getDependency(counting, dd,
+            new ResolveData(engine, new ResolveOptions().setRefresh(true)));
+        assertEquals(2, lookups[0]);
+        batchCache.getDependency(counting, dd,
+            new ResolveData(engine, new ResolveOptions().setUseCacheOnly(true)));
+        assertEquals(3, lookups[0]);
+        batchCache.getDependency(counting, dd,
+            new ResolveData(engine, new ResolveOptions().setValidate(false)));
+        assertEquals(4, lookups[0]);
+    }
+
+    public void testWarmUp() throws Exception {
+        List modules = new ArrayList();
+        modules.add(parse("test/repositories/1/org2/mod2.1/ivys/ivy-0.3.xml"));
+        modules.add(parse("test/repositories/1/org2/mod2.3/ivys/ivy-0.4.xml"));
+        modules.add(ModuleRevisionId.newInstance("org2", "mod2.2", "0.10"));
+        modules.add(ModuleRevisionId.newInstance("org2", "mod2.2", "0.9"));
+        ResolveOptions options = new ResolveOptions();
+        options.setConfs(new String[] {"*"});
+
+        final List needed = Collections.synchronizedList(new ArrayList());
+        ivy.getEventManager().addIvyListener(new IvyListener() {
+            public void progress(IvyEvent event) {
+                Artifact artifact = ((NeedArtifactEvent) event).getArtifact();
+                if (!artifact.isMetadata()) {
+                    needed.add(artifact.getId());
+                }
+            }
+        }, NeedArtifactEvent.NAME);
+        WarmUpReport report = ivy.warmUp(modules, options, 3);
+
+        assertFalse(report.hasError());
+        assertEquals(4, report.getModuleCount());
+        // each artifact of the union of the closures has been downloaded once
+        assertEquals(new HashSet(needed).size(), needed.size());
+        assertEquals(needed.size(), report.getArtifactCount());
+        assertTrue(report.getDownloadedFileCount() > report.getArtifactCount());
+        assertTrue(report.getDownloadSize() > 0);
+        // the callers of the modules given by id aren't left in the resolution cache
+        ResolutionCacheManager resolutionCache = ivy.getSettings().getResolutionCacheManager();
+        for (int i = 0; i < modules.size(); i++) {
+            ModuleRevisionId caller = ModuleRevisionId.newInstance("org2", "mod2.2-caller-" + i,
+                "working");
+            assertFalse(resolutionCache.getResolvedIvyFileInCache(caller).exists());
+            assertFalse(resolutionCache.getResolvedIvyPropertiesInCache(caller).exists());
+        }
+
+        // the closures are now in the cache
+        ResolveReport resolveReport = ivy.resolve(
+            ModuleRevisionId.newInstance("org2", "mod2.2", "0.9"),
+            new ResolveOptions(options).setUseCacheOnly(true), false);
+        assertFalse(resolveReport.hasError());
+        assertEquals(0, resolveReport.getArtifactsReports(DownloadStatus.SUCCESSFUL, true).length);
+
+        // nothing to download anymore
+        report = ivy.warmUp(modules, options, 3);
+        assertFalse(report.hasError());
+        assertEquals(0, report.getDownloadedFileCount());
+
+        // missing modules are reported
+        report = ivy.warmUp(Collections.singletonList(
+            ModuleRevisionId.newInstance("org1XX", "mod1.0XX", "1.0XX")), options, 1);
+        assertTrue(report.hasError());
+        assertEquals(1, report.getUnresolvedDependencies().length);
+    }
+
+    public void testIncrementalResolve() throws Exception {
+        File ivyFile = new File(cache, "incremental/ivy.xml");
+        ResolveOptions options = new ResolveOptions().setIncremental(true);
+
+        // no previous resolution: nothing can be reused
+        writeIvyFile(ivyFile, "0.4");
+        ResolveReport report = ivy.resolve(ivyFile.toURI().toURL(), options);
+        assertFalse(report.hasError());
+        assertEquals(0, report.getReusedNodeCount());
+        assertEquals(0, report.getRecomputedNodeCount());
+        Set previousIds = getResolvedIds(report);
+
+        // nothing has changed: everything is reused
+        report = ivy.resolve(ivyFile.toURI().toURL(), new ResolveOptions(options));
+        assertFalse(report.hasError());
+        assertEquals(previousIds, getResolvedIds(report));
+        assertEquals(4, report.getReusedNodeCount());
+        assertEquals(0, report.getRecomputedNodeCount());
+
+        // one dependency has changed: only its subgraph is recomputed
+        writeIvyFile(ivyFile, "0.5");
+        report = ivy.resolve(ivyFile.toURI().toURL(), new ResolveOptions(options));
+        assertFalse(report.hasError());
+        assertEquals(1, report.getReusedNodeCount());
+        assertEquals(3, report.getRecomputedNodeCount());
+
+        ResolveReport fullReport = ivy.resolve(ivyFile.toURI().toURL(),
+            new ResolveOptions().setResolveId("full"));
+        assertEquals(getResolvedIds(fullReport), getResolvedIds(report));
+    }
+
+    public void testIncrementalResolveWithCacheOnly() throws Exception {
+        File ivyFile = new File(cache, "incremental/ivy.xml");
+        writeIvyFile(ivyFile, "0.4");
+        ResolveReport report = ivy.resolve(ivyFile.toURI().toURL(), 
+            new ResolveOptions().setIncremental(true));
+        assertFalse(report.hasError());
+        ModuleRevisionId previous = getResolvedId(report, "mod1.2");
+        ModuleRevisionId other = ModuleRevisionId.newInstance("org1", "mod1.2", "2.0");
+        assertFalse(other.equals(previous));
+        assertFalse(resolve(other, "other").hasError());
+
+        // the revision selected by the previous resolve is not in the cache anymore, but
+        // the dynamic revision asked for is
+        DefaultRepositoryCacheManager cacheManager = (DefaultRepositoryCacheManager) ivy
+                .getSettings().getDefaultRepositoryCacheManager();
+        assertTrue(cacheManager.getIvyFileInCache(previous).delete());
+        cacheManager.saveResolvedRevision(
+            ModuleRevisionId.newInstance("org1", "mod1.2", "latest.integration"), "2.0");
+
+        report = ivy.resolve(ivyFile.toURI().toURL(), 
+            new ResolveOptions().setIncremental(true).setUseCacheOnly(true));
+        assertFalse(report.hasError());
+        assertEquals(other, getResolvedId(report, "mod1.2"));
+    }
+
+    public void testExclusionAnswersAreReusedWhileWalkingTheGraph() throws Exception {
+        // mod2.2 0.7 reaches mod2.1 through two configurations
+        ResolveOptions options = new ResolveOptions();
+        options.setConfs(new String[] {"*"});
+        IvyNode[] nodes = ivy.getResolveEngine().getDependencies(
+            new File("test/repositories/1/org2/mod2.2/ivys/ivy-0.7.xml").toURI().toURL(), options);
+        ExclusionMemo memo = nodes[0].getData().getExclusionMemo();
+        assertTrue(memo.getHitCount() > 0);
+
+        // the remembered answers are the ones computed from scratch
+        List answers = getExclusionAnswers(nodes);
+        memo.graphChanged();
+        assertEquals(answers, getExclusionAnswers(nodes));
+    }
+
+    private List getExclusionAnswers(IvyNode[] nodes) {
+        List answers = new ArrayList();
+        for (int i = 0; i < nodes.length; i++) {
+            String[] rootModuleConfs = nodes[i].getRootModuleConfigurations();
+            for (int j = 0; j < rootModuleConfs.length; j++) {
+                for (int k = 0; k < nodes.length; k++) {
+                    Artifact artifact = DefaultArtifact.newIvyArtifact(nodes[k].getId(), null);
+                    answers.add(nodes[i] + " " + rootModuleConfs[j] + " " + artifact + " "
+                        + nodes[i].doesCallersExclude(rootModuleConfs[j], artifact, new Stack()));
+                }
+            }
+        }
+        return answers;
+    }
+
+    public void testIncrementalResolveWithFailingPreviousRevision() throws Exception {
+        File ivyFile = new File(cache, "incremental/ivy.xml");
+        writeIvyFile(ivyFile, "0.4");
+        ResolveReport report = ivy.resolve(ivyFile.toURI().toURL(),
+            new ResolveOptions().setIncremental(true));
+        assertFalse(report.hasError());
+        final ModuleRevisionId previous = getResolvedId(report, "mod1.2");
+
+        // the lookup of the previous revision fails once, when it isn't in the cache anymore
+        DefaultRepositoryCacheManager cacheManager = (DefaultRepositoryCacheManager) ivy
+                .getSettings().getDefaultRepositoryCacheManager();
+        assertTrue(cacheManager.getIvyFileInCache(previous).delete());
+        final boolean[] failed = new boolean[1];
+        ((FileSystemResolver) ivy.getSettings().getResolver("1"))
+                .setRepository(new FileRepository() {
+                    public Resource getResource(String source) throws IOException {
+                        if (!failed[0] && source.endsWith("mod1.2" + File.separator + "ivys"
+                                + File.separator + "ivy-" + previous.getRevision() + ".xml")) {
+                            failed[0] = true;
+                            throw new IllegalStateException("broken repository");
+                        }
+                        return super.getResource(source);
+                    }
+                });
+
+        report = ivy.resolve(ivyFile.toURI().toURL(),
+            new ResolveOptions().setIncremental(true));
+        assertTrue(failed[0]);
+        assertFalse(report.hasError());
+        assertEquals(previous, getResolvedId(report, "mod1.2"));
+    }
+
+    private ModuleRevisionId getResolvedId(ResolveReport report, String name) {
+        for (Iterator iter = report.getDependencies().iterator(); iter.hasNext();) {
+            IvyNode node = (IvyNode) iter.next();
+            if (name.equals(node.getModuleId().getName()) && !node.isCompletelyEvicted()) {
+                return node.getResolvedId();
+            }
+        }
+        return null;
+    }
+
+    public void testConflictLookupsMatchResolvedAndEvictedRevisions() throws Exception {
+        // mod10.1 1.3 has contradictory conflicts on mod1.2 among its transitive dependencies
+        ResolveOptions options = new ResolveOptions();
+        options.setConfs(new String[] {"*"});
+        ResolveReport report = ivy.resolve(
+            new File("test/repositories/2/mod10.1/ivy-1.3.xml").toURI().toURL(), options);
+        assertFalse(report.hasError());
+
+        List nodes = report.getDependencies();
+        String[] confs = report.getConfigurations();
+        int nbEvicted = 0;
+        for (Iterator it = nodes.iterator(); it.hasNext();) {
+            IvyNode ancestor = (IvyNode) it.next();
+            for (Iterator it2 = nodes.iterator(); it2.hasNext();) {
+                IvyNode node = (IvyNode) it2.next();
+                for (int i = 0; i < confs.length; i++) {
+                    ModuleRevisionId[] mrids = new ModuleRevisionId[] {node.getId(),
+                            node.getResolvedId()};
+                    for (int j = 0; j < mrids.length; j++) {
+                        assertEquals(ancestor.getResolvedRevisions(node.getModuleId(), confs[i])
+                                .contains(mrids[j]), ancestor.isResolvedRevision(
+                            node.getModuleId(), confs[i], mrids[j]));
+                        boolean evicted = ancestor.getEvictedRevisions(node.getModuleId(),
+                            confs[i]).contains(mrids[j]);
+                        assertEquals(evicted, ancestor.isEvictedRevision(node.getModuleId(),
+                            confs[i], mrids[j]));
+                        nbEvicted += evicted ? 1 : 0;
+                    }
+                }
+            }
+        }
+        assertTrue(nbEvicted > 0);
+    }
+
+    private void writeIvyFile(File ivyFile, String mod23Revision) throws Exception {
+        ivyFile.getParentFile().mkdirs();
+        PrintWriter out = new PrintWriter(new FileWriter(ivyFile));
+        try {
+            out.println("<ivy-module version=\"1.0\">");
+            out.println("  <info organisation=\"org\" module=\"incremental\"/>");
+            out.println("  <dependencies>");
+            out.println("    <dependency org=\"org1\" name=\"mod1.2\""
+                    + " rev=\"latest.integration\"/>");
+            out.println("    <dependency org=\"org2\" name=\"mod2.3\" rev=\"" + mod23Revision
+                    + "\"/>");
+            out.println("  </dependencies>");
+            out.println("</ivy-module>");
+        } finally {
+            out.close();
+        }
+    }
+
+    private ModuleDescriptor parse(String path) throws Exception {
+        return XmlModuleDescriptorParser.getInstance().parseDescriptor(ivy.getSettings(),
+            new File(path).toURI().toURL(), true);
+    }
+
+    private ResolveReport resolve(ModuleRevisionId mrid, String resolveId) throws Exception {
+        ResolveOptions options = new ResolveOptions();
+        options.setConfs(new String[] {"*"});
+        options.setResolveId(resolveId);
+        return ivy.resolve(mrid, options, false);
+    }
+
+    private Set getResolvedIds(ResolveReport report) {
+        Set ids = new HashSet();
+        for (Iterator iter = report.getDependencies().iterator(); iter.hasNext();) {
+            IvyNode node = (IvyNode) iter.next();
+            if (!node.isCompletelyEvicted()) {
+                ids.add(node.getResolvedId());
+            }
+        }
+        return ids;
+    }
+
     private void testLocateThenDownload(ResolveEngine engine, Artifact artifact, File artifactFile) {
         ArtifactOrigin origin = engine.locate(artifact);
         assertNotNull(origin);
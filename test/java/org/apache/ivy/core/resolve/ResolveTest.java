@@ -59,6 +59,7 @@ import org.apache.ivy.plugins.circular.IgnoreCircularDependencyStrategy;
 import org.apache.ivy.plugins.circular.WarnCircularDependencyStrategy;
 import org.apache.ivy.plugins.conflict.StrictConflictException;
 import org.apache.ivy.plugins.matcher.ExactPatternMatcher;
+import org.apache.ivy.plugins.matcher.PatternMatcher;
 import org.apache.ivy.plugins.parser.xml.XmlModuleDescriptorParser;
 import org.apache.ivy.plugins.repository.AbstractRepository;
 import org.apache.ivy.plugins.repository.Resource;
@@ -5527,4 +5528,54 @@ public class ResolveTest extends TestCase {
         report = ivy.resolve(url, option);
         assertFalse(report.hasError());
     }
+
+    public void testUseCacheOnlyLooksUpCachesAsTheResolvers() throws Exception {
+        ResolveOptions option = getResolveOptions(new String[] {"*"}).setValidate(false);
+        URL url = new File("test/repositories/1/usecacheonly/mod1/ivys/ivy-1.0.xml").toURI()
+                .toURL();
+        ivy.getSettings().setDefaultResolver("1");
+
+        // normal resolve, the files go in the cache
+        ResolveReport report = ivy.resolve(url, option);
+        assertFalse(report.hasError());
+
+        option.setUseCacheOnly(true);
+        report = ivy.resolve(url, option);
+        assertFalse(report.hasError());
+
+        // the modules have been cached by another resolver
+        ivy.getSettings().setDefaultResolver("install");
+        report = ivy.resolve(url, option);
+        assertTrue(report.hasError());
+
+        // the modules are changing for the resolver which has cached them
+        FileSystemResolver resolver = (FileSystemResolver) ivy.getSettings().getResolver("1");
+        resolver.setChangingMatcher(PatternMatcher.REGEXP);
+        resolver.setChangingPattern(".*");
+        ivy.getSettings().setDefaultResolver("1");
+        report = ivy.resolve(url, option);
+        assertTrue(report.hasError());
+    }
+
+    public void testUseCacheOnlyReportsMissingEntries() throws Exception {
+        ResolveOptions option = getResolveOptions(new String[] {"*"});
+        option.setValidate(false);
+        option.setUseCacheOnly(true);
+
+        // nothing in the cache: the missing ivy file is reported
+        ResolveReport report = ivy.resolve(new File(
+            "test/repositories/1/usecacheonly/mod1/ivys/ivy-1.0.xml").toURI().toURL(), option);
+        assertTrue(report.hasError());
+        IvyNode node = report.getConfigurationReport("default").getUnresolvedDependencies()[0];
+        assertTrue(node.getProblemMessage(),
+            node.getProblemMessage().indexOf("no ivy file for usecacheonly#mod2;1.0") != -1);
+
+        // a dynamic revision which has never been resolved is reported as such
+        report = ivy.resolve(new File(
+            "test/repositories/1/usecacheonly/mod3/ivys/ivy-1.0.xml").toURI().toURL(), option);
+        assertTrue(report.hasError());
+        node = report.getConfigurationReport("default").getUnresolvedDependencies()[0];
+        assertTrue(node.getProblemMessage(), node.getProblemMessage().indexOf(
+            "no resolved revision saved for usecacheonly#mod2;[1.0,2.0)") != -1);
+    }
 }
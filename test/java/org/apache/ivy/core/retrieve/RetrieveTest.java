@@ -20,6 +20,8 @@ package org.apache.ivy.core.retrieve;
 import java.io.File;
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 
@@ -35,6 +37,7 @@ import org.apache.ivy.core.event.retrieve.StartRetrieveArtifactEvent;
 import org.apache.ivy.core.event.retrieve.StartRetrieveEvent;
 import org.apache.ivy.core.module.descriptor.ModuleDescriptor;
 import org.apache.ivy.core.module.id.ModuleRevisionId;
+import org.apache.ivy.core.report.ArtifactDownloadReport;
 import org.apache.ivy.core.report.ResolveReport;
 import org.apache.ivy.core.resolve.ResolveOptions;
 import org.apache.ivy.util.Message;
@@ -210,6 +213,147 @@ public class RetrieveTest extends TestCase {
             "jar", "default"));
     }
 
+    public void testRetrieveWithHardLinks() throws Exception {
+        // mod1.1 depends on mod1.2
+        ResolveReport report = ivy.resolve(new File(
+                "test/repositories/1/org1/mod1.1/ivys/ivy-1.0.xml").toURL(),
+            getResolveOptions(new String[] {"*"}));
+        ModuleDescriptor md = report.getModuleDescriptor();
+
+        String pattern = "build/test/retrieve/[module]/[conf]/[artifact]-[revision].[ext]";
+        RetrieveReport retrieveReport = ivy.retrieve(md.getModuleRevisionId(),
+            getRetrieveOptions().setDestArtifactPattern(pattern).setMakeHardLinks(true));
+        assertEquals(1, retrieveReport.getNbrArtifactsCopied());
+
+        File file = new File(IvyPatternHelper.substitute(pattern, "org1", "mod1.2", "2.0",
+            "mod1.2", "jar", "jar", "default"));
+        assertTrue(file.exists());
+        assertEquals(file.getAbsoluteFile(), file.getCanonicalFile());
+        assertEquals(new File("test/repositories/1/org1/mod1.2/jars/mod1.2-2.0.jar").length(),
+            file.length());
+    }
+
+    public void testRetrieveCopyOverHardLink() throws Exception {
+        // mod1.1 depends on mod1.2, whose artifact isn't empty in this revision
+        ResolveReport report = ivy.resolve(new File(
+                "test/repositories/1/org1/mod1.1/ivys/ivy-1.1.xml").toURL(),
+            getResolveOptions(new String[] {"*"}));
+        ModuleDescriptor md = report.getModuleDescriptor();
+        File cacheFile = report.getAllArtifactsReports()[0].getLocalFile();
+        long length = new File("test/repositories/1/org1/mod1.2/jars/mod1.2-2.1.jar").length();
+
+        String pattern = "build/test/retrieve/[module]/[conf]/[artifact]-[revision].[ext]";
+        ivy.retrieve(md.getModuleRevisionId(),
+            getRetrieveOptions().setDestArtifactPattern(pattern).setMakeHardLinks(true));
+
+        // copying over the hard link must not truncate the file in the cache
+        RetrieveReport retrieveReport = ivy.retrieve(md.getModuleRevisionId(),
+            getRetrieveOptions().setDestArtifactPattern(pattern).setOverwriteMode("always"));
+        assertEquals(1, retrieveReport.getNbrArtifactsCopied());
+
+        File file = new File(IvyPatternHelper.substitute(pattern, "org1", "mod1.2", "2.1",
+            "mod1.2", "jar", "jar", "default"));
+        assertTrue(length > 0);
+        assertEquals(length, file.length());
+        assertEquals(length, cacheFile.length());
+    }
+
+    public void testRetrieveWithManifest() throws Exception {
+        // mod1.1 depends on mod1.2
+        ResolveReport report = ivy.resolve(new File(
+                "test/repositories/1/org1/mod1.1/ivys/ivy-1.0.xml").toURL(),
+            getResolveOptions(new String[] {"*"}));
+        ModuleDescriptor md = report.getModuleDescriptor();
+
+        String pattern = "build/test/retrieve/[module]/[conf]/[artifact]-[revision].[ext]";
+        RetrieveOptions options = getRetrieveOptions().setDestArtifactPattern(pattern)
+                .setUseManifest(true);
+        RetrieveReport retrieveReport = ivy.retrieve(md.getModuleRevisionId(), options);
+        assertEquals(1, retrieveReport.getNbrArtifactsCopied());
+        assertTrue(new File("build/test/retrieve/" + RetrieveManifest.FILE_NAME).exists());
+
+        // the destination file isn't checked: it is up to date as long as its source is unchanged
+        File file = new File(IvyPatternHelper.substitute(pattern, "org1", "mod1.2", "2.0",
+            "mod1.2", "jar", "jar", "default"));
+        file.setLastModified(file.lastModified() - 60000);
+        retrieveReport = ivy.retrieve(md.getModuleRevisionId(), new RetrieveOptions(options));
+        assertEquals(0, retrieveReport.getNbrArtifactsCopied());
+        assertEquals(1, retrieveReport.getNbrArtifactsUpToDate());
+
+        // a change of the source is detected
+        File archive = ((ArtifactDownloadReport) retrieveReport.getDownloadReport().values()
+                .iterator().next()).getLocalFile();
+        archive.setLastModified(archive.lastModified() + 60000);
+        retrieveReport = ivy.retrieve(md.getModuleRevisionId(), new RetrieveOptions(options));
+        assertEquals(1, retrieveReport.getNbrArtifactsCopied());
+    }
+
+    public void testSyncWithManifest() throws Exception {
+        ResolveReport report = ivy.resolve(new File(
+                "test/repositories/1/org20/mod20.1/ivys/ivy-1.2.xml").toURL(),
+            getResolveOptions(new String[] {"*"}));
+        ModuleRevisionId mrid = report.getModuleDescriptor().getModuleRevisionId();
+
+        String pattern = "build/test/retrieve/[conf]/[artifact]-[revision].[ext]";
+        File stray = new File("build/test/retrieve/A/stray.jar");
+        stray.getParentFile().mkdirs();
+        stray.createNewFile();
+
+        // without synchronized manifest, the whole directory is scanned
+        RetrieveOptions options = getRetrieveOptions().setDestArtifactPattern(pattern)
+                .setUseManifest(true).setSync(true);
+        RetrieveReport retrieveReport = ivy.retrieve(mrid, new RetrieveOptions(options));
+        assertFalse(stray.exists());
+        Collection retrievedB = new ArrayList();
+        for (Iterator it = retrieveReport.getRetrievedFiles().iterator(); it.hasNext();) {
+            File file = (File) it.next();
+            if (file.getParentFile().getName().equals("B")) {
+                retrievedB.add(file);
+            }
+        }
+        assertFalse(retrievedB.isEmpty());
+
+        // with a synchronized manifest, only the files not retrieved anymore are deleted
+        stray.createNewFile();
+        ivy.retrieve(mrid, new RetrieveOptions(options).setConfs(new String[] {"A"}));
+        for (Iterator it = retrievedB.iterator(); it.hasNext();) {
+            assertFalse(((File) it.next()).exists());
+        }
+        assertFalse(new File("build/test/retrieve/B").exists());
+        assertTrue(stray.exists());
+
+        // a retrieve without manifest makes the directory scanned again
+        ivy.retrieve(mrid, new RetrieveOptions(options).setUseManifest(false).setSync(false));
+        assertFalse(new File("build/test/retrieve/" + RetrieveManifest.FILE_NAME).exists());
+        ivy.retrieve(mrid, new RetrieveOptions(options));
+        assertFalse(stray.exists());
+    }
+
+    public void testConcurrentRetrieve() throws Exception {
+        ResolveReport report = ivy.resolve(new File(
+                "test/repositories/1/org20/mod20.1/ivys/ivy-1.2.xml").toURL(),
+            getResolveOptions(new String[] {"*"}));
+        ModuleDescriptor md = report.getModuleDescriptor();
+
+        RetrieveReport serialReport = ivy.retrieve(md.getModuleRevisionId(),
+            getRetrieveOptions().setDestArtifactPattern(
+                "build/test/retrieve/serial/[module]/[conf]/[artifact]-[revision].[ext]"));
+        RetrieveReport concurrentReport = ivy.retrieve(md.getModuleRevisionId(),
+            getRetrieveOptions().setThreadCount(4).setDestArtifactPattern(
+                "build/test/retrieve/concurrent/[module]/[conf]/[artifact]-[revision].[ext]"));
+
+        assertTrue(serialReport.getNbrArtifactsCopied() > 1);
+        assertEquals(serialReport.getNbrArtifactsCopied(),
+            concurrentReport.getNbrArtifactsCopied());
+        for (Iterator it = serialReport.getCopiedFiles().iterator(); it.hasNext();) {
+            File serialFile = (File) it.next();
+            File concurrentFile = new File(serialFile.getPath().replaceFirst("serial",
+                "concurrent"));
+            assertTrue(concurrentReport.getCopiedFiles().contains(concurrentFile));
+            assertEquals(serialFile.length(), concurrentFile.length());
+        }
+    }
+
     private void assertLink(String filename) throws IOException {
         // if the OS is known to support symlink, check that the file is a symlink,
         // otherwise just check the file exist.
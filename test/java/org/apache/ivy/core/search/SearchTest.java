@@ -17,6 +17,7 @@
  */
 package org.apache.ivy.core.search;
 
+import java.io.ByteArrayInputStream;
 import java.io.File;
 import java.io.IOException;
 import java.text.ParseException;
@@ -29,10 +30,13 @@ import junit.framework.TestCase;
 
 import org.apache.ivy.Ivy;
 import org.apache.ivy.core.IvyPatternHelper;
+import org.apache.ivy.core.module.id.ModuleId;
 import org.apache.ivy.core.module.id.ModuleRevisionId;
 import org.apache.ivy.core.settings.IvySettings;
 import org.apache.ivy.plugins.matcher.PatternMatcher;
+import org.apache.ivy.plugins.resolver.FileSystemResolver;
 import org.apache.ivy.plugins.resolver.IBiblioResolver;
+import org.apache.ivy.util.FileUtil;
 
 public class SearchTest extends TestCase {
     public void testListInMavenRepo() throws Exception {
@@ -90,4 +94,74 @@ public class SearchTest extends TestCase {
         assertTrue(qualifiedExtraAttributes.toString(), qualifiedExtraAttributes.keySet().contains("e:att1"));
         assertTrue(qualifiedExtraAttributes.toString(), qualifiedExtraAttributes.keySet().contains("e:att2"));
     }
+
+    public void testCatalog() throws Exception {
+        File repo = new File("build/test/search/repo");
+        File catalogDir = new File("build/test/search/catalog");
+        try {
+            createModule(repo, "org1", "mod1", "1.0");
+            createModule(repo, "org1", "mod2", "1.0");
+            createModule(repo, "org2", "mod1", "1.0");
+
+            IvySettings settings = new IvySettings();
+            FileSystemResolver resolver = new FileSystemResolver();
+            resolver.setName("test");
+            resolver.setSettings(settings);
+            resolver.addIvyPattern(repo.getAbsolutePath()
+                    + "/[organisation]/[module]/ivy-[revision].xml");
+            settings.addResolver(resolver);
+            settings.setVariable("ivy.search.catalog.dir", catalogDir.getAbsolutePath());
+            settings.setVariable("ivy.search.catalog.ttl", "eternal");
+
+            SearchEngine engine = new SearchEngine(settings);
+            assertEquals(catalogDir.getAbsoluteFile(), engine.getCatalogDir());
+            assertEquals(new HashSet(Arrays.asList(new String[] {"1.0"})),
+                new HashSet(Arrays.asList(engine.listRevisions("org1", "mod1"))));
+            assertEquals(2, engine.listModules(ModuleId.newInstance("org1", "*"),
+                settings.getMatcher(PatternMatcher.GLOB)).length);
+            assertTrue(new File(catalogDir, "test.properties").exists());
+
+            // the catalogue is used, even by another engine, until it is rebuilt
+            createModule(repo, "org1", "mod1", "2.0");
+            createModule(repo, "org1", "mod3", "1.0");
+            SearchEngine first = engine;
+            engine = new SearchEngine(settings);
+            assertEquals(new HashSet(Arrays.asList(new String[] {"1.0"})),
+                new HashSet(Arrays.asList(engine.listRevisions("org1", "mod1"))));
+            assertEquals(2, engine.listModules(ModuleId.newInstance("org1", "*"),
+                settings.getMatcher(PatternMatcher.GLOB)).length);
+
+            engine.rebuildCatalog();
+            ModuleRevisionId[] mrids = engine.listModules(
+                ModuleRevisionId.newInstance("org1", "*", "*", "*"),
+                settings.getMatcher(PatternMatcher.GLOB));
+            assertEquals(new HashSet(Arrays.asList(new ModuleRevisionId[] {
+                    ModuleRevisionId.newInstance("org1", "mod1", "1.0"),
+                    ModuleRevisionId.newInstance("org1", "mod1", "2.0"),
+                    ModuleRevisionId.newInstance("org1", "mod2", "1.0"),
+                    ModuleRevisionId.newInstance("org1", "mod3", "1.0")})),
+                new HashSet(Arrays.asList(mrids)));
+            // the rebuilt catalogue is loaded again by the engine which saved the previous one
+            assertEquals(new HashSet(Arrays.asList(new String[] {"1.0", "2.0"})),
+                new HashSet(Arrays.asList(first.listRevisions("org1", "mod1"))));
+
+            // listings older than the time to live are done again
+            createModule(repo, "org2", "mod1", "2.0");
+            engine.setCatalog(catalogDir, 0);
+            assertEquals(2, engine.findModuleRevisionIds(resolver,
+                ModuleRevisionId.newInstance("org2", "mod1", "*"),
+                settings.getMatcher(PatternMatcher.GLOB)).size());
+        } finally {
+            FileUtil.forceDelete(new File("build/test/search"));
+        }
+    }
+
+    private void createModule(File repo, String org, String module, String revision)
+            throws IOException {
+        File ivyFile = new File(repo, org + "/" + module + "/ivy-" + revision + ".xml");
+        ivyFile.getParentFile().mkdirs();
+        FileUtil.copy(new ByteArrayInputStream(("<ivy-module version=\"2.0\"><info organisation=\""
+                + org + "\" module=\"" + module + "\" revision=\"" + revision
+                + "\"/></ivy-module>").getBytes("UTF-8")), ivyFile, null);
+    }
 }
@@ -20,7 +20,9 @@ package org.apache.ivy.core.sort;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.Date;
+import java.util.HashSet;
 import java.util.Iterator;
 import java.util.List;
 
@@ -39,6 +41,7 @@ import org.apache.ivy.plugins.version.ExactVersionMatcher;
 import org.apache.ivy.plugins.version.LatestVersionMatcher;
 
 public class SortTest extends TestCase {
+    private static final int LONG_CHAIN_LENGTH = 10000;
 
     private DefaultModuleDescriptor md1;
 
@@ -273,6 +276,55 @@ public class SortTest extends TestCase {
         nonMatchingVersionReporterMock.validate();
     }
 
+    /**
+     * Long chains of dependencies must not overflow the stack.
+     */
+    public void testSortLongChain() {
+        DefaultModuleDescriptor[] chain = createChain(LONG_CHAIN_LENGTH);
+
+        List toSort = new ArrayList(Arrays.asList(chain));
+        Collections.reverse(toSort);
+        List sorted = sortModuleDescriptors(toSort, nonMatchReporter);
+
+        assertEquals(Arrays.asList(chain), sorted);
+    }
+
+    public void testLongCircularDependency() {
+        final DefaultModuleDescriptor[] chain = createChain(LONG_CHAIN_LENGTH);
+        addDependency(chain[0], "chain" + (LONG_CHAIN_LENGTH - 1), "1.0");
+
+        final int[] nbOfCall = new int[1];
+        settings.setCircularDependencyStrategy(new CircularDependencyStrategy() {
+            public String getName() {
+                return "CircularDependencyCounter";
+            }
+
+            public void handleCircularDependency(ModuleRevisionId[] mrids) {
+                assertEquals(LONG_CHAIN_LENGTH + 1, mrids.length);
+                assertEquals(mrids[0], mrids[mrids.length - 1]);
+                nbOfCall[0]++;
+            }
+        });
+        List sorted = sortModuleDescriptors(Arrays.asList(chain), nonMatchReporter);
+
+        assertEquals(1, nbOfCall[0]);
+        assertEquals(LONG_CHAIN_LENGTH, new HashSet(sorted).size());
+    }
+
+    /**
+     * Returns modules where each module depends on the previous one.
+     */
+    private DefaultModuleDescriptor[] createChain(int length) {
+        DefaultModuleDescriptor[] chain = new DefaultModuleDescriptor[length];
+        for (int i = 0; i < length; i++) {
+            chain[i] = createModuleDescriptorToSort("chain" + i, "1.0");
+            if (i > 0) {
+                addDependency(chain[i], "chain" + (i - 1), "1.0");
+            }
+        }
+        return chain;
+    }
+
     private List sortModuleDescriptors(List toSort,
             NonMatchingVersionReporter nonMatchingVersionReporter) {
         return sortEngine.sortModuleDescriptors(toSort, 
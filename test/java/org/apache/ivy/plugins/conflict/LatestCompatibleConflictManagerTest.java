@@ -196,6 +196,30 @@ public class LatestCompatibleConflictManagerTest extends TestCase {
         }
     }
 
+    public void testRestartOnlyRevisitsConflictingNodes() throws Exception {
+        fixture
+            .addMD("#A;2-> { #B;[1.0,1.5] #C;[2.0,2.5] #G;1.0 }")
+            .addMD("#B;1.4->#D;1.5")
+            .addMD("#B;1.5->#D;2.0")
+            .addMD("#C;2.5->#D;[1.0,1.6]")
+            .addMD("#D;1.5").addMD("#D;1.6").addMD("#D;2.0")
+            .addMD("#G;1.0-> { #H;1.0 #I;1.0 }")
+            .addMD("#H;1.0-> { #J;1.0 #K;1.0 }")
+            .addMD("#I;1.0-> { #J;1.0 #L;1.0 }")
+            .addMD("#J;1.0").addMD("#K;1.0").addMD("#L;1.0")
+            .init();
+        ResolveReport report = fixture.resolve("#A;2");
+        assertFalse(report.hasError());
+        TestHelper.assertModuleRevisionIds(
+            "#B;1.4, #C;2.5, #D;1.5, #G;1.0, #H;1.0, #I;1.0, #J;1.0, #K;1.0, #L;1.0", 
+            report.getConfigurationReport("default").getModuleRevisionIds());
+
+        // the subgraph of #G isn't concerned by the conflict, and isn't visited again
+        assertEquals(1, report.getRestartCount());
+        // only the root and #C, whose dependencies were being fetched, are visited again
+        assertEquals(2, report.getRevisitedNodeCount());
+    }
+
     private void resolveAndAssert(String mrid, String expectedModuleSet) 
         throws ParseException, IOException {
         ResolveReport report = fixture.resolve(mrid);
@@ -85,6 +85,17 @@ public class LatestRevisionStrategyTest extends TestCase {
         assertEquals(Arrays.asList(revs), shuffled);
     }
 
+    public void testLongNumbersComparator() {
+        ArtifactInfo[] revs = toMockAI(new String[] {"1.0", "1.0.20130101", 
+                "1.999999999999999999", "1.1000000000000000000", "1.1000000000000000001", 
+                "1.9223372036854775807", "2.0"});
+
+        List shuffled = new ArrayList(Arrays.asList(revs));
+        Collections.shuffle(shuffled);
+        Collections.sort(shuffled, new LatestRevisionStrategy().new ArtifactInfoComparator());
+        assertEquals(Arrays.asList(revs), shuffled);
+    }
+
     private static class MockArtifactInfo implements ArtifactInfo {
 
         private long _lastModified;
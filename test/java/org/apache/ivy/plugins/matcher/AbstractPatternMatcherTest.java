@@ -87,6 +87,23 @@ public abstract class AbstractPatternMatcherTest extends TestCase {
         }
     }
 
+    public void testMatcherCache() {
+        AbstractPatternMatcher matcher = (AbstractPatternMatcher) patternMatcher;
+        String expression = "cached.expression." + System.currentTimeMillis();
+
+        long hits = matcher.getCacheHits();
+        long misses = matcher.getCacheMisses();
+        Matcher first = matcher.getMatcher(expression);
+        assertEquals(misses + 1, matcher.getCacheMisses());
+        assertSame(first, matcher.getMatcher(expression));
+        assertEquals(hits + 1, matcher.getCacheHits());
+
+        matcher.clearCache();
+        assertEquals(0, matcher.getCacheHits());
+        assertNotSame(first, matcher.getMatcher(expression));
+        assertEquals(1, matcher.getCacheMisses());
+    }
+
     public abstract void testImplementation();
 
     public void testLoadTestMatches() {
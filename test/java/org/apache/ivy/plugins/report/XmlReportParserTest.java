@@ -18,14 +18,18 @@
 package org.apache.ivy.plugins.report;
 
 import java.io.File;
+import java.util.Arrays;
 
 import junit.framework.TestCase;
 
 import org.apache.ivy.Ivy;
 import org.apache.ivy.core.cache.DefaultResolutionCacheManager;
 import org.apache.ivy.core.module.id.ModuleRevisionId;
+import org.apache.ivy.core.report.ArtifactDownloadReport;
+import org.apache.ivy.core.report.MetadataArtifactDownloadReport;
 import org.apache.ivy.core.report.ResolveReport;
 import org.apache.ivy.core.resolve.ResolveOptions;
+import org.apache.ivy.util.FileUtil;
 import org.apache.tools.ant.Project;
 import org.apache.tools.ant.taskdefs.Delete;
 
@@ -73,6 +77,85 @@ public class XmlReportParserTest extends TestCase {
         assertEquals("Resolved module doesn't equals parsed module", modRevId, parsedModRevId);
     }
 
+    public void testBinaryReport() throws Exception {
+        _ivy.resolve(new File("test/repositories/1/org6/mod6.2/ivys/ivy-0.7.xml").toURL(),
+            getResolveOptions(new String[] {"default"}).setResolveId("testBinaryReport"));
+
+        File xmlReport = _ivy.getResolutionCacheManager().getConfigurationResolveReportInCache(
+            "testBinaryReport", "default");
+        File binaryReport = XmlReportParser.getBinaryReportFile(xmlReport);
+        assertTrue(binaryReport.exists());
+
+        XmlReportParser binaryParser = new XmlReportParser();
+        binaryParser.parse(xmlReport);
+
+        assertTrue(binaryReport.delete());
+        XmlReportParser xmlParser = new XmlReportParser();
+        xmlParser.parse(xmlReport);
+
+        assertEquals(xmlParser.getResolvedModule(), binaryParser.getResolvedModule());
+        assertEquals(xmlParser.hasError(), binaryParser.hasError());
+        assertEquals(Arrays.asList(xmlParser.getDependencyRevisionIds()), 
+            Arrays.asList(binaryParser.getDependencyRevisionIds()));
+        assertEquals(Arrays.asList(xmlParser.getRealDependencyRevisionIds()), 
+            Arrays.asList(binaryParser.getRealDependencyRevisionIds()));
+        assertEquals(Arrays.asList(xmlParser.getArtifacts()), 
+            Arrays.asList(binaryParser.getArtifacts()));
+
+        ArtifactDownloadReport[] xmlReports = xmlParser.getArtifactReports();
+        ArtifactDownloadReport[] binaryReports = binaryParser.getArtifactReports();
+        assertTrue(xmlReports.length > 0);
+        assertEquals(xmlReports.length, binaryReports.length);
+        for (int i = 0; i < xmlReports.length; i++) {
+            assertEquals(xmlReports[i].getArtifact(), binaryReports[i].getArtifact());
+            assertEquals(xmlReports[i].getDownloadStatus(), binaryReports[i].getDownloadStatus());
+            assertEquals(xmlReports[i].getArtifact().getPublicationDate(), 
+                binaryReports[i].getArtifact().getPublicationDate());
+            assertEquals(xmlReports[i].getDownloadDetails(), 
+                binaryReports[i].getDownloadDetails());
+            assertEquals(xmlReports[i].getDownloadTimeMillis(), 
+                binaryReports[i].getDownloadTimeMillis());
+            assertEquals(xmlReports[i].getSize(), binaryReports[i].getSize());
+            assertEquals(xmlReports[i].getLocalFile(), binaryReports[i].getLocalFile());
+            assertEquals(xmlReports[i].getArtifactOrigin(), 
+                binaryReports[i].getArtifactOrigin());
+        }
+
+        ModuleRevisionId[] realMrids = xmlParser.getRealDependencyRevisionIds();
+        for (int i = 0; i < realMrids.length; i++) {
+            MetadataArtifactDownloadReport xmlMadr = 
+                xmlParser.getMetadataArtifactReport(realMrids[i]);
+            MetadataArtifactDownloadReport binaryMadr = 
+                binaryParser.getMetadataArtifactReport(realMrids[i]);
+            assertEquals(xmlMadr.getArtifact().getId(), binaryMadr.getArtifact().getId());
+            assertEquals(xmlMadr.getDownloadStatus(), binaryMadr.getDownloadStatus());
+            assertEquals(xmlMadr.getSize(), binaryMadr.getSize());
+            assertEquals(xmlMadr.getLocalFile(), binaryMadr.getLocalFile());
+            assertEquals(xmlMadr.getOriginalLocalFile(), binaryMadr.getOriginalLocalFile());
+            assertEquals(xmlMadr.isSearched(), binaryMadr.isSearched());
+            assertEquals(xmlMadr.getArtifactOrigin(), binaryMadr.getArtifactOrigin());
+        }
+    }
+
+    public void testOutOfDateBinaryReport() throws Exception {
+        _ivy.resolve(new File("test/repositories/1/org6/mod6.2/ivys/ivy-0.7.xml").toURL(),
+            getResolveOptions(new String[] {"default"}).setResolveId("testBinaryReport"));
+
+        File xmlReport = _ivy.getResolutionCacheManager().getConfigurationResolveReportInCache(
+            "testBinaryReport", "default");
+        File binaryReport = XmlReportParser.getBinaryReportFile(xmlReport);
+
+        // the binary report is ignored as soon as the xml report has changed
+        FileUtil.copy(new File("test/java/org/apache/ivy/plugins/report/ivy-635.xml"), 
+            binaryReport, null, true);
+        xmlReport.setLastModified(xmlReport.lastModified() - 10000);
+
+        XmlReportParser parser = new XmlReportParser();
+        parser.parse(xmlReport);
+        assertEquals(ModuleRevisionId.newInstance("org6", "mod6.2", "0.7"), 
+            parser.getResolvedModule());
+    }
+
     private ResolveOptions getResolveOptions(String[] confs) {
         return new ResolveOptions().setConfs(confs);
     }
@@ -0,0 +1,89 @@
+/*
+ *  Licensed to the Apache Software Foundation (ASF) under one or more
+ *  contributor license agreements.  See the NOTICE file distributed with
+ *  this work for additional information regarding copyright ownership.
+ *  The ASF licenses this file to You under the Apache License, Version 2.0
+ *  (the "License"); you may not use this file except in compliance with
+ *  the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ */
+package org.apache.ivy.util;
+
+import junit.framework.TestCase;
+
+public class WeakInternerTest extends TestCase {
+    private static final int NB_THREADS = 8;
+
+    private static final int NB_VALUES = 2000;
+
+    public void testIntern() {
+        WeakInterner interner = new WeakInterner();
+        String s1 = new String("value");
+        String s2 = new String("value");
+
+        assertSame(s1, interner.intern(s1));
+        assertSame(s1, interner.intern(s2));
+        assertSame(s1, interner.intern(s1));
+        assertEquals(1, interner.size());
+    }
+
+    public void testCollectedInstancesAreReleased() throws Exception {
+        WeakInterner interner = new WeakInterner();
+        for (int i = 0; i < NB_VALUES; i++) {
+            interner.intern(new String("value" + i));
+        }
+        for (int i = 0; i < 10 && interner.size() > 0; i++) {
+            System.gc();
+            Thread.sleep(50);
+        }
+        assertEquals(0, interner.size());
+
+        // a new instance becomes canonical once the previous one has been collected
+        String s = new String("value0");
+        assertSame(s, interner.intern(s));
+    }
+
+    public void testConcurrentIntern() throws Exception {
+        final WeakInterner interner = new WeakInterner();
+        final Object[][] results = new Object[NB_THREADS][NB_VALUES];
+        final Throwable[] failure = new Throwable[1];
+        Thread[] threads = new Thread[NB_THREADS];
+        for (int t = 0; t < NB_THREADS; t++) {
+            final int thread = t;
+            threads[t] = new Thread() {
+                public void run() {
+                    try {
+                        for (int i = 0; i < NB_VALUES; i++) {
+                            int value = (i + thread * 7) % NB_VALUES;
+                            results[thread][value] = interner.intern(new String("value" + value));
+                        }
+                    } catch (Throwable e) {
+                        failure[0] = e;
+                    }
+                }
+            };
+        }
+        for (int t = 0; t < NB_THREADS; t++) {
+            threads[t].start();
+        }
+        for (int t = 0; t < NB_THREADS; t++) {
+            threads[t].join();
+        }
+        assertNull(failure[0]);
+
+        for (int i = 0; i < NB_VALUES; i++) {
+            for (int t = 1; t < NB_THREADS; t++) {
+                assertSame(results[0][i], results[t][i]);
+            }
+        }
+        assertEquals(NB_VALUES, interner.size());
+    }
+}